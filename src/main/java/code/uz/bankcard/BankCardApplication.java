@@ -2,8 +2,10 @@ package code.uz.bankcard;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class BankCardApplication {
 
     public static void main(String[] args) {
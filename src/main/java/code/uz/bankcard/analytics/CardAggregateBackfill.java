@@ -0,0 +1,88 @@
+package code.uz.bankcard.analytics;
+
+import code.uz.bankcard.repository.CardMonthlyAggregateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adds the transactions written before {@code card_monthly_aggregate} existed.
+ * <p>
+ * They are split into id ranges when the table is created. Workers each lock a pending range
+ * with {@code FOR UPDATE SKIP LOCKED}, sum it with one grouped insert and mark it done in the same
+ * transaction, so every range is added exactly once however many workers and nodes run. A range
+ * that fails is left pending for the next run.
+ * </p>
+ */
+@Slf4j
+@Component
+public class CardAggregateBackfill {
+
+    private final CardMonthlyAggregateRepository aggregateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int parallelism;
+
+    public CardAggregateBackfill(CardMonthlyAggregateRepository aggregateRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${app.analytics.backfill.parallelism:4}") int parallelism) {
+        this.aggregateRepository = aggregateRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Backfill the pending ranges with {@code parallelism} workers.
+     *
+     * @return number of ranges added by this node
+     */
+    public int run() throws InterruptedException {
+        if (!aggregateRepository.hasPendingBackfill()) return 0;
+
+        AtomicInteger done = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "card-aggregate-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                futures.add(workers.submit(() -> {
+                    while (backfillNext()) done.incrementAndGet();
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.error("Card aggregate backfill worker failed", e.getCause());
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        if (done.get() > 0) log.info("Backfilled {} card aggregate ranges", done.get());
+        return done.get();
+    }
+
+    /**
+     * @return {@code false} once no pending range is left unlocked
+     */
+    boolean backfillNext() {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            int[] chunk = aggregateRepository.lockPendingBackfill();
+            if (chunk == null) return false;
+            aggregateRepository.backfill(chunk[0], chunk[1]);
+            return true;
+        }));
+    }
+}
@@ -0,0 +1,73 @@
+package code.uz.bankcard.analytics;
+
+import code.uz.bankcard.entity.TransactionEntity;
+import code.uz.bankcard.repository.CardMonthlyAggregateRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Adds saved SUCCESS transfers to {@code card_monthly_aggregate}.
+ * <p>
+ * Called inside the transfer's own transaction, so the aggregates change exactly when the
+ * transfer commits. A transfer is an outflow of the source card to the recipient and an inflow
+ * of the recipient from the source card, each in its card's currency. Aggregates are kept per
+ * counterparty, so the many payers of a busy card update different rows and do not queue on one.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class SpendingAggregator {
+
+    // the order of Postgres: uuids compare as unsigned bytes, UUID.compareTo as signed longs
+    private static final Comparator<UUID> UUID_ORDER = Comparator
+            .<UUID, Long>comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::cardId, UUID_ORDER)
+            .thenComparing(Key::month)
+            .thenComparing(Key::counterpartyCardId, UUID_ORDER);
+
+    private final CardMonthlyAggregateRepository aggregateRepository;
+
+    public void record(TransactionEntity transaction) {
+        record(List.of(transaction));
+    }
+
+    /**
+     * Add several transfers with one batched upsert. Must run in the transaction that saved them.
+     */
+    public void record(List<TransactionEntity> transactions) {
+        if (transactions.isEmpty()) return;
+
+        // merged per row and sorted by primary key, see CardMonthlyAggregateRepository
+        Map<Key, CardMonthlyAggregateRepository.Delta> deltas = new TreeMap<>(KEY_ORDER);
+        for (TransactionEntity transaction : transactions) {
+            UUID from = transaction.getFromCardId().getId();
+            UUID to = transaction.getToCardId().getId();
+            LocalDate month = transaction.getSentDate().toLocalDate().withDayOfMonth(1);
+            merge(deltas, new CardMonthlyAggregateRepository.Delta(from, month, to,
+                    BigDecimal.ZERO, transaction.getAmount().toBigDecimal(), 0, 1));
+            merge(deltas, new CardMonthlyAggregateRepository.Delta(to, month, from,
+                    transaction.getCreditedAmount().toBigDecimal(), BigDecimal.ZERO, 1, 0));
+        }
+        aggregateRepository.add(new ArrayList<>(deltas.values()));
+    }
+
+    private static void merge(Map<Key, CardMonthlyAggregateRepository.Delta> deltas, CardMonthlyAggregateRepository.Delta delta) {
+        deltas.merge(new Key(delta.cardId(), delta.month(), delta.counterpartyCardId()), delta,
+                (a, b) -> new CardMonthlyAggregateRepository.Delta(a.cardId(), a.month(), a.counterpartyCardId(),
+                        a.inflow().add(b.inflow()), a.outflow().add(b.outflow()),
+                        a.inflowCount() + b.inflowCount(), a.outflowCount() + b.outflowCount()));
+    }
+
+    private record Key(UUID cardId, LocalDate month, UUID counterpartyCardId) {
+    }
+}
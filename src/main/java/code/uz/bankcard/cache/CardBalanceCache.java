@@ -0,0 +1,58 @@
+package code.uz.bankcard.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * In-process cache of {@code cardId -> CardCacheEntry} used by the balance endpoint.
+ * <p>
+ * Entries are bounded by size and expire after a fixed time since they were written,
+ * so a missed invalidation can never keep a stale balance forever.
+ * Writers evict entries after their transaction commits (see {@link CardCacheSynchronizer}); the
+ * next read loads the committed row. Entries are never overwritten with a balance carried by an
+ * event, since listeners of two commits on the same card may run in either order.
+ * </p>
+ */
+@Component
+public class CardBalanceCache {
+
+    private final Cache<UUID, CardCacheEntry> cache;
+
+    public CardBalanceCache(@Value("${app.card-cache.max-size:100000}") long maxSize,
+                            @Value("${app.card-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Return the cached entry, loading it with {@code loader} on a miss.
+     * <p>
+     * The load runs atomically for the key, so a concurrent {@link #evict(UUID)} waits for it
+     * and removes the loaded value, which may predate the commit that evicted it.
+     * </p>
+     */
+    public CardCacheEntry get(UUID cardId, Function<UUID, CardCacheEntry> loader) {
+        return cache.get(cardId, loader);
+    }
+
+    public void evict(UUID cardId) {
+        cache.invalidate(cardId);
+    }
+
+    public void evictAll(Collection<UUID> cardIds) {
+        cache.invalidateAll(cardIds);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,28 @@
+package code.uz.bankcard.cache;
+
+import code.uz.bankcard.enums.CardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of the card fields needed to answer a balance request.
+ */
+@Getter
+@AllArgsConstructor
+public class CardCacheEntry {
+    private final UUID ownerId;
+    private final String ownerName;
+    private final String maskedNumber;
+    private final BigDecimal balance;
+    private final String currency;
+    private final CardStatus status;
+    private final LocalDateTime expiryDate;
+
+    public CardCacheEntry withStatus(CardStatus status) {
+        return new CardCacheEntry(ownerId, ownerName, maskedNumber, balance, currency, status, expiryDate);
+    }
+}
@@ -0,0 +1,101 @@
+package code.uz.bankcard.cache;
+
+import code.uz.bankcard.event.CardChangedEvent;
+import code.uz.bankcard.event.CardsInvalidatedEvent;
+import code.uz.bankcard.event.PgNotificationBus;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps {@link CardBalanceCache} consistent with the database.
+ * <p>
+ * Changed cards are evicted from the local cache after commit. Other nodes are told to evict them
+ * through Postgres {@code NOTIFY}; the message is sent before commit so it shares the
+ * fate of the transaction that changed the card.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class CardCacheSynchronizer implements PgNotificationBus.Listener {
+
+    public static final String CHANNEL = "card_changed";
+    /**
+     * NOTIFY payloads are limited to 8000 bytes; stay well below it.
+     */
+    private static final int IDS_PER_MESSAGE = 150;
+
+    private final CardBalanceCache cache;
+    private final PgNotificationBus notificationBus;
+
+    @PostConstruct
+    void subscribe() {
+        notificationBus.subscribe(CHANNEL, this);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void notifyNodes(CardChangedEvent event) {
+        publish(List.of(event.getCardId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void notifyNodes(CardsInvalidatedEvent event) {
+        publish(event.getCardIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardChanged(CardChangedEvent event) {
+        // evicted rather than overwritten: after-commit listeners of the same card run in any order
+        cache.evict(event.getCardId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardsInvalidated(CardsInvalidatedEvent event) {
+        cache.evictAll(event.getCardIds());
+    }
+
+    @Override
+    public void onNotification(String payload) {
+        List<UUID> ids = changedCardIds(payload, notificationBus.getNodeId());
+        if (!ids.isEmpty()) cache.evictAll(ids);
+    }
+
+    /**
+     * Card ids of a {@link #CHANNEL} message sent by another node; empty for messages of the node {@code nodeId}.
+     */
+    public static List<UUID> changedCardIds(String payload, String nodeId) {
+        int separator = payload.indexOf(':');
+        if (separator < 0 || payload.startsWith(nodeId)) return List.of();
+
+        List<UUID> ids = new ArrayList<>();
+        for (String id : payload.substring(separator + 1).split(",")) {
+            ids.add(UUID.fromString(id));
+        }
+        return ids;
+    }
+
+    @Override
+    public void onReconnect() {
+        cache.clear();
+    }
+
+    private void publish(Collection<UUID> cardIds) {
+        List<UUID> ids = new ArrayList<>(cardIds);
+        for (int from = 0; from < ids.size(); from += IDS_PER_MESSAGE) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + IDS_PER_MESSAGE, ids.size()));
+            StringBuilder payload = new StringBuilder(notificationBus.getNodeId()).append(':');
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i > 0) payload.append(',');
+                payload.append(chunk.get(i));
+            }
+            notificationBus.notify(CHANNEL, payload.toString());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package code.uz.bankcard.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over all issued card numbers.
+ * <p>
+ * Lets card issuance skip the database uniqueness check for candidates that are certainly new.
+ * A positive answer may be false, so callers still rely on the unique index on {@code card.card_number}.
+ * Until {@link #isLoaded()} the filter only knows numbers added since startup.
+ * </p>
+ */
+@Slf4j
+@Component
+public class CardNumberBloomFilter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean loaded;
+
+    public CardNumberBloomFilter(JdbcTemplate jdbcTemplate,
+                                 @Value("${app.card-issue.bloom.expected-size:1000000}") long expectedSize,
+                                 @Value("${app.card-issue.bloom.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        long optimalBits = (long) Math.ceil(-expectedSize * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedSize * Math.log(2)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long[] count = new long[1];
+        jdbcTemplate.query("select card_number from card where card_number is not null", rs -> {
+            put(rs.getString(1));
+            count[0]++;
+        });
+        loaded = true;
+        log.info("Card number bloom filter loaded with {} numbers", count[0]);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public boolean mightContain(String cardNumber) {
+        long hash = hash(cardNumber);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) return false;
+        }
+        return true;
+    }
+
+    public void put(String cardNumber) {
+        long hash = hash(cardNumber);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = Math.floorMod(h1 + (long) i * h2, bitCount);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) break;
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a followed by a murmur3 finalizer for good bit dispersion.
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -3,9 +3,15 @@ package code.uz.bankcard.controller;
 
 import code.uz.bankcard.dto.AppResponse;
 import code.uz.bankcard.dto.card.CardAdminUpdateDTO;
+import code.uz.bankcard.dto.card.CardBalanceAtDTO;
+import code.uz.bankcard.dto.card.CardBulkIssueDTO;
+import code.uz.bankcard.dto.card.CardBulkIssueResponseDTO;
+import code.uz.bankcard.dto.card.CardBulkStatusDTO;
+import code.uz.bankcard.dto.card.CardLimitDTO;
 import code.uz.bankcard.dto.card.CardResponseDTO;
 import code.uz.bankcard.dto.card.CardStatusDTO;
 import code.uz.bankcard.service.Impl.CardServiceImpl;
+import code.uz.bankcard.service.Impl.LedgerServiceImpl;
 import code.uz.bankcard.util.PageUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,11 +19,13 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 /**
@@ -34,6 +42,10 @@ import java.util.UUID;
  *     <li>Retrieve card details by ID</li>
  *     <li>Update card information</li>
  *     <li>Change card status (ACTIVE/BLOCKED)</li>
+ *     <li>Bulk issue cards for a profile</li>
+ *     <li>Review pending block requests and change statuses in bulk</li>
+ *     <li>Look up the ledger balance of a card at a past moment</li>
+ *     <li>Set daily and monthly spending limits</li>
  * </ul>
  *
  * @author Nodir
@@ -49,6 +61,7 @@ import java.util.UUID;
 @Slf4j
 public class AdminCardController {
     private final CardServiceImpl cardService;
+    private final LedgerServiceImpl ledgerService;
 
 
     @PutMapping("/{cardId}")
@@ -94,4 +107,74 @@ public class AdminCardController {
         log.info("Card status changed with id: {}", cardId);
         return ResponseEntity.ok(cardService.changeStatus(cardId, dto.getStatus()));
     }
+
+    @PutMapping("/{cardId}/balance-sharding")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(
+            summary = "Turn balance sharding of a card on or off",
+            description = "Credits to a sharded card are spread over several balance rows, for cards with many incoming payments"
+    )
+    public ResponseEntity<AppResponse<String>> changeBalanceSharding(@PathVariable("cardId") UUID cardId,
+                                                                     @RequestParam("enabled") boolean enabled) {
+        log.info("Balance sharding of card {} set to {}", cardId, enabled);
+        return ResponseEntity.ok(cardService.changeBalanceSharding(cardId, enabled));
+    }
+
+    @PutMapping("/{cardId}/limits")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(
+            summary = "Set spending limits of a card",
+            description = "Sets the daily and monthly outbound limits; an empty limit removes it"
+    )
+    public ResponseEntity<AppResponse<String>> changeSpendLimits(@PathVariable("cardId") UUID cardId,
+                                                                 @RequestBody @Valid CardLimitDTO dto) {
+        log.info("Spending limits of card {} changed", cardId);
+        return ResponseEntity.ok(cardService.changeSpendLimits(cardId, dto));
+    }
+
+    @PostMapping("/bulk-issue")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(
+            summary = "Bulk issue cards",
+            description = "Allows an admin to issue many cards with generated card numbers for one profile"
+    )
+    public ResponseEntity<CardBulkIssueResponseDTO> bulkIssue(@RequestBody @Valid CardBulkIssueDTO dto) {
+        log.info("Bulk issue of {} cards for profile: {}", dto.getCount(), dto.getProfileId());
+        return ResponseEntity.ok(cardService.bulkIssue(dto));
+    }
+
+    @GetMapping("/block-requests")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(
+            summary = "Get pending block requests",
+            description = "Returns cards waiting for block approval, oldest request first"
+    )
+    public ResponseEntity<Page<CardResponseDTO>> getBlockRequests(
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(cardService.getBlockRequests(PageUtil.getCurrentPage(page), size));
+    }
+
+    @PutMapping("/status/bulk")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(
+            summary = "Change status of many cards",
+            description = "This API allows admin to change status of up to 1000 cards at once"
+    )
+    public ResponseEntity<AppResponse<Integer>> changeStatusBulk(@RequestBody @Valid CardBulkStatusDTO dto) {
+        log.info("Bulk status change to {} for {} cards", dto.getStatus(), dto.getCardIds().size());
+        return ResponseEntity.ok(cardService.changeStatusBulk(dto));
+    }
+
+    @GetMapping("/{cardId}/balance-at")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(
+            summary = "Get card balance at a moment",
+            description = "Returns the ledger balance of a card at the given time, computed from the nearest snapshot"
+    )
+    public ResponseEntity<CardBalanceAtDTO> getBalanceAt(@PathVariable UUID cardId,
+                                                         @RequestParam("at") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(ledgerService.getBalanceAt(cardId, at));
+    }
 }
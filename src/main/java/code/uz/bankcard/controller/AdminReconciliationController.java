@@ -0,0 +1,79 @@
+package code.uz.bankcard.controller;
+
+import code.uz.bankcard.dto.reconciliation.ReconciliationMismatchDTO;
+import code.uz.bankcard.dto.reconciliation.ReconciliationRunDTO;
+import code.uz.bankcard.service.Impl.ReconciliationServiceImpl;
+import code.uz.bankcard.util.PageUtil;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller for ledger-vs-balance reconciliation.
+ * <p>
+ * Lets admins start a reconciliation run on demand (it also runs nightly),
+ * follow its progress and read the cards whose balance does not match.
+ * All APIs under this controller require the ROLE_ADMIN authority.
+ * </p>
+ *
+ * <p>Features:</p>
+ * <ul>
+ *     <li>Start a reconciliation run</li>
+ *     <li>View runs and the progress of the current one</li>
+ *     <li>View mismatched cards of a run</li>
+ * </ul>
+ */
+@RestController
+@RequestMapping("/api/v1/admin/reconciliation")
+@RequiredArgsConstructor
+@EnableMethodSecurity
+@Tag(name = "Admin Reconciliation", description = "APIs for admins to reconcile card balances")
+@Slf4j
+public class AdminReconciliationController {
+    private final ReconciliationServiceImpl reconciliationService;
+
+    @PostMapping
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(
+            summary = "Start reconciliation",
+            description = "Starts a background check of every card balance against its opening balance and SUCCESS transactions"
+    )
+    public ResponseEntity<ReconciliationRunDTO> start() {
+        log.info("Reconciliation started by admin");
+        return ResponseEntity.ok(reconciliationService.start());
+    }
+
+    @GetMapping("/list")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Get reconciliation runs", description = "Returns reconciliation runs, newest first")
+    public ResponseEntity<Page<ReconciliationRunDTO>> getRuns(
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(reconciliationService.getRuns(PageUtil.getCurrentPage(page), size));
+    }
+
+    @GetMapping("/{runId}")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Get reconciliation run", description = "Returns a run with live progress while it is running")
+    public ResponseEntity<ReconciliationRunDTO> getRun(@PathVariable Long runId) {
+        return ResponseEntity.ok(reconciliationService.getRun(runId));
+    }
+
+    @GetMapping("/{runId}/mismatches")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Get mismatched cards", description = "Returns cards whose balance did not match in the given run")
+    public ResponseEntity<Page<ReconciliationMismatchDTO>> getMismatches(
+            @PathVariable Long runId,
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "50") int size
+    ) {
+        return ResponseEntity.ok(reconciliationService.getMismatches(runId, PageUtil.getCurrentPage(page), size));
+    }
+}
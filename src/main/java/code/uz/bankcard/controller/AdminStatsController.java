@@ -0,0 +1,39 @@
+package code.uz.bankcard.controller;
+
+import code.uz.bankcard.dto.stats.AdminStatsDTO;
+import code.uz.bankcard.service.Impl.AdminStatsServiceImpl;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for the admin dashboard statistics.
+ * <p>
+ * Counts are kept in memory and rebuilt from the database periodically, so the dashboard
+ * can be polled freely. All APIs under this controller require the ROLE_ADMIN authority.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/v1/admin/stats")
+@RequiredArgsConstructor
+@EnableMethodSecurity
+@Tag(name = "Admin Statistics", description = "APIs for the admin dashboard")
+public class AdminStatsController {
+    private final AdminStatsServiceImpl adminStatsService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(
+            summary = "Get dashboard statistics",
+            description = "Returns cards per status, profiles per status and today's transfer volume and failure rate"
+    )
+    public ResponseEntity<AdminStatsDTO> getStats() {
+        return ResponseEntity.ok(adminStatsService.getStats());
+    }
+}
@@ -13,10 +13,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.UUID;
 
@@ -36,6 +38,7 @@ import java.util.UUID;
  *     <li>Delete a card (soft delete)</li>
  *     <li>Filter cards using various criteria</li>
  *     <li>View card balance</li>
+ *     <li>Stream live card updates</li>
  *     <li>Request card block</li>
  * </ul>
  *
@@ -140,6 +143,18 @@ public class CardController {
         return ResponseEntity.ok(cardService.getBalance(cardId));
     }
 
+    /**
+     * Stream balance and status changes of the user's cards as Server-Sent Events.
+     * The current state of every card is sent first, as {@code card} events.
+     *
+     * @return open event stream
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream card updates", description = "Pushes balance and status changes of the user's cards")
+    public SseEmitter stream() {
+        return cardService.stream();
+    }
+
     /**
      * Request to block a card.
      *
@@ -0,0 +1,51 @@
+package code.uz.bankcard.controller;
+
+import code.uz.bankcard.dto.fx.FxRateDTO;
+import code.uz.bankcard.service.Impl.FxRateServiceImpl;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controller for the exchange rates used by cross-currency transfers.
+ * <p>
+ * Provides endpoints for:
+ * <ul>
+ *     <li>Users to view the current rates</li>
+ *     <li>Admins to set the rate of a currency pair</li>
+ * </ul>
+ */
+@RestController
+@RequestMapping("/api/v1/fx-rate")
+@RequiredArgsConstructor
+@EnableMethodSecurity
+@Tag(name = "Exchange Rates", description = "APIs for exchange rates of cross-currency transfers")
+@Slf4j
+public class FxRateController {
+    private final FxRateServiceImpl fxRateService;
+
+    @GetMapping
+    @Operation(summary = "Get exchange rates", description = "Returns the rates cross-currency transfers are converted with")
+    public ResponseEntity<List<FxRateDTO>> getRates() {
+        return ResponseEntity.ok(fxRateService.getRates());
+    }
+
+    @PutMapping("/admin")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(
+            summary = "Set exchange rate",
+            description = "Creates or replaces the rate of a currency pair; every node uses it right away"
+    )
+    public ResponseEntity<FxRateDTO> updateRate(@RequestBody @Valid FxRateDTO dto) {
+        log.info("Exchange rate update: {}/{} = {}", dto.getBaseCurrency(), dto.getQuoteCurrency(), dto.getRate());
+        return ResponseEntity.ok(fxRateService.updateRate(dto));
+    }
+}
@@ -0,0 +1,86 @@
+package code.uz.bankcard.controller;
+
+import code.uz.bankcard.dto.AppResponse;
+import code.uz.bankcard.dto.hold.HoldCaptureDTO;
+import code.uz.bankcard.dto.hold.HoldCreateDTO;
+import code.uz.bankcard.dto.hold.HoldResponseDTO;
+import code.uz.bankcard.service.Impl.HoldServiceImpl;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * Controller class for two-phase payments.
+ * <p>
+ * Provides endpoints for:
+ * <ul>
+ *     <li>Reserving funds on a card (authorization hold)</li>
+ *     <li>Capturing a hold, fully or partially, into a transfer</li>
+ *     <li>Voiding a hold</li>
+ * </ul>
+ * Users work with holds on their own cards, admins with holds on any card.
+ * Holds that are neither captured nor voided expire after {@code app.hold.ttl}.
+ */
+@RestController
+@RequestMapping("/api/v1/hold")
+@RequiredArgsConstructor
+@Tag(name = "Holds", description = "APIs for authorization holds")
+@Slf4j
+public class HoldController {
+
+    private final HoldServiceImpl holdService;
+
+    /**
+     * Reserves funds for a later capture.
+     *
+     * @param dto HoldCreateDTO containing source card, destination card, and amount
+     * @return ResponseEntity containing the new hold and the remaining available balance
+     */
+    @PostMapping
+    @Operation(
+            summary = "Place a hold",
+            description = "Reserves the amount on the source card; it stops counting as available balance."
+    )
+    public ResponseEntity<HoldResponseDTO> hold(@RequestBody @Valid HoldCreateDTO dto) {
+        log.info("Hold request: {} -> {}", dto.getFromCardId(), dto.getToCardId());
+        return ResponseEntity.ok(holdService.hold(dto));
+    }
+
+    /**
+     * Captures a hold into a transfer to its destination card.
+     *
+     * @param holdId ID of the hold
+     * @param dto    optional amount; the whole hold is captured when omitted
+     * @return ResponseEntity containing the captured hold and its transaction id
+     */
+    @PostMapping("/{holdId}/capture")
+    @Operation(
+            summary = "Capture a hold",
+            description = "Transfers the held amount, or a smaller part of it, and releases the hold."
+    )
+    public ResponseEntity<HoldResponseDTO> capture(@PathVariable UUID holdId,
+                                                   @RequestBody(required = false) @Valid HoldCaptureDTO dto) {
+        return ResponseEntity.ok(holdService.capture(holdId, dto));
+    }
+
+    /**
+     * Cancels a hold.
+     *
+     * @param holdId ID of the hold
+     * @return ResponseEntity containing a confirmation message
+     */
+    @PostMapping("/{holdId}/void")
+    @Operation(
+            summary = "Void a hold",
+            description = "Releases the held amount back to the available balance."
+    )
+    public ResponseEntity<AppResponse<String>> voidHold(@PathVariable UUID holdId) {
+        return ResponseEntity.ok(holdService.voidHold(holdId));
+    }
+}
@@ -1,11 +1,13 @@
 package code.uz.bankcard.controller;
 
 import code.uz.bankcard.dto.AppResponse;
+import code.uz.bankcard.dto.ProfileNameDTO;
 import code.uz.bankcard.dto.ProfileStatusDTO;
 import code.uz.bankcard.dto.auth.ProfileResponseDTO;
 import code.uz.bankcard.service.Impl.ProfileServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -29,6 +31,7 @@ import java.util.UUID;
  *     <li>Get all profiles</li>
  *     <li>Get profile by ID</li>
  *     <li>Change profile status (ACTIVE/BLOCKED)</li>
+ *     <li>Rename profile</li>
  *     <li>Delete profile (soft delete)</li>
  * </ul>
  *
@@ -90,6 +93,21 @@ public class ProfileController {
         return ResponseEntity.ok(profileService.changeStatus(profileId, dto.getStatus()));
     }
 
+    /**
+     * Rename a profile. Owner name shown on its cards follows the new name.
+     *
+     * @param profileId UUID of the profile
+     * @param dto       DTO containing new name
+     * @return updated ProfileResponseDTO
+     */
+    @PutMapping("/name/{profileId}")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Rename profile", description = "This API allows admin to change the name of a profile")
+    public ResponseEntity<ProfileResponseDTO> updateName(@PathVariable("profileId") UUID profileId,
+                                                         @RequestBody @Valid ProfileNameDTO dto) {
+        return ResponseEntity.ok(profileService.updateName(profileId, dto.getName()));
+    }
+
     /**
      * Delete a profile (soft delete).
      *
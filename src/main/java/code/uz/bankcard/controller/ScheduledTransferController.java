@@ -0,0 +1,80 @@
+package code.uz.bankcard.controller;
+
+import code.uz.bankcard.dto.AppResponse;
+import code.uz.bankcard.dto.transaction.ScheduledTransferCreateDTO;
+import code.uz.bankcard.dto.transaction.ScheduledTransferResponseDTO;
+import code.uz.bankcard.service.Impl.ScheduledTransferServiceImpl;
+import code.uz.bankcard.util.PageUtil;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * Controller class for standing orders.
+ * <p>
+ * Provides endpoints for users to create, view and cancel one-off and recurring transfers
+ * from their own cards. Due orders are executed in the background.
+ */
+@RestController
+@RequestMapping("/api/v1/transaction/scheduled")
+@RequiredArgsConstructor
+@Tag(name = "Scheduled transfers", description = "APIs for standing orders")
+public class ScheduledTransferController {
+
+    private final ScheduledTransferServiceImpl scheduledTransferService;
+
+    /**
+     * Creates a standing order.
+     *
+     * @param dto ScheduledTransferCreateDTO containing cards, amount, first run time and recurrence
+     * @return ResponseEntity containing the created order
+     */
+    @PostMapping
+    @Operation(
+            summary = "Create scheduled transfer",
+            description = "Schedules a one-off or recurring (daily, weekly, monthly) transfer from the user's own card."
+    )
+    public ResponseEntity<ScheduledTransferResponseDTO> create(@RequestBody @Valid ScheduledTransferCreateDTO dto) {
+        return ResponseEntity.ok(scheduledTransferService.create(dto));
+    }
+
+    /**
+     * Retrieves the standing orders of the logged-in user.
+     *
+     * @param page Page number (default is 1)
+     * @param size Number of records per page (default is 10)
+     * @return ResponseEntity containing a paginated list of orders
+     */
+    @GetMapping
+    @Operation(
+            summary = "View scheduled transfers",
+            description = "Lists the user's standing orders with the outcome of their last run"
+    )
+    public ResponseEntity<Page<ScheduledTransferResponseDTO>> getAll(
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size
+    ) {
+        return ResponseEntity.ok(scheduledTransferService.getAll(PageUtil.getCurrentPage(page), size));
+    }
+
+    /**
+     * Cancels a standing order.
+     *
+     * @param id ID of the order
+     * @return ResponseEntity containing a confirmation message
+     */
+    @DeleteMapping("/{id}")
+    @Operation(
+            summary = "Cancel scheduled transfer",
+            description = "Stops an active standing order; runs already made are not affected"
+    )
+    public ResponseEntity<AppResponse<String>> cancel(@PathVariable UUID id) {
+        return ResponseEntity.ok(scheduledTransferService.cancel(id));
+    }
+}
@@ -1,7 +1,11 @@
 package code.uz.bankcard.controller;
 
+import code.uz.bankcard.dto.AppResponse;
+import code.uz.bankcard.dto.analytics.CardAnalyticsDTO;
+import code.uz.bankcard.dto.transaction.TransactionChangesDTO;
 import code.uz.bankcard.dto.transaction.TransactionCreateDTO;
 import code.uz.bankcard.dto.transaction.TransactionResponseDTO;
+import code.uz.bankcard.dto.transaction.TransferQuoteDTO;
 import code.uz.bankcard.service.Impl.TransactionServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -9,10 +13,15 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.YearMonth;
+import java.util.UUID;
+
 /**
  * Controller class for managing transactions and money transfers.
  * <p>
@@ -21,7 +30,11 @@ import org.springframework.web.bind.annotation.*;
  *     <li>Users to transfer money between their own cards</li>
  *     <li>Admins to transfer money between any two cards</li>
  *     <li>Users to view their transaction history</li>
+ *     <li>Users to sync their transaction history since a cursor</li>
+ *     <li>Users to view spending analytics of a card</li>
  *     <li>Admins to view all transactions</li>
+ *     <li>Users to preview the fee of a transfer</li>
+ *     <li>Admins to reload the fee rules</li>
  * </ul>
  */
 @RestController
@@ -85,6 +98,48 @@ public class TransactionController {
         return ResponseEntity.ok(transactionService.getAllHistory(page, size));
     }
 
+    /**
+     * Retrieves the logged-in user's transactions written since the cursor of an earlier call.
+     *
+     * @param since Cursor returned by the previous call; omit it to get a starting cursor
+     * @param limit Maximum number of transactions (default is 100)
+     * @return ResponseEntity containing the changed transactions and the next cursor
+     */
+    @GetMapping("/history/changes")
+    @Operation(
+            summary = "Sync history",
+            description = "Returns only the transactions written since the given cursor"
+    )
+    public ResponseEntity<TransactionChangesDTO> getTransactionHistoryChanges(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "limit", defaultValue = "100") int limit
+    ) {
+        return ResponseEntity.ok(transactionService.getHistoryChanges(since, limit));
+    }
+
+    /**
+     * Retrieves monthly inflow and outflow of one of the user's cards and its top counterparties.
+     *
+     * @param cardId UUID of the card
+     * @param from   First month, as yyyy-MM (default is eleven months before {@code to})
+     * @param to     Last month, as yyyy-MM (default is the current month)
+     * @param top    Number of counterparties (default is 5)
+     * @return ResponseEntity containing the card's spending analytics
+     */
+    @GetMapping("/analytics")
+    @Operation(
+            summary = "Spending analytics",
+            description = "Allows user to view monthly inflow/outflow and top counterparties of a card"
+    )
+    public ResponseEntity<CardAnalyticsDTO> getAnalytics(
+            @RequestParam("cardId") UUID cardId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to,
+            @RequestParam(value = "top", defaultValue = "5") int top
+    ) {
+        return ResponseEntity.ok(transactionService.getAnalytics(cardId, from, to, top));
+    }
+
     /**
      * Admins retrieve all transaction histories.
      *
@@ -103,4 +158,34 @@ public class TransactionController {
     ) {
         return ResponseEntity.ok(transactionService.getAllTransactionsByAdmin(page, size));
     }
+
+    /**
+     * Previews the fee of a transfer without making it.
+     *
+     * @param dto TransactionCreateDTO containing source card, destination card, and amount
+     * @return ResponseEntity containing the amount, fee and total debit
+     */
+    @PostMapping("/quote")
+    @Operation(
+            summary = "Quote transfer fee",
+            description = "Returns the fee and total debit a transfer would have now, using the same rules as the transfer"
+    )
+    public ResponseEntity<TransferQuoteDTO> quote(@RequestBody @Valid TransactionCreateDTO dto) {
+        return ResponseEntity.ok(transactionService.quote(dto));
+    }
+
+    /**
+     * Reloads the fee rules on all nodes.
+     *
+     * @return ResponseEntity containing the number of active rules
+     */
+    @PostMapping("/admin/fees/reload")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(
+            summary = "Reload fee rules",
+            description = "Recompiles the rules of the transfer_fee_rule table on every node"
+    )
+    public ResponseEntity<AppResponse<Integer>> reloadFeeRules() {
+        return ResponseEntity.ok(transactionService.reloadFeeRules());
+    }
 }
@@ -0,0 +1,12 @@
+package code.uz.bankcard.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ProfileNameDTO {
+    @NotBlank(message = "name required")
+    private String name;
+}
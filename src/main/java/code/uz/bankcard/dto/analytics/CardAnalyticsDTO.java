@@ -0,0 +1,23 @@
+package code.uz.bankcard.dto.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Inflow and outflow of a card per month and its top counterparties over the same months,
+ * all amounts in the card's currency. Months without transfers are left out.
+ */
+@Getter
+@AllArgsConstructor
+public class CardAnalyticsDTO {
+    private UUID cardId;
+    private String currency;
+    private YearMonth from;
+    private YearMonth to;
+    private List<MonthlyFlowDTO> months;
+    private List<CounterpartyFlowDTO> topCounterparties;
+}
@@ -0,0 +1,22 @@
+package code.uz.bankcard.dto.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Money a card received from and sent to one other card.
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CounterpartyFlowDTO {
+    private UUID cardId;
+    private String maskedNumber;
+    private BigDecimal inflow;
+    private BigDecimal outflow;
+    private long transfers;
+}
@@ -0,0 +1,20 @@
+package code.uz.bankcard.dto.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Money received and sent by a card in one month, {@code month} being its first day.
+ */
+@Getter
+@AllArgsConstructor
+public class MonthlyFlowDTO {
+    private LocalDate month;
+    private BigDecimal inflow;
+    private BigDecimal outflow;
+    private long inflowCount;
+    private long outflowCount;
+}
@@ -0,0 +1,17 @@
+package code.uz.bankcard.dto.card;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+public class CardBalanceAtDTO {
+    private UUID cardId;
+    private LocalDateTime at;
+    private BigDecimal balance;
+    private LocalDateTime snapshotDate;
+}
@@ -0,0 +1,32 @@
+package code.uz.bankcard.dto.card;
+
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Getter
+@Setter
+public class CardBulkIssueDTO {
+    @NotNull(message = "Profile ID required")
+    private UUID profileId;
+    @NotNull(message = "Count required")
+    @Min(value = 1, message = "Count must be at least 1")
+    @Max(value = 10000, message = "Count must be at most 10000")
+    private Integer count;
+    @NotNull(message = "InitialBalance required")
+    @PositiveOrZero(message = "Balance cannot be negative")
+    private BigDecimal initialBalance;
+    @Pattern(regexp = "\\d{6}", message = "BIN must be exactly 6 digits")
+    private String bin;
+    // ISO 4217 code, the base currency if empty
+    @Pattern(regexp = "[A-Z]{3}", message = "Currency must be a 3-letter ISO code")
+    private String currency;
+}
@@ -0,0 +1,16 @@
+package code.uz.bankcard.dto.card;
+
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+public class CardBulkIssueResponseDTO {
+    private UUID profileId;
+    private Integer issued;
+    private List<String> cardNumbers;
+}
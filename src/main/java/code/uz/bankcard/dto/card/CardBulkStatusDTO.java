@@ -0,0 +1,22 @@
+package code.uz.bankcard.dto.card;
+
+
+import code.uz.bankcard.enums.CardStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+public class CardBulkStatusDTO {
+    @NotEmpty(message = "Card IDs required")
+    @Size(max = 1000, message = "At most 1000 cards per request")
+    private List<UUID> cardIds;
+    @NotNull(message = "Status required")
+    private CardStatus status;
+}
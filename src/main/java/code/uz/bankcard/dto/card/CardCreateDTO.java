@@ -20,4 +20,7 @@ public class CardCreateDTO {
     private String cardNumber;
     @NotNull(message = "InitialBalance required")
     private BigDecimal initialBalance;
+    // ISO 4217 code, the base currency if empty
+    @Pattern(regexp = "[A-Z]{3}", message = "Currency must be a 3-letter ISO code")
+    private String currency;
 }
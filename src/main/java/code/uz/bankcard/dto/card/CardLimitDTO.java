@@ -0,0 +1,19 @@
+package code.uz.bankcard.dto.card;
+
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Outbound limits of a card; an empty limit removes it.
+ */
+@Getter
+@Setter
+public class CardLimitDTO {
+    @PositiveOrZero(message = "Daily limit cannot be negative")
+    private BigDecimal dailyLimit;
+    @PositiveOrZero(message = "Monthly limit cannot be negative")
+    private BigDecimal monthlyLimit;
+}
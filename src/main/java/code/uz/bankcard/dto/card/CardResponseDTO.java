@@ -2,8 +2,10 @@ package code.uz.bankcard.dto.card;
 
 
 import code.uz.bankcard.enums.CardStatus;
+import code.uz.bankcard.money.Money;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.math.BigDecimal;
@@ -12,6 +14,7 @@ import java.util.UUID;
 
 @Getter
 @Setter
+@NoArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class CardResponseDTO {
     private UUID id;
@@ -20,5 +23,20 @@ public class CardResponseDTO {
     private LocalDateTime expiryDate;
     private CardStatus status;
     private BigDecimal balance;
+    private String currency;
     private String note;
+
+    /**
+     * Used by JPQL constructor expressions to read list rows straight from the card table.
+     */
+    public CardResponseDTO(UUID id, String maskedNumber, String ownerName, LocalDateTime expiryDate,
+                           CardStatus status, Money balance, String currency) {
+        this.id = id;
+        this.maskedNumber = maskedNumber;
+        this.ownerName = ownerName;
+        this.expiryDate = expiryDate;
+        this.status = status;
+        this.balance = balance == null ? null : balance.toBigDecimal();
+        this.currency = currency;
+    }
 }
@@ -0,0 +1,12 @@
+package code.uz.bankcard.dto.card;
+
+import code.uz.bankcard.enums.CardStatus;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * State of a card pushed over {@code /api/v1/card/stream}.
+ */
+public record CardUpdateDTO(UUID id, String maskedNumber, BigDecimal balance, String currency, CardStatus status) {
+}
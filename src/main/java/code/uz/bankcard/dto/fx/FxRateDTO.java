@@ -0,0 +1,31 @@
+package code.uz.bankcard.dto.fx;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Exchange rate: one unit of {@code baseCurrency} is worth {@code rate} units of {@code quoteCurrency}.
+ * The opposite direction uses the inverse rate unless it is set on its own.
+ */
+@Getter
+@Setter
+public class FxRateDTO {
+    @NotBlank(message = "Base currency required")
+    @Pattern(regexp = "[A-Z]{3}", message = "Currency must be a 3-letter ISO code")
+    private String baseCurrency;
+    @NotBlank(message = "Quote currency required")
+    @Pattern(regexp = "[A-Z]{3}", message = "Currency must be a 3-letter ISO code")
+    private String quoteCurrency;
+    @NotNull(message = "Rate required")
+    @DecimalMin(value = "0", inclusive = false, message = "Rate must be positive")
+    private BigDecimal rate;
+    // ignored on update, set by the server
+    private LocalDateTime updatedAt;
+}
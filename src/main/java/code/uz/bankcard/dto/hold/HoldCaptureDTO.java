@@ -0,0 +1,14 @@
+package code.uz.bankcard.dto.hold;
+
+import code.uz.bankcard.money.MinMoney;
+import code.uz.bankcard.money.Money;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class HoldCaptureDTO {
+    // the whole hold is captured when not set
+    @MinMoney(value = "0.1", message = "Amount must be greater than 0")
+    private Money amount;
+}
@@ -0,0 +1,21 @@
+package code.uz.bankcard.dto.hold;
+
+import code.uz.bankcard.money.MinMoney;
+import code.uz.bankcard.money.Money;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+public class HoldCreateDTO {
+    @NotNull(message = "Card Id required")
+    private UUID fromCardId;
+    @NotNull(message = "Card Id required")
+    private UUID toCardId;
+    @NotNull(message = "Amount required")
+    @MinMoney(value = "0.1", message = "Amount must be greater than 0")
+    private Money amount;
+}
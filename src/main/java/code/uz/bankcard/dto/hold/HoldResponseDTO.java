@@ -0,0 +1,26 @@
+package code.uz.bankcard.dto.hold;
+
+import code.uz.bankcard.enums.HoldStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HoldResponseDTO {
+    private UUID id;
+    private UUID fromCardId;
+    private UUID toCardId;
+    private BigDecimal amount;
+    private BigDecimal capturedAmount;
+    private HoldStatus status;
+    private LocalDateTime createdDate;
+    private LocalDateTime expiresAt;
+    private Integer transactionId;
+    private BigDecimal availableBalance;
+}
@@ -0,0 +1,16 @@
+package code.uz.bankcard.dto.reconciliation;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Getter
+@Setter
+public class ReconciliationMismatchDTO {
+    private UUID cardId;
+    private BigDecimal expectedBalance;
+    private BigDecimal actualBalance;
+    private BigDecimal difference;
+}
@@ -0,0 +1,23 @@
+package code.uz.bankcard.dto.reconciliation;
+
+import code.uz.bankcard.enums.ReconciliationStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReconciliationRunDTO {
+    private Long id;
+    private ReconciliationStatus status;
+    private LocalDateTime startedDate;
+    private LocalDateTime finishedDate;
+    private Integer ranges;
+    private Integer rangesDone;
+    private Long cardsChecked;
+    private Long mismatches;
+    private String error;
+}
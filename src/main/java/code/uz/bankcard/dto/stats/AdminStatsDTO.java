@@ -0,0 +1,35 @@
+package code.uz.bankcard.dto.stats;
+
+import code.uz.bankcard.enums.CardStatus;
+import code.uz.bankcard.enums.GeneralStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Dashboard statistics: visible cards and profiles per status and the transfers of {@code day}.
+ * <p>
+ * Counts are kept in memory and may lag other nodes by a second; {@code rebuiltAt} is when they
+ * were last read from the database. The failure rate is failed transfers over all transfers of the day.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+public class AdminStatsDTO {
+    private Map<CardStatus, Long> cardsByStatus;
+    private Map<GeneralStatus, Long> profilesByStatus;
+    private LocalDate day;
+    private long transfersSucceeded;
+    private long transfersFailed;
+    private long transfersFlagged;
+    private double failureRate;
+    /**
+     * SUCCESS transfer volume of the day per source card currency.
+     */
+    private Map<String, BigDecimal> volume;
+    private LocalDateTime rebuiltAt;
+}
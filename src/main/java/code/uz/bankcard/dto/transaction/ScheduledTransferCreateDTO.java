@@ -0,0 +1,30 @@
+package code.uz.bankcard.dto.transaction;
+
+import code.uz.bankcard.enums.ScheduleRecurrence;
+import code.uz.bankcard.money.MinMoney;
+import code.uz.bankcard.money.Money;
+import jakarta.validation.constraints.Future;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+public class ScheduledTransferCreateDTO {
+    @NotNull(message = "Card Id required")
+    private UUID fromCardId;
+    @NotNull(message = "Card Id required")
+    private UUID toCardId;
+    @NotNull(message = "Amount required")
+    @MinMoney(value = "0.1", message = "Amount must be greater than 0")
+    private Money amount;
+    @NotNull(message = "First run time required")
+    @Future(message = "First run time must be in the future")
+    private LocalDateTime firstRunAt;
+    private ScheduleRecurrence recurrence = ScheduleRecurrence.ONCE;
+    // last possible run of a recurring order, open-ended when not set
+    private LocalDateTime endDate;
+}
@@ -0,0 +1,29 @@
+package code.uz.bankcard.dto.transaction;
+
+import code.uz.bankcard.enums.ScheduleRecurrence;
+import code.uz.bankcard.enums.ScheduledTransferStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScheduledTransferResponseDTO {
+    private UUID id;
+    private UUID fromCardId;
+    private UUID toCardId;
+    private BigDecimal amount;
+    private ScheduleRecurrence recurrence;
+    private ScheduledTransferStatus status;
+    private LocalDateTime nextRunAt;
+    private LocalDateTime endDate;
+    private LocalDateTime lastRunAt;
+    private Integer lastTransactionId;
+    private String lastError;
+    private LocalDateTime createdDate;
+}
@@ -0,0 +1,28 @@
+package code.uz.bankcard.dto.transaction;
+
+import code.uz.bankcard.enums.TransactionStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Transaction as returned by the history delta sync; cards are referenced by id.
+ */
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionChangeDTO {
+    private Integer id;
+    private UUID fromCardId;
+    private UUID toCardId;
+    private BigDecimal amount;
+    private String currency;
+    private BigDecimal creditAmount;
+    private TransactionStatus status;
+    private LocalDateTime sentDate;
+    private Integer feeFor;
+}
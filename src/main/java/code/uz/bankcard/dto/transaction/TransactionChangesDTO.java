@@ -0,0 +1,26 @@
+package code.uz.bankcard.dto.transaction;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One page of the history delta sync.
+ * <p>
+ * {@code cursor} is passed as {@code since} on the next sync. A transaction may be returned by
+ * two consecutive syncs, so clients merge by id. {@code hasMore} means the page is full: sync again
+ * right away if the cursor moved, otherwise later, once the rows past it are settled.
+ * </p>
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionChangesDTO {
+    private String cursor;
+    private boolean hasMore;
+    private List<TransactionChangeDTO> changes;
+}
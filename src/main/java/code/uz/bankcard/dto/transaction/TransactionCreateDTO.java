@@ -1,13 +1,12 @@
 package code.uz.bankcard.dto.transaction;
 
 
-import jakarta.validation.constraints.DecimalMin;
+import code.uz.bankcard.money.MinMoney;
+import code.uz.bankcard.money.Money;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 
 @Getter
@@ -18,6 +17,6 @@ public class TransactionCreateDTO {
     @NotNull(message = "Card Id required")
     private UUID toCardId;
     @NotNull(message = "Amount required")
-    @DecimalMin(value = "0.1", message = "Amount must be greater than 0")
-    private BigDecimal amount;
+    @MinMoney(value = "0.1", message = "Amount must be greater than 0")
+    private Money amount;
 }
@@ -16,6 +16,15 @@ public class TransactionResponseDTO {
     private String fromCardNumber;
     private String toCardNumber;
     private BigDecimal amount;
+    // currency of amount, the source card's
+    private String currency;
+    // cross-currency transfers only: amount credited in the recipient's currency and the rate used
+    private BigDecimal creditAmount;
+    private BigDecimal fxRate;
     private TransactionStatus status;
     private LocalDateTime sentDate;
+    // fee charged on top of the amount, as a separate transaction to the fee collection card
+    private BigDecimal fee;
+    // set on fee transactions: id of the transfer the fee was charged for
+    private Integer feeFor;
 }
@@ -0,0 +1,24 @@
+package code.uz.bankcard.dto.transaction;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransferQuoteDTO {
+    private BigDecimal amount;
+    private BigDecimal fee;
+    // amount plus fee, debited from the source card
+    private BigDecimal total;
+    private String feeRule;
+    // currency of amount, fee and total
+    private String currency;
+    // cards in different currencies only: what the recipient gets at the current rate
+    private BigDecimal creditAmount;
+    private String creditCurrency;
+    private BigDecimal fxRate;
+}
@@ -0,0 +1,29 @@
+package code.uz.bankcard.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Balance of a card as of {@code snapshotDate}, i.e. the sum of its ledger entries created up to that moment.
+ */
+@Entity
+@Table(name = "balance_snapshot")
+@Getter
+@Setter
+public class BalanceSnapshotEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "card_id", nullable = false)
+    private UUID cardId;
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDateTime snapshotDate;
+    @Column(name = "balance", nullable = false)
+    private BigDecimal balance;
+}
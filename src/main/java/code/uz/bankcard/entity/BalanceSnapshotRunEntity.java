@@ -0,0 +1,24 @@
+package code.uz.bankcard.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One run of the snapshot job. The latest {@code cutoff} is where the next run continues from.
+ */
+@Entity
+@Table(name = "balance_snapshot_run")
+@Getter
+@Setter
+public class BalanceSnapshotRunEntity {
+    @Id
+    @Column(name = "cutoff")
+    private LocalDateTime cutoff;
+    @Column(name = "cards", nullable = false)
+    private Integer cards;
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime createdDate;
+}
@@ -1,11 +1,13 @@
 package code.uz.bankcard.entity;
 
+import code.uz.bankcard.entity.id.GeneratedUuidV7;
 import code.uz.bankcard.enums.CardStatus;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.money.MoneyConverter;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -15,22 +17,58 @@ import java.util.UUID;
 @Setter
 public class CardEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuidV7
     private UUID id;
     @Column(name = "card_number")
     private String cardNumber;
+    @Column(name = "masked_number")
+    private String maskedNumber;
+    @Column(name = "owner_name")
+    private String ownerName;
     @Column(name = "created_date")
     private LocalDateTime createdDate;
+    // when the owner asked for the block; orders the admin queue of REQUEST_BLOCK cards
+    @Column(name = "block_requested_at")
+    private LocalDateTime blockRequestedAt;
     @Column(name = "exp_date")
     private LocalDateTime expiryDate;
     @Column(name = "status")
     @Enumerated(EnumType.STRING)
     private CardStatus status;
-    @Column(name = "balance")
-    private BigDecimal balance;
+    @Column(name = "balance", precision = 38, scale = 2)
+    @Convert(converter = MoneyConverter.class)
+    private Money balance;
+    // ISO 4217 code; balance, holds and limits are all in this currency
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+    // sum of ACTIVE card_hold rows; only written by CardHoldRepository statements
+    @Column(name = "held_amount", nullable = false, updatable = false, precision = 38, scale = 2)
+    @Convert(converter = MoneyConverter.class)
+    private Money heldAmount = Money.ZERO;
+    // outbound limits, null means unlimited; spending is counted in card_spend_counter
+    @Column(name = "daily_limit", precision = 38, scale = 2)
+    @Convert(converter = MoneyConverter.class)
+    private Money dailyLimit;
+    @Column(name = "monthly_limit", precision = 38, scale = 2)
+    @Convert(converter = MoneyConverter.class)
+    private Money monthlyLimit;
+    // credits are spread over card_balance_shard rows, see CardBalanceShardRepository
+    @Column(name = "balance_sharded", nullable = false)
+    private Boolean balanceSharded = false;
     private Boolean visible = true;
+    // checked by every entity write; set-based updates of the card table bump it as well
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "profile_id")
     private ProfileEntity profile;
+
+    /**
+     * Balance that can still be spent: the balance minus active holds.
+     */
+    public Money getAvailableBalance() {
+        return balance.minus(heldAmount);
+    }
 }
@@ -0,0 +1,38 @@
+package code.uz.bankcard.entity;
+
+import code.uz.bankcard.enums.LedgerEntryType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One append-only movement on a card. Amounts are signed: credits are positive, debits negative,
+ * so the balance of a card is the sum of its entries. A transfer writes a DEBIT and a CREDIT row
+ * that sum to zero; OPENING and ADJUSTMENT rows are booked against the bank itself.
+ */
+@Entity
+@Table(name = "ledger_entry")
+@Getter
+@Setter
+public class LedgerEntryEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "card_id", nullable = false)
+    private UUID cardId;
+    @Column(name = "transaction_id")
+    private Integer transactionId;
+
+    @Column(name = "entry_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private LedgerEntryType entryType;
+    @Column(name = "amount", nullable = false)
+    private BigDecimal amount;
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime createdDate;
+}
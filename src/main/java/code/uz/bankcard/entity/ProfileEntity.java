@@ -1,5 +1,6 @@
 package code.uz.bankcard.entity;
 
+import code.uz.bankcard.entity.id.GeneratedUuidV7;
 import code.uz.bankcard.enums.GeneralStatus;
 import jakarta.persistence.*;
 import lombok.Getter;
@@ -16,7 +17,7 @@ import java.util.UUID;
 @Setter
 public class ProfileEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuidV7
     private UUID id;
     private String name;
     @Column(name = "username")
@@ -0,0 +1,30 @@
+package code.uz.bankcard.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * A card whose stored balance differs from its opening balance plus the net of its SUCCESS transactions.
+ */
+@Entity
+@Table(name = "reconciliation_mismatch")
+@Getter
+@Setter
+public class ReconciliationMismatchEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+    @Column(name = "card_id", nullable = false)
+    private UUID cardId;
+    @Column(name = "expected_balance", nullable = false)
+    private BigDecimal expectedBalance;
+    @Column(name = "actual_balance", nullable = false)
+    private BigDecimal actualBalance;
+}
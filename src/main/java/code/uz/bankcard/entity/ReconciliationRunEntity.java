@@ -0,0 +1,34 @@
+package code.uz.bankcard.entity;
+
+import code.uz.bankcard.enums.ReconciliationStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "reconciliation_run")
+@Getter
+@Setter
+public class ReconciliationRunEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ReconciliationStatus status;
+    @Column(name = "started_date", nullable = false)
+    private LocalDateTime startedDate;
+    @Column(name = "finished_date")
+    private LocalDateTime finishedDate;
+    @Column(name = "ranges")
+    private Integer ranges;
+    @Column(name = "cards_checked")
+    private Long cardsChecked;
+    @Column(name = "mismatches")
+    private Long mismatches;
+    @Column(name = "error")
+    private String error;
+}
@@ -0,0 +1,69 @@
+package code.uz.bankcard.entity;
+
+import code.uz.bankcard.entity.id.GeneratedUuidV7;
+import code.uz.bankcard.enums.ScheduleRecurrence;
+import code.uz.bankcard.enums.ScheduledTransferStatus;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.money.MoneyConverter;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Standing order of a profile: a transfer that runs once or repeatedly from {@code startAt}.
+ * {@code nextRunAt} is the {@code occurrence}-th run of the recurrence; {@code claimedUntil} is the
+ * lease of the node that is currently executing it.
+ */
+@Entity
+@Table(name = "scheduled_transfer")
+@Getter
+@Setter
+public class ScheduledTransferEntity {
+    @Id
+    @GeneratedUuidV7
+    private UUID id;
+
+    @Column(name = "profile_id", nullable = false)
+    private UUID profileId;
+    @Column(name = "from_card_id", nullable = false)
+    private UUID fromCardId;
+    @Column(name = "to_card_id", nullable = false)
+    private UUID toCardId;
+    @Column(name = "amount", nullable = false, precision = 38, scale = 2)
+    @Convert(converter = MoneyConverter.class)
+    private Money amount;
+
+    @Column(name = "recurrence", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ScheduleRecurrence recurrence;
+    @Column(name = "start_at", nullable = false)
+    private LocalDateTime startAt;
+    @Column(name = "end_date")
+    private LocalDateTime endDate;
+    @Column(name = "occurrence", nullable = false)
+    private Integer occurrence = 0;
+    @Column(name = "next_run_at", nullable = false)
+    private LocalDateTime nextRunAt;
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ScheduledTransferStatus status;
+    @Column(name = "last_run_at")
+    private LocalDateTime lastRunAt;
+    @Column(name = "last_transaction_id")
+    private Integer lastTransactionId;
+    @Column(name = "last_error")
+    private String lastError;
+    @Column(name = "created_date", nullable = false)
+    private LocalDateTime createdDate;
+
+    // a run commits only if nobody else ran or changed the order since it was loaded
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+}
@@ -2,6 +2,8 @@ package code.uz.bankcard.entity;
 
 
 import code.uz.bankcard.enums.TransactionStatus;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.money.MoneyConverter;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -26,13 +28,33 @@ public class TransactionEntity {
     @JoinColumn(name = "to_card")
     private CardEntity toCardId;
 
-    @Column(name = "amount", nullable = false)
-    private BigDecimal amount;
+    @Column(name = "amount", nullable = false, precision = 38, scale = 2)
+    @Convert(converter = MoneyConverter.class)
+    private Money amount;
+    // currency of amount, the source card's
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+    // cross-currency transfers only: amount credited in the recipient's currency and the rate it was converted with
+    @Column(name = "credit_amount", precision = 38, scale = 2)
+    @Convert(converter = MoneyConverter.class)
+    private Money creditAmount;
+    @Column(name = "fx_rate")
+    private BigDecimal fxRate;
     @Column(name = "sent_date")
     private LocalDateTime sentDate;
     @Column(name = "status", nullable = false)
     @Enumerated(EnumType.STRING)
     private TransactionStatus status;
+    // set on fee transactions: id of the transfer the fee was charged for
+    @Column(name = "fee_for")
+    private Integer feeFor;
     @Column(name = "visible")
     private Boolean visible = true;
+
+    /**
+     * Amount the recipient is credited with: the converted amount of a cross-currency transfer, the amount otherwise.
+     */
+    public Money getCreditedAmount() {
+        return creditAmount != null ? creditAmount : amount;
+    }
 }
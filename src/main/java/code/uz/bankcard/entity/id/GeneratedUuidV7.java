@@ -0,0 +1,21 @@
+package code.uz.bankcard.entity.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code UUID} primary key that is filled with a time-ordered UUIDv7 on insert.
+ * <p>
+ * Use it instead of {@code @GeneratedValue(strategy = GenerationType.UUID)}: random v4 keys
+ * spread inserts over the whole B-tree, v7 keys are appended to its right edge.
+ * </p>
+ */
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface GeneratedUuidV7 {
+}
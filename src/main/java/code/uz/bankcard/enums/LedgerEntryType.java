@@ -0,0 +1,8 @@
+package code.uz.bankcard.enums;
+
+public enum LedgerEntryType {
+    OPENING,
+    DEBIT,
+    CREDIT,
+    ADJUSTMENT
+}
@@ -0,0 +1,6 @@
+package code.uz.bankcard.enums;
+
+public enum OutboxEventType {
+    TRANSFER_DEBIT,
+    TRANSFER_CREDIT
+}
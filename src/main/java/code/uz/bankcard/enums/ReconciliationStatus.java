@@ -0,0 +1,7 @@
+package code.uz.bankcard.enums;
+
+public enum ReconciliationStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
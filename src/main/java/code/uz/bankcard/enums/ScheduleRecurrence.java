@@ -0,0 +1,25 @@
+package code.uz.bankcard.enums;
+
+import java.time.LocalDateTime;
+
+public enum ScheduleRecurrence {
+    ONCE,
+    DAILY,
+    WEEKLY,
+    MONTHLY;
+
+    /**
+     * Time of the n-th run after {@code start}. Counting from the start keeps a monthly order
+     * on the 31st from drifting to the 28th after February.
+     *
+     * @return {@code null} for {@link #ONCE}
+     */
+    public LocalDateTime occurrence(LocalDateTime start, int n) {
+        return switch (this) {
+            case ONCE -> null;
+            case DAILY -> start.plusDays(n);
+            case WEEKLY -> start.plusWeeks(n);
+            case MONTHLY -> start.plusMonths(n);
+        };
+    }
+}
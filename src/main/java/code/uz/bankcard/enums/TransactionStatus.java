@@ -2,5 +2,7 @@ package code.uz.bankcard.enums;
 
 public enum TransactionStatus {
     SUCCESS,
-    FAILED
+    FAILED,
+    // stopped by transfer screening before any money moved
+    FLAGGED
 }
@@ -0,0 +1,31 @@
+package code.uz.bankcard.event;
+
+import code.uz.bankcard.enums.CardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Published when the balance or status of a single card changes.
+ * <p>
+ * A {@code null} field means the value was not touched by the change.
+ * Listeners receive the event after the surrounding transaction commits.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+public class CardChangedEvent {
+    private final UUID cardId;
+    private final BigDecimal balance;
+    private final CardStatus status;
+
+    public static CardChangedEvent balance(UUID cardId, BigDecimal balance) {
+        return new CardChangedEvent(cardId, balance, null);
+    }
+
+    public static CardChangedEvent status(UUID cardId, CardStatus status) {
+        return new CardChangedEvent(cardId, null, status);
+    }
+}
@@ -0,0 +1,32 @@
+package code.uz.bankcard.event;
+
+import code.uz.bankcard.enums.CardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when visible cards move between statuses, for the admin statistics.
+ * <p>
+ * A {@code null} {@code from} means the cards were issued, a {@code null} {@code to} that they were deleted.
+ * Listeners receive the event after the surrounding transaction commits.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+public class CardStatusCountEvent {
+    private final CardStatus from;
+    private final CardStatus to;
+    private final int count;
+
+    public static CardStatusCountEvent issued(int count) {
+        return new CardStatusCountEvent(null, CardStatus.ACTIVE, count);
+    }
+
+    public static CardStatusCountEvent changed(CardStatus from, CardStatus to) {
+        return new CardStatusCountEvent(from, to, 1);
+    }
+
+    public static CardStatusCountEvent deleted(CardStatus status) {
+        return new CardStatusCountEvent(status, null, 1);
+    }
+}
@@ -0,0 +1,18 @@
+package code.uz.bankcard.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Published when cards were changed in a way that cannot be described
+ * field by field (deleted, edited by an admin, bulk updates).
+ * Cached state for these cards must be dropped.
+ */
+@Getter
+@AllArgsConstructor
+public class CardsInvalidatedEvent {
+    private final Collection<UUID> cardIds;
+}
@@ -0,0 +1,151 @@
+package code.uz.bankcard.event;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Cross-node messaging over Postgres {@code LISTEN/NOTIFY}.
+ * <p>
+ * {@link #notify(String, String)} joins the caller's transaction, so Postgres delivers the
+ * message only if that transaction commits. Incoming messages are read by one daemon thread
+ * that keeps a dedicated connection and dispatches them to the subscribed listeners.
+ * </p>
+ */
+@Slf4j
+@Component
+public class PgNotificationBus {
+
+    /**
+     * Receives notifications for one channel on the listener thread. Implementations must be fast.
+     */
+    public interface Listener {
+        void onNotification(String payload);
+
+        /**
+         * Called after the listening connection was re-established.
+         * Messages sent while it was down are lost, so cached state should be dropped here.
+         */
+        default void onReconnect() {
+        }
+    }
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final int pollTimeoutMillis;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public PgNotificationBus(JdbcTemplate jdbcTemplate,
+                             DataSource dataSource,
+                             @Value("${app.pg-notify.enabled:true}") boolean enabled,
+                             @Value("${app.pg-notify.poll-timeout:500ms}") Duration pollTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.pollTimeoutMillis = (int) pollTimeout.toMillis();
+    }
+
+    /**
+     * Identifier of this application instance, used to skip messages sent by ourselves.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Register a listener. Must be called before the application is ready.
+     */
+    public void subscribe(String channel, Listener listener) {
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Send a message to every node. Inside a transaction it is delivered on commit.
+     */
+    public void notify(String channel, String payload) {
+        if (!enabled) return;
+        jdbcTemplate.queryForList("select pg_notify(?, ?)", channel, payload);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || listeners.isEmpty()) return;
+        running = true;
+        thread = new Thread(this::listenLoop, "pg-notification-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) thread.interrupt();
+    }
+
+    private void listenLoop() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    for (String channel : listeners.keySet()) {
+                        statement.execute("LISTEN " + channel);
+                    }
+                }
+                if (reconnect) {
+                    listeners.values().forEach(list -> list.forEach(Listener::onReconnect));
+                }
+                reconnect = true;
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMillis);
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) {
+                        dispatch(notification.getName(), notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("Postgres notification listener failed, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String channel, String payload) {
+        for (Listener listener : listeners.getOrDefault(channel, List.of())) {
+            try {
+                listener.onNotification(payload);
+            } catch (Exception e) {
+                log.error("Notification listener failed on channel {}", channel, e);
+            }
+        }
+    }
+}
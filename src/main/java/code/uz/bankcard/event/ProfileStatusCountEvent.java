@@ -0,0 +1,23 @@
+package code.uz.bankcard.event;
+
+import code.uz.bankcard.enums.GeneralStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a visible profile moves between statuses, for the admin statistics.
+ * <p>
+ * A {@code null} {@code from} means the profile registered, a {@code null} {@code to} that it was deleted.
+ * Listeners receive the event after the surrounding transaction commits.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+public class ProfileStatusCountEvent {
+    private final GeneralStatus from;
+    private final GeneralStatus to;
+
+    public static ProfileStatusCountEvent registered() {
+        return new ProfileStatusCountEvent(null, GeneralStatus.ACTIVE);
+    }
+}
@@ -0,0 +1,41 @@
+package code.uz.bankcard.event;
+
+import code.uz.bankcard.entity.TransactionEntity;
+import code.uz.bankcard.enums.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Published for every transfer attempt, for the admin statistics; fee transactions are not transfers.
+ * <p>
+ * SUCCESS and FLAGGED transfers are received after the surrounding transaction commits. A FAILED
+ * attempt is published once per attempt by {@code FailedTransactionWriter}, after its row is written
+ * and outside of any transaction, so a rolled back or retried transfer is not counted twice.
+ * </p>
+ */
+@Getter
+@AllArgsConstructor
+public class TransferRecordedEvent {
+    private final TransactionStatus status;
+    private final String currency;
+    private final BigDecimal amount;
+    private final LocalDate day;
+
+    /**
+     * A saved SUCCESS or FLAGGED transaction.
+     */
+    public static TransferRecordedEvent of(TransactionEntity entity) {
+        return new TransferRecordedEvent(entity.getStatus(), entity.getCurrency(), entity.getAmount().toBigDecimal(),
+                entity.getSentDate().toLocalDate());
+    }
+
+    /**
+     * A FAILED attempt; its amount is left out of the volume, so the currency is not needed.
+     */
+    public static TransferRecordedEvent failed(LocalDate day) {
+        return new TransferRecordedEvent(TransactionStatus.FAILED, null, BigDecimal.ZERO, day);
+    }
+}
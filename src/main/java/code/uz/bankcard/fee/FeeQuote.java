@@ -0,0 +1,14 @@
+package code.uz.bankcard.fee;
+
+import code.uz.bankcard.money.Money;
+
+/**
+ * Fee of one transfer and the rule it came from ({@code null} when no rule matched).
+ */
+public record FeeQuote(Money amount, String rule) {
+    public static final FeeQuote NONE = new FeeQuote(Money.ZERO, null);
+
+    public boolean isFree() {
+        return amount.signum() == 0;
+    }
+}
@@ -0,0 +1,21 @@
+package code.uz.bankcard.fee;
+
+import code.uz.bankcard.enums.CardStatus;
+import code.uz.bankcard.enums.Role;
+import code.uz.bankcard.money.Money;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of {@code transfer_fee_rule}. A {@code null} condition matches anything; amounts are
+ * matched from {@code minAmount} inclusive to {@code maxAmount} exclusive. Of all matching rules the
+ * one with the lowest {@code priority} wins. Amounts and fees are in the currency of the sending card.
+ *
+ * @param currency currency of the sending card, {@code null} for rules that apply in every currency
+ * @param percent percent of the amount, e.g. {@code 0.5} for half a percent
+ */
+public record FeeRule(String name, int priority,
+                      Money minAmount, Money maxAmount,
+                      Role role, Boolean sameOwner, CardStatus cardStatus, String currency,
+                      BigDecimal percent, Money fixed, Money minFee, Money maxFee) {
+}
@@ -0,0 +1,155 @@
+package code.uz.bankcard.fee;
+
+import code.uz.bankcard.enums.CardStatus;
+import code.uz.bankcard.enums.Role;
+import code.uz.bankcard.money.Money;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Fee rules compiled into an immutable lookup structure.
+ * <p>
+ * Role, same owner and card status are small enums, so every combination gets its own table of
+ * amount bands with the winning rule of each band decided at compile time. A lookup is an array
+ * index plus a binary search over the band bounds, without allocation. Amounts and fees are in minor
+ * units of the sender's currency, so rules with a currency condition get their own tables per currency;
+ * a currency without such rules uses the tables of the rules that have none. Rebuilt whole on reload.
+ * </p>
+ */
+final class FeeSchedule {
+
+    /**
+     * Compiled fee formula: {@code clamp(fixed + amount * ppm / 1_000_000, min, max)}, all in minor units.
+     */
+    record Fee(String rule, long fixedMinor, long ppm, long minMinor, long maxMinor) {
+
+        long apply(long amountMinor) {
+            // split the product so amounts near Long.MAX_VALUE / 1e6 cannot overflow; rounds half up
+            long percentPart = amountMinor / 1_000_000 * ppm + (amountMinor % 1_000_000 * ppm + 500_000) / 1_000_000;
+            long fee = fixedMinor + percentPart;
+            return Math.min(maxMinor, Math.max(minMinor, fee));
+        }
+    }
+
+    /**
+     * Band bounds and winning fees of every role, same owner and card status combination.
+     */
+    private record Tables(long[][] bounds, Fee[][] fees) {
+    }
+
+    private static final Role[] ROLES = Role.values();
+    private static final CardStatus[] STATUSES = CardStatus.values();
+
+    static final FeeSchedule EMPTY = compile(List.of());
+
+    private final Map<String, Tables> byCurrency;
+    private final Tables anyCurrency;
+    private final int ruleCount;
+
+    private FeeSchedule(Map<String, Tables> byCurrency, Tables anyCurrency, int ruleCount) {
+        this.byCurrency = byCurrency;
+        this.anyCurrency = anyCurrency;
+        this.ruleCount = ruleCount;
+    }
+
+    int ruleCount() {
+        return ruleCount;
+    }
+
+    FeeQuote quote(Role role, boolean sameOwner, CardStatus status, String currency, Money amount) {
+        Tables tables = byCurrency.getOrDefault(currency, anyCurrency);
+        int table = index(role, sameOwner, status);
+        long[] lower = tables.bounds()[table];
+        int band = Arrays.binarySearch(lower, amount.minorUnits());
+        if (band < 0) band = -band - 2;
+        Fee fee = band < 0 ? null : tables.fees()[table][band];
+        return fee == null ? FeeQuote.NONE : new FeeQuote(Money.ofMinor(fee.apply(amount.minorUnits())), fee.rule());
+    }
+
+    static FeeSchedule compile(List<FeeRule> rules) {
+        List<FeeRule> ordered = rules.stream().sorted(Comparator.comparingInt(FeeRule::priority)).toList();
+        Map<String, Tables> byCurrency = ordered.stream()
+                .map(FeeRule::currency)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toUnmodifiableMap(c -> c, c -> compileTables(ordered, c)));
+        return new FeeSchedule(byCurrency, compileTables(ordered, null), rules.size());
+    }
+
+    /**
+     * Tables of the rules without a currency condition and, unless {@code currency} is {@code null},
+     * of the rules for that currency.
+     */
+    private static Tables compileTables(List<FeeRule> ordered, String currency) {
+        int tables = ROLES.length * 2 * STATUSES.length;
+        long[][] bounds = new long[tables][];
+        Fee[][] fees = new Fee[tables][];
+
+        for (Role role : ROLES) {
+            for (boolean sameOwner : new boolean[]{false, true}) {
+                for (CardStatus status : STATUSES) {
+                    List<FeeRule> matching = ordered.stream()
+                            .filter(r -> (r.currency() == null || r.currency().equals(currency))
+                                    && (r.role() == null || r.role() == role)
+                                    && (r.sameOwner() == null || r.sameOwner() == sameOwner)
+                                    && (r.cardStatus() == null || r.cardStatus() == status))
+                            .toList();
+                    int table = index(role, sameOwner, status);
+                    compileBands(matching, bounds, fees, table);
+                }
+            }
+        }
+        return new Tables(bounds, fees);
+    }
+
+    /**
+     * Split the amount axis at every bound of the matching rules and give each piece its first
+     * (highest priority) covering rule; neighbouring pieces with the same rule are merged.
+     */
+    private static void compileBands(List<FeeRule> matching, long[][] bounds, Fee[][] fees, int table) {
+        TreeSet<Long> points = new TreeSet<>();
+        points.add(Long.MIN_VALUE);
+        for (FeeRule rule : matching) {
+            points.add(lower(rule));
+            if (rule.maxAmount() != null) points.add(rule.maxAmount().minorUnits());
+        }
+
+        List<Long> lower = new ArrayList<>();
+        List<Fee> band = new ArrayList<>();
+        for (long point : points) {
+            Fee fee = matching.stream()
+                    .filter(r -> lower(r) <= point && (r.maxAmount() == null || point < r.maxAmount().minorUnits()))
+                    .findFirst()
+                    .map(FeeSchedule::toFee)
+                    .orElse(null);
+            if (!band.isEmpty() && Objects.equals(band.get(band.size() - 1), fee)) continue;
+            lower.add(point);
+            band.add(fee);
+        }
+        bounds[table] = lower.stream().mapToLong(Long::longValue).toArray();
+        fees[table] = band.toArray(new Fee[0]);
+    }
+
+    private static long lower(FeeRule rule) {
+        return rule.minAmount() == null ? Long.MIN_VALUE : rule.minAmount().minorUnits();
+    }
+
+    private static Fee toFee(FeeRule rule) {
+        long ppm = rule.percent() == null ? 0 : rule.percent().multiply(BigDecimal.valueOf(10_000)).longValue();
+        return new Fee(rule.name(), rule.fixed() == null ? 0 : rule.fixed().minorUnits(), ppm,
+                rule.minFee() == null ? 0 : rule.minFee().minorUnits(),
+                rule.maxFee() == null ? Long.MAX_VALUE : rule.maxFee().minorUnits());
+    }
+
+    private static int index(Role role, boolean sameOwner, CardStatus status) {
+        return (role.ordinal() * 2 + (sameOwner ? 1 : 0)) * STATUSES.length + status.ordinal();
+    }
+}
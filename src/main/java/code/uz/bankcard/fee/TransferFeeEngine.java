@@ -0,0 +1,110 @@
+package code.uz.bankcard.fee;
+
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.enums.Role;
+import code.uz.bankcard.event.PgNotificationBus;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.repository.TransferFeeRuleRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Computes transfer fees from the rules in {@code transfer_fee_rule}.
+ * <p>
+ * Rules are compiled into a {@link FeeSchedule} when the application is ready and on every reload;
+ * quotes only read the current schedule. A reload on one node is announced over Postgres
+ * {@code NOTIFY} so the other nodes reload too. Fees are charged in the sender's currency and credited
+ * to the collection card of that currency; transfers from a currency without one configured are free.
+ * </p>
+ */
+@Slf4j
+@Component
+public class TransferFeeEngine implements PgNotificationBus.Listener {
+
+    public static final String CHANNEL = "fee_rules_changed";
+
+    private final TransferFeeRuleRepository ruleRepository;
+    private final PgNotificationBus notificationBus;
+    private final Map<String, UUID> collectionCardIds;
+
+    private volatile FeeSchedule schedule = FeeSchedule.EMPTY;
+
+    public TransferFeeEngine(TransferFeeRuleRepository ruleRepository,
+                             PgNotificationBus notificationBus,
+                             @Value("${app.fee.collection-cards:}") List<String> collectionCards) {
+        this.ruleRepository = ruleRepository;
+        this.notificationBus = notificationBus;
+        Map<String, UUID> cardIds = new HashMap<>();
+        for (String entry : collectionCards) {
+            if (entry.isBlank()) continue;
+            int separator = entry.indexOf('=');
+            if (separator < 0)
+                throw new IllegalStateException("Collection card " + entry + " is not in the form CURRENCY=card-id");
+            cardIds.put(entry.substring(0, separator).trim(), UUID.fromString(entry.substring(separator + 1).trim()));
+        }
+        this.collectionCardIds = Map.copyOf(cardIds);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        notificationBus.subscribe(CHANNEL, this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            FeeSchedule compiled = FeeSchedule.compile(ruleRepository.findActive());
+            schedule = compiled;
+            log.info("Loaded {} transfer fee rules", compiled.ruleCount());
+        } catch (RuntimeException e) {
+            log.error("Could not load transfer fee rules, keeping the previous ones", e);
+        }
+    }
+
+    /**
+     * Recompile the rules here and tell the other nodes to do the same.
+     *
+     * @return number of active rules
+     */
+    public int reload() {
+        schedule = FeeSchedule.compile(ruleRepository.findActive());
+        notificationBus.notify(CHANNEL, notificationBus.getNodeId());
+        return schedule.ruleCount();
+    }
+
+    /**
+     * Fee of a transfer by a user with {@code role} from {@code fromCard} to {@code toCard}.
+     */
+    public FeeQuote quote(Role role, CardEntity fromCard, CardEntity toCard, Money amount) {
+        if (!collectionCardIds.containsKey(fromCard.getCurrency())) return FeeQuote.NONE;
+        boolean sameOwner = fromCard.getProfile() != null && toCard.getProfile() != null
+                && fromCard.getProfile().getId().equals(toCard.getProfile().getId());
+        return schedule.quote(role, sameOwner, fromCard.getStatus(), fromCard.getCurrency(), amount);
+    }
+
+    /**
+     * Card that collects the fees charged in {@code currency}, {@code null} if there is none.
+     */
+    public UUID getCollectionCardId(String currency) {
+        return collectionCardIds.get(currency);
+    }
+
+    @Override
+    public void onNotification(String payload) {
+        if (!payload.equals(notificationBus.getNodeId())) load();
+    }
+
+    @Override
+    public void onReconnect() {
+        load();
+    }
+}
@@ -0,0 +1,56 @@
+package code.uz.bankcard.fraud;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of one card's outbound transfers, kept in a ring of time slots.
+ * Each slot holds the count, the sum in minor units and a HyperLogLog sketch of the recipients
+ * of one slot-wide interval; slots older than the window are reset when they are reused.
+ */
+final class CardVelocity {
+
+    record Window(int count, long sumMinor, long recipients) {
+    }
+
+    private final long[] slotTime;
+    private final int[] count;
+    private final long[] sum;
+    private final byte[] registers;
+    private final byte[] merged = new byte[HyperLogLog.REGISTERS];
+
+    CardVelocity(int slots) {
+        this.slotTime = new long[slots];
+        this.count = new int[slots];
+        this.sum = new long[slots];
+        this.registers = new byte[slots * HyperLogLog.REGISTERS];
+        Arrays.fill(slotTime, Long.MIN_VALUE);
+    }
+
+    /**
+     * Add a transfer made in time slot {@code slot} and return the window ending with it.
+     */
+    synchronized Window record(long slot, long recipientHash, long amountMinor) {
+        int slots = slotTime.length;
+        int index = (int) Math.floorMod(slot, (long) slots);
+        if (slotTime[index] != slot) {
+            slotTime[index] = slot;
+            count[index] = 0;
+            sum[index] = 0;
+            Arrays.fill(registers, index * HyperLogLog.REGISTERS, (index + 1) * HyperLogLog.REGISTERS, (byte) 0);
+        }
+        count[index]++;
+        sum[index] += amountMinor;
+        HyperLogLog.add(registers, index * HyperLogLog.REGISTERS, recipientHash);
+
+        int windowCount = 0;
+        long windowSum = 0;
+        Arrays.fill(merged, (byte) 0);
+        for (int i = 0; i < slots; i++) {
+            if (slotTime[i] <= slot - slots) continue;
+            windowCount += count[i];
+            windowSum += sum[i];
+            HyperLogLog.merge(merged, registers, i * HyperLogLog.REGISTERS);
+        }
+        return new Window(windowCount, windowSum, HyperLogLog.estimate(merged));
+    }
+}
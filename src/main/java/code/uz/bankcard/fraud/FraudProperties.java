@@ -0,0 +1,48 @@
+package code.uz.bankcard.fraud;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Velocity screening settings under {@code app.fraud}.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.fraud")
+public class FraudProperties {
+    private boolean enabled = true;
+    /**
+     * Length of the sliding window.
+     */
+    private Duration window = Duration.ofSeconds(60);
+    /**
+     * Number of time slots the window is made of; the window moves forward one slot at a time.
+     */
+    private int slots = 6;
+    /**
+     * Cards tracked at once; the least recently used ones are dropped.
+     */
+    private long maxCards = 100_000;
+    private List<Rule> rules = new ArrayList<>();
+
+    /**
+     * A rule flags a transfer when the window ending with it meets every threshold that is set.
+     */
+    @Getter
+    @Setter
+    public static class Rule {
+        private String name;
+        private Integer minCount;
+        private Integer minRecipients;
+        private BigDecimal minSum;
+        private BigDecimal maxAverageAmount;
+    }
+}
@@ -0,0 +1,53 @@
+package code.uz.bankcard.fraud;
+
+/**
+ * HyperLogLog over {@value #REGISTERS} one-byte registers kept in a caller's array, so sketches of
+ * several time slots can live side by side in one {@code byte[]} and be merged without allocation.
+ * Small cardinalities, the range that matters for velocity rules, are estimated by linear counting
+ * and are close to exact.
+ */
+final class HyperLogLog {
+    static final int PRECISION = 6;
+    static final int REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.709;
+
+    private HyperLogLog() {
+    }
+
+    static void add(byte[] registers, int offset, long hash) {
+        int index = (int) (hash >>> (64 - PRECISION));
+        int rank = Math.min(64 - PRECISION, Long.numberOfLeadingZeros(hash << PRECISION)) + 1;
+        if (registers[offset + index] < rank) registers[offset + index] = (byte) rank;
+    }
+
+    static void merge(byte[] target, byte[] registers, int offset) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (target[i] < registers[offset + i]) target[i] = registers[offset + i];
+        }
+    }
+
+    static long estimate(byte[] registers) {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < REGISTERS; i++) {
+            sum += 1.0 / (1L << registers[i]);
+            if (registers[i] == 0) zeros++;
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        return Math.round(estimate);
+    }
+
+    /**
+     * 64-bit hash of a card id (finalizer of MurmurHash3).
+     */
+    static long hash(long mostSignificant, long leastSignificant) {
+        long h = mostSignificant * 0x9E3779B97F4A7C15L ^ leastSignificant;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE1A85B53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,18 @@
+package code.uz.bankcard.fraud;
+
+import code.uz.bankcard.money.Money;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * One check of the screening stage. Runs on every user transfer before anything is written,
+ * so implementations must not query the database.
+ */
+public interface TransferScreen {
+
+    /**
+     * @return name of the rule that flags the transfer, or empty if the transfer may proceed
+     */
+    Optional<String> screen(UUID fromCardId, UUID toCardId, Money amount);
+}
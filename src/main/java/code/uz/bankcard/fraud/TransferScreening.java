@@ -0,0 +1,35 @@
+package code.uz.bankcard.fraud;
+
+import code.uz.bankcard.money.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Screening stage of user transfers: runs every {@link TransferScreen} bean in order and stops at
+ * the first one that flags the transfer. Add a screen by declaring another bean.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransferScreening {
+    private final List<TransferScreen> screens;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @return name of the rule that flagged the transfer, or empty if it may proceed
+     */
+    public Optional<String> screen(UUID fromCardId, UUID toCardId, Money amount) {
+        for (TransferScreen screen : screens) {
+            Optional<String> rule = screen.screen(fromCardId, toCardId, amount);
+            if (rule.isPresent()) {
+                meterRegistry.counter("transfer.flagged", "rule", rule.get()).increment();
+                return rule;
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,71 @@
+package code.uz.bankcard.fraud;
+
+import code.uz.bankcard.money.Money;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Flags bursts of transfers from one card, e.g. card testing: many small transfers to different
+ * recipients within seconds. Windows are kept per node in memory, every attempt is counted.
+ */
+@Component
+public class VelocityScreen implements TransferScreen {
+
+    /**
+     * A rule with its thresholds in minor units; unset thresholds always match.
+     */
+    record CompiledRule(String name, int minCount, long minRecipients, long minSumMinor, long maxAverageMinor) {
+
+        boolean matches(CardVelocity.Window window) {
+            return window.count() >= minCount
+                    && window.recipients() >= minRecipients
+                    && window.sumMinor() >= minSumMinor
+                    && (maxAverageMinor == Long.MAX_VALUE || window.sumMinor() <= maxAverageMinor * window.count());
+        }
+    }
+
+    private final boolean enabled;
+    private final long slotNanos;
+    private final int slots;
+    private final List<CompiledRule> rules;
+    private final Cache<UUID, CardVelocity> windows;
+
+    public VelocityScreen(FraudProperties properties) {
+        this.enabled = properties.isEnabled() && !properties.getRules().isEmpty();
+        this.slots = Math.max(1, properties.getSlots());
+        this.slotNanos = Math.max(1, properties.getWindow().toNanos() / slots);
+        this.rules = properties.getRules().stream().map(VelocityScreen::compile).toList();
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxCards())
+                .expireAfterAccess(properties.getWindow())
+                .build();
+    }
+
+    @Override
+    public Optional<String> screen(UUID fromCardId, UUID toCardId, Money amount) {
+        if (!enabled) return Optional.empty();
+
+        CardVelocity velocity = windows.get(fromCardId, id -> new CardVelocity(slots));
+        CardVelocity.Window window = velocity.record(System.nanoTime() / slotNanos,
+                HyperLogLog.hash(toCardId.getMostSignificantBits(), toCardId.getLeastSignificantBits()),
+                amount.minorUnits());
+
+        for (CompiledRule rule : rules) {
+            if (rule.matches(window)) return Optional.of(rule.name());
+        }
+        return Optional.empty();
+    }
+
+    private static CompiledRule compile(FraudProperties.Rule rule) {
+        return new CompiledRule(rule.getName(),
+                rule.getMinCount() == null ? 0 : rule.getMinCount(),
+                rule.getMinRecipients() == null ? 0 : rule.getMinRecipients(),
+                rule.getMinSum() == null ? Long.MIN_VALUE : Money.of(rule.getMinSum()).minorUnits(),
+                rule.getMaxAverageAmount() == null ? Long.MAX_VALUE : Money.of(rule.getMaxAverageAmount()).minorUnits());
+    }
+}
@@ -0,0 +1,11 @@
+package code.uz.bankcard.fx;
+
+import code.uz.bankcard.money.Money;
+
+import java.math.BigDecimal;
+
+/**
+ * Amount credited in the recipient's currency and the rate it was converted with.
+ */
+public record FxConversion(Money amount, BigDecimal rate) {
+}
@@ -0,0 +1,10 @@
+package code.uz.bankcard.fx;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of {@code fx_rate}: one unit of {@code baseCurrency} is worth {@code rate} units of {@code quoteCurrency}.
+ */
+public record FxRate(String baseCurrency, String quoteCurrency, BigDecimal rate, LocalDateTime updatedAt) {
+}
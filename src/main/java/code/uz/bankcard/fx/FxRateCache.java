@@ -0,0 +1,111 @@
+package code.uz.bankcard.fx;
+
+import code.uz.bankcard.event.PgNotificationBus;
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.repository.FxRateRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * In-memory copy of the {@code fx_rate} table used to convert cross-currency transfers.
+ * <p>
+ * Rates are read into an immutable {@link FxRateSnapshot} and published through a volatile field,
+ * so a conversion never locks and never touches the database. The snapshot is rebuilt when the
+ * application is ready, periodically by {@code FxRateRefreshJob} for rates written by an external
+ * feed, and on every change made through {@link #update}; a change is announced over Postgres
+ * {@code NOTIFY} so the other nodes reload too. Rates older than {@code max-age} are refused.
+ * </p>
+ */
+@Slf4j
+@Component
+public class FxRateCache implements PgNotificationBus.Listener {
+
+    public static final String CHANNEL = "fx_rates_changed";
+
+    private final FxRateRepository rateRepository;
+    private final PgNotificationBus notificationBus;
+    private final Duration maxAge;
+
+    private volatile FxRateSnapshot snapshot = FxRateSnapshot.EMPTY;
+
+    public FxRateCache(FxRateRepository rateRepository,
+                       PgNotificationBus notificationBus,
+                       @Value("${app.fx.max-age:1d}") Duration maxAge) {
+        this.rateRepository = rateRepository;
+        this.notificationBus = notificationBus;
+        this.maxAge = maxAge;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        notificationBus.subscribe(CHANNEL, this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            FxRateSnapshot loaded = FxRateSnapshot.build(rateRepository.findAll());
+            snapshot = loaded;
+            log.debug("Loaded {} exchange rates", loaded.rates().size());
+        } catch (RuntimeException e) {
+            log.error("Could not load exchange rates, keeping the previous ones", e);
+        }
+    }
+
+    /**
+     * Store a rate, rebuild the snapshot here and tell the other nodes to do the same.
+     */
+    public void update(String baseCurrency, String quoteCurrency, BigDecimal rate) {
+        rateRepository.upsert(baseCurrency, quoteCurrency, rate);
+        snapshot = FxRateSnapshot.build(rateRepository.findAll());
+        notificationBus.notify(CHANNEL, notificationBus.getNodeId());
+    }
+
+    /**
+     * Rates of the current snapshot, as stored in the table.
+     */
+    public List<FxRate> rates() {
+        return snapshot.rates();
+    }
+
+    /**
+     * Convert an amount with the current snapshot rate, rounding down to the minor unit so a
+     * conversion never credits more than the rate gives.
+     *
+     * @throws BadException if there is no rate for the pair, the rate is out of date or the converted amount is zero
+     */
+    public FxConversion convert(String from, String to, Money amount) {
+        FxRateSnapshot current = snapshot;
+        int index = current.find(from, to);
+        if (index < 0)
+            throw new BadException("No exchange rate for " + from + "/" + to);
+        if (System.currentTimeMillis() - current.updatedAt(index) > maxAge.toMillis())
+            throw new BadException("Exchange rate for " + from + "/" + to + " is out of date");
+
+        BigDecimal rate = current.rate(index);
+        Money converted = Money.of(amount.toBigDecimal().multiply(rate).setScale(Money.SCALE, RoundingMode.DOWN));
+        if (converted.signum() <= 0)
+            throw new BadException("Amount is too small to convert");
+        return new FxConversion(converted, rate);
+    }
+
+    @Override
+    public void onNotification(String payload) {
+        if (!payload.equals(notificationBus.getNodeId())) load();
+    }
+
+    @Override
+    public void onReconnect() {
+        load();
+    }
+}
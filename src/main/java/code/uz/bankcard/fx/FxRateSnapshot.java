@@ -0,0 +1,114 @@
+package code.uz.bankcard.fx;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Immutable table of exchange rates, replaced whole on every refresh.
+ * <p>
+ * A currency code is three letters, five bits each, so a currency pair packs into one {@code int}.
+ * Pairs are kept sorted and looked up by binary search over the packed keys, without allocation.
+ * A pair missing from {@code fx_rate} is filled with the inverse of the opposite pair.
+ * </p>
+ */
+final class FxRateSnapshot {
+
+    static final FxRateSnapshot EMPTY = build(List.of());
+
+    private final int[] keys;
+    private final BigDecimal[] rates;
+    private final long[] updatedAt;
+    private final List<FxRate> source;
+
+    private FxRateSnapshot(int[] keys, BigDecimal[] rates, long[] updatedAt, List<FxRate> source) {
+        this.keys = keys;
+        this.rates = rates;
+        this.updatedAt = updatedAt;
+        this.source = source;
+    }
+
+    /**
+     * Rates as loaded from the table, without the derived inverse pairs.
+     */
+    List<FxRate> rates() {
+        return source;
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * Index of the pair, or a negative number if there is no rate for it.
+     */
+    int find(String from, String to) {
+        int key = key(from, to);
+        return key < 0 ? -1 : Arrays.binarySearch(keys, key);
+    }
+
+    BigDecimal rate(int index) {
+        return rates[index];
+    }
+
+    /**
+     * Epoch millis of the last update of the rate at {@code index}.
+     */
+    long updatedAt(int index) {
+        return updatedAt[index];
+    }
+
+    static FxRateSnapshot build(List<FxRate> rows) {
+        // direct rates first, so a stored pair always wins over the inverse of its opposite
+        TreeMap<Integer, FxRate> pairs = new TreeMap<>();
+        List<FxRate> source = new ArrayList<>(rows.size());
+        for (FxRate row : rows) {
+            int key = key(row.baseCurrency(), row.quoteCurrency());
+            if (key < 0 || row.baseCurrency().equals(row.quoteCurrency()) || row.rate().signum() <= 0) continue;
+            pairs.put(key, row);
+            source.add(row);
+        }
+        for (FxRate row : source) {
+            pairs.putIfAbsent(key(row.quoteCurrency(), row.baseCurrency()), new FxRate(row.quoteCurrency(),
+                    row.baseCurrency(), BigDecimal.ONE.divide(row.rate(), MathContext.DECIMAL64), row.updatedAt()));
+        }
+
+        int[] keys = new int[pairs.size()];
+        BigDecimal[] rates = new BigDecimal[pairs.size()];
+        long[] updatedAt = new long[pairs.size()];
+        int i = 0;
+        for (var pair : pairs.entrySet()) {
+            keys[i] = pair.getKey();
+            rates[i] = pair.getValue().rate();
+            updatedAt[i] = Timestamp.valueOf(pair.getValue().updatedAt()).getTime();
+            i++;
+        }
+        return new FxRateSnapshot(keys, rates, updatedAt, List.copyOf(source));
+    }
+
+    /**
+     * Pack a pair of ISO 4217 codes into 30 bits.
+     *
+     * @return the packed pair, or -1 if a code is not three upper-case letters
+     */
+    static int key(String from, String to) {
+        int fromCode = code(from);
+        int toCode = code(to);
+        return fromCode < 0 || toCode < 0 ? -1 : fromCode << 15 | toCode;
+    }
+
+    private static int code(String currency) {
+        if (currency == null || currency.length() != 3) return -1;
+        int code = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = currency.charAt(i);
+            if (c < 'A' || c > 'Z') return -1;
+            code = code << 5 | (c - 'A');
+        }
+        return code;
+    }
+}
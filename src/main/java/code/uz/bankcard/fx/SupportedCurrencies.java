@@ -0,0 +1,50 @@
+package code.uz.bankcard.fx;
+
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.money.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Currency;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Currencies cards may be issued in and exchange rates may be set for, from {@code app.fx.currencies}.
+ * <p>
+ * Balances, amounts and conversions are kept at the {@link Money#SCALE} of the money columns, so only
+ * ISO 4217 currencies with that many minor digits can be configured; the application does not start
+ * with any other one, or with a base currency outside the set.
+ * </p>
+ */
+@Component
+public class SupportedCurrencies {
+
+    private final Set<String> codes;
+
+    public SupportedCurrencies(@Value("${app.fx.base-currency:UZS}") String baseCurrency,
+                               @Value("${app.fx.currencies:UZS,USD,EUR,RUB}") List<String> currencies) {
+        Set<String> codes = new TreeSet<>();
+        for (String code : currencies) {
+            Currency currency = Currency.getInstance(code.trim());
+            if (currency.getDefaultFractionDigits() != Money.SCALE)
+                throw new IllegalStateException("Currency " + currency + " does not have " + Money.SCALE + " decimal places");
+            codes.add(currency.getCurrencyCode());
+        }
+        if (!codes.contains(baseCurrency))
+            throw new IllegalStateException("Base currency " + baseCurrency + " is not in app.fx.currencies");
+        this.codes = Set.copyOf(codes);
+    }
+
+    /**
+     * Check that a currency is supported.
+     *
+     * @return the ISO 4217 code
+     * @throws BadException if the currency is not configured
+     */
+    public String require(String code) {
+        if (!codes.contains(code)) throw new BadException("Unsupported currency " + code);
+        return code;
+    }
+}
@@ -0,0 +1,26 @@
+package code.uz.bankcard.job;
+
+import code.uz.bankcard.stats.AdminStatsCounters;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends the admin statistics counted on this node to the other nodes and rebuilds them from the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdminStatsJob {
+    private final AdminStatsCounters counters;
+
+    // broadcast() and rebuild() log their own failures
+    @Scheduled(fixedDelayString = "${app.admin-stats.broadcast-interval:1s}")
+    public void broadcast() {
+        counters.broadcast();
+    }
+
+    @Scheduled(fixedDelayString = "${app.admin-stats.rebuild-interval:5m}", initialDelayString = "${app.admin-stats.rebuild-interval:5m}")
+    public void rebuild() {
+        counters.rebuild();
+    }
+}
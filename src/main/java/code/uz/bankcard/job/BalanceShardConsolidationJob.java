@@ -0,0 +1,31 @@
+package code.uz.bankcard.job;
+
+import code.uz.bankcard.service.CardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Folds balance shards of sharded cards back into the card rows, so debits rarely need to.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BalanceShardConsolidationJob {
+    private final CardService cardService;
+
+    @Value("${app.card-balance-shard.consolidate-batch:10000}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.card-balance-shard.consolidate-interval:5s}")
+    public void run() {
+        try {
+            int cards = cardService.consolidateBalanceShards(batchSize);
+            if (cards > 0) log.debug("Consolidated balance shards of {} cards", cards);
+        } catch (Exception e) {
+            log.error("Balance shard consolidation failed", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package code.uz.bankcard.job;
+
+import code.uz.bankcard.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically rolls balance snapshots forward over the newest ledger entries.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.ledger.snapshot.enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceSnapshotJob {
+    private final LedgerService ledgerService;
+
+    @Scheduled(fixedDelayString = "${app.ledger.snapshot.interval:5m}", initialDelayString = "${app.ledger.snapshot.interval:5m}")
+    public void run() {
+        try {
+            ledgerService.takeSnapshots();
+        } catch (Exception e) {
+            log.error("Balance snapshot job failed", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package code.uz.bankcard.job;
+
+import code.uz.bankcard.analytics.CardAggregateBackfill;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds transactions older than the card aggregates to them; does nothing once every range is done.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.analytics.backfill.enabled", havingValue = "true", matchIfMissing = true)
+public class CardAggregateBackfillJob {
+    private final CardAggregateBackfill backfill;
+
+    @Scheduled(fixedDelayString = "${app.analytics.backfill.interval:10m}", initialDelayString = "${app.analytics.backfill.initial-delay:1m}")
+    public void backfill() {
+        try {
+            backfill.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Card aggregate backfill failed", e);
+        }
+    }
+}
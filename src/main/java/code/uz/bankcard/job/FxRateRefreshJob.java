@@ -0,0 +1,22 @@
+package code.uz.bankcard.job;
+
+import code.uz.bankcard.fx.FxRateCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reloads exchange rates written straight into {@code fx_rate}, e.g. by a rate feed.
+ * Changes made through the API are picked up immediately, see {@link FxRateCache}.
+ */
+@Component
+@RequiredArgsConstructor
+public class FxRateRefreshJob {
+    private final FxRateCache fxRateCache;
+
+    // load() logs and keeps the previous snapshot on failure
+    @Scheduled(fixedDelayString = "${app.fx.refresh-interval:5m}", initialDelayString = "${app.fx.refresh-interval:5m}")
+    public void refresh() {
+        fxRateCache.load();
+    }
+}
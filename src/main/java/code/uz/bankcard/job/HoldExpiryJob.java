@@ -0,0 +1,31 @@
+package code.uz.bankcard.job;
+
+import code.uz.bankcard.service.HoldService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Releases holds that were neither captured nor voided before they expired.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HoldExpiryJob {
+    private final HoldService holdService;
+
+    @Value("${app.hold.expire-batch:1000}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.hold.expire-interval:30s}")
+    public void run() {
+        try {
+            int holds = holdService.expireHolds(batchSize);
+            if (holds > 0) log.info("Expired {} holds", holds);
+        } catch (Exception e) {
+            log.error("Hold expiry failed", e);
+        }
+    }
+}
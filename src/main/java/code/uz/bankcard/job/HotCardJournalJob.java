@@ -0,0 +1,35 @@
+package code.uz.bankcard.job;
+
+import code.uz.bankcard.transfer.HotCardSequencer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the hot card journal to the card table and keeps the sequencer lock alive.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.transfer.hot-cards.enabled", havingValue = "true")
+public class HotCardJournalJob {
+    private final HotCardSequencer hotCardSequencer;
+
+    @Scheduled(fixedDelayString = "${app.transfer.hot-cards.flush-interval:200ms}")
+    public void flush() {
+        try {
+            while (hotCardSequencer.flushJournal() > 0) {
+                // keep going while a backlog is left
+            }
+        } catch (Exception e) {
+            log.error("Hot card journal flush failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.transfer.hot-cards.lock-check:1s}")
+    public void checkOwnership() {
+        hotCardSequencer.maintainOwnership();
+    }
+}
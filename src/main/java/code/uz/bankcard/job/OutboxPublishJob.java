@@ -0,0 +1,38 @@
+package code.uz.bankcard.job;
+
+import code.uz.bankcard.outbox.OutboxPublisher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Delivers pending transfer events and purges old published ones.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxPublishJob {
+    private final OutboxPublisher outboxPublisher;
+
+    @Scheduled(fixedDelayString = "${app.outbox.interval:500ms}")
+    public void publish() {
+        try {
+            outboxPublisher.publishPending();
+        } catch (Exception e) {
+            log.error("Outbox publishing failed", e);
+        }
+    }
+
+    @Scheduled(cron = "${app.outbox.purge-cron:0 30 3 * * *}")
+    public void purge() {
+        try {
+            int deleted = outboxPublisher.purgePublished();
+            if (deleted > 0) log.info("Purged {} published outbox events", deleted);
+        } catch (Exception e) {
+            log.error("Outbox purge failed", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package code.uz.bankcard.job;
+
+import code.uz.bankcard.ratelimit.PostgresRateLimiterBackend;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes full token buckets from the shared rate limit table.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.rate-limit.backend", havingValue = "POSTGRES")
+public class RateLimitPurgeJob {
+    private final PostgresRateLimiterBackend backend;
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.purge-interval:1m}")
+    public void purge() {
+        try {
+            backend.purgeIdle();
+        } catch (Exception e) {
+            log.error("Rate limit bucket purge failed", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package code.uz.bankcard.job;
+
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.service.ReconciliationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Nightly balance reconciliation. Every node fires the schedule; only the first one starts a run.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReconciliationJob {
+    private final ReconciliationService reconciliationService;
+
+    @Scheduled(cron = "${app.reconciliation.cron:0 0 2 * * *}")
+    public void run() {
+        try {
+            reconciliationService.start();
+        } catch (BadException e) {
+            log.info("Nightly reconciliation skipped: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package code.uz.bankcard.job;
+
+import code.uz.bankcard.service.ScheduledTransferService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Executes due standing orders. Every node runs it; claimed chunks do not overlap.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ScheduledTransferJob {
+    private final ScheduledTransferService scheduledTransferService;
+
+    @Scheduled(fixedDelayString = "${app.transfer.scheduled.interval:10s}")
+    public void run() {
+        try {
+            int runs = scheduledTransferService.executeDue();
+            if (runs > 0) log.info("Executed {} scheduled transfers", runs);
+        } catch (Exception e) {
+            log.error("Scheduled transfer execution failed", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package code.uz.bankcard.job;
+
+import code.uz.bankcard.transfer.SpendLimitGuard;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes spending counters of past days and months. Safe to run on every node.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SpendCounterPurgeJob {
+    private final SpendLimitGuard spendLimitGuard;
+
+    @Scheduled(cron = "${app.spend-limit.purge-cron:0 15 0 * * *}")
+    public void purge() {
+        try {
+            log.info("Deleted {} past spending counters", spendLimitGuard.purgePast());
+        } catch (Exception e) {
+            log.error("Spending counter purge failed", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package code.uz.bankcard.money;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The {@link Money} must be at least {@link #value()}. {@code null} is valid.
+ */
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@Constraint(validatedBy = MinMoneyValidator.class)
+public @interface MinMoney {
+
+    /**
+     * Minimum amount as a decimal string, e.g. {@code "0.1"}.
+     */
+    String value();
+
+    String message() default "Amount is too small";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,21 @@
+package code.uz.bankcard.money;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Compares minor units; the minimum is parsed once when the validator is initialized.
+ */
+public class MinMoneyValidator implements ConstraintValidator<MinMoney, Money> {
+    private Money min;
+
+    @Override
+    public void initialize(MinMoney constraint) {
+        min = Money.of(constraint.value());
+    }
+
+    @Override
+    public boolean isValid(Money value, ConstraintValidatorContext context) {
+        return value == null || !value.isLessThan(min);
+    }
+}
@@ -0,0 +1,123 @@
+package code.uz.bankcard.money;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amount of money as a whole number of minor units (tiyin, cents), at the scale of the
+ * {@code NUMERIC(38, 2)} money columns.
+ * <p>
+ * Comparing, adding and subtracting work on a single {@code long} and never create intermediate
+ * {@link BigDecimal}s; conversion happens only at the edges (request DTOs, JDBC, responses).
+ * Arithmetic throws {@link ArithmeticException} on overflow instead of wrapping around.
+ * Request bodies are parsed straight into minor units by {@link MoneyDeserializer}.
+ * </p>
+ */
+@Schema(type = "number", example = "100.50")
+@JsonDeserialize(using = MoneyDeserializer.class)
+public record Money(long minorUnits) implements Comparable<Money> {
+
+    /**
+     * Number of decimal places of a minor unit.
+     */
+    public static final int SCALE = 2;
+
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * Convert a decimal amount, rounding extra decimal places half-up like the database column does.
+     *
+     * @return {@code null} for a {@code null} amount
+     */
+    public static Money of(BigDecimal amount) {
+        if (amount == null) return null;
+        return ofMinor(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Money of(String amount) {
+        return parse(amount.toCharArray(), 0, amount.length());
+    }
+
+    /**
+     * Parse a plain decimal number such as {@code 100}, {@code -0.5} or {@code 12.345} without creating
+     * a {@link BigDecimal}; extra decimal places are rounded half-up. Exponent notation falls back to
+     * {@link BigDecimal} parsing.
+     *
+     * @throws NumberFormatException if the characters are not a number
+     * @throws ArithmeticException   if the amount does not fit into a {@code long} of minor units
+     */
+    public static Money parse(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) negative = chars[i++] == '-';
+
+        long units = 0;
+        int fractionDigits = -1;
+        boolean digits = false;
+        boolean roundUp = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            if (c < '0' || c > '9') return of(new BigDecimal(chars, offset, length));
+
+            digits = true;
+            if (fractionDigits >= SCALE) {
+                // only the first dropped digit decides the rounding
+                if (fractionDigits++ == SCALE) roundUp = c >= '5';
+                continue;
+            }
+            units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+            if (fractionDigits >= 0) fractionDigits++;
+        }
+        if (!digits) throw new NumberFormatException("Not a number: " + new String(chars, offset, length));
+
+        for (int f = Math.max(fractionDigits, 0); f < SCALE; f++) units = Math.multiplyExact(units, 10);
+        if (roundUp) units = Math.addExact(units, 1);
+        return ofMinor(negative ? -units : units);
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minorUnits));
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isLessThan(Money other) {
+        return minorUnits < other.minorUnits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
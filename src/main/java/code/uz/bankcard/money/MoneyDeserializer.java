@@ -0,0 +1,32 @@
+package code.uz.bankcard.money;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads a JSON number (or a numeric string) into {@link Money} from the parser's own character
+ * buffer, so no {@code BigDecimal} or {@code String} is created for the amount.
+ */
+public class MoneyDeserializer extends StdScalarDeserializer<Money> {
+
+    public MoneyDeserializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_STRING)
+            return (Money) ctxt.handleUnexpectedToken(Money.class, p);
+
+        try {
+            return Money.parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+        } catch (NumberFormatException | ArithmeticException e) {
+            return (Money) ctxt.handleWeirdStringValue(Money.class, p.getText(), "not a valid amount");
+        }
+    }
+}
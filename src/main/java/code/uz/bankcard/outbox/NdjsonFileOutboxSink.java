@@ -0,0 +1,79 @@
+package code.uz.bankcard.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events to a local file, one JSON object per line ({@code {"id":..,"event":{..}}}).
+ * A batch is written with one call and forced to disk before it counts as published; a batch that
+ * fails halfway is cut off again, so the retry does not follow a torn line.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "FILE", matchIfMissing = true)
+public class NdjsonFileOutboxSink implements OutboxSink {
+
+    record Line(long id, @JsonRawValue String event) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    private FileChannel channel;
+
+    public NdjsonFileOutboxSink(ObjectMapper objectMapper, @Value("${app.outbox.file:logs/transfer-events.ndjson}") Path file) {
+        this.objectMapper = objectMapper;
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(events.size() * 256);
+        for (OutboxEvent event : events) {
+            objectMapper.writeValue(lines, new Line(event.id(), event.payload()));
+            lines.write('\n');
+        }
+
+        if (channel == null) {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        long start = channel.size();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(false);
+        } catch (IOException e) {
+            // cut a torn batch off so the file stays line-delimited; the whole batch is written again
+            try {
+                channel.truncate(start);
+            } catch (IOException ignored) {
+                // the retry appends after whatever is left
+            }
+            close();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // nothing left to flush, force() ran after every batch
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,14 @@
+package code.uz.bankcard.outbox;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Claimed outbox row handed to an {@link OutboxSink}. {@code id} is unique, so consumers can drop
+ * redeliveries by id. It is taken at insert, so it does not grow in delivery order.
+ *
+ * @param payload  JSON of a {@link TransferEvent}
+ * @param attempts delivery attempts including this one
+ */
+public record OutboxEvent(long id, UUID cardId, String eventType, String payload, LocalDateTime createdAt, int attempts) {
+}
@@ -0,0 +1,140 @@
+package code.uz.bankcard.outbox;
+
+import code.uz.bankcard.repository.TransferOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers {@code transfer_outbox} rows to the configured {@link OutboxSink}.
+ * <p>
+ * Rows are claimed in batches with {@code FOR UPDATE SKIP LOCKED} and a lease, in a short
+ * transaction of their own; delivery happens outside of it. Delivered rows are marked published,
+ * a failed batch is released with an exponential backoff. Rows leased by a publisher that died
+ * are claimed again once the lease runs out, so delivery is at-least-once. Events of one card
+ * are delivered in the order of the transactions that wrote them, see {@link TransferOutboxRepository#claim}.
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxPublisher {
+
+    static final long LOCK_KEY = 0x6f7574626f78L;
+
+    private final TransferOutboxRepository outboxRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Duration lease;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final Duration retention;
+    private final Timer lag;
+    private final Counter published;
+    private final Counter failed;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestAgeSeconds = new AtomicLong();
+
+    public OutboxPublisher(TransferOutboxRepository outboxRepository,
+                           OutboxSink sink,
+                           TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.outbox.batch-size:500}") int batchSize,
+                           @Value("${app.outbox.max-batches:20}") int maxBatches,
+                           @Value("${app.outbox.lease:30s}") Duration lease,
+                           @Value("${app.outbox.retry-backoff:1s}") Duration retryBackoff,
+                           @Value("${app.outbox.max-retry-backoff:5m}") Duration maxRetryBackoff,
+                           @Value("${app.outbox.retention:3d}") Duration retention) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.lease = lease;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.retention = retention;
+        this.lag = Timer.builder("outbox.publish.lag").description("Time from writing an event to delivering it")
+                .register(meterRegistry);
+        this.published = Counter.builder("outbox.published").register(meterRegistry);
+        this.failed = Counter.builder("outbox.failed").description("Deliveries that will be retried").register(meterRegistry);
+        Gauge.builder("outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("outbox.oldest.age", oldestAgeSeconds, AtomicLong::get).baseUnit("seconds").register(meterRegistry);
+    }
+
+    /**
+     * Claim and deliver batches until the outbox is drained, a delivery fails or {@code max-batches} is reached.
+     *
+     * @return number of delivered events
+     */
+    public int publishPending() {
+        int delivered = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            List<OutboxEvent> batch = transactionTemplate.execute(status -> outboxRepository.claim(LOCK_KEY, batchSize, lease));
+            if (batch == null || batch.isEmpty()) break;
+            if (!deliver(batch)) break;
+            delivered += batch.size();
+            if (batch.size() < batchSize) break;
+        }
+        refreshStats();
+        return delivered;
+    }
+
+    /**
+     * Delete rows published longer than {@code retention} ago, chunk by chunk.
+     *
+     * @return number of deleted rows
+     */
+    public int purgePublished() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int deleted = 0;
+        int chunk;
+        do {
+            chunk = outboxRepository.deletePublishedBefore(cutoff, batchSize * 10);
+            deleted += chunk;
+        } while (chunk == batchSize * 10);
+        return deleted;
+    }
+
+    private boolean deliver(List<OutboxEvent> batch) {
+        List<Long> ids = batch.stream().map(OutboxEvent::id).toList();
+        try {
+            sink.publish(batch);
+        } catch (Exception e) {
+            failed.increment(batch.size());
+            log.warn("Could not deliver {} outbox events, retrying later: {}", batch.size(), e.getMessage());
+            outboxRepository.retry(ids, truncate(String.valueOf(e.getMessage())), retryBackoff, maxRetryBackoff);
+            return false;
+        }
+
+        // a failure here leaves the rows leased; they are delivered again after the lease
+        outboxRepository.markPublished(ids);
+        published.increment(batch.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxEvent event : batch) lag.record(Duration.between(event.createdAt(), now));
+        return true;
+    }
+
+    private void refreshStats() {
+        TransferOutboxRepository.Stats stats = outboxRepository.pendingStats();
+        pending.set(stats.pending());
+        oldestAgeSeconds.set(stats.oldest() == null ? 0 : Duration.between(stats.oldest(), LocalDateTime.now()).toSeconds());
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+}
@@ -0,0 +1,15 @@
+package code.uz.bankcard.outbox;
+
+import java.util.List;
+
+/**
+ * Destination of outbox events, chosen with {@code app.outbox.sink}.
+ * <p>
+ * Events come in the order of the transactions that wrote them, which keeps the order of every card.
+ * A sink either takes the whole batch or throws; a failed batch is delivered again later, so a sink
+ * may see an event twice.
+ * </p>
+ */
+public interface OutboxSink {
+    void publish(List<OutboxEvent> events) throws Exception;
+}
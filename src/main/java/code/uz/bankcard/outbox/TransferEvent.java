@@ -0,0 +1,15 @@
+package code.uz.bankcard.outbox;
+
+import code.uz.bankcard.enums.OutboxEventType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Payload of an outbox row: one side of a SUCCESS transfer, seen from {@code cardId}.
+ * The amount is in the card's own currency, so a cross-currency credit carries the converted amount.
+ */
+public record TransferEvent(OutboxEventType type, Integer transactionId, UUID cardId, UUID counterpartyCardId,
+                            BigDecimal amount, String currency, Integer feeFor, LocalDateTime sentDate) {
+}
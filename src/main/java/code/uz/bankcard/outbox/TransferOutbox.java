@@ -0,0 +1,69 @@
+package code.uz.bankcard.outbox;
+
+import code.uz.bankcard.entity.TransactionEntity;
+import code.uz.bankcard.enums.OutboxEventType;
+import code.uz.bankcard.repository.TransferOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the events of saved SUCCESS transfers into {@code transfer_outbox}.
+ * <p>
+ * Called inside the transfer's own transaction, so the events exist exactly when the transfer
+ * commits. Every transfer gives a debit event for the source card and a credit event for the
+ * recipient, each in its card's currency; {@link OutboxPublisher} delivers them.
+ * </p>
+ */
+@Component
+public class TransferOutbox {
+
+    private final TransferOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    public TransferOutbox(TransferOutboxRepository outboxRepository,
+                          ObjectMapper objectMapper,
+                          @Value("${app.outbox.enabled:true}") boolean enabled) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    public void append(TransactionEntity transaction) {
+        append(List.of(transaction));
+    }
+
+    /**
+     * Write the events of several transfers with one batched insert. Must run in the transaction that saved them.
+     */
+    public void append(List<TransactionEntity> transactions) {
+        if (!enabled || transactions.isEmpty()) return;
+
+        List<TransferOutboxRepository.Row> rows = new ArrayList<>(transactions.size() * 2);
+        for (TransactionEntity transaction : transactions) {
+            rows.add(row(new TransferEvent(OutboxEventType.TRANSFER_DEBIT, transaction.getId(),
+                    transaction.getFromCardId().getId(), transaction.getToCardId().getId(),
+                    transaction.getAmount().toBigDecimal(), transaction.getCurrency(),
+                    transaction.getFeeFor(), transaction.getSentDate())));
+            rows.add(row(new TransferEvent(OutboxEventType.TRANSFER_CREDIT, transaction.getId(),
+                    transaction.getToCardId().getId(), transaction.getFromCardId().getId(),
+                    transaction.getCreditedAmount().toBigDecimal(), transaction.getToCardId().getCurrency(),
+                    transaction.getFeeFor(), transaction.getSentDate())));
+        }
+        outboxRepository.append(rows);
+    }
+
+    private TransferOutboxRepository.Row row(TransferEvent event) {
+        try {
+            return new TransferOutboxRepository.Row(event.cardId(), event.transactionId(), event.type().name(),
+                    objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize transfer event", e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package code.uz.bankcard.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets of this node, one {@link AtomicLong} each, updated with a CAS loop.
+ * <p>
+ * Buckets are bounded by count and dropped after {@code idle-timeout} without requests. A dropped
+ * bucket comes back full, so the idle timeout must be at least the refill time of the largest bucket.
+ * With several nodes every node enforces the limits on its own.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.backend", havingValue = "LOCAL", matchIfMissing = true)
+public class LocalRateLimiterBackend implements RateLimiterBackend {
+
+    private final Cache<String, AtomicLong> buckets;
+
+    public LocalRateLimiterBackend(@Value("${app.rate-limit.max-buckets:100000}") long maxBuckets,
+                                   @Value("${app.rate-limit.idle-timeout:10m}") Duration idleTimeout) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    @Override
+    public long tryAcquire(String key, RateLimit limit) {
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+        long interval = limit.intervalNanos();
+        long burst = limit.burstNanos();
+        long now = System.nanoTime();
+
+        while (true) {
+            long full = bucket.get();
+            long next = Math.max(full, now) + interval;
+            long wait = next - now - burst;
+            if (wait > 0) return wait;
+            if (bucket.compareAndSet(full, next)) return 0;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package code.uz.bankcard.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Token buckets shared by all nodes in the unlogged {@code rate_limit_bucket} table.
+ * <p>
+ * A request is one upsert in autocommit that moves the bucket forward only when a token is left,
+ * timed by the database clock so nodes with skewed clocks agree. Buckets lost in a crash come back
+ * full. Full buckets are deleted by {@link #purgeIdle()}.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.rate-limit.backend", havingValue = "POSTGRES")
+public class PostgresRateLimiterBackend implements RateLimiterBackend {
+    private static final String NOW_MICROS = "(extract(epoch from clock_timestamp()) * 1000000)::bigint";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public long tryAcquire(String key, RateLimit limit) {
+        long interval = limit.intervalNanos() / 1000;
+        long burst = limit.burstNanos() / 1000;
+
+        // excluded.tat - interval is the database time of this request
+        List<Long> taken = jdbcTemplate.queryForList("insert into rate_limit_bucket as b (bucket_key, tat) " +
+                        "values (?, " + NOW_MICROS + " + ?) " +
+                        "on conflict (bucket_key) do update set tat = greatest(b.tat, excluded.tat - ?) + ? " +
+                        "where greatest(b.tat, excluded.tat - ?) + ? - (excluded.tat - ?) <= ? " +
+                        "returning tat",
+                Long.class, key, interval, interval, interval, interval, interval, interval, burst);
+        if (!taken.isEmpty()) return 0;
+
+        List<Long> wait = jdbcTemplate.queryForList("select tat + ? - " + NOW_MICROS + " - ? from rate_limit_bucket where bucket_key = ?",
+                Long.class, interval, burst, key);
+        return wait.isEmpty() ? 0 : Math.max(1, wait.get(0)) * 1000;
+    }
+
+    /**
+     * Delete buckets that are full again; they behave exactly like absent ones.
+     *
+     * @return number of deleted buckets
+     */
+    public int purgeIdle() {
+        return jdbcTemplate.update("delete from rate_limit_bucket where tat < " + NOW_MICROS);
+    }
+}
@@ -0,0 +1,26 @@
+package code.uz.bankcard.ratelimit;
+
+/**
+ * Token bucket of {@code capacity} tokens refilled at {@code perSecond} tokens per second.
+ */
+public record RateLimit(int capacity, double perSecond) {
+
+    public RateLimit {
+        if (capacity < 1 || perSecond <= 0)
+            throw new IllegalArgumentException("Rate limit needs a capacity of at least 1 and a positive refill rate");
+    }
+
+    /**
+     * Time in which one token is refilled.
+     */
+    public long intervalNanos() {
+        return (long) (1_000_000_000L / perSecond);
+    }
+
+    /**
+     * Time in which an empty bucket is refilled completely.
+     */
+    public long burstNanos() {
+        return intervalNanos() * capacity;
+    }
+}
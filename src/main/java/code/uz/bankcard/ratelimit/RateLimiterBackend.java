@@ -0,0 +1,20 @@
+package code.uz.bankcard.ratelimit;
+
+/**
+ * Storage of token buckets. The local backend keeps them in this node; the Postgres backend
+ * shares them between all nodes. Selected with {@code app.rate-limit.backend}.
+ * <p>
+ * Buckets are kept as a theoretical arrival time (GCRA): the time at which the bucket is full again.
+ * Taking a token moves it forward by one refill interval and is refused when it would end up more
+ * than a full burst ahead of now. One number per bucket means one CAS or one upsert per request.
+ * </p>
+ */
+public interface RateLimiterBackend {
+
+    /**
+     * Take one token from the bucket of {@code key}.
+     *
+     * @return 0 if a token was taken, otherwise nanoseconds until the next token is available
+     */
+    long tryAcquire(String key, RateLimit limit);
+}
@@ -0,0 +1,87 @@
+package code.uz.bankcard.ratelimit;
+
+import code.uz.bankcard.enums.Role;
+import code.uz.bankcard.exception.TooManyRequestsException;
+import code.uz.bankcard.util.SecurityUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Throttles transfer requests per profile and per source card, with separate limits for admins.
+ * <p>
+ * The profile bucket is taken first. The card bucket is only charged once the caller is known to
+ * be allowed to transfer from the card, so requests naming someone else's card cannot drain it.
+ * </p>
+ */
+@Component
+public class TransferRateLimiter {
+    private final RateLimiterBackend backend;
+    private final boolean enabled;
+    private final RateLimit userProfile;
+    private final RateLimit userCard;
+    private final RateLimit adminProfile;
+    private final RateLimit adminCard;
+    private final Counter limitedProfile;
+    private final Counter limitedCard;
+
+    public TransferRateLimiter(RateLimiterBackend backend,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                               @Value("${app.rate-limit.user.profile-capacity:20}") int userProfileCapacity,
+                               @Value("${app.rate-limit.user.profile-per-second:5}") double userProfilePerSecond,
+                               @Value("${app.rate-limit.user.card-capacity:10}") int userCardCapacity,
+                               @Value("${app.rate-limit.user.card-per-second:2}") double userCardPerSecond,
+                               @Value("${app.rate-limit.admin.profile-capacity:200}") int adminProfileCapacity,
+                               @Value("${app.rate-limit.admin.profile-per-second:50}") double adminProfilePerSecond,
+                               @Value("${app.rate-limit.admin.card-capacity:50}") int adminCardCapacity,
+                               @Value("${app.rate-limit.admin.card-per-second:20}") double adminCardPerSecond) {
+        this.backend = backend;
+        this.enabled = enabled;
+        this.userProfile = new RateLimit(userProfileCapacity, userProfilePerSecond);
+        this.userCard = new RateLimit(userCardCapacity, userCardPerSecond);
+        this.adminProfile = new RateLimit(adminProfileCapacity, adminProfilePerSecond);
+        this.adminCard = new RateLimit(adminCardCapacity, adminCardPerSecond);
+        this.limitedProfile = Counter.builder("transfer.rate-limited").tag("scope", "profile").register(meterRegistry);
+        this.limitedCard = Counter.builder("transfer.rate-limited").tag("scope", "card").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Take a token of the current user for a transfer.
+     *
+     * @throws TooManyRequestsException if the profile bucket is empty
+     */
+    public void checkProfile() {
+        if (!enabled) return;
+
+        long wait = backend.tryAcquire("profile:" + SecurityUtil.getID(),
+                SecurityUtil.hasRole(Role.ROLE_ADMIN) ? adminProfile : userProfile);
+        if (wait > 0) {
+            limitedProfile.increment();
+            throw new TooManyRequestsException("Too many transfers, try again later", Duration.ofNanos(wait));
+        }
+    }
+
+    /**
+     * Take a token for a transfer from {@code fromCardId}. Only call it once the current user may use the card.
+     *
+     * @throws TooManyRequestsException if the card bucket is empty
+     */
+    public void checkCard(UUID fromCardId) {
+        if (!enabled) return;
+
+        long wait = backend.tryAcquire("card:" + fromCardId, SecurityUtil.hasRole(Role.ROLE_ADMIN) ? adminCard : userCard);
+        if (wait > 0) {
+            limitedCard.increment();
+            throw new TooManyRequestsException("Too many transfers from this card, try again later", Duration.ofNanos(wait));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package code.uz.bankcard.reconciliation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Half-open slice {@code [from, to)} of the card id keyspace; {@code to == null} means unbounded.
+ */
+@Getter
+@AllArgsConstructor
+public class CardRange {
+    private final UUID from;
+    private final UUID to;
+}
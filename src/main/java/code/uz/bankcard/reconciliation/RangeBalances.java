@@ -0,0 +1,83 @@
+package code.uz.bankcard.reconciliation;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Per-card accumulators for one card range, kept in parallel primitive arrays.
+ * <p>
+ * Cards must be added in ascending id order (Postgres uuid order, i.e. unsigned byte order);
+ * movements are then matched to their card by binary search. Amounts are in cents.
+ * </p>
+ */
+public class RangeBalances {
+    private long[] msb;
+    private long[] lsb;
+    private long[] actual;
+    private long[] expected;
+    private int size;
+
+    public RangeBalances(int expectedCards) {
+        int capacity = Math.max(16, expectedCards);
+        msb = new long[capacity];
+        lsb = new long[capacity];
+        actual = new long[capacity];
+        expected = new long[capacity];
+    }
+
+    public void addCard(UUID id, long balanceCents) {
+        if (size == msb.length) {
+            int capacity = size * 2;
+            msb = Arrays.copyOf(msb, capacity);
+            lsb = Arrays.copyOf(lsb, capacity);
+            actual = Arrays.copyOf(actual, capacity);
+            expected = Arrays.copyOf(expected, capacity);
+        }
+        msb[size] = id.getMostSignificantBits();
+        lsb[size] = id.getLeastSignificantBits();
+        actual[size] = balanceCents;
+        size++;
+    }
+
+    /**
+     * Add a movement to the expected balance of a card. Movements of cards outside the range are ignored.
+     */
+    public void addMovement(UUID cardId, long amountCents) {
+        int index = indexOf(cardId.getMostSignificantBits(), cardId.getLeastSignificantBits());
+        if (index >= 0) expected[index] += amountCents;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean matches(int index) {
+        return actual[index] == expected[index];
+    }
+
+    public UUID cardId(int index) {
+        return new UUID(msb[index], lsb[index]);
+    }
+
+    public long actualCents(int index) {
+        return actual[index];
+    }
+
+    public long expectedCents(int index) {
+        return expected[index];
+    }
+
+    private int indexOf(long keyMsb, long keyLsb) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Long.compareUnsigned(msb[mid], keyMsb);
+            if (cmp == 0) cmp = Long.compareUnsigned(lsb[mid], keyLsb);
+            if (cmp < 0) low = mid + 1;
+            else if (cmp > 0) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,127 @@
+package code.uz.bankcard.reconciliation;
+
+import code.uz.bankcard.entity.ReconciliationMismatchEntity;
+import code.uz.bankcard.repository.ReconciliationMismatchRepository;
+import code.uz.bankcard.repository.ReconciliationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks that every card balance equals its opening balance and admin adjustments
+ * plus the net of its SUCCESS transactions.
+ * <p>
+ * The card keyspace is cut into ranges of about {@code range-size} cards, which a
+ * {@link ForkJoinPool} processes in parallel. Its parallelism also bounds the number of
+ * database connections in use. Each range is read in one REPEATABLE READ transaction,
+ * so balances and transactions come from the same snapshot even while transfers go on.
+ * </p>
+ */
+@Component
+public class ReconciliationEngine {
+
+    private final ReconciliationRepository reconciliationRepository;
+    private final ReconciliationMismatchRepository mismatchRepository;
+    private final TransactionTemplate snapshotTemplate;
+    private final int parallelism;
+    private final int rangeSize;
+    private final int fetchSize;
+
+    public ReconciliationEngine(ReconciliationRepository reconciliationRepository,
+                                ReconciliationMismatchRepository mismatchRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.reconciliation.parallelism:4}") int parallelism,
+                                @Value("${app.reconciliation.range-size:20000}") int rangeSize,
+                                @Value("${app.reconciliation.fetch-size:1000}") int fetchSize) {
+        this.reconciliationRepository = reconciliationRepository;
+        this.mismatchRepository = mismatchRepository;
+        this.parallelism = parallelism;
+        this.rangeSize = rangeSize;
+        this.fetchSize = fetchSize;
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setReadOnly(true);
+    }
+
+    public void run(Long runId, ReconciliationProgress progress) {
+        List<CardRange> ranges = ranges();
+        progress.reset(ranges.size());
+        if (ranges.isEmpty()) return;
+
+        // no compensation threads on blocked joins, so at most `parallelism` connections are used
+        ForkJoinPool pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null,
+                false, 0, parallelism, 1, p -> true, 60, TimeUnit.SECONDS);
+        try {
+            pool.invoke(new RangeTask(runId, ranges, progress));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    List<CardRange> ranges() {
+        List<UUID> starts = reconciliationRepository.findRangeStarts(rangeSize);
+        List<CardRange> ranges = new ArrayList<>(starts.size());
+        for (int i = 0; i < starts.size(); i++) {
+            ranges.add(new CardRange(starts.get(i), i + 1 < starts.size() ? starts.get(i + 1) : null));
+        }
+        return ranges;
+    }
+
+    void reconcile(Long runId, CardRange range, ReconciliationProgress progress) {
+        RangeBalances balances = snapshotTemplate.execute(status -> {
+            RangeBalances result = new RangeBalances(rangeSize);
+            reconciliationRepository.loadCards(range, fetchSize, result);
+            reconciliationRepository.loadMovements(range, fetchSize, result);
+            return result;
+        });
+
+        List<ReconciliationMismatchEntity> mismatches = new ArrayList<>();
+        for (int i = 0; i < balances.size(); i++) {
+            if (balances.matches(i)) continue;
+            ReconciliationMismatchEntity mismatch = new ReconciliationMismatchEntity();
+            mismatch.setRunId(runId);
+            mismatch.setCardId(balances.cardId(i));
+            mismatch.setExpectedBalance(BigDecimal.valueOf(balances.expectedCents(i), 2));
+            mismatch.setActualBalance(BigDecimal.valueOf(balances.actualCents(i), 2));
+            mismatches.add(mismatch);
+        }
+        if (!mismatches.isEmpty()) mismatchRepository.saveAll(mismatches);
+        progress.rangeDone(balances.size(), mismatches.size());
+    }
+
+    /**
+     * Splits the range list in halves until a single range is left.
+     */
+    private class RangeTask extends RecursiveAction {
+        private final Long runId;
+        private final List<CardRange> ranges;
+        private final ReconciliationProgress progress;
+
+        RangeTask(Long runId, List<CardRange> ranges, ReconciliationProgress progress) {
+            this.runId = runId;
+            this.ranges = ranges;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            if (ranges.size() == 1) {
+                reconcile(runId, ranges.get(0), progress);
+                return;
+            }
+            int middle = ranges.size() / 2;
+            invokeAll(new RangeTask(runId, ranges.subList(0, middle), progress),
+                    new RangeTask(runId, ranges.subList(middle, ranges.size()), progress));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package code.uz.bankcard.reconciliation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live counters of the current reconciliation run, updated by the worker threads.
+ */
+public class ReconciliationProgress {
+    private final AtomicInteger totalRanges = new AtomicInteger();
+    private final AtomicInteger doneRanges = new AtomicInteger();
+    private final AtomicLong cardsChecked = new AtomicLong();
+    private final AtomicLong mismatches = new AtomicLong();
+
+    public void reset(int ranges) {
+        totalRanges.set(ranges);
+        doneRanges.set(0);
+        cardsChecked.set(0);
+        mismatches.set(0);
+    }
+
+    public void rangeDone(int cards, int rangeMismatches) {
+        cardsChecked.addAndGet(cards);
+        mismatches.addAndGet(rangeMismatches);
+        doneRanges.incrementAndGet();
+    }
+
+    public int getTotalRanges() {
+        return totalRanges.get();
+    }
+
+    public int getDoneRanges() {
+        return doneRanges.get();
+    }
+
+    public long getCardsChecked() {
+        return cardsChecked.get();
+    }
+
+    public long getMismatches() {
+        return mismatches.get();
+    }
+}
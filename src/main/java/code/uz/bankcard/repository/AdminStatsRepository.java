@@ -0,0 +1,60 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.enums.CardStatus;
+import code.uz.bankcard.enums.GeneralStatus;
+import code.uz.bankcard.enums.TransactionStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full counts behind the admin statistics. Only read when {@code AdminStatsCounters} rebuilds,
+ * never per dashboard request.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AdminStatsRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public record TransferTotal(TransactionStatus status, String currency, long count, BigDecimal amount) {
+    }
+
+    public Map<CardStatus, Long> countCardsByStatus() {
+        Map<CardStatus, Long> counts = new EnumMap<>(CardStatus.class);
+        jdbcTemplate.query("select status, count(*) from card where visible = true and status is not null group by status",
+                rs -> {
+                    counts.put(CardStatus.valueOf(rs.getString(1)), rs.getLong(2));
+                });
+        return counts;
+    }
+
+    /**
+     * Profiles without a status have never been blocked and count as ACTIVE.
+     */
+    public Map<GeneralStatus, Long> countProfilesByStatus() {
+        Map<GeneralStatus, Long> counts = new EnumMap<>(GeneralStatus.class);
+        jdbcTemplate.query("select coalesce(status, 'ACTIVE'), count(*) from profile where visible = true " +
+                        "group by coalesce(status, 'ACTIVE')",
+                rs -> {
+                    counts.put(GeneralStatus.valueOf(rs.getString(1)), rs.getLong(2));
+                });
+        return counts;
+    }
+
+    /**
+     * Transfers of the day per status and currency, without fee transactions.
+     */
+    public List<TransferTotal> sumTransfers(LocalDate day) {
+        return jdbcTemplate.query("select status, currency, count(*), coalesce(sum(amount), 0) from transaction " +
+                        "where sent_date >= ? and sent_date < ? and fee_for is null group by status, currency",
+                (rs, i) -> new TransferTotal(TransactionStatus.valueOf(rs.getString(1)), rs.getString(2),
+                        rs.getLong(3), rs.getBigDecimal(4)),
+                day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    }
+}
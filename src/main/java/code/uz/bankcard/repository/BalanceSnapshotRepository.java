@@ -0,0 +1,45 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.entity.BalanceSnapshotEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshotEntity, Long> {
+
+    Optional<BalanceSnapshotEntity> findFirstByCardIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(UUID cardId, LocalDateTime at);
+
+    /**
+     * Write a snapshot at {@code cutoff} for every card with ledger entries in {@code (from, cutoff]},
+     * rolling its previous snapshot forward by the net of those entries.
+     *
+     * @return number of snapshots written
+     */
+    @Modifying
+    @Query(value = "insert into balance_snapshot (card_id, snapshot_date, balance) " +
+            "select d.card_id, :cutoff, coalesce(s.balance, 0) + d.delta " +
+            "from (select e.card_id, sum(e.amount) as delta from ledger_entry e " +
+            "      where e.created_date > :from and e.created_date <= :cutoff group by e.card_id) d " +
+            "left join lateral (select bs.balance from balance_snapshot bs where bs.card_id = d.card_id " +
+            "      order by bs.snapshot_date desc limit 1) s on true",
+            nativeQuery = true)
+    int createSnapshots(LocalDateTime from, LocalDateTime cutoff);
+
+    @Query("select max(r.cutoff) from BalanceSnapshotRunEntity r")
+    Optional<LocalDateTime> findLastCutoff();
+
+    @Modifying
+    @Query(value = "insert into balance_snapshot_run (cutoff, cards, created_date) values (:cutoff, :cards, now())",
+            nativeQuery = true)
+    void saveRun(LocalDateTime cutoff, int cards);
+
+    /**
+     * Transaction-scoped advisory lock, so only one node runs the snapshot job at a time.
+     */
+    @Query(value = "select pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryLock(long key);
+}
@@ -0,0 +1,124 @@
+package code.uz.bankcard.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Balance shards of cards with {@code balance_sharded} set.
+ * <p>
+ * Credits are added to one of the {@code card_balance_shard} rows, so concurrent incoming payments
+ * lock different rows instead of the card row. The balance of a card is {@code card.balance} plus
+ * the sum of its shards. All writes are relative, so they commute with each other, and bump
+ * {@code card.version} so that entity writes holding an older copy of the card fail.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardBalanceShardRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.card-balance-shard.count:8}")
+    private int shardCount;
+
+    /**
+     * Add the amount to a randomly chosen shard of the card.
+     */
+    public void credit(UUID cardId, BigDecimal amount) {
+        int shard = ThreadLocalRandom.current().nextInt(shardCount);
+        jdbcTemplate.update("insert into card_balance_shard (card_id, shard, amount) values (?, ?, ?) " +
+                        "on conflict (card_id, shard) do update set amount = card_balance_shard.amount + excluded.amount",
+                cardId, shard, amount);
+    }
+
+    /**
+     * Take the amount from the card row, folding the shards into it first if the row alone is not enough.
+     *
+     * @return new balance of the card row, or {@code null} if the whole balance is insufficient
+     */
+    public BigDecimal debit(UUID cardId, BigDecimal amount) {
+        BigDecimal balance = debitRow(cardId, amount);
+        if (balance != null) return balance;
+        fold(cardId);
+        return debitRow(cardId, amount);
+    }
+
+    /**
+     * Move all shards of one card into its row.
+     */
+    public void fold(UUID cardId) {
+        jdbcTemplate.update("with moved as (delete from card_balance_shard where card_id = ? returning amount) " +
+                        "update card set balance = balance + coalesce((select sum(amount) from moved), 0), version = version + 1 where id = ?",
+                cardId, cardId);
+    }
+
+    /**
+     * Move the first {@code limit} shard rows into their card rows, skipping rows locked by credits.
+     *
+     * @return ids of the consolidated cards
+     */
+    public List<UUID> consolidate(int limit) {
+        return jdbcTemplate.queryForList("with moved as (" +
+                        "delete from card_balance_shard where (card_id, shard) in (" +
+                        "select card_id, shard from card_balance_shard order by card_id, shard limit ? for update skip locked) " +
+                        "returning card_id, amount) " +
+                        "update card c set balance = c.balance + m.total, version = c.version + 1 " +
+                        "from (select card_id, sum(amount) as total from moved group by card_id) m " +
+                        "where c.id = m.card_id returning c.id",
+                UUID.class, limit);
+    }
+
+    /**
+     * Card row plus shards, read in one statement so a running consolidation is counted exactly once.
+     */
+    public BigDecimal totalBalance(UUID cardId) {
+        return jdbcTemplate.queryForObject("select coalesce(c.balance, 0) + coalesce(" +
+                        "(select sum(s.amount) from card_balance_shard s where s.card_id = c.id), 0) " +
+                        "from card c where c.id = ?",
+                BigDecimal.class, cardId);
+    }
+
+    /**
+     * {@link #totalBalance(UUID)} of the sharded cards among {@code cardIds}, in one statement; other cards are left out.
+     */
+    public Map<UUID, BigDecimal> totalBalances(Collection<UUID> cardIds) {
+        String sql = "select c.id, coalesce(c.balance, 0) + coalesce(" +
+                "(select sum(s.amount) from card_balance_shard s where s.card_id = c.id), 0) " +
+                "from card c where c.id = any(?) and c.balance_sharded";
+
+        return jdbcTemplate.execute((ConnectionCallback<Map<UUID, BigDecimal>>) connection -> {
+            Array idArray = connection.createArrayOf("uuid", cardIds.toArray());
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setArray(1, idArray);
+
+                Map<UUID, BigDecimal> balances = new HashMap<>();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) balances.put(rs.getObject(1, UUID.class), rs.getBigDecimal(2));
+                }
+                return balances;
+            } finally {
+                idArray.free();
+            }
+        });
+    }
+
+    private BigDecimal debitRow(UUID cardId, BigDecimal amount) {
+        List<BigDecimal> balance = jdbcTemplate.queryForList(
+                "update card set balance = balance - ?, version = version + 1 where id = ? and balance >= ? returning balance",
+                BigDecimal.class, amount, cardId, amount);
+        return balance.isEmpty() ? null : balance.get(0);
+    }
+}
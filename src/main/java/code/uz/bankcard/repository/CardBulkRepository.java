@@ -0,0 +1,126 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.enums.CardStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Set-based card writes that would cost one statement per row through JPA.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardBulkRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert cards of one profile in a single statement by unnesting the id and number arrays.
+     * Numbers that already exist are skipped through the unique index on {@code card_number}.
+     * Opening ledger entries of the inserted cards are written by the same statement.
+     *
+     * @return card numbers that were actually inserted
+     */
+    public List<String> insertCards(List<UUID> ids, List<String> cardNumbers, List<String> maskedNumbers,
+                                    UUID profileId, String ownerName,
+                                    BigDecimal balance, String currency, LocalDateTime createdDate, LocalDateTime expiryDate) {
+        String sql = "with inserted as (" +
+                "insert into card (id, card_number, masked_number, owner_name, created_date, exp_date, status, balance, currency, visible, profile_id) " +
+                "select u.id, u.card_number, u.masked_number, ?, ?, ?, ?, ?, ?, true, ? " +
+                "from unnest(?::uuid[], ?::varchar[], ?::varchar[]) as u(id, card_number, masked_number) " +
+                "on conflict (card_number) do nothing " +
+                "returning id, card_number, balance, created_date), " +
+                "opening as (" +
+                "insert into ledger_entry (card_id, entry_type, amount, created_date) " +
+                "select id, 'OPENING', balance, created_date from inserted where balance <> 0) " +
+                "select card_number from inserted";
+
+        return jdbcTemplate.execute((ConnectionCallback<List<String>>) connection -> {
+            Array idArray = connection.createArrayOf("uuid", ids.toArray());
+            Array numberArray = connection.createArrayOf("varchar", cardNumbers.toArray());
+            Array maskedArray = connection.createArrayOf("varchar", maskedNumbers.toArray());
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, ownerName);
+                statement.setTimestamp(2, Timestamp.valueOf(createdDate));
+                statement.setTimestamp(3, Timestamp.valueOf(expiryDate));
+                statement.setString(4, CardStatus.ACTIVE.name());
+                statement.setBigDecimal(5, balance);
+                statement.setString(6, currency);
+                statement.setObject(7, profileId);
+                statement.setArray(8, idArray);
+                statement.setArray(9, numberArray);
+                statement.setArray(10, maskedArray);
+
+                List<String> inserted = new ArrayList<>(cardNumbers.size());
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) inserted.add(rs.getString(1));
+                }
+                return inserted;
+            } finally {
+                idArray.free();
+                numberArray.free();
+                maskedArray.free();
+            }
+        });
+    }
+
+    /**
+     * Change the status of many cards with one {@code UPDATE ... WHERE id = ANY(?)}.
+     *
+     * @return ids of the cards that were actually updated, with the status each had before
+     */
+    public Map<UUID, CardStatus> updateStatus(List<UUID> ids, CardStatus status) {
+        // the CTE locks the rows first, so the returned status is the one the update replaced;
+        // cards entering REQUEST_BLOCK join the back of the block-request queue
+        String sql = "with old as (select id, status from card where id = any(?) and visible = true for update) " +
+                "update card c set status = ?, version = c.version + 1, " +
+                "block_requested_at = case when c.status <> 'REQUEST_BLOCK' and ? = 'REQUEST_BLOCK' " +
+                "then ? else c.block_requested_at end " +
+                "from old where c.id = old.id " +
+                "returning c.id, old.status";
+
+        return jdbcTemplate.execute((ConnectionCallback<Map<UUID, CardStatus>>) connection -> {
+            Array idArray = connection.createArrayOf("uuid", ids.toArray());
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setArray(1, idArray);
+                statement.setString(2, status.name());
+                statement.setString(3, status.name());
+                statement.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+
+                Map<UUID, CardStatus> updated = new LinkedHashMap<>();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        String previous = rs.getString(2);
+                        updated.put(rs.getObject(1, UUID.class), previous != null ? CardStatus.valueOf(previous) : null);
+                    }
+                }
+                return updated;
+            } finally {
+                idArray.free();
+            }
+        });
+    }
+
+    /**
+     * Copy a new profile name onto all of its cards in one statement.
+     *
+     * @return ids of the updated cards
+     */
+    public List<UUID> updateOwnerName(UUID profileId, String ownerName) {
+        return jdbcTemplate.queryForList(
+                "update card set owner_name = ?, version = version + 1 where profile_id = ? and owner_name is distinct from ? returning id",
+                UUID.class, ownerName, profileId, ownerName);
+    }
+}
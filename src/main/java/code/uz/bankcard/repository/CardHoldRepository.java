@@ -0,0 +1,140 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.enums.HoldStatus;
+import code.uz.bankcard.money.Money;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Authorization holds on cards.
+ * <p>
+ * The sum of the ACTIVE holds of a card is kept in {@code card.held_amount}; the available balance
+ * is {@code balance - held_amount}. Every statement changes the hold and the card row together and
+ * bumps {@code card.version}, so entity writes holding an older copy of the card fail.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardHoldRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Hold(UUID id, UUID cardId, UUID ownerId, UUID toCardId, Money amount, Money capturedAmount,
+                       HoldStatus status, LocalDateTime createdDate, LocalDateTime expiresAt, Integer transactionId) {
+    }
+
+    /**
+     * Reserve the amount and insert the hold with one conditional update. Nothing changes unless the
+     * card is active and not sharded, its available balance covers the amount, the recipient card is
+     * active and, for a non-null {@code ownerId}, the card belongs to that profile.
+     *
+     * @return available balance after the hold, empty if the hold was refused
+     */
+    public Optional<Money> place(UUID holdId, UUID cardId, UUID ownerId, UUID toCardId, Money amount,
+                                 LocalDateTime createdDate, LocalDateTime expiresAt) {
+        BigDecimal value = amount.toBigDecimal();
+        List<BigDecimal> available = jdbcTemplate.queryForList("with reserved as (" +
+                        "update card set held_amount = held_amount + ?, version = version + 1 " +
+                        "where id = ? and visible = true and status = 'ACTIVE' and balance_sharded = false " +
+                        "and (cast(? as uuid) is null or profile_id = ?) and balance - held_amount >= ? " +
+                        "and exists (select 1 from card t where t.id = ? and t.visible = true and t.status = 'ACTIVE') " +
+                        "returning id, balance - held_amount as available), " +
+                        "inserted as (" +
+                        "insert into card_hold (id, card_id, to_card_id, amount, status, created_date, expires_at) " +
+                        "select ?, id, ?, ?, 'ACTIVE', ?, ? from reserved) " +
+                        "select available from reserved",
+                BigDecimal.class,
+                value, cardId, ownerId, ownerId, value, toCardId,
+                holdId, toCardId, value, Timestamp.valueOf(createdDate), Timestamp.valueOf(expiresAt));
+        return available.stream().findFirst().map(Money::of);
+    }
+
+    public Optional<Hold> find(UUID holdId) {
+        return jdbcTemplate.query("select h.id, h.card_id, c.profile_id, h.to_card_id, h.amount, h.captured_amount, " +
+                        "h.status, h.created_date, h.expires_at, h.transaction_id " +
+                        "from card_hold h join card c on c.id = h.card_id where h.id = ?",
+                this::mapHold, holdId).stream().findFirst();
+    }
+
+    /**
+     * Mark an unexpired ACTIVE hold captured and release its whole amount from the card.
+     * The captured amount itself is moved by the caller, in the same transaction.
+     *
+     * @return {@code false} if the hold is no longer active or smaller than {@code captured}
+     */
+    public boolean capture(UUID holdId, Money captured, LocalDateTime closedDate) {
+        BigDecimal value = captured.toBigDecimal();
+        return !jdbcTemplate.queryForList("with captured as (" +
+                        "update card_hold set status = 'CAPTURED', captured_amount = ?, closed_date = ? " +
+                        "where id = ? and status = 'ACTIVE' and expires_at > ? and amount >= ? " +
+                        "returning card_id, amount) " +
+                        "update card c set held_amount = c.held_amount - h.amount, version = c.version + 1 " +
+                        "from captured h where c.id = h.card_id returning c.id",
+                UUID.class, value, Timestamp.valueOf(closedDate), holdId, Timestamp.valueOf(closedDate), value).isEmpty();
+    }
+
+    public void setTransaction(UUID holdId, Integer transactionId) {
+        jdbcTemplate.update("update card_hold set transaction_id = ? where id = ?", transactionId, holdId);
+    }
+
+    /**
+     * Void an ACTIVE hold and give its amount back to the available balance.
+     *
+     * @return {@code false} if the hold is no longer active
+     */
+    public boolean release(UUID holdId, LocalDateTime closedDate) {
+        return !jdbcTemplate.queryForList("with voided as (" +
+                        "update card_hold set status = 'VOIDED', closed_date = ? where id = ? and status = 'ACTIVE' " +
+                        "returning card_id, amount) " +
+                        "update card c set held_amount = c.held_amount - h.amount, version = c.version + 1 " +
+                        "from voided h where c.id = h.card_id returning c.id",
+                UUID.class, Timestamp.valueOf(closedDate), holdId).isEmpty();
+    }
+
+    /**
+     * Expire up to {@code limit} ACTIVE holds past their expiry and release them from their cards,
+     * one update per card. Holds locked by a concurrent capture or void are skipped.
+     *
+     * @return number of expired holds
+     */
+    public int expire(int limit, LocalDateTime now) {
+        Timestamp timestamp = Timestamp.valueOf(now);
+        Integer expired = jdbcTemplate.queryForObject("with expired as (" +
+                        "update card_hold set status = 'EXPIRED', closed_date = ? where id in (" +
+                        "select id from card_hold where status = 'ACTIVE' and expires_at <= ? " +
+                        "order by expires_at limit ? for update skip locked) " +
+                        "returning card_id, amount), " +
+                        "released as (" +
+                        "update card c set held_amount = c.held_amount - e.total, version = c.version + 1 " +
+                        "from (select card_id, sum(amount) as total from expired group by card_id) e " +
+                        "where c.id = e.card_id) " +
+                        "select count(*) from expired",
+                Integer.class, timestamp, timestamp, limit);
+        return expired == null ? 0 : expired;
+    }
+
+    private Hold mapHold(ResultSet rs, int row) throws SQLException {
+        Timestamp created = rs.getTimestamp("created_date");
+        Timestamp expires = rs.getTimestamp("expires_at");
+        return new Hold(
+                rs.getObject("id", UUID.class),
+                rs.getObject("card_id", UUID.class),
+                rs.getObject("profile_id", UUID.class),
+                rs.getObject("to_card_id", UUID.class),
+                Money.of(rs.getBigDecimal("amount")),
+                Money.of(rs.getBigDecimal("captured_amount")),
+                HoldStatus.valueOf(rs.getString("status")),
+                created.toLocalDateTime(),
+                expires.toLocalDateTime(),
+                rs.getObject("transaction_id", Integer.class));
+    }
+}
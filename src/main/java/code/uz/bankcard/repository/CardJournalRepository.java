@@ -0,0 +1,96 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.money.Money;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Write-behind journal of balance movements that are not yet applied to {@code card.balance}.
+ * The balance of a card is always {@code card.balance} plus the sum of its journal rows.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardJournalRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Entry(UUID cardId, Integer transactionId, Money amount) {
+    }
+
+    /**
+     * Append movements in the given order with one batched insert.
+     */
+    public void append(List<Entry> entries) {
+        jdbcTemplate.batchUpdate("insert into card_journal (card_id, transaction_id, amount) values (?, ?, ?)",
+                entries, entries.size(), (ps, entry) -> {
+                    ps.setObject(1, entry.cardId());
+                    ps.setObject(2, entry.transactionId());
+                    ps.setBigDecimal(3, entry.amount().toBigDecimal());
+                });
+    }
+
+    /**
+     * Apply the oldest journal rows to the card table and delete them, in one statement.
+     * Rows locked by a concurrent flush are skipped.
+     *
+     * @return ids of the cards whose balance changed
+     */
+    public List<UUID> applyOldest(int limit) {
+        return jdbcTemplate.queryForList("with applied as (" +
+                        "delete from card_journal where id in (" +
+                        "select id from card_journal order by id limit ? for update skip locked) " +
+                        "returning card_id, amount) " +
+                        "update card c set balance = c.balance + d.net, version = c.version + 1 " +
+                        "from (select card_id, sum(amount) as net from applied group by card_id) d " +
+                        "where c.id = d.card_id returning c.id",
+                UUID.class, limit);
+    }
+
+    /**
+     * Current balances in cents: {@code card.balance} plus pending journal rows, read in one statement
+     * so a row is counted exactly once even while a flush is running.
+     */
+    public Map<UUID, Long> loadBalances(Collection<UUID> cardIds) {
+        String sql = "select c.id, ((coalesce(c.balance, 0) + coalesce(" +
+                "(select sum(j.amount) from card_journal j where j.card_id = c.id), 0)) * 100)::bigint " +
+                "from card c where c.id = any(?)";
+
+        return jdbcTemplate.execute((ConnectionCallback<Map<UUID, Long>>) connection -> {
+            Array idArray = connection.createArrayOf("uuid", cardIds.toArray());
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setArray(1, idArray);
+
+                Map<UUID, Long> balances = new HashMap<>();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) balances.put(rs.getObject(1, UUID.class), rs.getLong(2));
+                }
+                return balances;
+            } finally {
+                idArray.free();
+            }
+        });
+    }
+
+    /**
+     * Inside a transaction: hold the shared fence lock until commit and check that the session
+     * with the given backend pid still owns the sequencer lock.
+     */
+    public boolean isSequencerOwner(int lockClass, int ownerPid) {
+        jdbcTemplate.queryForList("select pg_advisory_xact_lock_shared(?, 2)", lockClass);
+        Boolean owner = jdbcTemplate.queryForObject("select exists (select 1 from pg_locks " +
+                        "where locktype = 'advisory' and classid::bigint = ? and objid = 1 and objsubid = 2 " +
+                        "and pid = ? and granted)",
+                Boolean.class, lockClass, ownerPid);
+        return Boolean.TRUE.equals(owner);
+    }
+}
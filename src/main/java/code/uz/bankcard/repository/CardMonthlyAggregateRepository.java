@@ -0,0 +1,125 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.dto.analytics.CounterpartyFlowDTO;
+import code.uz.bankcard.dto.analytics.MonthlyFlowDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads and writes {@code card_monthly_aggregate} and its backfill ranges in {@code card_aggregate_backfill}.
+ * <p>
+ * Rows are always written in primary key order, so a transfer and a backfill range touching
+ * the same rows lock them in the same order and never deadlock.
+ * </p>
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardMonthlyAggregateRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String ADD = " on conflict (card_id, month, counterparty_card_id) do update set " +
+            "inflow = a.inflow + excluded.inflow, outflow = a.outflow + excluded.outflow, " +
+            "inflow_count = a.inflow_count + excluded.inflow_count, outflow_count = a.outflow_count + excluded.outflow_count";
+
+    public record Delta(UUID cardId, LocalDate month, UUID counterpartyCardId,
+                        BigDecimal inflow, BigDecimal outflow, int inflowCount, int outflowCount) {
+    }
+
+    /**
+     * Add the deltas with one batched upsert; they must be sorted by card, month and counterparty.
+     */
+    public void add(List<Delta> deltas) {
+        jdbcTemplate.batchUpdate("insert into card_monthly_aggregate as a (card_id, month, counterparty_card_id, " +
+                        "inflow, outflow, inflow_count, outflow_count) values (?, ?, ?, ?, ?, ?, ?)" + ADD,
+                deltas, deltas.size(), (ps, delta) -> {
+                    ps.setObject(1, delta.cardId());
+                    ps.setObject(2, delta.month());
+                    ps.setObject(3, delta.counterpartyCardId());
+                    ps.setBigDecimal(4, delta.inflow());
+                    ps.setBigDecimal(5, delta.outflow());
+                    ps.setInt(6, delta.inflowCount());
+                    ps.setInt(7, delta.outflowCount());
+                });
+    }
+
+    public boolean hasPendingBackfill() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select exists (select 1 from card_aggregate_backfill where done_at is null)", Boolean.class));
+    }
+
+    /**
+     * Lock a pending backfill range until the end of the current transaction; ranges locked by
+     * another worker are skipped.
+     *
+     * @return {@code {chunkStart, chunkEnd}} of the range, or {@code null} if none is left
+     */
+    public int[] lockPendingBackfill() {
+        List<int[]> chunks = jdbcTemplate.query("select chunk_start, chunk_end from card_aggregate_backfill " +
+                        "where done_at is null order by chunk_start limit 1 for update skip locked",
+                (rs, i) -> new int[]{rs.getInt("chunk_start"), rs.getInt("chunk_end")});
+        return chunks.isEmpty() ? null : chunks.get(0);
+    }
+
+    /**
+     * Add the SUCCESS transactions with ids in {@code [chunkStart, chunkEnd)} and mark the range done.
+     * Must run in the transaction that locked the range.
+     */
+    public void backfill(int chunkStart, int chunkEnd) {
+        jdbcTemplate.update("insert into card_monthly_aggregate as a (card_id, month, counterparty_card_id, " +
+                        "inflow, outflow, inflow_count, outflow_count) " +
+                        "select card_id, month, counterparty_card_id, sum(inflow), sum(outflow), " +
+                        "sum(inflow_count), sum(outflow_count) from (" +
+                        "select from_card as card_id, date_trunc('month', sent_date)::date as month, " +
+                        "to_card as counterparty_card_id, 0::numeric as inflow, amount as outflow, " +
+                        "0 as inflow_count, 1 as outflow_count " +
+                        "from transaction where id >= ? and id < ? and status = 'SUCCESS' and sent_date is not null " +
+                        "union all " +
+                        "select to_card, date_trunc('month', sent_date)::date, from_card, coalesce(credit_amount, amount), " +
+                        "0::numeric, 1, 0 " +
+                        "from transaction where id >= ? and id < ? and status = 'SUCCESS' and sent_date is not null" +
+                        ") t group by card_id, month, counterparty_card_id " +
+                        "order by card_id, month, counterparty_card_id" + ADD,
+                chunkStart, chunkEnd, chunkStart, chunkEnd);
+        jdbcTemplate.update("update card_aggregate_backfill set done_at = now() where chunk_start = ?", chunkStart);
+    }
+
+    public List<MonthlyFlowDTO> findMonthly(UUID cardId, LocalDate fromMonth, LocalDate toMonth) {
+        return jdbcTemplate.query("select month, sum(inflow) as inflow, sum(outflow) as outflow, " +
+                        "sum(inflow_count) as inflow_count, sum(outflow_count) as outflow_count " +
+                        "from card_monthly_aggregate where card_id = ? and month between ? and ? " +
+                        "group by month order by month",
+                (rs, i) -> new MonthlyFlowDTO(
+                        rs.getObject("month", LocalDate.class),
+                        rs.getBigDecimal("inflow"),
+                        rs.getBigDecimal("outflow"),
+                        rs.getLong("inflow_count"),
+                        rs.getLong("outflow_count")),
+                cardId, fromMonth, toMonth);
+    }
+
+    /**
+     * Counterparties of a card with the largest inflow plus outflow over the months.
+     */
+    public List<CounterpartyFlowDTO> findTopCounterparties(UUID cardId, LocalDate fromMonth, LocalDate toMonth, int limit) {
+        return jdbcTemplate.query("select t.counterparty_card_id, c.masked_number, t.inflow, t.outflow, t.transfers from (" +
+                        "select counterparty_card_id, sum(inflow) as inflow, sum(outflow) as outflow, " +
+                        "sum(inflow_count + outflow_count) as transfers " +
+                        "from card_monthly_aggregate where card_id = ? and month between ? and ? " +
+                        "group by counterparty_card_id order by sum(inflow + outflow) desc limit ?" +
+                        ") t left join card c on c.id = t.counterparty_card_id " +
+                        "order by t.inflow + t.outflow desc",
+                (rs, i) -> new CounterpartyFlowDTO(
+                        rs.getObject("counterparty_card_id", UUID.class),
+                        rs.getString("masked_number"),
+                        rs.getBigDecimal("inflow"),
+                        rs.getBigDecimal("outflow"),
+                        rs.getLong("transfers")),
+                cardId, fromMonth, toMonth, limit);
+    }
+}
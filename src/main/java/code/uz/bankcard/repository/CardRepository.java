@@ -1,30 +1,73 @@
 package code.uz.bankcard.repository;
 
+import code.uz.bankcard.dto.card.CardResponseDTO;
 import code.uz.bankcard.entity.CardEntity;
 import code.uz.bankcard.enums.CardStatus;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Transactional
 public interface CardRepository extends JpaRepository<CardEntity, UUID> {
-    List<CardEntity> findAllByProfileIdAndVisibleTrueOrderByCreatedDateDesc(UUID profileId, Pageable pageable);
+    @Query(value = "select new code.uz.bankcard.dto.card.CardResponseDTO(" +
+            "c.id, c.maskedNumber, c.ownerName, c.expiryDate, c.status, c.balance, c.currency) " +
+            "from CardEntity c where c.profile.id = :profileId and c.visible = true order by c.createdDate desc",
+            countQuery = "select count(c) from CardEntity c where c.profile.id = :profileId and c.visible = true")
+    Page<CardResponseDTO> findCardViewsByProfileId(UUID profileId, Pageable pageable);
+
+    // admins see the full card number
+    @Query(value = "select new code.uz.bankcard.dto.card.CardResponseDTO(" +
+            "c.id, c.cardNumber, c.ownerName, c.expiryDate, c.status, c.balance, c.currency) " +
+            "from CardEntity c order by c.createdDate desc",
+            countQuery = "select count(c) from CardEntity c")
+    Page<CardResponseDTO> findAllCardViews(Pageable pageable);
+
+    @Query("select c.id from CardEntity c where c.profile.id = :profileId and c.visible = true")
+    List<UUID> findVisibleIdsByProfileId(UUID profileId);
 
     Optional<CardEntity> findByIdAndProfileIdAndVisibleTrue(UUID id, UUID profileId);
 
+    @Query("select c.profile.id from CardEntity c where c.id = :id and c.visible = true")
+    Optional<UUID> findOwnerIdById(UUID id);
+
     Optional<CardEntity> findByIdAndVisibleTrue(UUID id);
 
+    boolean existsByCardNumber(String cardNumber);
+
+    // literals instead of parameters so the planner can use the partial index idx_card_request_block_at
+    @Query(value = "select new code.uz.bankcard.dto.card.CardResponseDTO(" +
+            "c.id, c.cardNumber, c.ownerName, c.expiryDate, c.status, c.balance, c.currency) " +
+            "from CardEntity c " +
+            "where c.status = code.uz.bankcard.enums.CardStatus.REQUEST_BLOCK and c.visible = true " +
+            "order by c.blockRequestedAt",
+            countQuery = "select count(c) from CardEntity c " +
+                    "where c.status = code.uz.bankcard.enums.CardStatus.REQUEST_BLOCK and c.visible = true")
+    Page<CardResponseDTO> findBlockRequests(Pageable pageable);
+
     @Modifying
-    @Query("update CardEntity set visible = false where id = :id")
+    @Query("update versioned CardEntity set visible = false where id = :id")
     void changeVisibleById(UUID id);
 
-    @Query("update CardEntity c set c.status = :status where c.id = :id")
+    @Query("update versioned CardEntity c set c.status = :status where c.id = :id")
     @Modifying
     void updateStatusById(CardStatus status, UUID id);
+
+    @Query("update versioned CardEntity c set c.status = code.uz.bankcard.enums.CardStatus.REQUEST_BLOCK, " +
+            "c.blockRequestedAt = :requestedAt where c.id = :id")
+    @Modifying
+    void requestBlockById(UUID id, LocalDateTime requestedAt);
+
+    // holds are only placed on unsharded cards, so sharding waits until all holds are released
+    @Query(value = "update card set balance_sharded = :sharded, version = version + 1 " +
+            "where id = :id and visible = true and (not :sharded or held_amount = 0)", nativeQuery = true)
+    @Modifying
+    int updateBalanceShardedById(Boolean sharded, UUID id);
 }
@@ -0,0 +1,85 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.money.Money;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outbound spending of limited cards per day and per month, in {@code card_spend_counter}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardSpendCounterRepository {
+    public static final String DAY = "DAY";
+    public static final String MONTH = "MONTH";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Spent(String period, Money amount) {
+    }
+
+    /**
+     * Add {@code amount} to the day and month counters of a card in one statement, but only to
+     * counters that stay within their limit (a {@code null} limit is unlimited). Joins the caller's
+     * transaction and locks the counter rows, not the card row, until it ends.
+     * A new counter row is always inserted; the caller checks the amount against the limits first.
+     *
+     * @return new totals of the counters that were updated; a missing period is over its limit
+     */
+    public List<Spent> add(UUID cardId, LocalDate day, LocalDate month, Money amount, Money dailyLimit, Money monthlyLimit) {
+        BigDecimal value = amount.toBigDecimal();
+        BigDecimal daily = dailyLimit == null ? null : dailyLimit.toBigDecimal();
+        BigDecimal monthly = monthlyLimit == null ? null : monthlyLimit.toBigDecimal();
+
+        return jdbcTemplate.query("insert into card_spend_counter as c (card_id, period, period_start, spent) " +
+                        "values (?, '" + DAY + "', ?, ?), (?, '" + MONTH + "', ?, ?) " +
+                        "on conflict (card_id, period, period_start) do update set spent = c.spent + excluded.spent " +
+                        "where case excluded.period when '" + DAY + "' then ?::numeric else ?::numeric end is null " +
+                        "or c.spent + excluded.spent <= case excluded.period when '" + DAY + "' then ?::numeric else ?::numeric end " +
+                        "returning period, spent",
+                (rs, i) -> new Spent(rs.getString(1), Money.of(rs.getBigDecimal(2))),
+                cardId, Date.valueOf(day), value, cardId, Date.valueOf(month), value,
+                daily, monthly, daily, monthly);
+    }
+
+    /**
+     * Take an amount back from the counters, e.g. after a transfer that was counted was rejected.
+     */
+    public void subtract(UUID cardId, LocalDate day, LocalDate month, Money amount) {
+        jdbcTemplate.update("update card_spend_counter set spent = spent - ? " +
+                        "where card_id = ? and ((period = '" + DAY + "' and period_start = ?) or (period = '" + MONTH + "' and period_start = ?))",
+                amount.toBigDecimal(), cardId, Date.valueOf(day), Date.valueOf(month));
+    }
+
+    /**
+     * Set the current counters of a card from its SUCCESS transactions, for a card that just got a limit.
+     * Like {@link #add}, the counters hold the transferred amounts only; fee transactions are left out.
+     */
+    public void seed(UUID cardId, LocalDate day, LocalDate month) {
+        String sum = "select coalesce(sum(amount), 0) from transaction " +
+                "where from_card = ? and status = 'SUCCESS' and fee_for is null and sent_date >= ?";
+        jdbcTemplate.update("insert into card_spend_counter (card_id, period, period_start, spent) " +
+                        "values (?, '" + DAY + "', ?, (" + sum + ")), (?, '" + MONTH + "', ?, (" + sum + ")) " +
+                        "on conflict (card_id, period, period_start) do update set spent = excluded.spent",
+                cardId, Date.valueOf(day), cardId, Timestamp.valueOf(day.atStartOfDay()),
+                cardId, Date.valueOf(month), cardId, Timestamp.valueOf(month.atStartOfDay()));
+    }
+
+    /**
+     * Delete counters of past periods.
+     *
+     * @return number of deleted rows
+     */
+    public int deletePast(LocalDate day, LocalDate month) {
+        return jdbcTemplate.update("delete from card_spend_counter where (period = '" + DAY + "' and period_start < ?) or period_start < ?",
+                Date.valueOf(day), Date.valueOf(month));
+    }
+}
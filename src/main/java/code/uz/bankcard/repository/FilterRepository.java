@@ -2,7 +2,7 @@ package code.uz.bankcard.repository;
 
 import code.uz.bankcard.dto.filter.CardFilterDTO;
 import code.uz.bankcard.dto.filter.FilterResultDTO;
-import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.dto.card.CardResponseDTO;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 import lombok.RequiredArgsConstructor;
@@ -18,7 +18,7 @@ import java.util.UUID;
 public class FilterRepository {
     private final EntityManager entityManager;
 
-    public FilterResultDTO<CardEntity> filter(CardFilterDTO filterDTO, UUID profileId, boolean isAdmin, int page, int size) {
+    public FilterResultDTO<CardResponseDTO> filter(CardFilterDTO filterDTO, UUID profileId, boolean isAdmin, int page, int size) {
         StringBuilder visibleQuery = new StringBuilder(" where c.visible = true ");
         Map<String, Object> params = new HashMap<>();
 
@@ -32,12 +32,14 @@ public class FilterRepository {
             params.put("cardNumber", "%" + filterDTO.getCardNumber() + "%");
         }
 
-        Query selectQuery = entityManager.createQuery("select c from CardEntity c " + visibleQuery + " order by c.createdDate desc ");
+        Query selectQuery = entityManager.createQuery("select new code.uz.bankcard.dto.card.CardResponseDTO(" +
+                "c.id, c.maskedNumber, c.ownerName, c.expiryDate, c.status, c.balance, c.currency) " +
+                "from CardEntity c " + visibleQuery + " order by c.createdDate desc ");
         selectQuery.setFirstResult((page) * size);
         selectQuery.setMaxResults(size);
         params.forEach(selectQuery::setParameter);
 
-        List<CardEntity> resultList = selectQuery.getResultList();
+        List<CardResponseDTO> resultList = selectQuery.getResultList();
 
         String countQuery = "select count(c) from CardEntity c " + visibleQuery;
         Query count = entityManager.createQuery(countQuery);
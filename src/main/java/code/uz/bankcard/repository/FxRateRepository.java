@@ -0,0 +1,34 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.fx.FxRate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Reads and writes {@code fx_rate}. Rates are only read by {@code FxRateCache} when it rebuilds its snapshot.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FxRateRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<FxRate> findAll() {
+        return jdbcTemplate.query("select base_currency, quote_currency, rate, updated_at from fx_rate " +
+                        "order by base_currency, quote_currency",
+                (rs, i) -> new FxRate(
+                        rs.getString("base_currency"),
+                        rs.getString("quote_currency"),
+                        rs.getBigDecimal("rate"),
+                        rs.getTimestamp("updated_at").toLocalDateTime()));
+    }
+
+    public void upsert(String baseCurrency, String quoteCurrency, BigDecimal rate) {
+        jdbcTemplate.update("insert into fx_rate (base_currency, quote_currency, rate, updated_at) values (?, ?, ?, now()) " +
+                        "on conflict (base_currency, quote_currency) do update set rate = excluded.rate, updated_at = excluded.updated_at",
+                baseCurrency, quoteCurrency, rate);
+    }
+}
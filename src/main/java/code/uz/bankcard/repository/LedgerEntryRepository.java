@@ -0,0 +1,16 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.entity.LedgerEntryEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntryEntity, Long> {
+
+    @Query("select coalesce(sum(e.amount), 0) from LedgerEntryEntity e " +
+            "where e.cardId = :cardId and e.createdDate > :from and e.createdDate <= :to")
+    BigDecimal sumAmount(UUID cardId, LocalDateTime from, LocalDateTime to);
+}
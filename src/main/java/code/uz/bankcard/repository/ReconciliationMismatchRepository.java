@@ -0,0 +1,10 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.entity.ReconciliationMismatchEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ReconciliationMismatchRepository extends JpaRepository<ReconciliationMismatchEntity, Long> {
+    Page<ReconciliationMismatchEntity> findAllByRunIdOrderByIdAsc(Long runId, Pageable pageable);
+}
@@ -0,0 +1,74 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.reconciliation.CardRange;
+import code.uz.bankcard.reconciliation.RangeBalances;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Streaming reads for balance reconciliation. Amounts are read as cents so they can be summed in {@code long}s.
+ * Must be called inside a transaction: Postgres only streams with a fetch size when autocommit is off.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReconciliationRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * First id of every {@code rangeSize} cards, so ranges hold about the same number of cards.
+     */
+    public List<UUID> findRangeStarts(int rangeSize) {
+        return jdbcTemplate.queryForList(
+                "select id from (select id, row_number() over (order by id) as rn from card) c " +
+                        "where (c.rn - 1) % ? = 0 order by id",
+                UUID.class, rangeSize);
+    }
+
+    /**
+     * Stream actual balances of the range. Hot card journal rows and balance shards count as part of the card balance.
+     */
+    public void loadCards(CardRange range, int fetchSize, RangeBalances balances) {
+        stream("select id, ((coalesce(balance, 0) " +
+                        "+ coalesce((select sum(j.amount) from card_journal j where j.card_id = card.id), 0) " +
+                        "+ coalesce((select sum(s.amount) from card_balance_shard s where s.card_id = card.id), 0)) * 100)::bigint " +
+                        "from card where " + predicate("id", range) + " order by id",
+                range, fetchSize,
+                rs -> balances.addCard(rs.getObject(1, UUID.class), rs.getLong(2)));
+    }
+
+    /**
+     * Stream opening balances, admin adjustments and SUCCESS transfers of the range into the expected balances.
+     * Cross-currency transfers credit the recipient with their converted amount.
+     */
+    public void loadMovements(CardRange range, int fetchSize, RangeBalances balances) {
+        RowCallbackHandler handler = rs -> balances.addMovement(rs.getObject(1, UUID.class), rs.getLong(2));
+        stream("select card_id, (amount * 100)::bigint from ledger_entry " +
+                "where entry_type in ('OPENING', 'ADJUSTMENT') and " + predicate("card_id", range), range, fetchSize, handler);
+        stream("select to_card, (coalesce(credit_amount, amount) * 100)::bigint from transaction " +
+                "where status = 'SUCCESS' and " + predicate("to_card", range), range, fetchSize, handler);
+        stream("select from_card, -(amount * 100)::bigint from transaction " +
+                "where status = 'SUCCESS' and " + predicate("from_card", range), range, fetchSize, handler);
+    }
+
+    private void stream(String sql, CardRange range, int fetchSize, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setFetchSize(fetchSize);
+            statement.setObject(1, range.getFrom());
+            if (range.getTo() != null) statement.setObject(2, range.getTo());
+            return statement;
+        }, handler);
+    }
+
+    private static String predicate(String column, CardRange range) {
+        return range.getTo() == null
+                ? column + " >= ?"
+                : column + " >= ? and " + column + " < ?";
+    }
+}
@@ -0,0 +1,26 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.entity.ReconciliationRunEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Transactional
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRunEntity, Long> {
+
+    Page<ReconciliationRunEntity> findAllByOrderByStartedDateDesc(Pageable pageable);
+
+    /**
+     * Runs left RUNNING by a node that died would block new runs forever; mark them failed.
+     */
+    @Modifying
+    @Query("update ReconciliationRunEntity r set r.status = code.uz.bankcard.enums.ReconciliationStatus.FAILED, " +
+            "r.error = 'Abandoned' where r.status = code.uz.bankcard.enums.ReconciliationStatus.RUNNING " +
+            "and r.startedDate < :before")
+    int failAbandoned(LocalDateTime before);
+}
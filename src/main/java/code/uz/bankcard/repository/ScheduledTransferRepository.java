@@ -0,0 +1,25 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.entity.ScheduledTransferEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface ScheduledTransferRepository extends JpaRepository<ScheduledTransferEntity, UUID> {
+
+    Page<ScheduledTransferEntity> findByProfileIdOrderByCreatedDateDesc(UUID profileId, Pageable pageable);
+
+    /**
+     * Lock a chunk of due, unclaimed orders. Rows locked by another node are skipped, so nodes
+     * claim disjoint chunks; the caller sets the lease before committing.
+     */
+    @Query(value = "select * from scheduled_transfer " +
+            "where status = 'ACTIVE' and next_run_at <= :now and (claimed_until is null or claimed_until < :now) " +
+            "order by next_run_at limit :limit for update skip locked", nativeQuery = true)
+    List<ScheduledTransferEntity> lockDue(LocalDateTime now, int limit);
+}
@@ -0,0 +1,73 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.enums.TransactionStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads transactions of a profile in the order of {@code transaction.tx_xid}, the id of the
+ * database transaction that wrote them. Every column read is part of
+ * {@code idx_transaction_from_card_xid} or {@code idx_transaction_to_card_xid}, so a range is
+ * served by two index-only scans.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionChangeRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    private static final String COLUMNS = "tx_xid::text::bigint as xid, id, from_card, to_card, amount, currency, " +
+            "credit_amount, status, sent_date, fee_for";
+
+    public record Change(long xid, Integer id, UUID fromCard, UUID toCard, BigDecimal amount, String currency,
+                         BigDecimal creditAmount, TransactionStatus status, LocalDateTime sentDate, Integer feeFor) {
+    }
+
+    /**
+     * Oldest database transaction still running. Transactions below it have all committed or
+     * rolled back, so no row with a smaller {@code tx_xid} can appear any more.
+     */
+    public long snapshotXmin() {
+        return jdbcTemplate.queryForObject("select pg_snapshot_xmin(pg_current_snapshot())::text::bigint", Long.class);
+    }
+
+    /**
+     * Transactions from or to the profile's cards positioned after {@code (afterXid, afterId)}
+     * and written by a database transaction below {@code beforeXid}.
+     */
+    public List<Change> findRange(UUID profileId, long afterXid, int afterId, long beforeXid, int limit) {
+        String after = Long.toString(afterXid);
+        String before = Long.toString(beforeXid);
+        return jdbcTemplate.query("with cards as (select array(select id from card where profile_id = ?) as ids) " +
+                        "select * from (" +
+                        range("from_card") + " union " + range("to_card") +
+                        ") t order by xid, id limit ?",
+                (rs, i) -> {
+                    Timestamp sentDate = rs.getTimestamp("sent_date");
+                    return new Change(
+                            rs.getLong("xid"),
+                            rs.getInt("id"),
+                            rs.getObject("from_card", UUID.class),
+                            rs.getObject("to_card", UUID.class),
+                            rs.getBigDecimal("amount"),
+                            rs.getString("currency"),
+                            rs.getBigDecimal("credit_amount"),
+                            TransactionStatus.valueOf(rs.getString("status")),
+                            sentDate == null ? null : sentDate.toLocalDateTime(),
+                            rs.getObject("fee_for", Integer.class));
+                },
+                profileId, after, afterId, before, limit, after, afterId, before, limit, limit);
+    }
+
+    // a transfer between two cards of the profile is found by both ranges, union keeps it once
+    private static String range(String cardColumn) {
+        return "(select " + COLUMNS + " from transaction, cards where " + cardColumn + " = any(cards.ids) " +
+                "and (tx_xid, id) > (?::text::xid8, ?) and tx_xid < ?::text::xid8 order by tx_xid, id limit ?)";
+    }
+}
@@ -0,0 +1,38 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.enums.CardStatus;
+import code.uz.bankcard.enums.Role;
+import code.uz.bankcard.fee.FeeRule;
+import code.uz.bankcard.money.Money;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Reads fee rules from {@code transfer_fee_rule}. Rules are edited in the table and picked up on reload.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransferFeeRuleRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<FeeRule> findActive() {
+        return jdbcTemplate.query("select name, priority, min_amount, max_amount, role, same_owner, card_status, currency, " +
+                        "percent, fixed, min_fee, max_fee from transfer_fee_rule where active = true order by priority, id",
+                (rs, i) -> new FeeRule(
+                        rs.getString("name"),
+                        rs.getInt("priority"),
+                        Money.of(rs.getBigDecimal("min_amount")),
+                        Money.of(rs.getBigDecimal("max_amount")),
+                        rs.getString("role") == null ? null : Role.valueOf(rs.getString("role")),
+                        rs.getObject("same_owner", Boolean.class),
+                        rs.getString("card_status") == null ? null : CardStatus.valueOf(rs.getString("card_status")),
+                        rs.getString("currency"),
+                        rs.getBigDecimal("percent"),
+                        Money.of(rs.getBigDecimal("fixed")),
+                        Money.of(rs.getBigDecimal("min_fee")),
+                        Money.of(rs.getBigDecimal("max_fee"))));
+    }
+}
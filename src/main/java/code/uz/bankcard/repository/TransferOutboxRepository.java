@@ -0,0 +1,119 @@
+package code.uz.bankcard.repository;
+
+import code.uz.bankcard.outbox.OutboxEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rows of {@code transfer_outbox}: written with the transfer, claimed and marked by {@code OutboxPublisher}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransferOutboxRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Row(UUID cardId, Integer transactionId, String eventType, String payload) {
+    }
+
+    public record Stats(long pending, LocalDateTime oldest) {
+    }
+
+    /**
+     * Append rows in the given order with one batched insert. Joins the caller's transaction.
+     */
+    public void append(List<Row> rows) {
+        jdbcTemplate.batchUpdate("insert into transfer_outbox (card_id, transaction_id, event_type, payload) values (?, ?, ?, ?)",
+                rows, rows.size(), (ps, row) -> {
+                    ps.setObject(1, row.cardId());
+                    ps.setObject(2, row.transactionId());
+                    ps.setString(3, row.eventType());
+                    ps.setString(4, row.payload());
+                });
+    }
+
+    /**
+     * Inside a transaction: lease up to {@code limit} due rows in the order of the transactions that wrote them.
+     * <p>
+     * Row ids are taken at insert, not at commit, so a row with a smaller id may become visible after
+     * a larger one was delivered. Rows are therefore ordered by {@code (tx_xid, id)} and only claimed once
+     * their transaction id is below the {@code xmin} of the current snapshot: every transaction that could
+     * still add a row sorting before them has ended. Delivery waits for the oldest running transaction.
+     * </p>
+     * <p>
+     * A row is only claimed if no earlier row of its card is leased or waiting for a retry, so the
+     * events of a card are never delivered out of that order. Claims are serialized across nodes by a
+     * transaction-scoped advisory lock: while another node is claiming, nothing is returned.
+     * </p>
+     *
+     * @return claimed rows in {@code (tx_xid, id)} order
+     */
+    public List<OutboxEvent> claim(long lockKey, int limit, Duration lease) {
+        Boolean locked = jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, lockKey);
+        if (!Boolean.TRUE.equals(locked)) return List.of();
+
+        return jdbcTemplate.query("with claimable as (" +
+                        "select o.id from transfer_outbox o " +
+                        "where o.published_at is null and o.next_attempt_at <= now() " +
+                        "and (o.claimed_until is null or o.claimed_until < now()) " +
+                        "and o.tx_xid < pg_snapshot_xmin(pg_current_snapshot()) " +
+                        "and not exists (select 1 from transfer_outbox p " +
+                        "where p.card_id = o.card_id and (p.tx_xid, p.id) < (o.tx_xid, o.id) and p.published_at is null " +
+                        "and (p.next_attempt_at > now() or p.claimed_until >= now())) " +
+                        "order by o.tx_xid, o.id limit ? for update skip locked), " +
+                        "claimed as (" +
+                        "update transfer_outbox o set claimed_until = now() + ? * interval '1 millisecond', attempts = o.attempts + 1 " +
+                        "from claimable c where o.id = c.id " +
+                        "returning o.id, o.tx_xid, o.card_id, o.event_type, o.payload, o.created_at, o.attempts) " +
+                        "select * from claimed order by tx_xid, id",
+                (rs, i) -> new OutboxEvent(
+                        rs.getLong("id"),
+                        rs.getObject("card_id", UUID.class),
+                        rs.getString("event_type"),
+                        rs.getString("payload"),
+                        rs.getTimestamp("created_at").toLocalDateTime(),
+                        rs.getInt("attempts")),
+                limit, lease.toMillis());
+    }
+
+    public void markPublished(List<Long> ids) {
+        jdbcTemplate.update("update transfer_outbox set published_at = now(), claimed_until = null, last_error = null " +
+                "where id = any(?)", ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())));
+    }
+
+    /**
+     * Release rows after a failed delivery; they are due again after an exponential backoff of their attempts.
+     */
+    public void retry(List<Long> ids, String error, Duration backoff, Duration maxBackoff) {
+        jdbcTemplate.update("update transfer_outbox set claimed_until = null, last_error = ?, " +
+                "next_attempt_at = now() + least(? * power(2, least(attempts, 30) - 1), ?) * interval '1 millisecond' " +
+                "where id = any(?)", ps -> {
+            ps.setString(1, error);
+            ps.setLong(2, backoff.toMillis());
+            ps.setLong(3, maxBackoff.toMillis());
+            ps.setArray(4, ps.getConnection().createArrayOf("bigint", ids.toArray()));
+        });
+    }
+
+    public Stats pendingStats() {
+        return jdbcTemplate.queryForObject("select count(*), min(created_at) from transfer_outbox where published_at is null",
+                (rs, i) -> {
+                    Timestamp oldest = rs.getTimestamp(2);
+                    return new Stats(rs.getLong(1), oldest == null ? null : oldest.toLocalDateTime());
+                });
+    }
+
+    /**
+     * @return number of deleted rows, at most {@code limit}
+     */
+    public int deletePublishedBefore(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update("delete from transfer_outbox where id in (" +
+                "select id from transfer_outbox where published_at < ? limit ?)", Timestamp.valueOf(cutoff), limit);
+    }
+}
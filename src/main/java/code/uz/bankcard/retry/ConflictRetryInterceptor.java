@@ -0,0 +1,89 @@
+package code.uz.bankcard.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries methods annotated with {@link RetryOnConflict}.
+ * <p>
+ * Conflicts, retries and exhausted retries are counted per endpoint (the matched request pattern,
+ * or {@code none} outside of a request) and per method, as {@code card.conflicts},
+ * {@code card.conflict.retries} and {@code card.conflict.exhausted}.
+ * </p>
+ */
+@Slf4j
+public class ConflictRetryInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public ConflictRetryInterceptor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // the surrounding transaction is already poisoned by a conflict, only its owner can retry
+            return invocation.proceed();
+        }
+
+        Method method = invocation.getMethod();
+        Class<?> targetClass = invocation.getThis() != null ? AopUtils.getTargetClass(invocation.getThis()) : method.getDeclaringClass();
+        RetryOnConflict retry = AnnotatedElementUtils.findMergedAnnotation(
+                AopUtils.getMostSpecificMethod(method, targetClass), RetryOnConflict.class);
+        if (retry == null) return invocation.proceed();
+
+        String name = targetClass.getSimpleName() + "." + method.getName();
+        String endpoint = currentEndpoint();
+        for (int attempt = 1; ; attempt++) {
+            MethodInvocation call = invocation instanceof ProxyMethodInvocation proxy ? proxy.invocableClone() : invocation;
+            try {
+                return call.proceed();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                count("card.conflicts", endpoint, name);
+                if (attempt >= retry.maxAttempts()) {
+                    count("card.conflict.exhausted", endpoint, name);
+                    log.warn("{} gave up after {} conflicting attempts", name, attempt);
+                    throw e;
+                }
+                count("card.conflict.retries", endpoint, name);
+                long ceiling = Math.min(retry.maxBackoffMillis(), retry.backoffMillis() << Math.min(attempt - 1, 20));
+                Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+            }
+        }
+    }
+
+    private void count(String meter, String endpoint, String method) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) return;
+        Counter.builder(meter)
+                .tag("endpoint", endpoint)
+                .tag("method", method)
+                .register(registry)
+                .increment();
+    }
+
+    private static String currentEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servlet)) return "none";
+        Object pattern = servlet.getRequest().getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return servlet.getRequest().getMethod() + " " + (pattern != null ? pattern : servlet.getRequest().getRequestURI());
+    }
+}
@@ -0,0 +1,30 @@
+package code.uz.bankcard.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps beans with {@link RetryOnConflict} methods in {@link ConflictRetryInterceptor}.
+ * The interceptor is placed before existing advisors, so it runs outside of {@code @Transactional}.
+ */
+@Component
+public class ConflictRetryPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    public ConflictRetryPostProcessor() {
+        setBeforeExistingAdvisors(true);
+        // services are injected by class
+        setProxyTargetClass(true);
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        super.setBeanFactory(beanFactory);
+        this.advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(RetryOnConflict.class),
+                new ConflictRetryInterceptor(beanFactory.getBeanProvider(MeterRegistry.class)));
+    }
+}
@@ -0,0 +1,30 @@
+package code.uz.bankcard.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-run the annotated method when its transaction fails on an optimistic lock conflict.
+ * <p>
+ * The method must own its transaction: retries are applied outside of it, and are skipped when
+ * the method is called inside a transaction that is already running. Between attempts the caller
+ * sleeps a random time of up to {@code backoffMillis * 2^(attempt - 1)}, capped at {@code maxBackoffMillis}.
+ * </p>
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    /**
+     * Attempts in total, including the first call.
+     */
+    int maxAttempts() default 4;
+
+    long backoffMillis() default 20;
+
+    long maxBackoffMillis() default 500;
+}
@@ -0,0 +1,7 @@
+package code.uz.bankcard.service;
+
+import code.uz.bankcard.dto.stats.AdminStatsDTO;
+
+public interface AdminStatsService {
+    AdminStatsDTO getStats();
+}
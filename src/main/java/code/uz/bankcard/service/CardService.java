@@ -2,19 +2,26 @@ package code.uz.bankcard.service;
 
 import code.uz.bankcard.dto.AppResponse;
 import code.uz.bankcard.dto.card.CardAdminUpdateDTO;
+import code.uz.bankcard.dto.card.CardBulkIssueDTO;
+import code.uz.bankcard.dto.card.CardBulkIssueResponseDTO;
+import code.uz.bankcard.dto.card.CardBulkStatusDTO;
 import code.uz.bankcard.dto.card.CardCreateDTO;
+import code.uz.bankcard.dto.card.CardLimitDTO;
 import code.uz.bankcard.dto.card.CardResponseDTO;
 import code.uz.bankcard.dto.filter.CardFilterDTO;
 import code.uz.bankcard.enums.CardStatus;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.UUID;
 
 public interface CardService {
     CardResponseDTO createCard(@Valid CardCreateDTO dto);
 
+    CardBulkIssueResponseDTO bulkIssue(@Valid CardBulkIssueDTO dto);
+
     Page<CardResponseDTO> getAll(int page, int size);
 
     CardResponseDTO getById(UUID cardID);
@@ -31,7 +38,19 @@ public interface CardService {
 
     AppResponse<String> changeStatus(UUID cardId, CardStatus status);
 
+    AppResponse<String> changeBalanceSharding(UUID cardId, boolean enabled);
+
+    AppResponse<String> changeSpendLimits(UUID cardId, @Valid CardLimitDTO dto);
+
+    int consolidateBalanceShards(int limit);
+
+    Page<CardResponseDTO> getBlockRequests(int page, int size);
+
+    AppResponse<Integer> changeStatusBulk(@Valid CardBulkStatusDTO dto);
+
     CardResponseDTO getBalance(UUID cardId);
 
+    SseEmitter stream();
+
     AppResponse<String> requestCardBlock(UUID cardId);
 }
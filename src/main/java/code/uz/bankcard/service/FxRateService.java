@@ -0,0 +1,11 @@
+package code.uz.bankcard.service;
+
+import code.uz.bankcard.dto.fx.FxRateDTO;
+
+import java.util.List;
+
+public interface FxRateService {
+    List<FxRateDTO> getRates();
+
+    FxRateDTO updateRate(FxRateDTO dto);
+}
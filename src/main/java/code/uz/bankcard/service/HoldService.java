@@ -0,0 +1,16 @@
+package code.uz.bankcard.service;
+
+import code.uz.bankcard.dto.AppResponse;
+import code.uz.bankcard.dto.hold.HoldCaptureDTO;
+import code.uz.bankcard.dto.hold.HoldCreateDTO;
+import code.uz.bankcard.dto.hold.HoldResponseDTO;
+import jakarta.validation.Valid;
+
+import java.util.UUID;
+
+public interface HoldService {
+    HoldResponseDTO hold(@Valid HoldCreateDTO dto);
+    HoldResponseDTO capture(UUID holdId, @Valid HoldCaptureDTO dto);
+    AppResponse<String> voidHold(UUID holdId);
+    int expireHolds(int batchSize);
+}
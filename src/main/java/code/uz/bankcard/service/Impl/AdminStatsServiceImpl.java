@@ -0,0 +1,24 @@
+package code.uz.bankcard.service.Impl;
+
+import code.uz.bankcard.dto.stats.AdminStatsDTO;
+import code.uz.bankcard.service.AdminStatsService;
+import code.uz.bankcard.stats.AdminStatsCounters;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Serves the admin dashboard from the in-memory {@link AdminStatsCounters}; no request reads the database.
+ */
+@Service
+@RequiredArgsConstructor
+public class AdminStatsServiceImpl implements AdminStatsService {
+
+    private final AdminStatsCounters counters;
+
+    /**
+     * Get cards and profiles per status and the transfers of today (admin only).
+     */
+    public AdminStatsDTO getStats() {
+        return counters.snapshot();
+    }
+}
@@ -8,6 +8,7 @@ import code.uz.bankcard.dto.auth.RegisterDTO;
 import code.uz.bankcard.entity.ProfileEntity;
 import code.uz.bankcard.entity.RoleEntity;
 import code.uz.bankcard.enums.Role;
+import code.uz.bankcard.event.ProfileStatusCountEvent;
 import code.uz.bankcard.exception.BadException;
 import code.uz.bankcard.repository.ProfileRepository;
 import code.uz.bankcard.repository.RoleRepository;
@@ -15,6 +16,7 @@ import code.uz.bankcard.service.AuthService;
 import code.uz.bankcard.util.JwtUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -44,6 +46,7 @@ public class AuthServiceImpl implements AuthService {
     private final AuthenticationManager authenticationManager;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Registers a new user profile with ROLE_USER.
@@ -67,6 +70,7 @@ public class AuthServiceImpl implements AuthService {
 
         // Assign default ROLE_USER to the new profile
         roleService.create(profileEntity.getId(), List.of(Role.ROLE_USER));
+        eventPublisher.publishEvent(ProfileStatusCountEvent.registered());
 
         return new AppResponse<>("Registered Successfully");
     }
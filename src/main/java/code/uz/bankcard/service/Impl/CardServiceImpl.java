@@ -1,33 +1,66 @@
 package code.uz.bankcard.service.Impl;
 
+import code.uz.bankcard.cache.CardBalanceCache;
+import code.uz.bankcard.cache.CardCacheEntry;
+import code.uz.bankcard.cache.CardNumberBloomFilter;
 import code.uz.bankcard.dto.AppResponse;
 import code.uz.bankcard.dto.filter.CardFilterDTO;
 import code.uz.bankcard.dto.filter.FilterResultDTO;
 import code.uz.bankcard.dto.card.CardResponseDTO;
 import code.uz.bankcard.dto.card.CardAdminUpdateDTO;
+import code.uz.bankcard.dto.card.CardBulkIssueDTO;
+import code.uz.bankcard.dto.card.CardBulkIssueResponseDTO;
+import code.uz.bankcard.dto.card.CardBulkStatusDTO;
 import code.uz.bankcard.dto.card.CardCreateDTO;
+import code.uz.bankcard.dto.card.CardLimitDTO;
 import code.uz.bankcard.entity.CardEntity;
 import code.uz.bankcard.entity.ProfileEntity;
 import code.uz.bankcard.enums.CardStatus;
 import code.uz.bankcard.enums.Role;
+import code.uz.bankcard.event.CardChangedEvent;
+import code.uz.bankcard.event.CardStatusCountEvent;
+import code.uz.bankcard.event.CardsInvalidatedEvent;
 import code.uz.bankcard.exception.BadException;
 import code.uz.bankcard.exception.NotFoundException;
+import code.uz.bankcard.fx.SupportedCurrencies;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.repository.CardBalanceShardRepository;
+import code.uz.bankcard.repository.CardBulkRepository;
+import code.uz.bankcard.repository.CardJournalRepository;
 import code.uz.bankcard.repository.CardRepository;
 import code.uz.bankcard.repository.FilterRepository;
 import code.uz.bankcard.repository.ProfileRepository;
+import code.uz.bankcard.retry.RetryOnConflict;
 import code.uz.bankcard.service.CardService;
+import code.uz.bankcard.service.LedgerService;
+import code.uz.bankcard.stream.CardStreamHub;
+import code.uz.bankcard.transfer.HotCardSequencer;
+import code.uz.bankcard.transfer.SpendLimitGuard;
+import code.uz.bankcard.util.CardNumberUtil;
 import code.uz.bankcard.util.SecurityUtil;
+import code.uz.bankcard.util.UuidV7;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.math.BigDecimal;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -37,9 +70,13 @@ import java.util.UUID;
  * Handles:
  * <ul>
  *     <li>Create, retrieve, update, delete cards</li>
+ *     <li>Bulk issuance of generated, Luhn-valid card numbers</li>
  *     <li>User and Admin access</li>
- *     <li>Card filtering and status changes</li>
+ *     <li>Card filtering and status changes, single and bulk</li>
+ *     <li>Queue of pending block requests</li>
  *     <li>Masked card display for security</li>
+ *     <li>Cached balance lookups, kept in sync through card change events</li>
+ *     <li>Live stream of the balances and statuses of a user's cards</li>
  * </ul>
  */
 @Service
@@ -49,6 +86,25 @@ public class CardServiceImpl implements CardService {
     private final CardRepository cardRepository;
     private final ProfileRepository profileRepository;
     private final FilterRepository filterRepository;
+    private final CardBalanceCache cardBalanceCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CardNumberBloomFilter cardNumberBloomFilter;
+    private final CardBulkRepository cardBulkRepository;
+    private final LedgerService ledgerService;
+    private final CardBalanceShardRepository balanceShardRepository;
+    private final SpendLimitGuard spendLimitGuard;
+    private final CardStreamHub cardStreamHub;
+    private final SupportedCurrencies supportedCurrencies;
+    private final HotCardSequencer hotCardSequencer;
+    private final CardJournalRepository journalRepository;
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${app.card-issue.bin:860031}")
+    private String defaultBin;
+    @Value("${app.card-issue.batch-size:1000}")
+    private int issueBatchSize;
+    @Value("${app.fx.base-currency:UZS}")
+    private String baseCurrency;
 
     // ========================= User Methods =========================
 
@@ -58,20 +114,41 @@ public class CardServiceImpl implements CardService {
      * @param dto CardCreateDTO containing profileId, cardNumber, and initialBalance
      * @return CardResponseDTO with created card details
      * @throws NotFoundException if profile does not exist
+     * @throws BadException if the card number fails the Luhn check, is already taken or the currency is not supported
      */
+    @Transactional
     public CardResponseDTO createCard(@Valid CardCreateDTO dto) {
+        if (!CardNumberUtil.isValid(dto.getCardNumber()))
+            throw new BadException("Invalid card number");
+
         ProfileEntity profile = profileRepository.findByIdAndVisibleTrue(dto.getProfileId())
                 .orElseThrow(() -> new NotFoundException("Card profile not found"));
 
+        // the bloom filter answers "certainly new" for most numbers, so the lookup is usually skipped;
+        // it only knows this node's issues, so the unique index settles numbers issued elsewhere
+        boolean maybeTaken = !cardNumberBloomFilter.isLoaded() || cardNumberBloomFilter.mightContain(dto.getCardNumber());
+        if (maybeTaken && cardRepository.existsByCardNumber(dto.getCardNumber()))
+            throw new BadException("Card number already exists");
+
         CardEntity card = new CardEntity();
         card.setCardNumber(dto.getCardNumber());
-        card.setBalance(dto.getInitialBalance());
+        card.setMaskedNumber(CardNumberUtil.mask(dto.getCardNumber()));
+        card.setOwnerName(profile.getName());
+        card.setBalance(Money.of(dto.getInitialBalance()));
+        card.setCurrency(currencyOf(dto.getCurrency()));
         card.setCreatedDate(LocalDateTime.now());
         card.setExpiryDate(LocalDateTime.now().plusYears(4));
         card.setStatus(CardStatus.ACTIVE);
         card.setProfile(profile);
 
-        cardRepository.save(card);
+        try {
+            cardRepository.saveAndFlush(card);
+        } catch (DataIntegrityViolationException e) {
+            throw new BadException("Card number already exists");
+        }
+        ledgerService.recordOpening(card);
+        cardNumberBloomFilter.put(card.getCardNumber());
+        eventPublisher.publishEvent(CardStatusCountEvent.issued(1));
         return getCardResponse(card);
     }
 
@@ -84,13 +161,10 @@ public class CardServiceImpl implements CardService {
      */
     public Page<CardResponseDTO> getAll(int page, int size) {
         UUID profileId = SecurityUtil.getID();
-        PageRequest pageRequest = PageRequest.of(page, size);
-
-        List<CardEntity> cards = cardRepository.findAllByProfileIdAndVisibleTrueOrderByCreatedDateDesc(profileId, pageRequest);
-        if (cards.isEmpty()) return new PageImpl<>(Collections.emptyList());
-
-        List<CardResponseDTO> response = cards.stream().map(this::getCardResponseMasked).toList();
-        return new PageImpl<>(response, pageRequest, response.size());
+        Page<CardResponseDTO> cards = cardRepository.findCardViewsByProfileId(profileId, PageRequest.of(page, size));
+        resolveBalances(cards.getContent());
+        cards.forEach(this::setStatusNote);
+        return cards;
     }
 
     /**
@@ -107,24 +181,54 @@ public class CardServiceImpl implements CardService {
                 .orElseThrow(() -> new NotFoundException("Card not found"));
 
         checkCardStatus(card);
-        return getCardResponse(card);
+        CardResponseDTO dto = getCardResponse(card);
+        resolveBalances(List.of(dto));
+        return dto;
     }
 
     /**
      * Get the current balance of a user's card.
+     * <p>
+     * Served from {@link CardBalanceCache}; the database is only hit on a cache miss.
+     * </p>
      *
      * @param cardId UUID of the card
      * @return CardResponseDTO with masked number and balance
      */
     public CardResponseDTO getBalance(UUID cardId) {
         UUID profileId = SecurityUtil.getID();
-        CardEntity card = cardRepository.findByIdAndVisibleTrue(cardId)
-                .orElseThrow(() -> new NotFoundException("Card not found"));
+        CardCacheEntry entry = cardBalanceCache.get(cardId, this::loadCacheEntry);
 
-        if (!card.getProfile().getId().equals(profileId))
+        if (!entry.getOwnerId().equals(profileId))
             throw new BadException("This card does not belong to this profile");
 
-        return getCardResponseMasked(card);
+        CardResponseDTO dto = new CardResponseDTO();
+        dto.setId(cardId);
+        dto.setOwnerName(entry.getOwnerName());
+        dto.setBalance(entry.getBalance());
+        dto.setCurrency(entry.getCurrency());
+        dto.setMaskedNumber(entry.getMaskedNumber());
+        dto.setStatus(entry.getStatus());
+        dto.setExpiryDate(entry.getExpiryDate());
+        setStatusNote(dto);
+        return dto;
+    }
+
+    /**
+     * Open a stream of the balances and statuses of the current user's cards.
+     * <p>
+     * The first events are read through {@link CardBalanceCache}; later changes are pushed by {@link CardStreamHub}.
+     * </p>
+     *
+     * @return emitter of the stream
+     */
+    public SseEmitter stream() {
+        UUID profileId = SecurityUtil.getID();
+        Map<UUID, CardCacheEntry> cards = new LinkedHashMap<>();
+        for (UUID cardId : cardRepository.findVisibleIdsByProfileId(profileId)) {
+            cards.put(cardId, cardBalanceCache.get(cardId, this::loadCacheEntry));
+        }
+        return cardStreamHub.subscribe(profileId, cards, this::loadCacheEntry);
     }
 
     /**
@@ -145,7 +249,13 @@ public class CardServiceImpl implements CardService {
         if (card.getStatus() == CardStatus.BLOCKED)
             throw new BadException("Card is already blocked");
 
-        cardRepository.updateStatusById(CardStatus.REQUEST_BLOCK, cardId);
+        // a repeated request keeps its place in the queue
+        LocalDateTime requestedAt = card.getStatus() == CardStatus.REQUEST_BLOCK && card.getBlockRequestedAt() != null
+                ? card.getBlockRequestedAt() : LocalDateTime.now();
+        cardRepository.requestBlockById(cardId, requestedAt);
+        eventPublisher.publishEvent(CardChangedEvent.status(cardId, CardStatus.REQUEST_BLOCK));
+        if (card.getStatus() != CardStatus.REQUEST_BLOCK)
+            eventPublisher.publishEvent(CardStatusCountEvent.changed(card.getStatus(), CardStatus.REQUEST_BLOCK));
         return new AppResponse<>("Request sent!");
     }
 
@@ -155,6 +265,7 @@ public class CardServiceImpl implements CardService {
      * @param cardId UUID of the card
      * @return AppResponse confirmation
      */
+    @Transactional
     public AppResponse<String> delete(UUID cardId) {
         UUID profileId = SecurityUtil.getID();
         boolean isAdmin = SecurityUtil.hasRole(Role.ROLE_ADMIN);
@@ -166,11 +277,60 @@ public class CardServiceImpl implements CardService {
             throw new BadException("This card does not belong to this profile");
 
         cardRepository.changeVisibleById(cardId);
+        eventPublisher.publishEvent(new CardsInvalidatedEvent(List.of(cardId)));
+        eventPublisher.publishEvent(CardStatusCountEvent.deleted(card.getStatus()));
         return new AppResponse<>("Successfully deleted");
     }
 
     // ========================= Admin Methods =========================
 
+    /**
+     * Issue many cards for one profile with generated, Luhn-valid card numbers (admin only).
+     * <p>
+     * Candidates already seen by the bloom filter are skipped before hitting the database,
+     * the rest are inserted in batches; numbers rejected by the unique index are regenerated.
+     * </p>
+     *
+     * @param dto CardBulkIssueDTO containing profileId, count, initialBalance and optional BIN
+     * @return CardBulkIssueResponseDTO with the issued card numbers
+     * @throws NotFoundException if profile does not exist
+     * @throws BadException if unique numbers cannot be generated for the BIN or the currency is not supported
+     */
+    @Transactional
+    public CardBulkIssueResponseDTO bulkIssue(@Valid CardBulkIssueDTO dto) {
+        ProfileEntity profile = profileRepository.findByIdAndVisibleTrue(dto.getProfileId())
+                .orElseThrow(() -> new NotFoundException("Card profile not found"));
+
+        String bin = dto.getBin() != null ? dto.getBin() : defaultBin;
+        String currency = currencyOf(dto.getCurrency());
+        LocalDateTime now = LocalDateTime.now();
+        List<String> issued = new ArrayList<>(dto.getCount());
+        int maxRounds = dto.getCount() / issueBatchSize + 10;
+
+        for (int round = 0; issued.size() < dto.getCount(); round++) {
+            if (round == maxRounds)
+                throw new BadException("Could not generate unique card numbers for BIN " + bin);
+
+            List<String> candidates = generateCardNumbers(bin, Math.min(issueBatchSize, dto.getCount() - issued.size()));
+            List<UUID> ids = new ArrayList<>(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) ids.add(UuidV7.next());
+
+            List<String> masked = candidates.stream().map(CardNumberUtil::mask).toList();
+
+            List<String> inserted = cardBulkRepository.insertCards(ids, candidates, masked, profile.getId(),
+                    profile.getName(), dto.getInitialBalance(), currency, now, now.plusYears(4));
+            inserted.forEach(cardNumberBloomFilter::put);
+            issued.addAll(inserted);
+        }
+        eventPublisher.publishEvent(CardStatusCountEvent.issued(issued.size()));
+
+        CardBulkIssueResponseDTO response = new CardBulkIssueResponseDTO();
+        response.setProfileId(profile.getId());
+        response.setIssued(issued.size());
+        response.setCardNumbers(issued);
+        return response;
+    }
+
     /**
      * Get all cards in the system (admin only).
      */
@@ -178,12 +338,9 @@ public class CardServiceImpl implements CardService {
         if (!SecurityUtil.hasRole(Role.ROLE_ADMIN))
             throw new BadException("Admin privileges are required");
 
-        PageRequest pageRequest = PageRequest.of(page, size);
-        List<CardEntity> cards = cardRepository.findAll();
-        if (cards.isEmpty()) return new PageImpl<>(Collections.emptyList());
-
-        List<CardResponseDTO> response = cards.stream().map(this::getCardResponse).toList();
-        return new PageImpl<>(response, pageRequest, response.size());
+        Page<CardResponseDTO> cards = cardRepository.findAllCardViews(PageRequest.of(page, size));
+        resolveBalances(cards.getContent());
+        return cards;
     }
 
     /**
@@ -195,18 +352,35 @@ public class CardServiceImpl implements CardService {
 
         CardEntity card = cardRepository.findById(cardId)
                 .orElseThrow(() -> new NotFoundException("Card not found"));
-        return getCardResponse(card);
+        CardResponseDTO dto = getCardResponse(card);
+        resolveBalances(List.of(dto));
+        return dto;
     }
 
     /**
      * Update card by admin (status, balance, expiry date).
+     * A balance change is recorded in the ledger as an adjustment.
+     * Runs again if a transfer changed the card in the meantime.
+     *
+     * @throws BadException if the balance of a hot card is changed
      */
+    @RetryOnConflict
+    @Transactional
     public CardResponseDTO updateCard(CardAdminUpdateDTO dto, UUID cardId) {
+        // the balance of a hot card lives in the sequencer and its journal, the row is behind both
+        if (dto.getBalance() != null && hotCardSequencer.isHot(cardId))
+            throw new BadException("Balance changes are not supported for this card");
+
         CardEntity card = cardRepository.findByIdAndVisibleTrue(cardId)
                 .orElseThrow(() -> new NotFoundException("Card not found"));
 
+        CardStatus previousStatus = card.getStatus();
         if (dto.getStatus() != null) card.setStatus(dto.getStatus());
-        if (dto.getBalance() != null) card.setBalance(dto.getBalance());
+        if (dto.getBalance() != null) {
+            Money balance = Money.of(dto.getBalance());
+            ledgerService.recordAdjustment(card, balance.minus(card.getBalance()).toBigDecimal());
+            card.setBalance(balance);
+        }
 
         if (dto.getExpiryDate() != null) {
             card.setExpiryDate(dto.getExpiryDate());
@@ -216,7 +390,13 @@ public class CardServiceImpl implements CardService {
                 card.setStatus(CardStatus.EXPIRED);
         }
 
+        if (card.getStatus() == CardStatus.REQUEST_BLOCK && previousStatus != CardStatus.REQUEST_BLOCK)
+            card.setBlockRequestedAt(LocalDateTime.now());
+
         cardRepository.save(card);
+        eventPublisher.publishEvent(new CardsInvalidatedEvent(List.of(cardId)));
+        if (card.getStatus() != previousStatus)
+            eventPublisher.publishEvent(CardStatusCountEvent.changed(previousStatus, card.getStatus()));
         return getCardResponse(card);
     }
 
@@ -230,20 +410,95 @@ public class CardServiceImpl implements CardService {
         profileRepository.findByIdAndVisibleTrue(profileId)
                 .orElseThrow(() -> new NotFoundException("Profile not found"));
 
-        FilterResultDTO<CardEntity> filter = filterRepository.filter(dto, profileId, isAdmin, page, size);
-        List<CardResponseDTO> response = filter.getList().stream().map(this::getCardResponseMasked).toList();
+        FilterResultDTO<CardResponseDTO> filter = filterRepository.filter(dto, profileId, isAdmin, page, size);
+        resolveBalances(filter.getList());
+        filter.getList().forEach(this::setStatusNote);
 
-        return new PageImpl<>(response, PageRequest.of(page, size), filter.getTotalCount());
+        return new PageImpl<>(filter.getList(), PageRequest.of(page, size), filter.getTotalCount());
     }
 
     /**
      * Change status of a card (admin or user with permission).
      */
+    @Transactional
     public AppResponse<String> changeStatus(UUID cardId, CardStatus status) {
-        cardRepository.updateStatusById(status, cardId);
+        Map<UUID, CardStatus> previous = cardBulkRepository.updateStatus(List.of(cardId), status);
+        eventPublisher.publishEvent(CardChangedEvent.status(cardId, status));
+        publishStatusCounts(previous.values(), status);
         return new AppResponse<>("Status successfully changed");
     }
 
+    /**
+     * Turn balance sharding of a card on or off (admin only).
+     * Turning it off folds the shards back into the card row; shard rows of credits that were
+     * still in flight are picked up by the consolidator. Cards with active holds cannot be sharded.
+     */
+    @Transactional
+    public AppResponse<String> changeBalanceSharding(UUID cardId, boolean enabled) {
+        if (cardRepository.updateBalanceShardedById(enabled, cardId) == 0) {
+            if (cardRepository.findByIdAndVisibleTrue(cardId).isPresent()) throw new BadException("Card has active holds");
+            throw new NotFoundException("Card not found");
+        }
+        if (!enabled) balanceShardRepository.fold(cardId);
+        eventPublisher.publishEvent(new CardsInvalidatedEvent(List.of(cardId)));
+        return new AppResponse<>(enabled ? "Balance sharding enabled" : "Balance sharding disabled");
+    }
+
+    /**
+     * Set the daily and monthly outbound limits of a card (admin only); a null limit removes it.
+     * Counters of the current day and month are rebuilt from the card's transactions.
+     */
+    @RetryOnConflict
+    @Transactional
+    public AppResponse<String> changeSpendLimits(UUID cardId, CardLimitDTO dto) {
+        CardEntity card = cardRepository.findByIdAndVisibleTrue(cardId)
+                .orElseThrow(() -> new NotFoundException("Card not found"));
+
+        card.setDailyLimit(Money.of(dto.getDailyLimit()));
+        card.setMonthlyLimit(Money.of(dto.getMonthlyLimit()));
+        cardRepository.save(card);
+        if (card.getDailyLimit() != null || card.getMonthlyLimit() != null) spendLimitGuard.reset(cardId);
+        return new AppResponse<>("Spending limits changed");
+    }
+
+    /**
+     * Move balance shards into their card rows. Totals do not change, so caches stay valid.
+     *
+     * @return number of consolidated cards
+     */
+    public int consolidateBalanceShards(int limit) {
+        return balanceShardRepository.consolidate(limit).size();
+    }
+
+    /**
+     * Get cards waiting for block approval, oldest request first (admin only).
+     *
+     * @param page page number
+     * @param size page size
+     * @return Page of CardResponseDTO with status REQUEST_BLOCK
+     */
+    public Page<CardResponseDTO> getBlockRequests(int page, int size) {
+        Page<CardResponseDTO> cards = cardRepository.findBlockRequests(PageRequest.of(page, size));
+        resolveBalances(cards.getContent());
+        return cards;
+    }
+
+    /**
+     * Change status of many cards in one statement (admin only).
+     * Cached state of all changed cards is dropped in a single pass.
+     *
+     * @param dto CardBulkStatusDTO containing card IDs and the new status
+     * @return AppResponse with the number of updated cards
+     */
+    @Transactional
+    public AppResponse<Integer> changeStatusBulk(@Valid CardBulkStatusDTO dto) {
+        List<UUID> ids = dto.getCardIds().stream().distinct().toList();
+        Map<UUID, CardStatus> updated = cardBulkRepository.updateStatus(ids, dto.getStatus());
+        if (!updated.isEmpty()) eventPublisher.publishEvent(new CardsInvalidatedEvent(List.copyOf(updated.keySet())));
+        publishStatusCounts(updated.values(), dto.getStatus());
+        return new AppResponse<>(updated.size(), "Status successfully changed");
+    }
+
     // ========================= Helper Methods =========================
 
     /**
@@ -258,14 +513,26 @@ public class CardServiceImpl implements CardService {
         }
     }
 
+    /**
+     * Tell the admin statistics how many cards left each previous status for the new one.
+     */
+    private void publishStatusCounts(Collection<CardStatus> previous, CardStatus status) {
+        Map<CardStatus, Integer> moved = new HashMap<>();
+        for (CardStatus from : previous) {
+            if (from != status) moved.merge(from, 1, Integer::sum);
+        }
+        moved.forEach((from, count) -> eventPublisher.publishEvent(new CardStatusCountEvent(from, status, count)));
+    }
+
     /**
      * Build CardResponseDTO with all details.
      */
     private CardResponseDTO getCardResponse(CardEntity card) {
         CardResponseDTO dto = new CardResponseDTO();
         dto.setId(card.getId());
-        dto.setOwnerName(card.getProfile().getName());
-        dto.setBalance(card.getBalance());
+        dto.setOwnerName(card.getOwnerName());
+        dto.setBalance(card.getBalance() == null ? null : card.getBalance().toBigDecimal());
+        dto.setCurrency(card.getCurrency());
         dto.setMaskedNumber(card.getCardNumber());
         dto.setStatus(card.getStatus());
         dto.setExpiryDate(card.getExpiryDate());
@@ -273,23 +540,83 @@ public class CardServiceImpl implements CardService {
     }
 
     /**
-     * Build CardResponseDTO with masked number.
+     * Replace the row balances of listed cards with the balances {@link #getBalance(UUID)} reports:
+     * the pending journal added for hot cards, the shards for sharded cards. One statement for each kind.
      */
-    private CardResponseDTO getCardResponseMasked(CardEntity card) {
-        CardResponseDTO dto = getCardResponse(card);
-        dto.setMaskedNumber(getMaskedNumber(card.getCardNumber()));
-        if (card.getStatus() == CardStatus.BLOCKED)
+    private void resolveBalances(Collection<CardResponseDTO> cards) {
+        List<UUID> hot = new ArrayList<>();
+        List<UUID> rest = new ArrayList<>();
+        for (CardResponseDTO card : cards) {
+            (hotCardSequencer.isHot(card.getId()) ? hot : rest).add(card.getId());
+        }
+
+        Map<UUID, BigDecimal> balances = new HashMap<>();
+        if (!rest.isEmpty()) balances.putAll(balanceShardRepository.totalBalances(rest));
+        if (!hot.isEmpty()) journalRepository.loadBalances(hot)
+                .forEach((id, cents) -> balances.put(id, BigDecimal.valueOf(cents, Money.SCALE)));
+        for (CardResponseDTO card : cards) {
+            BigDecimal balance = balances.get(card.getId());
+            if (balance != null) card.setBalance(balance);
+        }
+    }
+
+    /**
+     * Currency of a new card: the requested ISO 4217 code if it is supported, or the base currency if none was given.
+     */
+    private String currencyOf(String requested) {
+        if (requested == null) return baseCurrency;
+        return supportedCurrencies.require(requested);
+    }
+
+    /**
+     * Add a warning note for cards that cannot be used.
+     */
+    private void setStatusNote(CardResponseDTO dto) {
+        if (dto.getStatus() == CardStatus.BLOCKED)
             dto.setNote("This card is blocked. Operation not allowed.");
-        if (card.getStatus() == CardStatus.EXPIRED)
+        if (dto.getStatus() == CardStatus.EXPIRED)
             dto.setNote("This card is expired. Operation not allowed.");
-        return dto;
     }
 
     /**
-     * Mask card number for security.
+     * Generate distinct card numbers that the bloom filter has not seen yet.
      */
-    private String getMaskedNumber(String cardNumber) {
-        if (cardNumber == null || cardNumber.length() < 4) return "****";
-        return "**** **** **** " + cardNumber.substring(cardNumber.length() - 4);
+    private List<String> generateCardNumbers(String bin, int count) {
+        LinkedHashSet<String> numbers = new LinkedHashSet<>(count * 2);
+        long maxAttempts = (long) count * 100;
+        for (long attempt = 0; numbers.size() < count; attempt++) {
+            if (attempt == maxAttempts)
+                throw new BadException("Could not generate unique card numbers for BIN " + bin);
+
+            String candidate = CardNumberUtil.generate(bin, random);
+            if (!cardNumberBloomFilter.mightContain(candidate)) numbers.add(candidate);
+        }
+        return new ArrayList<>(numbers);
+    }
+
+    /**
+     * Load the balance cache entry of a visible card from its denormalized columns,
+     * without touching the profile row. Sharded cards report the card row plus their shards.
+     */
+    private CardCacheEntry loadCacheEntry(UUID cardId) {
+        CardEntity card = cardRepository.findByIdAndVisibleTrue(cardId)
+                .orElseThrow(() -> new NotFoundException("Card not found"));
+        BigDecimal balance;
+        if (hotCardSequencer.isHot(cardId)) {
+            // movements of hot cards wait in the journal until the next flush
+            balance = BigDecimal.valueOf(journalRepository.loadBalances(List.of(cardId)).getOrDefault(cardId, 0L), Money.SCALE);
+        } else {
+            balance = Boolean.TRUE.equals(card.getBalanceSharded())
+                    ? balanceShardRepository.totalBalance(cardId)
+                    : card.getBalance() == null ? null : card.getBalance().toBigDecimal();
+        }
+        return new CardCacheEntry(
+                card.getProfile().getId(),
+                card.getOwnerName(),
+                card.getMaskedNumber(),
+                balance,
+                card.getCurrency(),
+                card.getStatus(),
+                card.getExpiryDate());
     }
 }
@@ -0,0 +1,62 @@
+package code.uz.bankcard.service.Impl;
+
+import code.uz.bankcard.dto.fx.FxRateDTO;
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.fx.FxRate;
+import code.uz.bankcard.fx.FxRateCache;
+import code.uz.bankcard.fx.SupportedCurrencies;
+import code.uz.bankcard.service.FxRateService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reads and changes exchange rates. Reads come from the in-memory snapshot of {@link FxRateCache},
+ * changes are written to {@code fx_rate} and reach every node right away.
+ */
+@Service
+@RequiredArgsConstructor
+public class FxRateServiceImpl implements FxRateService {
+
+    private final FxRateCache fxRateCache;
+    private final SupportedCurrencies supportedCurrencies;
+
+    /**
+     * Get the rates transfers are currently converted with.
+     *
+     * @return rates as stored, without the derived inverse pairs
+     */
+    public List<FxRateDTO> getRates() {
+        return fxRateCache.rates().stream().map(this::toDTO).toList();
+    }
+
+    /**
+     * Create or replace the rate of a currency pair (admin only).
+     *
+     * @param dto currency pair and rate
+     * @return the stored rate
+     * @throws BadException if both currencies are the same or one of them is not supported
+     */
+    public FxRateDTO updateRate(@Valid FxRateDTO dto) {
+        if (dto.getBaseCurrency().equals(dto.getQuoteCurrency()))
+            throw new BadException("Base and quote currency must differ");
+        supportedCurrencies.require(dto.getBaseCurrency());
+        supportedCurrencies.require(dto.getQuoteCurrency());
+
+        fxRateCache.update(dto.getBaseCurrency(), dto.getQuoteCurrency(), dto.getRate());
+        dto.setUpdatedAt(LocalDateTime.now());
+        return dto;
+    }
+
+    private FxRateDTO toDTO(FxRate rate) {
+        FxRateDTO dto = new FxRateDTO();
+        dto.setBaseCurrency(rate.baseCurrency());
+        dto.setQuoteCurrency(rate.quoteCurrency());
+        dto.setRate(rate.rate());
+        dto.setUpdatedAt(rate.updatedAt());
+        return dto;
+    }
+}
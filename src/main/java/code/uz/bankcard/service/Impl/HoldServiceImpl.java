@@ -0,0 +1,201 @@
+package code.uz.bankcard.service.Impl;
+
+import code.uz.bankcard.dto.AppResponse;
+import code.uz.bankcard.dto.hold.HoldCaptureDTO;
+import code.uz.bankcard.dto.hold.HoldCreateDTO;
+import code.uz.bankcard.dto.hold.HoldResponseDTO;
+import code.uz.bankcard.dto.transaction.TransactionCreateDTO;
+import code.uz.bankcard.dto.transaction.TransactionResponseDTO;
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.enums.CardStatus;
+import code.uz.bankcard.enums.HoldStatus;
+import code.uz.bankcard.enums.Role;
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.exception.NotFoundException;
+import code.uz.bankcard.fee.FeeQuote;
+import code.uz.bankcard.fee.TransferFeeEngine;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.repository.CardHoldRepository;
+import code.uz.bankcard.repository.CardRepository;
+import code.uz.bankcard.retry.RetryOnConflict;
+import code.uz.bankcard.service.HoldService;
+import code.uz.bankcard.transfer.HotCardSequencer;
+import code.uz.bankcard.util.SecurityUtil;
+import code.uz.bankcard.util.UuidV7;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class HoldServiceImpl implements HoldService {
+    private final CardHoldRepository cardHoldRepository;
+    private final CardRepository cardRepository;
+    private final TransactionServiceImpl transactionService;
+    private final HotCardSequencer hotCardSequencer;
+    private final TransferFeeEngine feeEngine;
+
+    @Value("${app.hold.ttl:7d}")
+    private Duration ttl;
+
+    /**
+     * Reserve funds on the current user's card (any card for admins) for a later capture.
+     * The checks and the reservation are one conditional update, the cards are only loaded
+     * to explain a refusal.
+     *
+     * @param dto source card, recipient card and amount
+     * @return the new hold with the remaining available balance
+     * @throws NotFoundException if either card is not found
+     * @throws BadException      if the card is not the user's, a card is not active,
+     *                           the card does not support holds or the available balance is insufficient
+     */
+    public HoldResponseDTO hold(@Valid HoldCreateDTO dto) {
+        UUID profileId = SecurityUtil.getID();
+        boolean isAdmin = SecurityUtil.hasRole(Role.ROLE_ADMIN);
+
+        // balances of hot cards live in the sequencer, which does not know about holds
+        if (hotCardSequencer.isHot(dto.getFromCardId()))
+            throw new BadException("Holds are not supported for this card");
+
+        UUID holdId = UuidV7.next();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(ttl);
+        Money available = cardHoldRepository.place(holdId, dto.getFromCardId(), isAdmin ? null : profileId,
+                        dto.getToCardId(), dto.getAmount(), now, expiresAt)
+                .orElseThrow(() -> refusal(dto, profileId, isAdmin));
+
+        HoldResponseDTO response = new HoldResponseDTO();
+        response.setId(holdId);
+        response.setFromCardId(dto.getFromCardId());
+        response.setToCardId(dto.getToCardId());
+        response.setAmount(dto.getAmount().toBigDecimal());
+        response.setStatus(HoldStatus.ACTIVE);
+        response.setCreatedDate(now);
+        response.setExpiresAt(expiresAt);
+        response.setAvailableBalance(available.toBigDecimal());
+        return response;
+    }
+
+    /**
+     * Settle an active hold: release it and transfer the captured amount, the whole hold by default,
+     * to the recipient card in the same transaction. The rest of a partial capture is released.
+     * Both cards must still be active, and the captured amount pays the same fee as a direct transfer.
+     *
+     * @param holdId hold to capture
+     * @param dto    optional amount to capture
+     * @return the captured hold with its transaction id
+     * @throws NotFoundException if the hold or a card is not found
+     * @throws BadException      if the hold is not the user's, not active, expired or smaller than the amount,
+     *                           or a card is no longer active
+     */
+    @RetryOnConflict
+    @Transactional
+    public HoldResponseDTO capture(UUID holdId, @Valid HoldCaptureDTO dto) {
+        CardHoldRepository.Hold hold = findActiveHold(holdId);
+        Money amount = dto == null || dto.getAmount() == null ? hold.amount() : dto.getAmount();
+        if (hold.amount().isLessThan(amount)) throw new BadException("Capture amount exceeds the hold");
+        if (hotCardSequencer.isHot(hold.cardId())) throw new BadException("Holds are not supported for this card");
+
+        if (!cardHoldRepository.capture(holdId, amount, LocalDateTime.now()))
+            throw new BadException("Hold is not active");
+
+        // loaded after the release so the entities carry the new version
+        CardEntity fromCard = cardRepository.findByIdAndVisibleTrue(hold.cardId())
+                .orElseThrow(() -> new NotFoundException("Sender card not found"));
+        CardEntity toCard = cardRepository.findByIdAndVisibleTrue(hold.toCardId())
+                .orElseThrow(() -> new NotFoundException("Recipient card not found"));
+        // statuses were checked when the hold was placed, a card may have been blocked since
+        if (fromCard.getStatus() != CardStatus.ACTIVE) throw new BadException("Sender Card is not active");
+        if (toCard.getStatus() != CardStatus.ACTIVE) throw new BadException("Recipient Card is not active");
+
+        TransactionCreateDTO transfer = new TransactionCreateDTO();
+        transfer.setFromCardId(hold.cardId());
+        transfer.setToCardId(hold.toCardId());
+        transfer.setAmount(amount);
+        Role role = SecurityUtil.hasRole(Role.ROLE_ADMIN) ? Role.ROLE_ADMIN : Role.ROLE_USER;
+        FeeQuote fee = feeEngine.quote(role, fromCard, toCard, amount);
+        TransactionResponseDTO transaction = transactionService.executeTransfer(transfer, fromCard, toCard, fee);
+        cardHoldRepository.setTransaction(holdId, transaction.getId());
+
+        HoldResponseDTO response = toDTO(hold);
+        response.setStatus(HoldStatus.CAPTURED);
+        response.setCapturedAmount(amount.toBigDecimal());
+        response.setTransactionId(transaction.getId());
+        return response;
+    }
+
+    /**
+     * Cancel an active hold and give its amount back to the available balance.
+     *
+     * @throws NotFoundException if the hold is not found
+     * @throws BadException      if the hold is not the user's or not active
+     */
+    public AppResponse<String> voidHold(UUID holdId) {
+        findActiveHold(holdId);
+        if (!cardHoldRepository.release(holdId, LocalDateTime.now()))
+            throw new BadException("Hold is not active");
+        return new AppResponse<>("Hold voided");
+    }
+
+    /**
+     * Expire stale holds in batches until none is left.
+     *
+     * @return number of expired holds
+     */
+    public int expireHolds(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int expired;
+        do {
+            expired = cardHoldRepository.expire(batchSize, now);
+            total += expired;
+        } while (expired == batchSize);
+        return total;
+    }
+
+    private CardHoldRepository.Hold findActiveHold(UUID holdId) {
+        CardHoldRepository.Hold hold = cardHoldRepository.find(holdId)
+                .orElseThrow(() -> new NotFoundException("Hold not found"));
+
+        if (!SecurityUtil.hasRole(Role.ROLE_ADMIN) && !hold.ownerId().equals(SecurityUtil.getID()))
+            throw new BadException("This hold does not belong to your card");
+        if (hold.status() != HoldStatus.ACTIVE) throw new BadException("Hold is not active");
+        return hold;
+    }
+
+    /**
+     * Find out why a hold was refused. Only runs on the refusal path.
+     */
+    private RuntimeException refusal(HoldCreateDTO dto, UUID profileId, boolean isAdmin) {
+        CardEntity fromCard = cardRepository.findByIdAndVisibleTrue(dto.getFromCardId()).orElse(null);
+        if (fromCard == null) return new NotFoundException("Sender card not found");
+        if (!isAdmin && !fromCard.getProfile().getId().equals(profileId))
+            return new BadException("You can only hold funds on your own card");
+        if (fromCard.getStatus() != CardStatus.ACTIVE) return new BadException("Sender Card is not active");
+
+        CardEntity toCard = cardRepository.findByIdAndVisibleTrue(dto.getToCardId()).orElse(null);
+        if (toCard == null) return new NotFoundException("Recipient card not found");
+        if (toCard.getStatus() != CardStatus.ACTIVE) return new BadException("Recipient Card is not active");
+
+        if (Boolean.TRUE.equals(fromCard.getBalanceSharded())) return new BadException("Holds are not supported for this card");
+        return new BadException("Insufficient balance");
+    }
+
+    private HoldResponseDTO toDTO(CardHoldRepository.Hold hold) {
+        HoldResponseDTO dto = new HoldResponseDTO();
+        dto.setId(hold.id());
+        dto.setFromCardId(hold.cardId());
+        dto.setToCardId(hold.toCardId());
+        dto.setAmount(hold.amount().toBigDecimal());
+        dto.setStatus(hold.status());
+        dto.setCreatedDate(hold.createdDate());
+        dto.setExpiresAt(hold.expiresAt());
+        return dto;
+    }
+}
@@ -0,0 +1,141 @@
+package code.uz.bankcard.service.Impl;
+
+import code.uz.bankcard.dto.card.CardBalanceAtDTO;
+import code.uz.bankcard.entity.BalanceSnapshotEntity;
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.entity.LedgerEntryEntity;
+import code.uz.bankcard.entity.TransactionEntity;
+import code.uz.bankcard.enums.LedgerEntryType;
+import code.uz.bankcard.exception.NotFoundException;
+import code.uz.bankcard.repository.BalanceSnapshotRepository;
+import code.uz.bankcard.repository.CardRepository;
+import code.uz.bankcard.repository.LedgerEntryRepository;
+import code.uz.bankcard.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Append-only double-entry ledger of card balances.
+ * <p>
+ * Every balance change is written as ledger entries in the transaction that changes
+ * {@code card.balance}. A periodic job folds new entries into per-card balance snapshots,
+ * so the balance at any moment is the nearest snapshot plus the few entries after it.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LedgerServiceImpl implements LedgerService {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final long SNAPSHOT_LOCK_KEY = 0x6c6564676572L;
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final CardRepository cardRepository;
+
+    /**
+     * Entries younger than this are left for the next run, so a transaction that has not
+     * committed yet cannot fall behind a snapshot cutoff.
+     */
+    @Value("${app.ledger.snapshot.lag:1m}")
+    private Duration snapshotLag;
+
+    /**
+     * Write the debit and credit entries of a successful transfer, each in the currency of its card.
+     *
+     * @param transaction saved SUCCESS transaction
+     */
+    @Transactional
+    public void recordTransfer(TransactionEntity transaction) {
+        LedgerEntryEntity debit = newEntry(transaction.getFromCardId().getId(), LedgerEntryType.DEBIT,
+                transaction.getAmount().negate().toBigDecimal(), transaction.getSentDate());
+        LedgerEntryEntity credit = newEntry(transaction.getToCardId().getId(), LedgerEntryType.CREDIT,
+                transaction.getCreditedAmount().toBigDecimal(), transaction.getSentDate());
+        debit.setTransactionId(transaction.getId());
+        credit.setTransactionId(transaction.getId());
+        ledgerEntryRepository.saveAll(List.of(debit, credit));
+    }
+
+    /**
+     * Write the initial balance of a new card.
+     */
+    @Transactional
+    public void recordOpening(CardEntity card) {
+        if (card.getBalance() == null || card.getBalance().signum() == 0) return;
+        ledgerEntryRepository.save(newEntry(card.getId(), LedgerEntryType.OPENING, card.getBalance().toBigDecimal(), card.getCreatedDate()));
+    }
+
+    /**
+     * Write a manual balance correction made by an admin.
+     *
+     * @param delta new balance minus old balance
+     */
+    @Transactional
+    public void recordAdjustment(CardEntity card, BigDecimal delta) {
+        if (delta.signum() == 0) return;
+        ledgerEntryRepository.save(newEntry(card.getId(), LedgerEntryType.ADJUSTMENT, delta, LocalDateTime.now()));
+    }
+
+    /**
+     * Balance of a card at the given moment: latest snapshot not after {@code at},
+     * plus the net of the entries between that snapshot and {@code at}.
+     *
+     * @throws NotFoundException if card does not exist
+     */
+    public CardBalanceAtDTO getBalanceAt(UUID cardId, LocalDateTime at) {
+        if (!cardRepository.existsById(cardId))
+            throw new NotFoundException("Card not found");
+
+        Optional<BalanceSnapshotEntity> snapshot = balanceSnapshotRepository
+                .findFirstByCardIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(cardId, at);
+        LocalDateTime from = snapshot.map(BalanceSnapshotEntity::getSnapshotDate).orElse(EPOCH);
+        BigDecimal base = snapshot.map(BalanceSnapshotEntity::getBalance).orElse(BigDecimal.ZERO);
+
+        CardBalanceAtDTO dto = new CardBalanceAtDTO();
+        dto.setCardId(cardId);
+        dto.setAt(at);
+        dto.setBalance(base.add(ledgerEntryRepository.sumAmount(cardId, from, at)));
+        dto.setSnapshotDate(snapshot.map(BalanceSnapshotEntity::getSnapshotDate).orElse(null));
+        return dto;
+    }
+
+    /**
+     * Snapshot every card that has entries since the previous run, in one statement.
+     * Skipped when another node holds the snapshot lock.
+     *
+     * @return number of snapshots written
+     */
+    @Transactional
+    public int takeSnapshots() {
+        if (!balanceSnapshotRepository.tryLock(SNAPSHOT_LOCK_KEY)) return 0;
+
+        LocalDateTime from = balanceSnapshotRepository.findLastCutoff().orElse(EPOCH);
+        LocalDateTime cutoff = LocalDateTime.now().minus(snapshotLag);
+        if (!cutoff.isAfter(from)) return 0;
+
+        int cards = balanceSnapshotRepository.createSnapshots(from, cutoff);
+        balanceSnapshotRepository.saveRun(cutoff, cards);
+        log.info("Balance snapshots taken at {} for {} cards", cutoff, cards);
+        return cards;
+    }
+
+    private LedgerEntryEntity newEntry(UUID cardId, LedgerEntryType type, BigDecimal amount, LocalDateTime createdDate) {
+        LedgerEntryEntity entry = new LedgerEntryEntity();
+        entry.setCardId(cardId);
+        entry.setEntryType(type);
+        entry.setAmount(amount);
+        entry.setCreatedDate(createdDate);
+        return entry;
+    }
+}
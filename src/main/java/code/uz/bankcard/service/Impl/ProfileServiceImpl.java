@@ -7,11 +7,16 @@ import code.uz.bankcard.entity.RoleEntity;
 import code.uz.bankcard.enums.GeneralStatus;
 import code.uz.bankcard.enums.Role;
 import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.event.CardsInvalidatedEvent;
+import code.uz.bankcard.event.ProfileStatusCountEvent;
 import code.uz.bankcard.exception.NotFoundException;
+import code.uz.bankcard.repository.CardBulkRepository;
 import code.uz.bankcard.repository.ProfileRepository;
 import code.uz.bankcard.service.ProfileService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 import java.util.List;
@@ -19,13 +24,15 @@ import java.util.UUID;
 
 /**
  * Implementation of ProfileService for managing user profiles.
- * Handles retrieval, status changes, and logical deletion.
+ * Handles retrieval, status changes, renaming, and logical deletion.
  */
 @Service
 @RequiredArgsConstructor
 public class ProfileServiceImpl implements ProfileService {
 
     private final ProfileRepository profileRepository;
+    private final CardBulkRepository cardBulkRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Get all profiles.
@@ -70,6 +77,9 @@ public class ProfileServiceImpl implements ProfileService {
         }
 
         profileRepository.updateStatusById(status, profileId);
+        GeneralStatus previous = statusOf(profile);
+        if (Boolean.TRUE.equals(profile.getVisible()) && previous != status)
+            eventPublisher.publishEvent(new ProfileStatusCountEvent(previous, status));
         return new AppResponse<>("Status changed");
     }
 
@@ -80,10 +90,36 @@ public class ProfileServiceImpl implements ProfileService {
      * @return AppResponse confirmation
      */
     public AppResponse<String> delete(UUID profileId) {
+        profileRepository.findById(profileId)
+                .filter(profile -> Boolean.TRUE.equals(profile.getVisible()))
+                .ifPresent(profile -> eventPublisher.publishEvent(new ProfileStatusCountEvent(statusOf(profile), null)));
         profileRepository.changeVisibleById(profileId);
         return new AppResponse<>("Profile deleted");
     }
 
+    /**
+     * Rename a profile.
+     * The owner name is denormalized onto every card of the profile, so those rows are
+     * updated in the same transaction and dropped from the card cache.
+     *
+     * @param profileId UUID of profile
+     * @param name new display name
+     * @return updated ProfileResponseDTO
+     * @throws NotFoundException if profile does not exist
+     */
+    @Transactional
+    public ProfileResponseDTO updateName(UUID profileId, String name) {
+        ProfileEntity profile = profileRepository.findByIdAndVisibleTrue(profileId)
+                .orElseThrow(() -> new NotFoundException("Profile not found"));
+
+        profile.setName(name);
+        profileRepository.save(profile);
+
+        List<UUID> cardIds = cardBulkRepository.updateOwnerName(profileId, name);
+        if (!cardIds.isEmpty()) eventPublisher.publishEvent(new CardsInvalidatedEvent(cardIds));
+        return toDTO(profile);
+    }
+
     /**
      * Convert ProfileEntity to ProfileResponseDTO.
      */
@@ -104,4 +140,11 @@ public class ProfileServiceImpl implements ProfileService {
 
         return dto;
     }
+
+    /**
+     * Status of a profile; a profile that was never blocked has none and is ACTIVE.
+     */
+    private static GeneralStatus statusOf(ProfileEntity profile) {
+        return profile.getStatus() != null ? profile.getStatus() : GeneralStatus.ACTIVE;
+    }
 }
@@ -0,0 +1,170 @@
+package code.uz.bankcard.service.Impl;
+
+import code.uz.bankcard.dto.reconciliation.ReconciliationMismatchDTO;
+import code.uz.bankcard.dto.reconciliation.ReconciliationRunDTO;
+import code.uz.bankcard.entity.ReconciliationMismatchEntity;
+import code.uz.bankcard.entity.ReconciliationRunEntity;
+import code.uz.bankcard.enums.ReconciliationStatus;
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.exception.NotFoundException;
+import code.uz.bankcard.reconciliation.ReconciliationEngine;
+import code.uz.bankcard.reconciliation.ReconciliationProgress;
+import code.uz.bankcard.repository.ReconciliationMismatchRepository;
+import code.uz.bankcard.repository.ReconciliationRunRepository;
+import code.uz.bankcard.service.ReconciliationService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs balance reconciliation in the background and keeps its history.
+ * <p>
+ * Only one run may be in progress across all nodes (enforced by a partial unique index).
+ * Progress of the current run is exposed through Micrometer gauges and {@link #getRun(Long)}.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReconciliationServiceImpl implements ReconciliationService {
+
+    private final ReconciliationEngine reconciliationEngine;
+    private final ReconciliationRunRepository runRepository;
+    private final ReconciliationMismatchRepository mismatchRepository;
+    private final MeterRegistry meterRegistry;
+    private final ReconciliationProgress progress = new ReconciliationProgress();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "reconciliation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${app.reconciliation.stale-after:6h}")
+    private Duration staleAfter;
+
+    private volatile Long currentRunId;
+    private Timer duration;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("reconciliation.ranges.total", progress, ReconciliationProgress::getTotalRanges).register(meterRegistry);
+        Gauge.builder("reconciliation.ranges.done", progress, ReconciliationProgress::getDoneRanges).register(meterRegistry);
+        Gauge.builder("reconciliation.cards.checked", progress, ReconciliationProgress::getCardsChecked).register(meterRegistry);
+        Gauge.builder("reconciliation.mismatches", progress, ReconciliationProgress::getMismatches).register(meterRegistry);
+        duration = Timer.builder("reconciliation.duration").register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Start a reconciliation run in the background.
+     *
+     * @return the new run
+     * @throws BadException if a run is already in progress
+     */
+    public ReconciliationRunDTO start() {
+        runRepository.failAbandoned(LocalDateTime.now().minus(staleAfter));
+
+        ReconciliationRunEntity run = new ReconciliationRunEntity();
+        run.setStatus(ReconciliationStatus.RUNNING);
+        run.setStartedDate(LocalDateTime.now());
+        try {
+            runRepository.saveAndFlush(run);
+        } catch (DataIntegrityViolationException e) {
+            throw new BadException("Reconciliation is already running");
+        }
+
+        executor.execute(() -> execute(run));
+        return toDTO(run);
+    }
+
+    /**
+     * Get a run; the run in progress reports live counters.
+     */
+    public ReconciliationRunDTO getRun(Long runId) {
+        ReconciliationRunEntity run = runRepository.findById(runId)
+                .orElseThrow(() -> new NotFoundException("Reconciliation run not found"));
+        return toDTO(run);
+    }
+
+    public Page<ReconciliationRunDTO> getRuns(int page, int size) {
+        return runRepository.findAllByOrderByStartedDateDesc(PageRequest.of(page, size)).map(this::toDTO);
+    }
+
+    public Page<ReconciliationMismatchDTO> getMismatches(Long runId, int page, int size) {
+        if (!runRepository.existsById(runId))
+            throw new NotFoundException("Reconciliation run not found");
+        return mismatchRepository.findAllByRunIdOrderByIdAsc(runId, PageRequest.of(page, size)).map(this::toDTO);
+    }
+
+    void execute(ReconciliationRunEntity run) {
+        currentRunId = run.getId();
+        long started = System.nanoTime();
+        try {
+            reconciliationEngine.run(run.getId(), progress);
+            run.setStatus(ReconciliationStatus.COMPLETED);
+            log.info("Reconciliation run {} checked {} cards, {} mismatches",
+                    run.getId(), progress.getCardsChecked(), progress.getMismatches());
+        } catch (Exception e) {
+            log.error("Reconciliation run {} failed", run.getId(), e);
+            run.setStatus(ReconciliationStatus.FAILED);
+            String message = String.valueOf(e.getMessage());
+            run.setError(message.length() > 255 ? message.substring(0, 255) : message);
+        } finally {
+            duration.record(Duration.ofNanos(System.nanoTime() - started));
+            run.setFinishedDate(LocalDateTime.now());
+            run.setRanges(progress.getTotalRanges());
+            run.setCardsChecked(progress.getCardsChecked());
+            run.setMismatches(progress.getMismatches());
+            runRepository.save(run);
+            currentRunId = null;
+        }
+    }
+
+    private ReconciliationRunDTO toDTO(ReconciliationRunEntity run) {
+        ReconciliationRunDTO dto = new ReconciliationRunDTO();
+        dto.setId(run.getId());
+        dto.setStatus(run.getStatus());
+        dto.setStartedDate(run.getStartedDate());
+        dto.setFinishedDate(run.getFinishedDate());
+        dto.setError(run.getError());
+
+        if (run.getId() != null && run.getId().equals(currentRunId)) {
+            dto.setRanges(progress.getTotalRanges());
+            dto.setRangesDone(progress.getDoneRanges());
+            dto.setCardsChecked(progress.getCardsChecked());
+            dto.setMismatches(progress.getMismatches());
+        } else {
+            dto.setRanges(run.getRanges());
+            dto.setCardsChecked(run.getCardsChecked());
+            dto.setMismatches(run.getMismatches());
+        }
+        return dto;
+    }
+
+    private ReconciliationMismatchDTO toDTO(ReconciliationMismatchEntity mismatch) {
+        ReconciliationMismatchDTO dto = new ReconciliationMismatchDTO();
+        dto.setCardId(mismatch.getCardId());
+        dto.setExpectedBalance(mismatch.getExpectedBalance());
+        dto.setActualBalance(mismatch.getActualBalance());
+        dto.setDifference(mismatch.getActualBalance().subtract(mismatch.getExpectedBalance()));
+        return dto;
+    }
+}
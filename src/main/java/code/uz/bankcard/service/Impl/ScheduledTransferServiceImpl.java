@@ -0,0 +1,263 @@
+package code.uz.bankcard.service.Impl;
+
+import code.uz.bankcard.dto.AppResponse;
+import code.uz.bankcard.dto.transaction.ScheduledTransferCreateDTO;
+import code.uz.bankcard.dto.transaction.ScheduledTransferResponseDTO;
+import code.uz.bankcard.dto.transaction.TransactionCreateDTO;
+import code.uz.bankcard.dto.transaction.TransactionResponseDTO;
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.entity.ScheduledTransferEntity;
+import code.uz.bankcard.enums.Role;
+import code.uz.bankcard.enums.ScheduleRecurrence;
+import code.uz.bankcard.enums.ScheduledTransferStatus;
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.exception.NotFoundException;
+import code.uz.bankcard.repository.CardRepository;
+import code.uz.bankcard.repository.ScheduledTransferRepository;
+import code.uz.bankcard.service.ScheduledTransferService;
+import code.uz.bankcard.util.SecurityUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Standing orders and their executor.
+ * <p>
+ * Every node runs the executor. It locks a chunk of due orders with {@code FOR UPDATE SKIP LOCKED},
+ * leases them and commits, so nodes work on disjoint chunks. Each order then runs in its own
+ * transaction together with its transfer; the version check on the order makes a run that overlaps
+ * an expired lease roll back instead of transferring twice. Orders that hit an unexpected error keep
+ * their due time and are picked up again once the lease expires.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScheduledTransferServiceImpl implements ScheduledTransferService {
+    private final ScheduledTransferRepository scheduledTransferRepository;
+    private final CardRepository cardRepository;
+    private final TransactionServiceImpl transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.transfer.scheduled.chunk-size:100}")
+    private int chunkSize;
+    @Value("${app.transfer.scheduled.lease:2m}")
+    private Duration lease;
+
+    private Timer lag;
+
+    @PostConstruct
+    void registerMetrics() {
+        lag = Timer.builder("transfer.scheduled.lag")
+                .description("Time between the due time of a standing order and its execution")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Create a standing order from one of the current user's cards.
+     *
+     * @param dto cards, amount, first run time, recurrence and optional end date
+     * @return the new order
+     * @throws NotFoundException if either card is not found
+     * @throws BadException if the source card is not the user's or the end date is before the first run
+     */
+    public ScheduledTransferResponseDTO create(@Valid ScheduledTransferCreateDTO dto) {
+        UUID profileId = SecurityUtil.getID();
+
+        CardEntity fromCard = cardRepository.findByIdAndVisibleTrue(dto.getFromCardId())
+                .orElseThrow(() -> new NotFoundException("Sender card not found"));
+        if (!fromCard.getProfile().getId().equals(profileId))
+            throw new BadException("You can only transfer from your own card");
+        if (cardRepository.findByIdAndVisibleTrue(dto.getToCardId()).isEmpty())
+            throw new NotFoundException("Recipient card not found");
+        if (dto.getEndDate() != null && dto.getEndDate().isBefore(dto.getFirstRunAt()))
+            throw new BadException("End date is before the first run");
+
+        ScheduledTransferEntity order = new ScheduledTransferEntity();
+        order.setProfileId(profileId);
+        order.setFromCardId(dto.getFromCardId());
+        order.setToCardId(dto.getToCardId());
+        order.setAmount(dto.getAmount());
+        order.setRecurrence(dto.getRecurrence() == null ? ScheduleRecurrence.ONCE : dto.getRecurrence());
+        order.setStartAt(dto.getFirstRunAt());
+        order.setNextRunAt(dto.getFirstRunAt());
+        order.setEndDate(dto.getEndDate());
+        order.setStatus(ScheduledTransferStatus.ACTIVE);
+        order.setCreatedDate(LocalDateTime.now());
+        scheduledTransferRepository.save(order);
+
+        return toDTO(order);
+    }
+
+    /**
+     * Get the current user's standing orders, newest first.
+     *
+     * @param page page number
+     * @param size page size
+     * @return Page of ScheduledTransferResponseDTO
+     */
+    public Page<ScheduledTransferResponseDTO> getAll(int page, int size) {
+        return scheduledTransferRepository.findByProfileIdOrderByCreatedDateDesc(SecurityUtil.getID(), PageRequest.of(page, size))
+                .map(this::toDTO);
+    }
+
+    /**
+     * Cancel an active standing order of the current user (any order for admins).
+     *
+     * @throws NotFoundException if the order is not found
+     * @throws BadException if the order is not the user's or no longer active
+     */
+    @Transactional
+    public AppResponse<String> cancel(UUID id) {
+        ScheduledTransferEntity order = scheduledTransferRepository.findById(id)
+                .orElseThrow(() -> new NotFoundException("Scheduled transfer not found"));
+
+        if (!SecurityUtil.hasRole(Role.ROLE_ADMIN) && !order.getProfileId().equals(SecurityUtil.getID()))
+            throw new BadException("This scheduled transfer does not belong to you");
+        if (order.getStatus() != ScheduledTransferStatus.ACTIVE)
+            throw new BadException("Scheduled transfer is not active");
+
+        order.setStatus(ScheduledTransferStatus.CANCELLED);
+        scheduledTransferRepository.save(order);
+        return new AppResponse<>("Scheduled transfer cancelled");
+    }
+
+    /**
+     * Claim and run due standing orders chunk by chunk until no full chunk is left.
+     *
+     * @return number of runs, successful or rejected
+     */
+    public int executeDue() {
+        int runs = 0;
+        List<UUID> claimed;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            claimed = transactionTemplate.execute(status -> claim(now));
+            if (claimed == null) break;
+            for (UUID id : claimed) {
+                if (run(id)) runs++;
+            }
+        } while (claimed.size() == chunkSize);
+        return runs;
+    }
+
+    private List<UUID> claim(LocalDateTime now) {
+        List<ScheduledTransferEntity> due = scheduledTransferRepository.lockDue(now, chunkSize);
+        due.forEach(order -> order.setClaimedUntil(now.plus(lease)));
+        return due.stream().map(ScheduledTransferEntity::getId).toList();
+    }
+
+    /**
+     * Run one claimed order through the regular transfer checks.
+     *
+     * @return {@code false} if the order was not run, e.g. it was cancelled or the run failed unexpectedly
+     */
+    private boolean run(UUID id) {
+        try {
+            Boolean ran = transactionTemplate.execute(status -> {
+                ScheduledTransferEntity order = scheduledTransferRepository.findById(id).orElse(null);
+                LocalDateTime now = LocalDateTime.now();
+                if (order == null || order.getStatus() != ScheduledTransferStatus.ACTIVE || order.getNextRunAt().isAfter(now))
+                    return false;
+
+                lag.record(Duration.between(order.getNextRunAt(), now));
+                TransactionResponseDTO transaction = transactionService.transferOnBehalf(order.getProfileId(), toTransfer(order));
+                order.setLastTransactionId(transaction.getId());
+                order.setLastError(null);
+                finishRun(order, now, ScheduledTransferStatus.COMPLETED);
+                return true;
+            });
+            if (Boolean.TRUE.equals(ran)) meterRegistry.counter("transfer.scheduled.runs", "outcome", "success").increment();
+            return Boolean.TRUE.equals(ran);
+        } catch (BadException | NotFoundException e) {
+            meterRegistry.counter("transfer.scheduled.runs", "outcome", "rejected").increment();
+            recordRejection(id, e.getMessage());
+            return true;
+        } catch (RuntimeException e) {
+            meterRegistry.counter("transfer.scheduled.runs", "outcome", "error").increment();
+            log.warn("Scheduled transfer {} failed, it is retried after the lease: {}", id, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * A rejected run (insufficient balance, blocked card, ...) is skipped, not retried.
+     */
+    private void recordRejection(UUID id, String message) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> scheduledTransferRepository.findById(id)
+                    .filter(order -> order.getStatus() == ScheduledTransferStatus.ACTIVE)
+                    .ifPresent(order -> {
+                        order.setLastError(message);
+                        finishRun(order, LocalDateTime.now(), ScheduledTransferStatus.FAILED);
+                    }));
+        } catch (RuntimeException e) {
+            log.warn("Could not record rejected run of scheduled transfer {}: {}", id, e.getMessage());
+        }
+    }
+
+    /**
+     * Move the order to its first occurrence after {@code now}, or close it with {@code lastStatus}
+     * when none is left. Occurrences missed during downtime are skipped, not run back to back.
+     */
+    private void finishRun(ScheduledTransferEntity order, LocalDateTime now, ScheduledTransferStatus lastStatus) {
+        order.setLastRunAt(now);
+        order.setClaimedUntil(null);
+
+        LocalDateTime next = null;
+        int occurrence = order.getOccurrence();
+        if (order.getRecurrence() != ScheduleRecurrence.ONCE) {
+            do {
+                next = order.getRecurrence().occurrence(order.getStartAt(), ++occurrence);
+            } while (!next.isAfter(now));
+        }
+
+        if (next == null || (order.getEndDate() != null && next.isAfter(order.getEndDate()))) {
+            order.setStatus(lastStatus);
+        } else {
+            order.setOccurrence(occurrence);
+            order.setNextRunAt(next);
+        }
+    }
+
+    private TransactionCreateDTO toTransfer(ScheduledTransferEntity order) {
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(order.getFromCardId());
+        dto.setToCardId(order.getToCardId());
+        dto.setAmount(order.getAmount());
+        return dto;
+    }
+
+    private ScheduledTransferResponseDTO toDTO(ScheduledTransferEntity order) {
+        ScheduledTransferResponseDTO dto = new ScheduledTransferResponseDTO();
+        dto.setId(order.getId());
+        dto.setFromCardId(order.getFromCardId());
+        dto.setToCardId(order.getToCardId());
+        dto.setAmount(order.getAmount().toBigDecimal());
+        dto.setRecurrence(order.getRecurrence());
+        dto.setStatus(order.getStatus());
+        dto.setNextRunAt(order.getNextRunAt());
+        dto.setEndDate(order.getEndDate());
+        dto.setLastRunAt(order.getLastRunAt());
+        dto.setLastTransactionId(order.getLastTransactionId());
+        dto.setLastError(order.getLastError());
+        dto.setCreatedDate(order.getCreatedDate());
+        return dto;
+    }
+}
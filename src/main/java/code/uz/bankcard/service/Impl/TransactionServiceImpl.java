@@ -1,71 +1,183 @@
 package code.uz.bankcard.service.Impl;
 
+import code.uz.bankcard.analytics.SpendingAggregator;
+import code.uz.bankcard.dto.AppResponse;
+import code.uz.bankcard.dto.analytics.CardAnalyticsDTO;
+import code.uz.bankcard.dto.transaction.TransactionChangeDTO;
+import code.uz.bankcard.dto.transaction.TransactionChangesDTO;
 import code.uz.bankcard.dto.transaction.TransactionCreateDTO;
 import code.uz.bankcard.dto.transaction.TransactionResponseDTO;
+import code.uz.bankcard.dto.transaction.TransferQuoteDTO;
 import code.uz.bankcard.entity.CardEntity;
 import code.uz.bankcard.entity.TransactionEntity;
 import code.uz.bankcard.enums.CardStatus;
 import code.uz.bankcard.enums.Role;
 import code.uz.bankcard.enums.TransactionStatus;
+import code.uz.bankcard.event.CardChangedEvent;
+import code.uz.bankcard.event.CardsInvalidatedEvent;
+import code.uz.bankcard.event.TransferRecordedEvent;
 import code.uz.bankcard.exception.BadException;
 import code.uz.bankcard.exception.NotFoundException;
+import code.uz.bankcard.exception.TooManyRequestsException;
+import code.uz.bankcard.fee.FeeQuote;
+import code.uz.bankcard.fee.TransferFeeEngine;
+import code.uz.bankcard.fraud.TransferScreening;
+import code.uz.bankcard.fx.FxConversion;
+import code.uz.bankcard.fx.FxRateCache;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.outbox.TransferOutbox;
+import code.uz.bankcard.ratelimit.TransferRateLimiter;
+import code.uz.bankcard.repository.CardBalanceShardRepository;
+import code.uz.bankcard.repository.CardMonthlyAggregateRepository;
 import code.uz.bankcard.repository.CardRepository;
+import code.uz.bankcard.repository.TransactionChangeRepository;
 import code.uz.bankcard.repository.TransactionRepository;
-import code.uz.bankcard.service.TransactionSaveService;
+import code.uz.bankcard.retry.RetryOnConflict;
+import code.uz.bankcard.service.LedgerService;
 import code.uz.bankcard.service.TransactionService;
+import code.uz.bankcard.transfer.FailedTransactionWriter;
+import code.uz.bankcard.transfer.GroupCommitTransferEngine;
+import code.uz.bankcard.transfer.HotCardSequencer;
+import code.uz.bankcard.transfer.SpendLimitGuard;
 import code.uz.bankcard.util.SecurityUtil;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class TransactionServiceImpl implements TransactionService {
+    static final int MAX_CHANGES = 500;
+    static final int MAX_TOP_COUNTERPARTIES = 50;
+
     private final TransactionRepository transactionRepository;
     private final CardRepository cardRepository;
-    private final TransactionSaveService transactionSaveService;
+    private final FailedTransactionWriter failedTransactionWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LedgerService ledgerService;
+    private final GroupCommitTransferEngine groupCommitEngine;
+    private final TransactionTemplate transactionTemplate;
+    private final HotCardSequencer hotCardSequencer;
+    private final CardBalanceShardRepository balanceShardRepository;
+    private final SpendLimitGuard spendLimitGuard;
+    private final TransferScreening transferScreening;
+    private final TransferFeeEngine feeEngine;
+    private final FxRateCache fxRateCache;
+    private final TransferOutbox transferOutbox;
+    private final TransactionChangeRepository changeRepository;
+    private final SpendingAggregator spendingAggregator;
+    private final CardMonthlyAggregateRepository aggregateRepository;
+    private final TransferRateLimiter transferRateLimiter;
 
     /**
      * Transfer money from one card to another by the current user.
      * Only allowed if the user owns the source card and both cards are active.
+     * Transfers flagged by screening are saved as FLAGGED without moving any money.
+     * The rate limit of the source card is only charged when the user owns it.
      *
      * @param dto Transaction data transfer object containing fromCardId, toCardId, and amount
      * @return TransactionResponseDTO containing transaction details
      * @throws NotFoundException if either card is not found
      * @throws BadException if user tries to transfer from a card they do not own
      *                      or if the sender/recipient card is not active
+     * @throws TooManyRequestsException if the user or the source card sent too many transfers
      */
-    @Transactional
+    @RetryOnConflict
     public TransactionResponseDTO transfer(@Valid TransactionCreateDTO dto) {
         UUID profileId = SecurityUtil.getID();
         boolean isAdmin = SecurityUtil.hasRole(Role.ROLE_ADMIN);
 
-        CardEntity fromCard = cardRepository.findByIdAndVisibleTrue(dto.getFromCardId()).orElseThrow(() -> new NotFoundException("Sender card not found"));
+        transferRateLimiter.checkProfile();
+        // read outside the transfer transaction, so a shared bucket is neither locked by nor rolled back with it
+        if (isAdmin || transferRateLimiter.isEnabled()
+                && cardRepository.findOwnerIdById(dto.getFromCardId()).filter(profileId::equals).isPresent())
+            transferRateLimiter.checkCard(dto.getFromCardId());
 
-        CardEntity toCard = cardRepository.findByIdAndVisibleTrue(dto.getToCardId()).orElseThrow(() -> new NotFoundException("Recipient card not found"));
+        return route(dto, ownerChecks(profileId, isAdmin), isAdmin ? Role.ROLE_ADMIN : Role.ROLE_USER, true);
+    }
 
-        if (!isAdmin && !fromCard.getProfile().getId().equals(profileId)) {
-            throw new BadException("You can only transfer from your own card");
-        }
+    /**
+     * Transfer money on behalf of a profile without a security context, e.g. for a standing order.
+     * Runs the same checks as {@link #transfer(TransactionCreateDTO)} and joins the caller's
+     * transaction, so the transfer commits together with the caller's own bookkeeping.
+     *
+     * @param profileId profile that must own the source card
+     * @param dto       Transaction data transfer object containing fromCardId, toCardId, and amount
+     * @return TransactionResponseDTO containing transaction details
+     * @throws NotFoundException if either card is not found
+     * @throws BadException if the profile does not own the source card, a card is not active,
+     *                      the balance is insufficient or the source card is a hot card
+     */
+    @Transactional
+    public TransactionResponseDTO transferOnBehalf(UUID profileId, TransactionCreateDTO dto) {
+        // the sequencer commits on its own thread and cannot join the caller's transaction
+        if (hotCardSequencer.isHot(dto.getFromCardId()))
+            throw new BadException("Scheduled transfers are not supported for this card");
 
-        if (fromCard.getStatus() != CardStatus.ACTIVE) {
-            throw new BadException("Sender Card is not active");
-        }
+        CardEntity fromCard = findCard(dto.getFromCardId(), "Sender card not found");
+        CardEntity toCard = findCard(dto.getToCardId(), "Recipient card not found");
+        ownerChecks(profileId, false).accept(fromCard, toCard);
+        return executeTransfer(dto, fromCard, toCard, feeEngine.quote(Role.ROLE_USER, fromCard, toCard, dto.getAmount()));
+    }
 
-        if (toCard.getStatus() != CardStatus.ACTIVE) {
-            throw new BadException("Recipient Card is not active");
+    /**
+     * Preview the fee of a transfer by the current user, with the same checks and rules as {@link #transfer(TransactionCreateDTO)}.
+     * Nothing is reserved; the rules may change before the transfer is made.
+     *
+     * @param dto Transaction data transfer object containing fromCardId, toCardId, and amount
+     * @return amount, fee, total debit and the rule the fee came from; for cards in different currencies
+     *         also the amount the recipient gets and the current rate
+     * @throws NotFoundException if either card is not found
+     * @throws BadException if the user does not own the source card, a card is not active
+     *                      or there is no usable exchange rate
+     */
+    public TransferQuoteDTO quote(@Valid TransactionCreateDTO dto) {
+        boolean isAdmin = SecurityUtil.hasRole(Role.ROLE_ADMIN);
+        CardEntity fromCard = findCard(dto.getFromCardId(), "Sender card not found");
+        CardEntity toCard = findCard(dto.getToCardId(), "Recipient card not found");
+        ownerChecks(SecurityUtil.getID(), isAdmin).accept(fromCard, toCard);
+
+        FeeQuote fee = feeEngine.quote(isAdmin ? Role.ROLE_ADMIN : Role.ROLE_USER, fromCard, toCard, dto.getAmount());
+        feeCard(fromCard, fee);
+        TransferQuoteDTO quote = new TransferQuoteDTO();
+        quote.setAmount(dto.getAmount().toBigDecimal());
+        quote.setFee(fee.amount().toBigDecimal());
+        quote.setTotal(dto.getAmount().plus(fee.amount()).toBigDecimal());
+        quote.setFeeRule(fee.rule());
+        quote.setCurrency(fromCard.getCurrency());
+        FxConversion conversion = convert(fromCard, toCard, dto.getAmount());
+        if (conversion != null) {
+            quote.setCreditAmount(conversion.amount().toBigDecimal());
+            quote.setCreditCurrency(toCard.getCurrency());
+            quote.setFxRate(conversion.rate());
         }
+        return quote;
+    }
 
-        return executeTransfer(dto, fromCard, toCard);
+    /**
+     * Recompile the fee rules on every node (admin only).
+     *
+     * @return number of active rules
+     */
+    public AppResponse<Integer> reloadFeeRules() {
+        if (!SecurityUtil.hasRole(Role.ROLE_ADMIN))
+            throw new BadException("Admin privileges are required");
+        return new AppResponse<>(feeEngine.reload(), "Fee rules reloaded");
     }
 
     /**
@@ -76,20 +188,20 @@ public class TransactionServiceImpl implements TransactionService {
      * @return TransactionResponseDTO containing transaction details
      * @throws NotFoundException if either card is not found
      * @throws BadException if the user is not an admin
+     * @throws TooManyRequestsException if the admin or the source card sent too many transfers
      */
-    @Transactional
+    @RetryOnConflict
     public TransactionResponseDTO transferByAdmin(@Valid TransactionCreateDTO dto) {
         boolean isAdmin = SecurityUtil.hasRole(Role.ROLE_ADMIN);
 
-        CardEntity fromCard = cardRepository.findByIdAndVisibleTrue(dto.getFromCardId()).orElseThrow(() -> new NotFoundException("Sender card not found"));
+        transferRateLimiter.checkProfile();
+        if (isAdmin) transferRateLimiter.checkCard(dto.getFromCardId());
 
-        CardEntity toCard = cardRepository.findByIdAndVisibleTrue(dto.getToCardId()).orElseThrow(() -> new NotFoundException("Recipient card not found"));
-
-        if (!isAdmin) {
-            throw new BadException("Only admins can transfer");
-        }
-
-        return executeTransfer(dto, fromCard, toCard);
+        return route(dto, (fromCard, toCard) -> {
+            if (!isAdmin) {
+                throw new BadException("Only admins can transfer");
+            }
+        }, Role.ROLE_ADMIN, false);
     }
 
     /**
@@ -111,9 +223,13 @@ public class TransactionServiceImpl implements TransactionService {
                     responseDTO.setId(t.getId());
                     responseDTO.setFromCardNumber(t.getFromCardId().getCardNumber());
                     responseDTO.setToCardNumber(t.getToCardId().getCardNumber());
-                    responseDTO.setAmount(t.getAmount());
+                    responseDTO.setAmount(t.getAmount().toBigDecimal());
+                    responseDTO.setCurrency(t.getCurrency());
+                    responseDTO.setCreditAmount(t.getCreditAmount() == null ? null : t.getCreditAmount().toBigDecimal());
+                    responseDTO.setFxRate(t.getFxRate());
                     responseDTO.setStatus(t.getStatus());
                     responseDTO.setSentDate(t.getSentDate());
+                    responseDTO.setFeeFor(t.getFeeFor());
                     return responseDTO;
                 })
                 .toList();
@@ -121,6 +237,90 @@ public class TransactionServiceImpl implements TransactionService {
         return new PageImpl<>(responseDTOList, pageRequest, responseDTOList.size());
     }
 
+    /**
+     * Get the transactions of the current user written since a cursor of an earlier sync.
+     * <p>
+     * The cursor is a position in the order of the database transactions that wrote the rows,
+     * not of their ids: an id is taken before commit, so a smaller id can become visible after a
+     * larger one. Rows of database transactions older than the oldest one still running are final
+     * and are paged through exactly; newer rows are returned as well but stay behind the returned
+     * cursor until every transaction before them has finished, so they may come back once more.
+     * Without {@code since} only a starting cursor is returned; take it before loading the first
+     * history page.
+     * </p>
+     * <p>
+     * The newer rows fill at most the rest of the page and cannot be paged through, as the cursor
+     * does not move past them. {@code hasMore} is set whenever the page is full; if the cursor did not
+     * move either, the remaining rows come once the oldest running transaction has finished.
+     * </p>
+     *
+     * @param since cursor returned by the previous sync, or {@code null}
+     * @param limit maximum number of transactions, at most {@value #MAX_CHANGES}
+     * @return changed transactions and the cursor of the next sync
+     * @throws BadException if the cursor is malformed
+     */
+    public TransactionChangesDTO getHistoryChanges(String since, int limit) {
+        UUID profileId = SecurityUtil.getID();
+        int size = Math.min(Math.max(limit, 1), MAX_CHANGES);
+        long xmin = changeRepository.snapshotXmin();
+        if (since == null || since.isBlank()) {
+            return new TransactionChangesDTO(new HistoryCursor(xmin, 0).toString(), false, List.of());
+        }
+
+        HistoryCursor cursor = HistoryCursor.parse(since);
+        List<TransactionChangeRepository.Change> rows = new ArrayList<>();
+        if (cursor.xid() < xmin) {
+            List<TransactionChangeRepository.Change> settled =
+                    changeRepository.findRange(profileId, cursor.xid(), cursor.id(), xmin, size + 1);
+            if (settled.size() > size) {
+                TransactionChangeRepository.Change last = settled.get(size - 1);
+                return new TransactionChangesDTO(new HistoryCursor(last.xid(), last.id()).toString(), true,
+                        toChangeDTOs(settled.subList(0, size)));
+            }
+            rows.addAll(settled);
+            cursor = new HistoryCursor(xmin, 0);
+        }
+        if (rows.size() < size) {
+            rows.addAll(changeRepository.findRange(profileId, cursor.xid(), cursor.id(), Long.MAX_VALUE, size - rows.size()));
+        }
+        // a full page may have cut off rows, settled ones or newer ones beyond the cap
+        return new TransactionChangesDTO(cursor.toString(), rows.size() == size, toChangeDTOs(rows));
+    }
+
+    /**
+     * Get the monthly inflow and outflow of one of the current user's cards and its top counterparties.
+     * <p>
+     * Read from {@code card_monthly_aggregate} only, which is kept up to date by every transfer,
+     * so the cost does not grow with the card's history.
+     * </p>
+     *
+     * @param cardId card of the current user
+     * @param from   first month, defaults to eleven months before {@code to}
+     * @param to     last month, defaults to the current month
+     * @param top    number of counterparties, at most {@value #MAX_TOP_COUNTERPARTIES}
+     * @return CardAnalyticsDTO in the card's currency
+     * @throws NotFoundException if the card is not one of the user's cards
+     * @throws BadException      if {@code from} is after {@code to}
+     */
+    public CardAnalyticsDTO getAnalytics(UUID cardId, YearMonth from, YearMonth to, int top) {
+        UUID profileId = SecurityUtil.getID();
+        CardEntity card = cardRepository.findByIdAndProfileIdAndVisibleTrue(cardId, profileId)
+                .orElseThrow(() -> new NotFoundException("Card not found"));
+
+        YearMonth last = to == null ? YearMonth.now() : to;
+        YearMonth first = from == null ? last.minusMonths(11) : from;
+        if (first.isAfter(last)) {
+            throw new BadException("Start month must not be after the end month");
+        }
+
+        LocalDate fromMonth = first.atDay(1);
+        LocalDate toMonth = last.atDay(1);
+        int limit = Math.min(Math.max(top, 1), MAX_TOP_COUNTERPARTIES);
+        return new CardAnalyticsDTO(cardId, card.getCurrency(), first, last,
+                aggregateRepository.findMonthly(cardId, fromMonth, toMonth),
+                aggregateRepository.findTopCounterparties(cardId, fromMonth, toMonth, limit));
+    }
+
     /**
      * Get all transactions in the system (admin only).
      *
@@ -144,9 +344,13 @@ public class TransactionServiceImpl implements TransactionService {
                     dto.setId(t.getId());
                     dto.setFromCardNumber(t.getFromCardId().getCardNumber());
                     dto.setToCardNumber(t.getToCardId().getCardNumber());
-                    dto.setAmount(t.getAmount());
+                    dto.setAmount(t.getAmount().toBigDecimal());
+                    dto.setCurrency(t.getCurrency());
+                    dto.setCreditAmount(t.getCreditAmount() == null ? null : t.getCreditAmount().toBigDecimal());
+                    dto.setFxRate(t.getFxRate());
                     dto.setStatus(t.getStatus());
                     dto.setSentDate(t.getSentDate());
+                    dto.setFeeFor(t.getFeeFor());
                     return dto;
                 })
                 .toList();
@@ -154,47 +358,260 @@ public class TransactionServiceImpl implements TransactionService {
         return new PageImpl<>(responseDTOList, pageRequest, responseDTOList.size());
     }
 
+    /**
+     * Execute the transfer between two cards without a fee, see {@link #executeTransfer(TransactionCreateDTO, CardEntity, CardEntity, FeeQuote)}.
+     */
+    @Transactional
+    public TransactionResponseDTO executeTransfer(TransactionCreateDTO dto, CardEntity fromCard, CardEntity toCard) {
+        return executeTransfer(dto, fromCard, toCard, FeeQuote.NONE);
+    }
+
     /**
      * Execute the transfer between two cards and save the transaction.
-     * If the balance is insufficient, save as failed transaction.
+     * If the balance is insufficient, a failed transaction is recorded in the background.
+     * A successful transfer also writes its debit and credit ledger entries.
+     * New balances are published as {@link CardChangedEvent}s for the balance cache.
+     * A credit to a hot card is written to the card journal instead of its row, a credit to a
+     * sharded card goes to one of its balance shards. Sharded cards are debited with a relative
+     * update, their cached balance is dropped instead. In a group-commit batch card rows are written
+     * once per batch with their net change, see {@link GroupCommitTransferEngine}.
+     * Amounts are compared and moved as {@link Money}, without intermediate {@code BigDecimal}s.
+     * Funds reserved by active holds are not available for the transfer.
+     * Daily and monthly limits of the source card are checked against the totals remembered by this node before
+     * the balance check and counted after it, before the card row is written.
+     * A fee is debited together with the amount and saved as its own transaction to the fee collection card,
+     * which is checked before anything is written.
+     * A recipient in another currency is credited with the amount converted at the rate of the
+     * {@link FxRateCache} snapshot; the transaction records the credited amount and the rate.
+     * The conversion is resolved before the spending counters or any balance is written.
      *
      * @param dto      TransactionCreateDTO containing fromCardId, toCardId, and amount
      * @param fromCard source card
      * @param toCard   destination card
+     * @param fee      fee charged on top of the amount
      * @return TransactionResponseDTO containing transaction details
-     * @throws BadException if the source card balance is insufficient
+     * @throws NotFoundException if the fee collection card does not exist
+     * @throws BadException if the source card balance is insufficient, a spending limit is exceeded,
+     *                      there is no usable exchange rate for a cross-currency transfer
+     *                      or the fee cannot be collected
      */
     @Transactional
-    protected TransactionResponseDTO executeTransfer(TransactionCreateDTO dto, CardEntity fromCard, CardEntity toCard) {
-        BigDecimal amount = dto.getAmount();
-        TransactionEntity entity = new TransactionEntity();
+    public TransactionResponseDTO executeTransfer(TransactionCreateDTO dto, CardEntity fromCard, CardEntity toCard, FeeQuote fee) {
+        Money amount = dto.getAmount();
+        Money total = amount.plus(fee.amount());
+        // resolved before anything is written, a missing rate or fee card must not fail the transfer halfway
+        CardEntity feeCard = feeCard(fromCard, fee);
+        FxConversion conversion = convert(fromCard, toCard, amount);
+        // the balance check of a sharded card locks its row, reject what this node already knows is over the limit first
+        spendLimitGuard.precheck(fromCard, amount);
 
-        if (fromCard.getBalance().compareTo(amount) < 0) {
-            entity.setFromCardId(fromCard);
-            entity.setToCardId(toCard);
-            entity.setAmount(amount);
-            entity.setStatus(TransactionStatus.FAILED);
-            entity.setSentDate(LocalDateTime.now());
-            transactionSaveService.saveFailedTransaction(entity);
+        boolean shardedDebit = Boolean.TRUE.equals(fromCard.getBalanceSharded());
+        boolean covered = shardedDebit
+                ? balanceShardRepository.debit(fromCard.getId(), total.toBigDecimal()) != null
+                : !fromCard.getAvailableBalance().isLessThan(total);
+
+        if (!covered) {
+            failedTransactionWriter.record(fromCard.getId(), toCard.getId(), amount);
 
             throw new BadException("Insufficient balance");
+        }
+
+        spendLimitGuard.count(fromCard, amount);
+        if (!shardedDebit) changeBalance(fromCard, total.negate());
+
+        List<UUID> invalidated = new ArrayList<>(3);
+        TransactionEntity entity = saveTransfer(fromCard, toCard, amount, null, conversion);
+        credit(entity, invalidated);
+        if (feeCard != null) credit(saveTransfer(fromCard, feeCard, fee.amount(), entity.getId(), null), invalidated);
+
+        if (shardedDebit) invalidated.add(fromCard.getId());
+        else eventPublisher.publishEvent(CardChangedEvent.balance(fromCard.getId(), fromCard.getBalance().toBigDecimal()));
+        if (!invalidated.isEmpty()) eventPublisher.publishEvent(new CardsInvalidatedEvent(invalidated));
+
+        TransactionResponseDTO response = toDTO(entity, fromCard, toCard);
+        if (!fee.isFree()) response.setFee(fee.amount().toBigDecimal());
+        return response;
+    }
+
+    /**
+     * Save a SUCCESS transaction with its ledger entries, outbox events and aggregates,
+     * recording the converted credit if the cards are in different currencies.
+     *
+     * @param conversion conversion of the amount into the recipient's currency, {@code null} for the same currency
+     */
+    private TransactionEntity saveTransfer(CardEntity fromCard, CardEntity toCard, Money amount, Integer feeFor, FxConversion conversion) {
+        TransactionEntity entity = new TransactionEntity();
+        entity.setFromCardId(fromCard);
+        entity.setToCardId(toCard);
+        entity.setAmount(amount);
+        entity.setCurrency(fromCard.getCurrency());
+        if (conversion != null) {
+            entity.setCreditAmount(conversion.amount());
+            entity.setFxRate(conversion.rate());
+        }
+        entity.setStatus(TransactionStatus.SUCCESS);
+        entity.setSentDate(LocalDateTime.now());
+        entity.setFeeFor(feeFor);
+        transactionRepository.save(entity);
+        ledgerService.recordTransfer(entity);
+        transferOutbox.append(entity);
+        spendingAggregator.record(entity);
+        if (feeFor == null) eventPublisher.publishEvent(TransferRecordedEvent.of(entity));
+        return entity;
+    }
+
+    /**
+     * Conversion of an amount into the recipient's currency, {@code null} if both cards are in the same currency.
+     *
+     * @throws BadException if there is no usable exchange rate
+     */
+    private FxConversion convert(CardEntity fromCard, CardEntity toCard, Money amount) {
+        if (fromCard.getCurrency().equals(toCard.getCurrency())) return null;
+        return fxRateCache.convert(fromCard.getCurrency(), toCard.getCurrency(), amount);
+    }
+
+    /**
+     * Credit the recipient of a saved transaction: through the journal for a hot card, to a balance
+     * shard for a sharded card (its cached balance is dropped), to the card row otherwise.
+     */
+    private void credit(TransactionEntity transaction, List<UUID> invalidated) {
+        CardEntity card = transaction.getToCardId();
+        if (hotCardSequencer.isHot(card.getId())) {
+            hotCardSequencer.journalCredit(transaction);
+        } else if (Boolean.TRUE.equals(card.getBalanceSharded())) {
+            balanceShardRepository.credit(card.getId(), transaction.getCreditedAmount().toBigDecimal());
+            invalidated.add(card.getId());
         } else {
-            fromCard.setBalance(fromCard.getBalance().subtract(amount));
-            toCard.setBalance(toCard.getBalance().add(amount));
-            cardRepository.save(fromCard);
-            cardRepository.save(toCard);
-
-            entity.setFromCardId(fromCard);
-            entity.setToCardId(toCard);
-            entity.setAmount(amount);
-            entity.setStatus(TransactionStatus.SUCCESS);
-            entity.setSentDate(LocalDateTime.now());
-            transactionRepository.save(entity);
+            changeBalance(card, transaction.getCreditedAmount());
+            eventPublisher.publishEvent(CardChangedEvent.balance(card.getId(), card.getBalance().toBigDecimal()));
         }
+    }
+
+    /**
+     * Change the balance of a card row; in a group-commit batch the change is netted with the
+     * batch's other changes of the card and written once at commit.
+     */
+    private void changeBalance(CardEntity card, Money delta) {
+        if (groupCommitEngine.isBatching()) {
+            groupCommitEngine.net(card, delta);
+            return;
+        }
+        card.setBalance(card.getBalance().plus(delta));
+        cardRepository.save(card);
+    }
+
+    /**
+     * Load and check both cards, then execute the transfer.
+     * Debits of hot cards go to the sequencer together with their fee, with the cards loaded outside of any transaction.
+     * Their spending is counted in a transaction of its own and taken back if the sequencer rejects the debit.
+     *
+     * Screening runs after the checks, so attempts on someone else's card do not count against it.
+     *
+     * @param check  caller specific checks, throwing {@link BadException} to reject the transfer
+     * @param role   role the fee is computed for
+     * @param screen whether the transfer goes through {@link TransferScreening}
+     */
+    private TransactionResponseDTO route(TransactionCreateDTO dto, BiConsumer<CardEntity, CardEntity> check, Role role, boolean screen) {
+        if (hotCardSequencer.isHot(dto.getFromCardId())) {
+            CardEntity fromCard = findCard(dto.getFromCardId(), "Sender card not found");
+            CardEntity toCard = findCard(dto.getToCardId(), "Recipient card not found");
+            check.accept(fromCard, toCard);
+            if (screen && isFlagged(dto)) return flag(dto, fromCard, toCard);
+
+            FeeQuote fee = feeEngine.quote(role, fromCard, toCard, dto.getAmount());
+            CardEntity feeCard = feeCard(fromCard, fee);
+            LocalDate counted = LocalDate.now();
+            if (spendLimitGuard.isLimited(fromCard))
+                transactionTemplate.executeWithoutResult(status -> spendLimitGuard.consume(fromCard, dto.getAmount()));
+            try {
+                TransactionEntity saved = hotCardSequencer.transfer(fromCard, toCard, dto.getAmount(), feeCard, fee.amount());
+                TransactionResponseDTO response = toDTO(saved, fromCard, toCard);
+                if (!fee.isFree()) response.setFee(fee.amount().toBigDecimal());
+                return response;
+            } catch (BadException e) {
+                spendLimitGuard.release(fromCard, dto.getAmount(), counted);
+                throw e;
+            }
+        }
+
+        return inTransaction(() -> {
+            CardEntity fromCard = findCard(dto.getFromCardId(), "Sender card not found");
+            CardEntity toCard = findCard(dto.getToCardId(), "Recipient card not found");
+            check.accept(fromCard, toCard);
+            if (screen && isFlagged(dto)) return flag(dto, fromCard, toCard);
+            return executeTransfer(dto, fromCard, toCard, feeEngine.quote(role, fromCard, toCard, dto.getAmount()));
+        });
+    }
+
+    /**
+     * Card the fee is credited to, {@code null} for a free transfer.
+     * Fees are collected in the sender's currency, on the collection card configured for that currency.
+     *
+     * @throws NotFoundException if the collection card does not exist
+     * @throws BadException if the collection card is not active or not in the sender's currency
+     */
+    private CardEntity feeCard(CardEntity fromCard, FeeQuote fee) {
+        if (fee.isFree()) return null;
+        CardEntity feeCard = findCard(feeEngine.getCollectionCardId(fromCard.getCurrency()), "Fee collection card not found");
+        if (feeCard.getStatus() != CardStatus.ACTIVE)
+            throw new BadException("Fee collection card is not active");
+        if (!feeCard.getCurrency().equals(fromCard.getCurrency()))
+            throw new BadException("Fee collection card for " + fromCard.getCurrency() + " is in " + feeCard.getCurrency());
+        return feeCard;
+    }
+
+    private boolean isFlagged(TransactionCreateDTO dto) {
+        return transferScreening.screen(dto.getFromCardId(), dto.getToCardId(), dto.getAmount()).isPresent();
+    }
 
+    /**
+     * Save a transfer flagged by screening as FLAGGED. No balance, ledger entry or spending counter is touched.
+     */
+    private TransactionResponseDTO flag(TransactionCreateDTO dto, CardEntity fromCard, CardEntity toCard) {
+        TransactionEntity entity = new TransactionEntity();
+        entity.setFromCardId(fromCard);
+        entity.setToCardId(toCard);
+        entity.setAmount(dto.getAmount());
+        entity.setCurrency(fromCard.getCurrency());
+        entity.setStatus(TransactionStatus.FLAGGED);
+        entity.setSentDate(LocalDateTime.now());
+        transactionRepository.save(entity);
+        eventPublisher.publishEvent(TransferRecordedEvent.of(entity));
         return toDTO(entity, fromCard, toCard);
     }
 
+    /**
+     * Checks of a transfer by a card owner; admins may use any source card.
+     */
+    private static BiConsumer<CardEntity, CardEntity> ownerChecks(UUID profileId, boolean isAdmin) {
+        return (fromCard, toCard) -> {
+            if (!isAdmin && !fromCard.getProfile().getId().equals(profileId)) {
+                throw new BadException("You can only transfer from your own card");
+            }
+
+            if (fromCard.getStatus() != CardStatus.ACTIVE) {
+                throw new BadException("Sender Card is not active");
+            }
+
+            if (toCard.getStatus() != CardStatus.ACTIVE) {
+                throw new BadException("Recipient Card is not active");
+            }
+        };
+    }
+
+    private CardEntity findCard(UUID cardId, String notFoundMessage) {
+        return cardRepository.findByIdAndVisibleTrue(cardId).orElseThrow(() -> new NotFoundException(notFoundMessage));
+    }
+
+    /**
+     * Run a transfer in its own transaction, or hand it to the group-commit engine when enabled.
+     * The security context is read by the caller beforehand, the work itself may run on another thread.
+     */
+    private TransactionResponseDTO inTransaction(Supplier<TransactionResponseDTO> transfer) {
+        if (groupCommitEngine.isEnabled()) return groupCommitEngine.submit(transfer);
+        return transactionTemplate.execute(status -> transfer.get());
+    }
+
     /**
      * Convert TransactionEntity to TransactionResponseDTO.
      *
@@ -208,9 +625,53 @@ public class TransactionServiceImpl implements TransactionService {
         dto.setId(entity.getId());
         dto.setFromCardNumber(fromCard.getCardNumber());
         dto.setToCardNumber(toCard.getCardNumber());
-        dto.setAmount(entity.getAmount());
+        dto.setAmount(entity.getAmount().toBigDecimal());
+        dto.setCurrency(entity.getCurrency());
+        dto.setCreditAmount(entity.getCreditAmount() == null ? null : entity.getCreditAmount().toBigDecimal());
+        dto.setFxRate(entity.getFxRate());
         dto.setStatus(entity.getStatus());
         dto.setSentDate(entity.getSentDate());
         return dto;
     }
+
+    private List<TransactionChangeDTO> toChangeDTOs(List<TransactionChangeRepository.Change> rows) {
+        return rows.stream()
+                .map(row -> {
+                    TransactionChangeDTO dto = new TransactionChangeDTO();
+                    dto.setId(row.id());
+                    dto.setFromCardId(row.fromCard());
+                    dto.setToCardId(row.toCard());
+                    dto.setAmount(row.amount());
+                    dto.setCurrency(row.currency());
+                    dto.setCreditAmount(row.creditAmount());
+                    dto.setStatus(row.status());
+                    dto.setSentDate(row.sentDate());
+                    dto.setFeeFor(row.feeFor());
+                    return dto;
+                })
+                .toList();
+    }
+
+    /**
+     * Position after the transaction {@code id} written by the database transaction {@code xid};
+     * id 0 stands before every row of {@code xid}.
+     */
+    private record HistoryCursor(long xid, int id) {
+        static HistoryCursor parse(String cursor) {
+            int separator = cursor.indexOf('-');
+            try {
+                long xid = Long.parseLong(cursor.substring(0, Math.max(separator, 0)));
+                int id = Integer.parseInt(cursor.substring(separator + 1));
+                if (xid < 0 || id < 0) throw new NumberFormatException();
+                return new HistoryCursor(xid, id);
+            } catch (NumberFormatException e) {
+                throw new BadException("Invalid history cursor");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return xid + "-" + id;
+        }
+    }
 }
@@ -0,0 +1,21 @@
+package code.uz.bankcard.service;
+
+import code.uz.bankcard.dto.card.CardBalanceAtDTO;
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.entity.TransactionEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface LedgerService {
+    void recordTransfer(TransactionEntity transaction);
+
+    void recordOpening(CardEntity card);
+
+    void recordAdjustment(CardEntity card, BigDecimal delta);
+
+    CardBalanceAtDTO getBalanceAt(UUID cardId, LocalDateTime at);
+
+    int takeSnapshots();
+}
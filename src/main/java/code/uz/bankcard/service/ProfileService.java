@@ -15,4 +15,6 @@ public interface ProfileService {
     AppResponse<String> changeStatus(UUID profileId, GeneralStatus status);
 
     AppResponse<String> delete(UUID profileId);
+
+    ProfileResponseDTO updateName(UUID profileId, String name);
 }
@@ -0,0 +1,15 @@
+package code.uz.bankcard.service;
+
+import code.uz.bankcard.dto.reconciliation.ReconciliationMismatchDTO;
+import code.uz.bankcard.dto.reconciliation.ReconciliationRunDTO;
+import org.springframework.data.domain.Page;
+
+public interface ReconciliationService {
+    ReconciliationRunDTO start();
+
+    ReconciliationRunDTO getRun(Long runId);
+
+    Page<ReconciliationRunDTO> getRuns(int page, int size);
+
+    Page<ReconciliationMismatchDTO> getMismatches(Long runId, int page, int size);
+}
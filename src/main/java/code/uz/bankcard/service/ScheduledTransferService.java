@@ -0,0 +1,16 @@
+package code.uz.bankcard.service;
+
+import code.uz.bankcard.dto.AppResponse;
+import code.uz.bankcard.dto.transaction.ScheduledTransferCreateDTO;
+import code.uz.bankcard.dto.transaction.ScheduledTransferResponseDTO;
+import jakarta.validation.Valid;
+import org.springframework.data.domain.Page;
+
+import java.util.UUID;
+
+public interface ScheduledTransferService {
+    ScheduledTransferResponseDTO create(@Valid ScheduledTransferCreateDTO dto);
+    Page<ScheduledTransferResponseDTO> getAll(int page, int size);
+    AppResponse<String> cancel(UUID id);
+    int executeDue();
+}
@@ -1,13 +1,24 @@
 package code.uz.bankcard.service;
 
+import code.uz.bankcard.dto.AppResponse;
+import code.uz.bankcard.dto.analytics.CardAnalyticsDTO;
+import code.uz.bankcard.dto.transaction.TransactionChangesDTO;
 import code.uz.bankcard.dto.transaction.TransactionCreateDTO;
 import code.uz.bankcard.dto.transaction.TransactionResponseDTO;
+import code.uz.bankcard.dto.transaction.TransferQuoteDTO;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 
+import java.time.YearMonth;
+import java.util.UUID;
+
 public interface TransactionService {
     TransactionResponseDTO transfer(@Valid TransactionCreateDTO dto);
     TransactionResponseDTO transferByAdmin(@Valid TransactionCreateDTO dto);
     Page<TransactionResponseDTO> getAllHistory(int page, int size);
+    TransactionChangesDTO getHistoryChanges(String since, int limit);
+    CardAnalyticsDTO getAnalytics(UUID cardId, YearMonth from, YearMonth to, int top);
     Page<TransactionResponseDTO> getAllTransactionsByAdmin(int page, int size);
+    TransferQuoteDTO quote(@Valid TransactionCreateDTO dto);
+    AppResponse<Integer> reloadFeeRules();
 }
@@ -0,0 +1,271 @@
+package code.uz.bankcard.stats;
+
+import code.uz.bankcard.dto.stats.AdminStatsDTO;
+import code.uz.bankcard.enums.CardStatus;
+import code.uz.bankcard.enums.GeneralStatus;
+import code.uz.bankcard.enums.TransactionStatus;
+import code.uz.bankcard.event.CardStatusCountEvent;
+import code.uz.bankcard.event.PgNotificationBus;
+import code.uz.bankcard.event.ProfileStatusCountEvent;
+import code.uz.bankcard.event.TransferRecordedEvent;
+import code.uz.bankcard.repository.AdminStatsRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory counts behind the admin dashboard: visible cards per {@link CardStatus}, visible profiles
+ * per {@link GeneralStatus} and the transfers of the current day.
+ * <p>
+ * The services publish an after-commit event for every change they count, so reading the dashboard
+ * never touches the database. Changes counted on this node are also gathered into one delta that
+ * {@code AdminStatsJob} sends to the other nodes over Postgres {@code NOTIFY} every {@code broadcast-interval}.
+ * </p>
+ * <p>
+ * Whatever changes rows without an event, or a notification lost on the way, makes the counts drift.
+ * They are rebuilt from the database when the application is ready, after the notification connection
+ * reconnects and every {@code rebuild-interval}.
+ * </p>
+ */
+@Slf4j
+@Component
+public class AdminStatsCounters implements PgNotificationBus.Listener {
+
+    public static final String CHANNEL = "admin_stats";
+
+    private final AdminStatsRepository statsRepository;
+    private final PgNotificationBus notificationBus;
+    private final ObjectMapper objectMapper;
+
+    private final Map<CardStatus, AtomicLong> cards = counters(CardStatus.class);
+    private final Map<GeneralStatus, AtomicLong> profiles = counters(GeneralStatus.class);
+    private final AtomicReference<DayStats> today = new AtomicReference<>(new DayStats(LocalDate.now()));
+    private volatile LocalDateTime rebuiltAt;
+
+    private final Object outboundLock = new Object();
+    // guarded by outboundLock
+    private Outbound outbound = new Outbound();
+
+    public AdminStatsCounters(AdminStatsRepository statsRepository,
+                              PgNotificationBus notificationBus,
+                              ObjectMapper objectMapper) {
+        this.statsRepository = statsRepository;
+        this.notificationBus = notificationBus;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        notificationBus.subscribe(CHANNEL, this);
+    }
+
+    /**
+     * Replace the counts with the ones read from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            Map<CardStatus, Long> cardCounts = statsRepository.countCardsByStatus();
+            Map<GeneralStatus, Long> profileCounts = statsRepository.countProfilesByStatus();
+            DayStats rebuilt = new DayStats(LocalDate.now());
+            for (AdminStatsRepository.TransferTotal total : statsRepository.sumTransfers(rebuilt.day)) {
+                rebuilt.add(total.status(), total.currency(), total.count(), total.amount());
+            }
+
+            cards.forEach((status, counter) -> counter.set(cardCounts.getOrDefault(status, 0L)));
+            profiles.forEach((status, counter) -> counter.set(profileCounts.getOrDefault(status, 0L)));
+            // transfers of a new day may have been counted while reading
+            today.accumulateAndGet(rebuilt, (current, next) -> current.day.isAfter(next.day) ? current : next);
+            rebuiltAt = LocalDateTime.now();
+        } catch (RuntimeException e) {
+            log.error("Could not rebuild the admin statistics, keeping the current counts", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardStatusCount(CardStatusCountEvent event) {
+        record(new Delta(moved(CardStatus.class, event.getFrom(), event.getTo(), event.getCount()), Map.of(), List.of()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileStatusCount(ProfileStatusCountEvent event) {
+        record(new Delta(Map.of(), moved(GeneralStatus.class, event.getFrom(), event.getTo(), 1), List.of()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTransferRecorded(TransferRecordedEvent event) {
+        record(new Delta(Map.of(), Map.of(),
+                List.of(new Transfers(event.getDay(), event.getStatus(), event.getCurrency(), 1, event.getAmount()))));
+    }
+
+    /**
+     * Send what this node counted since the last call to the other nodes.
+     */
+    public void broadcast() {
+        Outbound sent;
+        synchronized (outboundLock) {
+            if (outbound.isEmpty()) return;
+            sent = outbound;
+            outbound = new Outbound();
+        }
+        try {
+            String delta = objectMapper.writeValueAsString(sent.toDelta());
+            notificationBus.notify(CHANNEL, notificationBus.getNodeId() + ':' + delta);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // the other nodes catch up at their next rebuild
+            log.warn("Could not broadcast admin statistics: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onNotification(String payload) {
+        int separator = payload.indexOf(':');
+        if (separator < 0 || payload.startsWith(notificationBus.getNodeId())) return;
+        try {
+            apply(objectMapper.readValue(payload.substring(separator + 1), Delta.class));
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed admin statistics message: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onReconnect() {
+        // deltas of the other nodes may have been missed while disconnected
+        rebuild();
+    }
+
+    public AdminStatsDTO snapshot() {
+        DayStats stats = dayStats(LocalDate.now());
+        long succeeded = stats.succeeded.sum();
+        long failed = stats.failed.sum();
+        long flagged = stats.flagged.sum();
+        long total = succeeded + failed + flagged;
+        return new AdminStatsDTO(values(cards, CardStatus.class), values(profiles, GeneralStatus.class), stats.day,
+                succeeded, failed, flagged, total == 0 ? 0 : (double) failed / total,
+                new TreeMap<>(stats.volume), rebuiltAt);
+    }
+
+    private void record(Delta delta) {
+        apply(delta);
+        synchronized (outboundLock) {
+            outbound.add(delta);
+        }
+    }
+
+    private void apply(Delta delta) {
+        delta.cards().forEach((status, count) -> cards.get(status).addAndGet(count));
+        delta.profiles().forEach((status, count) -> profiles.get(status).addAndGet(count));
+        for (Transfers transfers : delta.transfers()) {
+            DayStats stats = dayStats(transfers.day());
+            // transfers of a day that is over no longer show
+            if (stats.day.equals(transfers.day()))
+                stats.add(transfers.status(), transfers.currency(), transfers.count(), transfers.amount());
+        }
+    }
+
+    /**
+     * Stats of the given day, or of a later day already started.
+     */
+    private DayStats dayStats(LocalDate day) {
+        return today.updateAndGet(current -> day.isAfter(current.day) ? new DayStats(day) : current);
+    }
+
+    private static <E extends Enum<E>> Map<E, AtomicLong> counters(Class<E> type) {
+        Map<E, AtomicLong> counters = new EnumMap<>(type);
+        for (E status : type.getEnumConstants()) counters.put(status, new AtomicLong());
+        return counters;
+    }
+
+    private static <E extends Enum<E>> Map<E, Long> values(Map<E, AtomicLong> counters, Class<E> type) {
+        Map<E, Long> values = new EnumMap<>(type);
+        counters.forEach((status, counter) -> values.put(status, counter.get()));
+        return values;
+    }
+
+    private static <E extends Enum<E>> Map<E, Long> moved(Class<E> type, E from, E to, long count) {
+        Map<E, Long> moved = new EnumMap<>(type);
+        if (from != null) moved.merge(from, -count, Long::sum);
+        if (to != null) moved.merge(to, count, Long::sum);
+        return moved;
+    }
+
+    /**
+     * Changes of the counts, as counted locally and as broadcast to the other nodes.
+     */
+    record Delta(Map<CardStatus, Long> cards, Map<GeneralStatus, Long> profiles, List<Transfers> transfers) {
+    }
+
+    record Transfers(LocalDate day, TransactionStatus status, String currency, long count, BigDecimal amount) {
+    }
+
+    private record TransferKey(LocalDate day, TransactionStatus status, String currency) {
+    }
+
+    private static final class DayStats {
+        private final LocalDate day;
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder flagged = new LongAdder();
+        private final Map<String, BigDecimal> volume = new ConcurrentHashMap<>();
+
+        private DayStats(LocalDate day) {
+            this.day = day;
+        }
+
+        private void add(TransactionStatus status, String currency, long count, BigDecimal amount) {
+            switch (status) {
+                case SUCCESS -> {
+                    succeeded.add(count);
+                    if (currency != null) volume.merge(currency, amount, BigDecimal::add);
+                }
+                case FAILED -> failed.add(count);
+                case FLAGGED -> flagged.add(count);
+            }
+        }
+    }
+
+    /**
+     * Local changes not broadcast yet, summed up so one message covers any number of them.
+     */
+    private static final class Outbound {
+        private final Map<CardStatus, Long> cards = new EnumMap<>(CardStatus.class);
+        private final Map<GeneralStatus, Long> profiles = new EnumMap<>(GeneralStatus.class);
+        private final Map<TransferKey, Transfers> transfers = new HashMap<>();
+
+        private void add(Delta delta) {
+            delta.cards().forEach((status, count) -> cards.merge(status, count, Long::sum));
+            delta.profiles().forEach((status, count) -> profiles.merge(status, count, Long::sum));
+            for (Transfers next : delta.transfers()) {
+                transfers.merge(new TransferKey(next.day(), next.status(), next.currency()), next,
+                        (sum, added) -> new Transfers(sum.day(), sum.status(), sum.currency(),
+                                sum.count() + added.count(), sum.amount().add(added.amount())));
+            }
+        }
+
+        private boolean isEmpty() {
+            return cards.isEmpty() && profiles.isEmpty() && transfers.isEmpty();
+        }
+
+        private Delta toDelta() {
+            return new Delta(cards, profiles, List.copyOf(transfers.values()));
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package code.uz.bankcard.stream;
+
+import code.uz.bankcard.cache.CardCacheEntry;
+import code.uz.bankcard.cache.CardCacheSynchronizer;
+import code.uz.bankcard.dto.card.CardUpdateDTO;
+import code.uz.bankcard.enums.CardStatus;
+import code.uz.bankcard.event.CardChangedEvent;
+import code.uz.bankcard.event.CardsInvalidatedEvent;
+import code.uz.bankcard.event.PgNotificationBus;
+import code.uz.bankcard.exception.NotFoundException;
+import code.uz.bankcard.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Pushes balance and status changes of cards to the open {@code /api/v1/card/stream} connections.
+ * <p>
+ * A stream is an {@link SseEmitter}: the request thread returns as soon as the stream is opened,
+ * so an idle subscriber holds no servlet thread, only its socket. Changes made on this node arrive
+ * as after-commit {@link CardChangedEvent}s, changes made on other nodes over the
+ * {@link CardCacheSynchronizer#CHANNEL} notifications. A status change is applied onto the last state
+ * sent for the card; after a balance change the card is read again, since the after-commit listeners
+ * of two transfers on one card may run in either order and the balance of the later event need not
+ * be the newer one. Only cards somebody is watching are tracked.
+ * </p>
+ * <p>
+ * Committing threads only record the change. Changes are coalesced per card and dispatched by a single
+ * thread after {@code coalesce}, so a burst of transfers on one card is one event.
+ * </p>
+ * <p>
+ * The dispatcher never writes to a socket. Every stream has its own queue, written in order on a pool of
+ * {@code send-threads}, so a client that stops reading only holds up its own stream. A stream whose write
+ * does not finish within {@code write-timeout}, or with more than two events per card waiting, is dropped;
+ * its client reconnects and gets a fresh snapshot.
+ * </p>
+ */
+@Slf4j
+@Component
+public class CardStreamHub implements PgNotificationBus.Listener {
+
+    static final String CARD_EVENT = "card";
+    static final String REMOVED_EVENT = "card-removed";
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(30);
+
+    private final PgNotificationBus notificationBus;
+    private final Duration timeout;
+    private final Duration heartbeat;
+    private final Duration coalesce;
+    private final Duration writeTimeout;
+    private final int maxPerProfile;
+    private final int maxSubscribers;
+    private final Counter pushed;
+    private final Counter dropped;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, Set<Subscription>> byCard = new ConcurrentHashMap<>();
+    private final Map<UUID, Deque<Subscription>> byProfile = new ConcurrentHashMap<>();
+    private final Map<UUID, CardCacheEntry> lastState = new ConcurrentHashMap<>();
+    private final Map<UUID, Change> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "card-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService senders;
+
+    public CardStreamHub(PgNotificationBus notificationBus,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.card-stream.timeout:30m}") Duration timeout,
+                         @Value("${app.card-stream.heartbeat:20s}") Duration heartbeat,
+                         @Value("${app.card-stream.coalesce:100ms}") Duration coalesce,
+                         @Value("${app.card-stream.write-timeout:10s}") Duration writeTimeout,
+                         @Value("${app.card-stream.send-threads:4}") int sendThreads,
+                         @Value("${app.card-stream.max-per-profile:5}") int maxPerProfile,
+                         @Value("${app.card-stream.max-subscribers:10000}") int maxSubscribers) {
+        this.notificationBus = notificationBus;
+        this.timeout = timeout;
+        this.heartbeat = heartbeat;
+        this.coalesce = coalesce;
+        this.writeTimeout = writeTimeout;
+        this.maxPerProfile = maxPerProfile;
+        this.maxSubscribers = maxSubscribers;
+        AtomicInteger senderCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(sendThreads, r -> {
+            Thread thread = new Thread(r, "card-stream-send-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pushed = Counter.builder("card.stream.pushed").description("Card events sent to streams").register(meterRegistry);
+        this.dropped = Counter.builder("card.stream.dropped").description("Streams closed for not keeping up").register(meterRegistry);
+        Gauge.builder("card.stream.subscribers", subscriptions, Set::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        notificationBus.subscribe(CardCacheSynchronizer.CHANNEL, this);
+        dispatcher.scheduleWithFixedDelay(this::sendHeartbeats, heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+        long check = Math.max(1, writeTimeout.toMillis() / 2);
+        dispatcher.scheduleWithFixedDelay(this::dropStuckWrites, check, check, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatcher.shutdownNow();
+        subscriptions.forEach(subscription -> {
+            unsubscribe(subscription);
+            close(subscription);
+        });
+        senders.shutdown();
+    }
+
+    /**
+     * Open a stream of the given cards. The current state of every card is sent first.
+     * <p>
+     * A profile keeps at most {@code max-per-profile} streams; opening one more closes its oldest.
+     * </p>
+     *
+     * @param cards  cards of the profile with their current state
+     * @param loader reads a card from the database; throws {@link NotFoundException} once it is gone
+     * @throws TooManyRequestsException if {@code max-subscribers} streams are already open on this node
+     */
+    public SseEmitter subscribe(UUID profileId, Map<UUID, CardCacheEntry> cards, Function<UUID, CardCacheEntry> loader) {
+        if (subscriptions.size() >= maxSubscribers)
+            throw new TooManyRequestsException("Too many open card streams, try again later", RETRY_AFTER);
+
+        SseEmitter emitter = createEmitter();
+        Subscription subscription = new Subscription(profileId, Set.copyOf(cards.keySet()), emitter, loader);
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unsubscribe(subscription));
+
+        subscriptions.add(subscription);
+        for (UUID cardId : cards.keySet()) {
+            byCard.compute(cardId, (id, watchers) -> {
+                if (watchers == null) watchers = ConcurrentHashMap.newKeySet();
+                watchers.add(subscription);
+                return watchers;
+            });
+        }
+        List<Subscription> evicted = new ArrayList<>();
+        byProfile.compute(profileId, (id, own) -> {
+            if (own == null) own = new ArrayDeque<>();
+            own.addLast(subscription);
+            while (own.size() > maxPerProfile) evicted.add(own.pollFirst());
+            return own;
+        });
+        evicted.forEach(oldest -> {
+            unsubscribe(oldest);
+            close(oldest);
+        });
+
+        // on the dispatcher, so a change recorded meanwhile is sent after the snapshot and not before it
+        dispatcher.execute(() -> {
+            for (var card : cards.entrySet()) {
+                CardCacheEntry state = lastState.computeIfAbsent(card.getKey(), id -> card.getValue());
+                if (!send(subscription, CARD_EVENT, toDto(card.getKey(), state))) return;
+            }
+        });
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardChanged(CardChangedEvent event) {
+        record(event.getCardId(), event.getBalance() != null ? Change.RELOAD : new Change(event.getStatus(), false));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardsInvalidated(CardsInvalidatedEvent event) {
+        reload(event.getCardIds());
+    }
+
+    @Override
+    public void onNotification(String payload) {
+        reload(CardCacheSynchronizer.changedCardIds(payload, notificationBus.getNodeId()));
+    }
+
+    @Override
+    public void onReconnect() {
+        // notifications may have been missed while disconnected
+        reload(List.copyOf(byCard.keySet()));
+    }
+
+    int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    CardCacheEntry lastState(UUID cardId) {
+        return lastState.get(cardId);
+    }
+
+    /**
+     * Wait until the dispatcher has run everything due by now and the open streams have written it.
+     */
+    void awaitDispatch() throws Exception {
+        dispatcher.schedule(() -> { }, coalesce.toMillis(), TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (subscriptions.stream().anyMatch(subscription -> subscription.writing.get())) {
+            if (System.nanoTime() > deadline) throw new TimeoutException("Card streams are still writing");
+            Thread.sleep(1);
+        }
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(timeout.toMillis());
+    }
+
+    private void reload(Collection<UUID> cardIds) {
+        for (UUID cardId : cardIds) record(cardId, Change.RELOAD);
+    }
+
+    private void record(UUID cardId, Change change) {
+        if (!byCard.containsKey(cardId)) return;
+        pending.merge(cardId, change, Change::then);
+        if (drainScheduled.compareAndSet(false, true))
+            dispatcher.schedule(this::drain, coalesce.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        try {
+            for (UUID cardId : pending.keySet()) {
+                Change change = pending.remove(cardId);
+                Set<Subscription> watchers = byCard.get(cardId);
+                if (change == null || watchers == null || watchers.isEmpty()) continue;
+                dispatch(cardId, change, watchers);
+            }
+        } catch (RuntimeException e) {
+            log.error("Card stream dispatch failed", e);
+        }
+    }
+
+    private void dispatch(UUID cardId, Change change, Set<Subscription> watchers) {
+        CardCacheEntry state = lastState.get(cardId);
+        if (change.reload() || state == null) {
+            try {
+                state = watchers.iterator().next().loader.apply(cardId);
+            } catch (NotFoundException e) {
+                watchers.forEach(subscription -> send(subscription, REMOVED_EVENT, cardId));
+                byCard.remove(cardId);
+                lastState.remove(cardId);
+                return;
+            } catch (RuntimeException e) {
+                // the next change of the card reads it again
+                lastState.remove(cardId);
+                log.warn("Could not reload card {} for its streams: {}", cardId, e.getMessage());
+                return;
+            }
+        } else if (change.status() != null) {
+            state = state.withStatus(change.status());
+        }
+        lastState.put(cardId, state);
+
+        CardUpdateDTO dto = toDto(cardId, state);
+        for (Subscription subscription : watchers) send(subscription, CARD_EVENT, dto);
+    }
+
+    private void sendHeartbeats() {
+        for (Subscription subscription : subscriptions) {
+            // a stream with writes waiting is not idle
+            if (subscription.queued.get() == 0) enqueue(subscription, new Write(SseEmitter.event().comment("ping"), false));
+        }
+    }
+
+    /**
+     * Drop streams whose current write has not finished within {@code write-timeout}: the client is not reading.
+     * The stuck sender is interrupted; the stream is completed by it once the write returns.
+     */
+    private void dropStuckWrites() {
+        long now = System.nanoTime();
+        for (Subscription subscription : subscriptions) {
+            long started = subscription.writeStarted;
+            if (started == 0 || now - started < writeTimeout.toNanos()) continue;
+            log.debug("Dropping card stream of profile {}: write did not finish within {}", subscription.profileId, writeTimeout);
+            drop(subscription);
+            Future<?> writer = subscription.writer;
+            if (writer != null) writer.cancel(true);
+        }
+    }
+
+    private boolean send(Subscription subscription, String name, Object data) {
+        return enqueue(subscription, new Write(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON), true));
+    }
+
+    private boolean enqueue(Subscription subscription, Write write) {
+        if (subscription.closed.get()) return false;
+        if (subscription.queued.incrementAndGet() > subscription.maxQueued) {
+            subscription.queued.decrementAndGet();
+            log.debug("Dropping card stream of profile {}: client does not keep up", subscription.profileId);
+            drop(subscription);
+            return false;
+        }
+        subscription.outbox.add(write);
+        flushLater(subscription);
+        return true;
+    }
+
+    /**
+     * Complete the stream after the writes already queued for it, on its sender, since completing
+     * waits for a write in progress.
+     */
+    private void close(Subscription subscription) {
+        subscription.outbox.add(Write.CLOSE);
+        flushLater(subscription);
+    }
+
+    private void drop(Subscription subscription) {
+        if (subscription.closed.get()) return;
+        dropped.increment();
+        unsubscribe(subscription);
+        close(subscription);
+    }
+
+    private void flushLater(Subscription subscription) {
+        if (!subscription.writing.compareAndSet(false, true)) return;
+        try {
+            subscription.writer = senders.submit(() -> flush(subscription));
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            subscription.writing.set(false);
+        }
+    }
+
+    /**
+     * Write the queued events of one stream in order. At most one flush of a stream runs at a time.
+     */
+    private void flush(Subscription subscription) {
+        Write write;
+        while ((write = subscription.outbox.poll()) != null) {
+            if (write == Write.CLOSE) {
+                subscription.emitter.complete();
+                continue;
+            }
+            subscription.queued.decrementAndGet();
+            if (subscription.closed.get()) continue;
+            subscription.writeStarted = System.nanoTime();
+            try {
+                subscription.emitter.send(write.event());
+                if (write.counted()) pushed.increment();
+            } catch (IOException | IllegalStateException e) {
+                // the client went away
+                unsubscribe(subscription);
+            } finally {
+                subscription.writeStarted = 0;
+            }
+        }
+        subscription.writing.set(false);
+        // an event queued after the last poll but before the flag was cleared
+        if (!subscription.outbox.isEmpty()) flushLater(subscription);
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        if (!subscription.closed.compareAndSet(false, true)) return;
+        subscriptions.remove(subscription);
+        byProfile.computeIfPresent(subscription.profileId, (id, own) -> {
+            own.remove(subscription);
+            return own.isEmpty() ? null : own;
+        });
+        for (UUID cardId : subscription.cardIds) {
+            Set<Subscription> left = byCard.computeIfPresent(cardId, (id, watchers) -> {
+                watchers.remove(subscription);
+                return watchers.isEmpty() ? null : watchers;
+            });
+            if (left == null) lastState.remove(cardId);
+        }
+    }
+
+    private static CardUpdateDTO toDto(UUID cardId, CardCacheEntry state) {
+        return new CardUpdateDTO(cardId, state.getMaskedNumber(), state.getBalance(), state.getCurrency(), state.getStatus());
+    }
+
+    /**
+     * Changes of one card not sent yet; a {@code null} status was not touched, {@code reload} reads the whole card.
+     */
+    private record Change(CardStatus status, boolean reload) {
+        static final Change RELOAD = new Change(null, true);
+
+        Change then(Change next) {
+            return new Change(next.status != null ? next.status : status, reload || next.reload);
+        }
+    }
+
+    /**
+     * One event waiting to be written; {@code counted} events are card events, the rest heartbeats.
+     */
+    private record Write(SseEmitter.SseEventBuilder event, boolean counted) {
+        static final Write CLOSE = new Write(null, false);
+    }
+
+    private static final class Subscription {
+        private final UUID profileId;
+        private final Set<UUID> cardIds;
+        private final SseEmitter emitter;
+        private final Function<UUID, CardCacheEntry> loader;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final Queue<Write> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean writing = new AtomicBoolean();
+        // two rounds of changes of every card
+        private final int maxQueued;
+        private volatile long writeStarted;
+        private volatile Future<?> writer;
+
+        private Subscription(UUID profileId, Set<UUID> cardIds, SseEmitter emitter, Function<UUID, CardCacheEntry> loader) {
+            this.profileId = profileId;
+            this.cardIds = cardIds;
+            this.emitter = emitter;
+            this.loader = loader;
+            this.maxQueued = 2 * cardIds.size() + 2;
+        }
+    }
+}
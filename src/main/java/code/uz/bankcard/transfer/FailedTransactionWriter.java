@@ -0,0 +1,201 @@
+package code.uz.bankcard.transfer;
+
+import code.uz.bankcard.enums.TransactionStatus;
+import code.uz.bankcard.event.TransferRecordedEvent;
+import code.uz.bankcard.money.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records FAILED transfer attempts without touching the caller's connection.
+ * <p>
+ * Attempts are put into a bounded in-memory queue and batch-inserted by one background thread,
+ * so a storm of insufficient-balance attempts costs one pooled connection per batch instead of a
+ * second connection per attempt. What happens when the queue is full is set by {@code overflow}.
+ * The queue is flushed on shutdown; records still queued when the process dies are lost.
+ * </p>
+ */
+@Slf4j
+@Component
+public class FailedTransactionWriter {
+
+    public enum OverflowPolicy {
+        /**
+         * Discard the new record.
+         */
+        DROP_NEWEST,
+        /**
+         * Discard the oldest queued record to make room.
+         */
+        DROP_OLDEST,
+        /**
+         * Wait up to {@code block-timeout} for room, then discard the new record.
+         */
+        BLOCK
+    }
+
+    record FailedAttempt(UUID fromCardId, UUID toCardId, Money amount, LocalDateTime sentDate) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BlockingQueue<FailedAttempt> queue;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final OverflowPolicy overflow;
+    private final Duration blockTimeout;
+    private final Counter written;
+    private final Counter dropped;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public FailedTransactionWriter(JdbcTemplate jdbcTemplate,
+                                   ApplicationEventPublisher eventPublisher,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.transfer.failed-writer.capacity:10000}") int capacity,
+                                   @Value("${app.transfer.failed-writer.batch-size:500}") int batchSize,
+                                   @Value("${app.transfer.failed-writer.flush-interval:200ms}") Duration flushInterval,
+                                   @Value("${app.transfer.failed-writer.overflow:DROP_OLDEST}") OverflowPolicy overflow,
+                                   @Value("${app.transfer.failed-writer.block-timeout:50ms}") Duration blockTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.overflow = overflow;
+        this.blockTimeout = blockTimeout;
+        this.written = Counter.builder("transfer.failed-writer.written").register(meterRegistry);
+        this.dropped = Counter.builder("transfer.failed-writer.dropped").register(meterRegistry);
+        Gauge.builder("transfer.failed-writer.queue", queue, BlockingQueue::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "failed-transaction-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Stop the background thread and write whatever is still queued.
+     */
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            flusher.join(flushInterval.toMillis() * 10);
+        }
+        List<FailedAttempt> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            if (!write(batch)) {
+                dropped.increment(batch.size() + queue.size());
+                log.error("Lost {} failed transaction records on shutdown", batch.size() + queue.size());
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Queue a FAILED record of a transfer attempt. Never waits for the database.
+     * The attempt is counted in the admin statistics once its record is written, whatever happens
+     * to the caller's transaction; a dropped record is not counted.
+     */
+    public void record(UUID fromCardId, UUID toCardId, Money amount) {
+        FailedAttempt attempt = new FailedAttempt(fromCardId, toCardId, amount, LocalDateTime.now());
+        if (queue.offer(attempt)) return;
+
+        switch (overflow) {
+            case DROP_NEWEST -> dropped.increment();
+            case DROP_OLDEST -> {
+                while (!queue.offer(attempt)) {
+                    if (queue.poll() != null) dropped.increment();
+                }
+            }
+            case BLOCK -> {
+                try {
+                    if (!queue.offer(attempt, blockTimeout.toMillis(), TimeUnit.MILLISECONDS)) dropped.increment();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.increment();
+                }
+            }
+        }
+    }
+
+    int queued() {
+        return queue.size();
+    }
+
+    private void flushLoop() {
+        List<FailedAttempt> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                if (batch.isEmpty()) {
+                    FailedAttempt first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                if (write(batch)) {
+                    batch.clear();
+                } else {
+                    // keep the batch and try again; the queue absorbs new records meanwhile
+                    Thread.sleep(flushInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        // hand an unwritten batch back so stop() can write it
+        for (FailedAttempt attempt : batch) {
+            if (!queue.offer(attempt)) dropped.increment();
+        }
+    }
+
+    boolean write(List<FailedAttempt> batch) {
+        try {
+            // the amount is in the source card's currency, copied by the insert itself
+            jdbcTemplate.batchUpdate("insert into transaction (from_card, to_card, amount, sent_date, status, visible, currency) " +
+                            "select ?, ?, ?, ?, ?, true, c.currency from card c where c.id = ?",
+                    batch, batch.size(), (ps, attempt) -> {
+                        ps.setObject(1, attempt.fromCardId());
+                        ps.setObject(2, attempt.toCardId());
+                        ps.setBigDecimal(3, attempt.amount().toBigDecimal());
+                        ps.setTimestamp(4, Timestamp.valueOf(attempt.sentDate()));
+                        ps.setString(5, TransactionStatus.FAILED.name());
+                        ps.setObject(6, attempt.fromCardId());
+                    });
+        } catch (RuntimeException e) {
+            log.warn("Could not write {} failed transaction records: {}", batch.size(), e.getMessage());
+            return false;
+        }
+        written.increment(batch.size());
+        for (FailedAttempt attempt : batch) {
+            eventPublisher.publishEvent(TransferRecordedEvent.failed(attempt.sentDate().toLocalDate()));
+        }
+        return true;
+    }
+}
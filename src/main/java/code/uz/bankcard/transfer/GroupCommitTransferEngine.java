@@ -0,0 +1,387 @@
+package code.uz.bankcard.transfer;
+
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.exception.NotFoundException;
+import code.uz.bankcard.money.Money;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Optional group-commit mode for transfers.
+ * <p>
+ * Callers hand their transfer in as a unit of work and wait. One writer thread collects the
+ * transfers that arrive within {@code max-wait} (at most {@code max-batch}) and runs them one after
+ * another in a single database transaction, so the whole batch pays for one commit.
+ * </p>
+ * <p>
+ * Balance changes are netted: a transfer hands them to {@link #net(CardEntity, Money)}, which applies them
+ * to the card loaded in the batch's persistence context, so later transfers check the running balance,
+ * but keeps the card out of every flush. At commit each card gets one relative update with the net of the
+ * batch, which fails the batch if the card was changed since it was loaded.
+ * </p>
+ * <p>
+ * Every transfer runs under a savepoint and its other rows are flushed before the savepoint is released.
+ * A transfer that throws, whatever it wrote by then, is rolled back to its savepoint: its balance changes
+ * are taken out of the net, the persistence context is cleared and reloaded with the netted cards, and the
+ * after-commit callbacks it registered are dropped, so it fails only its own caller.
+ * If the batch itself cannot commit, the transfers that were not rejected are retried one by one in
+ * transactions of their own; a rejected transfer keeps its rejection. Callers are answered only after the commit.
+ * </p>
+ */
+@Slf4j
+@Component
+public class GroupCommitTransferEngine {
+
+    private static final String SAVEPOINT = "group_commit_transfer";
+    private static final String NET_BALANCE =
+            "update card set balance = balance + ?, version = version + 1 where id = ? and version = ?";
+
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final Duration timeout;
+    private final BlockingQueue<PendingTransfer<?>> queue;
+    private final DistributionSummary batchSize;
+    // net balance changes of the batch run by the current thread
+    private final ThreadLocal<Netting> netting = new ThreadLocal<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public GroupCommitTransferEngine(TransactionTemplate transactionTemplate,
+                                     JdbcTemplate jdbcTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.transfer.group-commit.enabled:false}") boolean enabled,
+                                     @Value("${app.transfer.group-commit.max-batch:200}") int maxBatch,
+                                     @Value("${app.transfer.group-commit.max-wait:2ms}") Duration maxWait,
+                                     @Value("${app.transfer.group-commit.queue-capacity:10000}") int queueCapacity,
+                                     @Value("${app.transfer.group-commit.timeout:10s}") Duration timeout) {
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.timeout = timeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = DistributionSummary.builder("transfer.group-commit.batch.size").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the current thread runs a transfer of a batch; its balance changes then go to {@link #net(CardEntity, Money)}.
+     */
+    public boolean isBatching() {
+        return netting.get() != null;
+    }
+
+    /**
+     * Change the balance of a card loaded in the batch. The card shows the new balance right away,
+     * the row is written at commit together with the other changes of the card in the batch.
+     */
+    public void net(CardEntity card, Money delta) {
+        netting.get().add(card, delta, session());
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        running = true;
+        writer = new Thread(this::writeLoop, "transfer-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (writer != null) writer.interrupt();
+    }
+
+    /**
+     * Run a transfer in the next batch and wait until that batch has committed.
+     * Must not be called inside a transaction: the caller would hold a connection while waiting.
+     *
+     * @param work the transfer; runs on the writer thread inside the batch transaction
+     * @return result of the work
+     */
+    public <T> T submit(Supplier<T> work) {
+        PendingTransfer<T> pending = new PendingTransfer<>(work);
+        if (!queue.offer(pending))
+            throw new BadException("Too many transfers in progress, try again later");
+
+        try {
+            return pending.future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Transfer outcome unknown, check transaction history");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for transfer");
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingTransfer<?>> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatch) {
+                    PendingTransfer<?> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Group commit writer failed", e);
+                batch.forEach(p -> p.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        PendingTransfer<?> left;
+        while ((left = queue.poll()) != null) {
+            left.future.completeExceptionally(new IllegalStateException("Transfer engine stopped"));
+        }
+    }
+
+    void process(List<PendingTransfer<?>> batch) {
+        batchSize.record(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                entityManager.setFlushMode(FlushModeType.COMMIT);
+                Netting batchNetting = new Netting();
+                netting.set(batchNetting);
+                try {
+                    batch.forEach(pending -> runInSavepoint(pending, batchNetting));
+                    writeNet(batchNetting);
+                } finally {
+                    netting.remove();
+                }
+            });
+        } catch (RuntimeException e) {
+            List<PendingTransfer<?>> undecided = batch.stream().filter(pending -> !pending.isRejected()).toList();
+            if (batch.size() == 1) {
+                undecided.forEach(pending -> pending.fail(e));
+            } else {
+                log.warn("Group commit of {} transfers failed, retrying one by one: {}", batch.size(), e.getMessage());
+                for (PendingTransfer<?> pending : undecided) {
+                    try {
+                        // run() rethrows, so the template rolls back whatever a failed transfer wrote
+                        transactionTemplate.executeWithoutResult(status -> pending.run());
+                    } catch (RuntimeException single) {
+                        pending.fail(single);
+                    }
+                }
+            }
+        }
+        batch.forEach(PendingTransfer::complete);
+    }
+
+    /**
+     * Run one transfer of the batch; if it throws, undo everything it did and keep the rest of the batch.
+     * <p>
+     * JPA savepoints are not supported with Hibernate, so the savepoint is set on the transaction's
+     * connection. The transfer is flushed inside it, earlier transfers are flushed already, so
+     * clearing the persistence context after a rollback loses nothing of the others but their netted
+     * balances, which are put back on freshly loaded cards.
+     * </p>
+     */
+    private void runInSavepoint(PendingTransfer<?> pending, Netting batchNetting) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.isSynchronizationActive()
+                ? TransactionSynchronizationManager.getSynchronizations() : null;
+        jdbcTemplate.execute("savepoint " + SAVEPOINT);
+        try {
+            pending.run();
+            entityManager.flush();
+        } catch (RuntimeException e) {
+            jdbcTemplate.execute("rollback to savepoint " + SAVEPOINT);
+            batchNetting.rollback();
+            entityManager.clear();
+            batchNetting.reload(entityManager, session());
+            if (synchronizations != null) restore(synchronizations);
+            pending.fail(e);
+            return;
+        }
+        batchNetting.keep();
+        jdbcTemplate.execute("release savepoint " + SAVEPOINT);
+    }
+
+    /**
+     * Write the net balance change of every card of the batch with one statement each, sent as one JDBC batch.
+     *
+     * @throws ObjectOptimisticLockingFailureException if a card was changed since the batch loaded it
+     */
+    private void writeNet(Netting batchNetting) {
+        List<NetBalance> changed = batchNetting.cards.values().stream()
+                .filter(balance -> balance.net.signum() != 0)
+                .toList();
+        if (changed.isEmpty()) return;
+
+        List<Object[]> args = changed.stream()
+                .map(balance -> new Object[]{balance.net.toBigDecimal(), balance.card.getId(), balance.version})
+                .toList();
+        int[] updated = jdbcTemplate.batchUpdate(NET_BALANCE, args);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0)
+                throw new ObjectOptimisticLockingFailureException(CardEntity.class, changed.get(i).card.getId());
+        }
+    }
+
+    private Session session() {
+        return entityManager.unwrap(Session.class);
+    }
+
+    /**
+     * Drop the after-commit callbacks registered since {@code synchronizations} was taken,
+     * e.g. cache updates of a transfer that was rolled back to its savepoint.
+     */
+    private static void restore(List<TransactionSynchronization> synchronizations) {
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        synchronizations.forEach(TransactionSynchronizationManager::registerSynchronization);
+    }
+
+    /**
+     * Net balance change of one card in a batch, with the version the batch loaded the card at.
+     */
+    private static final class NetBalance {
+        private final long version;
+        private CardEntity card;
+        private Money net = Money.ZERO;
+
+        NetBalance(CardEntity card) {
+            this.card = card;
+            this.version = card.getVersion();
+        }
+    }
+
+    private record Change(UUID cardId, Money delta) {
+    }
+
+    /**
+     * Net balance changes of a batch and the changes of the transfer in progress, which are taken back if it fails.
+     */
+    private static final class Netting {
+        private final Map<UUID, NetBalance> cards = new LinkedHashMap<>();
+        private final List<Change> current = new ArrayList<>();
+
+        void add(CardEntity card, Money delta, Session session) {
+            NetBalance balance = cards.get(card.getId());
+            if (balance == null) {
+                // the row is written by writeNet only, never by a flush of the entity
+                session.setReadOnly(card, true);
+                balance = new NetBalance(card);
+                cards.put(card.getId(), balance);
+            }
+            card.setBalance(card.getBalance().plus(delta));
+            balance.net = balance.net.plus(delta);
+            current.add(new Change(card.getId(), delta));
+        }
+
+        void keep() {
+            current.clear();
+        }
+
+        void rollback() {
+            for (Change change : current) {
+                NetBalance balance = cards.get(change.cardId());
+                balance.net = balance.net.minus(change.delta());
+            }
+            current.clear();
+        }
+
+        /**
+         * Load the netted cards into a cleared persistence context and put their net back on them.
+         */
+        void reload(EntityManager entityManager, Session session) {
+            for (NetBalance balance : cards.values()) {
+                CardEntity card = entityManager.find(CardEntity.class, balance.card.getId());
+                session.setReadOnly(card, true);
+                card.setBalance(card.getBalance().plus(balance.net));
+                balance.card = card;
+            }
+        }
+    }
+
+    static class PendingTransfer<T> {
+        private final Supplier<T> work;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private RuntimeException error;
+
+        PendingTransfer(Supplier<T> work) {
+            this.work = work;
+        }
+
+        void run() {
+            result = null;
+            error = null;
+            result = work.get();
+        }
+
+        void fail(RuntimeException e) {
+            result = null;
+            error = e;
+        }
+
+        /**
+         * Whether the transfer was refused by a business rule. Such a refusal is final: its FAILED record,
+         * if any, is already written, so the transfer is not retried when the batch fails.
+         */
+        boolean isRejected() {
+            return error instanceof BadException || error instanceof NotFoundException;
+        }
+
+        CompletableFuture<T> future() {
+            return future;
+        }
+
+        void complete() {
+            if (error != null) future.completeExceptionally(error);
+            else future.complete(result);
+        }
+    }
+}
@@ -0,0 +1,541 @@
+package code.uz.bankcard.transfer;
+
+import code.uz.bankcard.analytics.SpendingAggregator;
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.entity.TransactionEntity;
+import code.uz.bankcard.enums.TransactionStatus;
+import code.uz.bankcard.event.CardChangedEvent;
+import code.uz.bankcard.event.CardsInvalidatedEvent;
+import code.uz.bankcard.event.TransferRecordedEvent;
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.outbox.TransferOutbox;
+import code.uz.bankcard.repository.CardJournalRepository;
+import code.uz.bankcard.repository.TransactionRepository;
+import code.uz.bankcard.service.LedgerService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Optional single-writer mode for hot cards (merchant and payroll accounts).
+ * <p>
+ * Debits of a configured hot card never lock its {@code card} row. They are queued in the ring
+ * buffer of the card's shard, and one thread per shard checks them against balances kept in
+ * memory as {@code long} cents. Accepted debits of a drain are written in one transaction: the
+ * transaction and ledger rows plus both movements in the {@code card_journal}. A fee is debited
+ * together with the amount and saved as its own transaction, its credit to the fee collection card
+ * is journaled as well. Credits to a hot card from the regular path are journaled the same way
+ * instead of updating the row.
+ * </p>
+ * <p>
+ * The journal is applied to {@code card.balance} behind the scenes by {@link #flushJournal()}, in
+ * id order and netted per card. Memory is reloaded as {@code card.balance} plus the pending journal
+ * rows: on startup after a crash, when this node takes ownership, and every {@code resync-interval}
+ * so credits written by other nodes become spendable. Between reloads memory can only be lower than
+ * the real balance, never higher.
+ * </p>
+ * <p>
+ * Only one node serves the hot cards, the one holding a session advisory lock. Every batch checks
+ * the lock owner in its own transaction under a shared fence lock, and a new owner waits for the
+ * fence before loading balances, so two nodes never spend the same balance. Other nodes reject
+ * debits of hot cards; such traffic has to be routed to the owner.
+ * </p>
+ */
+@Slf4j
+@Component
+public class HotCardSequencer {
+
+    static final int LOCK_CLASS = 0x486f74;
+    private static final String NOT_OWNER = "Card is served by another node, try again later";
+
+    private final CardJournalRepository journalRepository;
+    private final TransactionRepository transactionRepository;
+    private final FailedTransactionWriter failedTransactionWriter;
+    private final LedgerService ledgerService;
+    private final TransferOutbox transferOutbox;
+    private final SpendingAggregator spendingAggregator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final Set<UUID> hotCards;
+    private final Shard[] shards;
+    private final int maxBatch;
+    private final long resyncNanos;
+    private final int flushBatch;
+    private final Duration timeout;
+    private final DistributionSummary batchSize;
+
+    private volatile boolean running;
+    private volatile int ownerPid;
+    private Connection lockConnection;
+
+    public HotCardSequencer(CardJournalRepository journalRepository,
+                            TransactionRepository transactionRepository,
+                            FailedTransactionWriter failedTransactionWriter,
+                            LedgerService ledgerService,
+                            TransferOutbox transferOutbox,
+                            SpendingAggregator spendingAggregator,
+                            ApplicationEventPublisher eventPublisher,
+                            TransactionTemplate transactionTemplate,
+                            DataSource dataSource,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.transfer.hot-cards.enabled:false}") boolean enabled,
+                            @Value("${app.transfer.hot-cards.card-ids:}") String cardIds,
+                            @Value("${app.transfer.hot-cards.shards:4}") int shardCount,
+                            @Value("${app.transfer.hot-cards.ring-size:16384}") int ringSize,
+                            @Value("${app.transfer.hot-cards.max-batch:500}") int maxBatch,
+                            @Value("${app.transfer.hot-cards.resync-interval:100ms}") Duration resyncInterval,
+                            @Value("${app.transfer.hot-cards.flush-batch:5000}") int flushBatch,
+                            @Value("${app.transfer.hot-cards.timeout:10s}") Duration timeout) {
+        this.journalRepository = journalRepository;
+        this.transactionRepository = transactionRepository;
+        this.failedTransactionWriter = failedTransactionWriter;
+        this.ledgerService = ledgerService;
+        this.transferOutbox = transferOutbox;
+        this.spendingAggregator = spendingAggregator;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.resyncNanos = resyncInterval.toNanos();
+        this.flushBatch = flushBatch;
+        this.timeout = timeout;
+
+        Set<UUID> ids = new LinkedHashSet<>();
+        for (String id : cardIds.split(",")) {
+            if (!id.isBlank()) ids.add(UUID.fromString(id.trim()));
+        }
+        this.hotCards = Set.copyOf(ids);
+
+        List<List<UUID>> byShard = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) byShard.add(new ArrayList<>());
+        ids.forEach(id -> byShard.get(Math.floorMod(id.hashCode(), shardCount)).add(id));
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) shards[i] = new Shard(byShard.get(i), ringSize);
+
+        this.batchSize = DistributionSummary.builder("transfer.hot-cards.batch.size").register(meterRegistry);
+        Gauge.builder("transfer.hot-cards.queue", this, s -> Arrays.stream(s.shards).mapToInt(shard -> shard.ring.size()).sum())
+                .register(meterRegistry);
+    }
+
+    public boolean isHot(UUID cardId) {
+        return enabled && hotCards.contains(cardId);
+    }
+
+    /**
+     * Replay the journal left by a previous run, then start the shard writers and try to take ownership.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        int cards = 0;
+        int flushed;
+        while ((flushed = flushJournal()) > 0) cards += flushed;
+        log.info("Hot card journal replayed, {} card balance updates", cards);
+
+        running = true;
+        for (int i = 0; i < shards.length; i++) {
+            Thread writer = new Thread(shards[i], "hot-card-sequencer-" + i);
+            writer.setDaemon(true);
+            shards[i].writer = writer;
+            writer.start();
+        }
+        maintainOwnership();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        for (Shard shard : shards) {
+            if (shard.writer != null) shard.writer.interrupt();
+        }
+        releaseOwnership();
+    }
+
+    /**
+     * Debit a hot card through its shard and wait until the debit is committed.
+     * Must not be called inside a transaction: the caller would hold a connection while waiting.
+     *
+     * @param fromCard validated hot source card
+     * @param toCard   validated destination card, hot or not
+     * @param feeCard  validated fee collection card, {@code null} for a free transfer
+     * @param fee      fee debited on top of the amount and credited to {@code feeCard}
+     * @return the saved SUCCESS transaction
+     * @throws BadException if the balance is insufficient, the queue is full, another node owns the card
+     *                      or the cards are in different currencies
+     */
+    public TransactionEntity transfer(CardEntity fromCard, CardEntity toCard, Money amount, CardEntity feeCard, Money fee) {
+        if (ownerPid == 0) throw new BadException(NOT_OWNER);
+        // the shard writer credits the recipient with the debited amount, it does not convert
+        if (!fromCard.getCurrency().equals(toCard.getCurrency()))
+            throw new BadException("Cross-currency transfers are not supported for this card");
+
+        HotTransfer transfer = new HotTransfer(fromCard, toCard, amount, feeCard, fee);
+        if (!shardOf(fromCard.getId()).ring.offer(transfer))
+            throw new BadException("Too many transfers in progress, try again later");
+
+        try {
+            return transfer.future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Transfer outcome unknown, check transaction history");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for transfer");
+        }
+    }
+
+    /**
+     * Journal the credit of a saved transfer to a hot card instead of updating its row.
+     * Joins the caller's transaction; the shard picks the credit up on its next reload.
+     */
+    public void journalCredit(TransactionEntity transaction) {
+        journalRepository.append(List.of(new CardJournalRepository.Entry(
+                transaction.getToCardId().getId(), transaction.getId(), transaction.getCreditedAmount())));
+    }
+
+    /**
+     * Apply the oldest chunk of the journal to the card table.
+     *
+     * @return number of cards whose balance was updated, 0 once the journal is empty
+     */
+    public int flushJournal() {
+        List<UUID> changed = transactionTemplate.execute(status -> {
+            List<UUID> ids = journalRepository.applyOldest(flushBatch);
+            if (!ids.isEmpty()) eventPublisher.publishEvent(new CardsInvalidatedEvent(ids));
+            return ids;
+        });
+        return changed == null ? 0 : changed.size();
+    }
+
+    /**
+     * Take the sequencer lock if nobody holds it, or drop ownership if its connection died.
+     */
+    public synchronized void maintainOwnership() {
+        if (!running) return;
+        try {
+            if (lockConnection != null) {
+                if (lockConnection.isValid(2)) return;
+                log.warn("Hot card sequencer lock connection lost");
+                releaseOwnership();
+            }
+            Connection connection = dataSource.getConnection();
+            int pid = tryLock(connection);
+            if (pid == 0) {
+                connection.close();
+                return;
+            }
+            lockConnection = connection;
+            for (Shard shard : shards) shard.ready = false;
+            ownerPid = pid;
+            log.info("Hot card sequencer owned by this node, {} cards in {} shards", hotCards.size(), shards.length);
+        } catch (SQLException e) {
+            log.warn("Hot card sequencer lock check failed: {}", e.getMessage());
+            releaseOwnership();
+        }
+    }
+
+    boolean isOwner() {
+        return ownerPid != 0;
+    }
+
+    Shard shardOf(UUID cardId) {
+        return shards[Math.floorMod(cardId.hashCode(), shards.length)];
+    }
+
+    /**
+     * @return backend pid of the lock session, or 0 if another node owns the sequencer
+     */
+    private int tryLock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            int pid;
+            try (ResultSet rs = statement.executeQuery("select pg_try_advisory_lock(" + LOCK_CLASS + ", 1), pg_backend_pid()")) {
+                rs.next();
+                if (!rs.getBoolean(1)) return 0;
+                pid = rs.getInt(2);
+            }
+            // wait out batches of a previous owner that passed their ownership check before it lost the lock
+            statement.execute("select pg_advisory_lock(" + LOCK_CLASS + ", 2)");
+            statement.execute("select pg_advisory_unlock(" + LOCK_CLASS + ", 2)");
+            return pid;
+        }
+    }
+
+    private synchronized void releaseOwnership() {
+        ownerPid = 0;
+        for (Shard shard : shards) shard.ready = false;
+        if (lockConnection == null) return;
+        try (Connection connection = lockConnection; Statement statement = connection.createStatement()) {
+            // pooled connections keep session locks, release before handing it back
+            statement.execute("select pg_advisory_unlock_all()");
+        } catch (SQLException e) {
+            log.debug("Could not release hot card sequencer lock: {}", e.getMessage());
+        }
+        lockConnection = null;
+    }
+
+    /**
+     * Balances of the hot cards of one shard and the writer that owns them.
+     */
+    final class Shard implements Runnable {
+        final RingBuffer<HotTransfer> ring;
+        private final UUID[] cardIds;
+        private final long[] balances;
+        private final Map<UUID, Integer> slots = new HashMap<>();
+        volatile boolean ready;
+        private long loadedAt;
+        private Thread writer;
+
+        Shard(List<UUID> cardIds, int ringSize) {
+            this.ring = new RingBuffer<>(ringSize);
+            this.cardIds = cardIds.toArray(new UUID[0]);
+            this.balances = new long[this.cardIds.length];
+            for (int i = 0; i < this.cardIds.length; i++) slots.put(this.cardIds[i], i);
+        }
+
+        @Override
+        public void run() {
+            List<HotTransfer> batch = new ArrayList<>(maxBatch);
+            while (running) {
+                try {
+                    if (!ready) {
+                        if (ownerPid == 0) {
+                            ring.drainTo(batch, ring.capacity());
+                            batch.forEach(t -> t.abort(new BadException(NOT_OWNER)));
+                            ring.await(resyncNanos, TimeUnit.NANOSECONDS);
+                            continue;
+                        }
+                        reload();
+                        ready = true;
+                    }
+                    if (ring.drainTo(batch, maxBatch) > 0) process(batch);
+                    else ring.await(resyncNanos - (System.nanoTime() - loadedAt), TimeUnit.NANOSECONDS);
+                    if (System.nanoTime() - loadedAt >= resyncNanos) reload();
+                } catch (Exception e) {
+                    log.error("Hot card sequencer shard failed", e);
+                    ready = false;
+                    batch.forEach(t -> t.abort(e instanceof RuntimeException runtime ? runtime : new IllegalStateException(e)));
+                    ring.await(resyncNanos, TimeUnit.NANOSECONDS);
+                } finally {
+                    batch.clear();
+                }
+            }
+            ring.drainTo(batch, ring.capacity());
+            batch.forEach(t -> t.abort(new IllegalStateException("Transfer engine stopped")));
+        }
+
+        /**
+         * Replace memory with {@code card.balance} plus pending journal rows. Own batches are committed at this point.
+         */
+        void reload() {
+            Map<UUID, Long> loaded = journalRepository.loadBalances(Arrays.asList(cardIds));
+            for (int i = 0; i < cardIds.length; i++) balances[i] = loaded.getOrDefault(cardIds[i], 0L);
+            loadedAt = System.nanoTime();
+        }
+
+        void process(List<HotTransfer> batch) {
+            batchSize.record(batch.size());
+            List<HotTransfer> accepted = new ArrayList<>(batch.size());
+            List<HotTransfer> rejected = new ArrayList<>();
+            for (HotTransfer transfer : batch) {
+                if (reserve(transfer)) accepted.add(transfer);
+                else rejected.add(transfer);
+            }
+
+            if (!accepted.isEmpty() && !persist(accepted)) {
+                if (accepted.size() > 1) {
+                    log.warn("Hot card batch of {} transfers failed, retrying one by one", accepted.size());
+                    for (HotTransfer transfer : accepted) {
+                        if (!persist(List.of(transfer))) release(transfer);
+                    }
+                } else {
+                    release(accepted.get(0));
+                }
+            }
+
+            for (HotTransfer transfer : rejected) {
+                failedTransactionWriter.record(transfer.fromCard.getId(), transfer.toCard.getId(), transfer.amount);
+                transfer.fail(new BadException("Insufficient balance"));
+            }
+
+            Set<Integer> touched = new LinkedHashSet<>();
+            for (HotTransfer transfer : accepted) {
+                if (transfer.error != null) continue;
+                touched.add(slots.get(transfer.fromCard.getId()));
+                Integer to = slots.get(transfer.toCard.getId());
+                if (to != null) touched.add(to);
+                Integer feeTo = transfer.feeCard == null ? null : slots.get(transfer.feeCard.getId());
+                if (feeTo != null) touched.add(feeTo);
+            }
+            for (int slot : touched) {
+                eventPublisher.publishEvent(CardChangedEvent.balance(cardIds[slot], BigDecimal.valueOf(balances[slot], 2)));
+            }
+            batch.forEach(HotTransfer::complete);
+        }
+
+        long balance(UUID cardId) {
+            return balances[slots.get(cardId)];
+        }
+
+        private boolean reserve(HotTransfer transfer) {
+            int from = slots.get(transfer.fromCard.getId());
+            if (balances[from] < transfer.cents + transfer.feeCents) return false;
+            move(transfer, 1);
+            return true;
+        }
+
+        private void release(HotTransfer transfer) {
+            move(transfer, -1);
+        }
+
+        /**
+         * Apply the movements of a transfer to the balances in memory, {@code sign} -1 takes them back.
+         */
+        private void move(HotTransfer transfer, int sign) {
+            balances[slots.get(transfer.fromCard.getId())] -= sign * (transfer.cents + transfer.feeCents);
+            Integer to = slots.get(transfer.toCard.getId());
+            if (to != null) balances[to] += sign * transfer.cents;
+            Integer feeTo = transfer.feeCard == null ? null : slots.get(transfer.feeCard.getId());
+            if (feeTo != null) balances[feeTo] += sign * transfer.feeCents;
+        }
+
+        private boolean persist(List<HotTransfer> transfers) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!journalRepository.isSequencerOwner(LOCK_CLASS, ownerPid))
+                        throw new BadException(NOT_OWNER);
+
+                    List<CardJournalRepository.Entry> entries = new ArrayList<>(transfers.size() * 2);
+                    List<TransactionEntity> saved = new ArrayList<>(transfers.size());
+                    for (HotTransfer transfer : transfers) {
+                        TransactionEntity entity = transfer.newTransaction();
+                        journal(entity, entries, saved);
+                        if (transfer.feeCard != null) journal(transfer.newFeeTransaction(entity.getId()), entries, saved);
+                        transfer.result = entity;
+                    }
+                    journalRepository.append(entries);
+                    transferOutbox.append(saved);
+                    spendingAggregator.record(saved);
+                    saved.stream()
+                            .filter(entity -> entity.getFeeFor() == null)
+                            .forEach(entity -> eventPublisher.publishEvent(TransferRecordedEvent.of(entity)));
+                });
+                transfers.forEach(t -> t.error = null);
+                return true;
+            } catch (RuntimeException e) {
+                transfers.forEach(t -> t.fail(e));
+                return false;
+            }
+        }
+
+        /**
+         * Save a transaction with its ledger entries and add both of its movements to the journal.
+         */
+        private void journal(TransactionEntity entity, List<CardJournalRepository.Entry> entries, List<TransactionEntity> saved) {
+            transactionRepository.save(entity);
+            ledgerService.recordTransfer(entity);
+            saved.add(entity);
+            entries.add(new CardJournalRepository.Entry(entity.getFromCardId().getId(), entity.getId(), entity.getAmount().negate()));
+            entries.add(new CardJournalRepository.Entry(entity.getToCardId().getId(), entity.getId(), entity.getAmount()));
+        }
+    }
+
+    static final class HotTransfer {
+        private final CardEntity fromCard;
+        private final CardEntity toCard;
+        private final Money amount;
+        private final long cents;
+        private final CardEntity feeCard;
+        private final Money fee;
+        private final long feeCents;
+        private final CompletableFuture<TransactionEntity> future = new CompletableFuture<>();
+        private TransactionEntity result;
+        private RuntimeException error;
+
+        HotTransfer(CardEntity fromCard, CardEntity toCard, Money amount, CardEntity feeCard, Money fee) {
+            this.fromCard = fromCard;
+            this.toCard = toCard;
+            this.amount = amount;
+            this.cents = amount.minorUnits();
+            this.feeCard = feeCard;
+            this.fee = feeCard == null ? Money.ZERO : fee;
+            this.feeCents = this.fee.minorUnits();
+        }
+
+        CompletableFuture<TransactionEntity> future() {
+            return future;
+        }
+
+        TransactionEntity newTransaction() {
+            TransactionEntity entity = new TransactionEntity();
+            entity.setFromCardId(fromCard);
+            entity.setToCardId(toCard);
+            entity.setAmount(amount);
+            entity.setCurrency(fromCard.getCurrency());
+            entity.setStatus(TransactionStatus.SUCCESS);
+            entity.setSentDate(LocalDateTime.now());
+            return entity;
+        }
+
+        TransactionEntity newFeeTransaction(Integer feeFor) {
+            TransactionEntity entity = new TransactionEntity();
+            entity.setFromCardId(fromCard);
+            entity.setToCardId(feeCard);
+            entity.setAmount(fee);
+            entity.setCurrency(fromCard.getCurrency());
+            entity.setStatus(TransactionStatus.SUCCESS);
+            entity.setSentDate(LocalDateTime.now());
+            entity.setFeeFor(feeFor);
+            return entity;
+        }
+
+        void fail(RuntimeException e) {
+            result = null;
+            error = e;
+        }
+
+        void complete() {
+            if (error != null) future.completeExceptionally(error);
+            else future.complete(result);
+        }
+
+        void abort(RuntimeException e) {
+            fail(e);
+            complete();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package code.uz.bankcard.transfer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded multi-producer, single-consumer ring buffer.
+ * <p>
+ * Producers claim a sequence with one CAS and publish the element into its slot; the consumer
+ * takes elements strictly in sequence order and stops at the first claimed but unpublished slot.
+ * Capacity is rounded up to a power of two.
+ * </p>
+ */
+public class RingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private volatile Thread consumer;
+
+    public RingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Add an element unless the buffer is full. Wakes the consumer if it is parked.
+     */
+    public boolean offer(E element) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head > mask) return false;
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        slots.set((int) (sequence & mask), element);
+        Thread waiting = consumer;
+        if (waiting != null) LockSupport.unpark(waiting);
+        return true;
+    }
+
+    /**
+     * Move up to {@code max} elements into {@code target}. Consumer thread only.
+     *
+     * @return number of elements moved
+     */
+    public int drainTo(List<E> target, int max) {
+        long sequence = head;
+        int count = 0;
+        while (count < max) {
+            int index = (int) (sequence & mask);
+            E element = slots.get(index);
+            if (element == null) break;
+            slots.lazySet(index, null);
+            target.add(element);
+            sequence++;
+            count++;
+        }
+        head = sequence;
+        return count;
+    }
+
+    /**
+     * Park the consumer until a producer publishes or the timeout elapses. Consumer thread only.
+     */
+    public void await(long timeout, TimeUnit unit) {
+        consumer = Thread.currentThread();
+        if (slots.get((int) (head & mask)) == null) LockSupport.parkNanos(this, unit.toNanos(timeout));
+        consumer = null;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
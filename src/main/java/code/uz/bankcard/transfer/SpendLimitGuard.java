@@ -0,0 +1,166 @@
+package code.uz.bankcard.transfer;
+
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.repository.CardSpendCounterRepository;
+import code.uz.bankcard.repository.CardSpendCounterRepository.Spent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Enforces the daily and monthly outbound limits of cards.
+ * <p>
+ * The authoritative totals are the {@code card_spend_counter} rows, raised by a conditional upsert in
+ * the transfer's transaction, so they commit or roll back with the debit. In front of them this node
+ * remembers the totals it last committed. Within a period totals only grow, so a remembered total that
+ * already leaves no room rejects the transfer without touching the database.
+ * </p>
+ */
+@Component
+public class SpendLimitGuard {
+
+    record Totals(LocalDate day, Money daySpent, LocalDate month, Money monthSpent) {
+        Money spentToday(LocalDate today) {
+            return today.equals(day) ? daySpent : Money.ZERO;
+        }
+
+        Money spentThisMonth(LocalDate thisMonth) {
+            return thisMonth.equals(month) ? monthSpent : Money.ZERO;
+        }
+    }
+
+    private final CardSpendCounterRepository counterRepository;
+    private final Cache<UUID, Totals> totals;
+
+    public SpendLimitGuard(CardSpendCounterRepository counterRepository,
+                           @Value("${app.spend-limit.cache.max-size:100000}") long maxSize,
+                           @Value("${app.spend-limit.cache.ttl:10m}") Duration ttl) {
+        this.counterRepository = counterRepository;
+        this.totals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public boolean isLimited(CardEntity card) {
+        return card.getDailyLimit() != null || card.getMonthlyLimit() != null;
+    }
+
+    /**
+     * Check and count an outbound transfer, see {@link #precheck(CardEntity, Money)} and {@link #count(CardEntity, Money)}.
+     *
+     * @throws BadException if the transfer would exceed the daily or monthly limit
+     */
+    public void consume(CardEntity card, Money amount) {
+        precheck(card, amount);
+        count(card, amount);
+    }
+
+    /**
+     * Reject a transfer the remembered totals of its source card already leave no room for, without touching
+     * the database. Runs before the balance check, so such a transfer does not lock the card row.
+     *
+     * @throws BadException if the transfer would exceed the daily or monthly limit
+     */
+    public void precheck(CardEntity card, Money amount) {
+        if (!isLimited(card)) return;
+
+        LocalDate today = LocalDate.now();
+        Totals seen = totals.getIfPresent(card.getId());
+        check(card, amount,
+                seen == null ? Money.ZERO : seen.spentToday(today),
+                seen == null ? Money.ZERO : seen.spentThisMonth(today.withDayOfMonth(1)));
+    }
+
+    /**
+     * Count an outbound transfer against the limits of its source card. Cards without limits are not counted.
+     * Must run in the transaction that debits the card, after the balance check and before the card row is written.
+     *
+     * @throws BadException if the counters, which include other nodes' transfers, leave no room for the transfer
+     */
+    public void count(CardEntity card, Money amount) {
+        if (!isLimited(card)) return;
+
+        LocalDate today = LocalDate.now();
+        LocalDate thisMonth = today.withDayOfMonth(1);
+        List<Spent> updated = counterRepository.add(card.getId(), today, thisMonth, amount, card.getDailyLimit(), card.getMonthlyLimit());
+        Money daySpent = find(updated, CardSpendCounterRepository.DAY);
+        Money monthSpent = find(updated, CardSpendCounterRepository.MONTH);
+        // counters already raised by this statement are rolled back with the transfer,
+        // to its own savepoint when it runs in a group-commit batch
+        if (daySpent == null) throw new BadException("Daily spending limit exceeded");
+        if (monthSpent == null) throw new BadException("Monthly spending limit exceeded");
+
+        remember(card.getId(), new Totals(today, daySpent, thisMonth, monthSpent));
+    }
+
+    /**
+     * Take back a transfer that was counted in a transaction of its own but then rejected.
+     */
+    public void release(CardEntity card, Money amount, LocalDate day) {
+        if (!isLimited(card)) return;
+
+        counterRepository.subtract(card.getId(), day, day.withDayOfMonth(1), amount);
+        totals.invalidate(card.getId());
+    }
+
+    /**
+     * Count the current periods of a card from its transactions, after its limits were changed.
+     */
+    public void reset(UUID cardId) {
+        LocalDate today = LocalDate.now();
+        counterRepository.seed(cardId, today, today.withDayOfMonth(1));
+        totals.invalidate(cardId);
+    }
+
+    /**
+     * Delete counters of past days and months.
+     */
+    public int purgePast() {
+        LocalDate today = LocalDate.now();
+        return counterRepository.deletePast(today, today.withDayOfMonth(1));
+    }
+
+    private static void check(CardEntity card, Money amount, Money spentToday, Money spentThisMonth) {
+        if (card.getDailyLimit() != null && card.getDailyLimit().isLessThan(spentToday.plus(amount)))
+            throw new BadException("Daily spending limit exceeded");
+        if (card.getMonthlyLimit() != null && card.getMonthlyLimit().isLessThan(spentThisMonth.plus(amount)))
+            throw new BadException("Monthly spending limit exceeded");
+    }
+
+    private static Money find(List<Spent> updated, String period) {
+        for (Spent spent : updated) {
+            if (spent.period().equals(period)) return spent.amount();
+        }
+        return null;
+    }
+
+    /**
+     * Remember committed totals only; a rolled back transfer must not count.
+     */
+    private void remember(UUID cardId, Totals committed) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            totals.put(cardId, committed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // concurrent transfers commit in any order; keep the larger totals of the same period
+                totals.asMap().merge(cardId, committed, (current, next) ->
+                        current.day().equals(next.day()) && current.month().equals(next.month())
+                                && next.daySpent().isLessThan(current.daySpent()) ? current : next);
+            }
+        });
+    }
+}
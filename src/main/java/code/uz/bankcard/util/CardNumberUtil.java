@@ -0,0 +1,61 @@
+package code.uz.bankcard.util;
+
+import java.util.Random;
+
+/**
+ * Card number (PAN) helpers based on the Luhn mod-10 checksum.
+ */
+public class CardNumberUtil {
+    public static final int CARD_NUMBER_LENGTH = 16;
+
+    /**
+     * Generate a random Luhn-valid 16-digit card number starting with the given BIN.
+     */
+    public static String generate(String bin, Random random) {
+        char[] digits = new char[CARD_NUMBER_LENGTH];
+        bin.getChars(0, bin.length(), digits, 0);
+        for (int i = bin.length(); i < CARD_NUMBER_LENGTH - 1; i++) {
+            digits[i] = (char) ('0' + random.nextInt(10));
+        }
+        digits[CARD_NUMBER_LENGTH - 1] = (char) ('0' + checkDigit(digits, CARD_NUMBER_LENGTH - 1));
+        return new String(digits);
+    }
+
+    /**
+     * Mask card number for display, keeping only the last four digits.
+     */
+    public static String mask(String cardNumber) {
+        if (cardNumber == null || cardNumber.length() < 4) return "****";
+        return "**** **** **** " + cardNumber.substring(cardNumber.length() - 4);
+    }
+
+    /**
+     * Check that the number consists of digits only and has a valid Luhn checksum.
+     */
+    public static boolean isValid(String cardNumber) {
+        if (cardNumber == null || cardNumber.length() < 2) return false;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            if (!Character.isDigit(cardNumber.charAt(i))) return false;
+        }
+        char[] digits = cardNumber.toCharArray();
+        return checkDigit(digits, digits.length - 1) == digits[digits.length - 1] - '0';
+    }
+
+    /**
+     * Compute the Luhn check digit for the first {@code length} digits.
+     */
+    private static int checkDigit(char[] digits, int length) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = length - 1; i >= 0; i--) {
+            int digit = digits[i] - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) digit -= 9;
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
@@ -0,0 +1,45 @@
+package code.uz.bankcard.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generator of time-ordered UUIDv7 values (RFC 9562).
+ * <p>
+ * Layout: 48-bit Unix epoch milliseconds, version 7, 12-bit sequence, variant, 62 random bits.
+ * The sequence makes ids generated by this JVM strictly increasing, even within one millisecond,
+ * so new rows are appended to the right edge of the primary-key index.
+ * </p>
+ */
+public class UuidV7 {
+    private static final SecureRandom RANDOM = new SecureRandom();
+    /**
+     * Last issued {@code (millis << 12) | sequence}.
+     */
+    private static final AtomicLong LAST = new AtomicLong();
+
+    public static UUID next() {
+        long now = System.currentTimeMillis() << 12;
+        long state;
+        long next;
+        do {
+            state = LAST.get();
+            // sequence overflow simply moves into the next millisecond
+            next = Math.max(now, state + 1);
+        } while (!LAST.compareAndSet(state, next));
+
+        long millis = next >>> 12;
+        long sequence = next & 0xfffL;
+        long msb = (millis << 16) | 0x7000L | sequence;
+        long lsb = (RANDOM.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Milliseconds since the Unix epoch encoded in a UUIDv7.
+     */
+    public static long timestamp(UUID uuid) {
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+}
@@ -0,0 +1,50 @@
+package code.uz.bankcard.analytics;
+
+import code.uz.bankcard.repository.CardMonthlyAggregateRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CardAggregateBackfillTest {
+
+    private final CardMonthlyAggregateRepository aggregateRepository = mock(CardMonthlyAggregateRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    @Test
+    void run_WorkersAddEveryRangeOnce() throws Exception {
+        ConcurrentLinkedQueue<int[]> pending = new ConcurrentLinkedQueue<>();
+        IntStream.range(0, 20).forEach(i -> pending.add(new int[]{i * 100, i * 100 + 100}));
+        Set<Integer> added = ConcurrentHashMap.newKeySet();
+
+        when(aggregateRepository.hasPendingBackfill()).thenReturn(true);
+        when(aggregateRepository.lockPendingBackfill()).thenAnswer(i -> pending.poll());
+        doAnswer(i -> {
+            assertTrue(added.add(i.getArgument(0)));
+            return null;
+        }).when(aggregateRepository).backfill(anyInt(), anyInt());
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        int done = new CardAggregateBackfill(aggregateRepository, transactionTemplate, 4).run();
+
+        assertEquals(20, done);
+        assertEquals(20, added.size());
+    }
+
+    @Test
+    void run_NothingPendingStartsNoWorkers() throws Exception {
+        when(aggregateRepository.hasPendingBackfill()).thenReturn(false);
+
+        assertEquals(0, new CardAggregateBackfill(aggregateRepository, transactionTemplate, 4).run());
+        verifyNoInteractions(transactionTemplate);
+    }
+}
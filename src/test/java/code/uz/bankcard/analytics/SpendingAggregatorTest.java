@@ -0,0 +1,70 @@
+package code.uz.bankcard.analytics;
+
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.entity.TransactionEntity;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.repository.CardMonthlyAggregateRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SpendingAggregatorTest {
+
+    private final CardMonthlyAggregateRepository aggregateRepository = mock(CardMonthlyAggregateRepository.class);
+    private final SpendingAggregator aggregator = new SpendingAggregator(aggregateRepository);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void record_MergesRowsAndSortsThemLikePostgres() {
+        // the high bit set: after the other card in Postgres, before it for UUID.compareTo
+        CardEntity high = card(UUID.fromString("f0000000-0000-0000-0000-000000000000"));
+        CardEntity low = card(UUID.fromString("10000000-0000-0000-0000-000000000000"));
+        LocalDateTime sent = LocalDateTime.of(2026, 10, 19, 12, 0);
+
+        aggregator.record(List.of(
+                transfer(high, low, "100", null, sent),
+                transfer(high, low, "50", null, sent.plusMinutes(1)),
+                transfer(low, high, "1270000", "100", sent)));
+
+        ArgumentCaptor<List<CardMonthlyAggregateRepository.Delta>> deltas = ArgumentCaptor.forClass(List.class);
+        verify(aggregateRepository).add(deltas.capture());
+        List<CardMonthlyAggregateRepository.Delta> rows = deltas.getValue();
+        assertEquals(List.of(low.getId(), high.getId()), rows.stream().map(CardMonthlyAggregateRepository.Delta::cardId).toList());
+
+        CardMonthlyAggregateRepository.Delta lowRow = rows.get(0);
+        assertEquals(LocalDate.of(2026, 10, 1), lowRow.month());
+        assertEquals(0, new BigDecimal("150").compareTo(lowRow.inflow()));
+        assertEquals(2, lowRow.inflowCount());
+        assertEquals(0, new BigDecimal("1270000").compareTo(lowRow.outflow()));
+
+        // the recipient is credited in its own currency
+        CardMonthlyAggregateRepository.Delta highRow = rows.get(1);
+        assertEquals(0, new BigDecimal("100").compareTo(highRow.inflow()));
+        assertEquals(0, new BigDecimal("150").compareTo(highRow.outflow()));
+        assertEquals(2, highRow.outflowCount());
+    }
+
+    private TransactionEntity transfer(CardEntity from, CardEntity to, String amount, String creditAmount, LocalDateTime sent) {
+        TransactionEntity transaction = new TransactionEntity();
+        transaction.setFromCardId(from);
+        transaction.setToCardId(to);
+        transaction.setAmount(Money.of(amount));
+        transaction.setCreditAmount(creditAmount == null ? null : Money.of(creditAmount));
+        transaction.setSentDate(sent);
+        return transaction;
+    }
+
+    private CardEntity card(UUID id) {
+        CardEntity card = new CardEntity();
+        card.setId(id);
+        return card;
+    }
+}
@@ -0,0 +1,79 @@
+package code.uz.bankcard.benchmark;
+
+import code.uz.bankcard.money.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Amount handling of one transfer with {@link BigDecimal} against {@link Money}: reading the amount
+ * from the request characters, the sufficiency check, the debit and the credit.
+ * Look at {@code gc.alloc.rate.norm}, the bytes allocated per transfer.
+ * <pre>
+ * mvn test -Dtest=MoneyTransferBenchmark -Dbench.jmh=true
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyTransferBenchmark {
+
+    private final char[] request = "12.50".toCharArray();
+    private BigDecimal decimalFrom;
+    private BigDecimal decimalTo;
+    private Money moneyFrom;
+    private Money moneyTo;
+
+    @Setup
+    public void setUp() {
+        decimalFrom = new BigDecimal("1000000000.00");
+        decimalTo = new BigDecimal("0.00");
+        moneyFrom = Money.of(decimalFrom);
+        moneyTo = Money.of(decimalTo);
+    }
+
+    @Benchmark
+    public Object bigDecimal() {
+        BigDecimal amount = new BigDecimal(request, 0, request.length);
+        if (decimalFrom.compareTo(amount) < 0) setUp();
+        decimalFrom = decimalFrom.subtract(amount);
+        decimalTo = decimalTo.add(amount);
+        return amount;
+    }
+
+    @Benchmark
+    public Object money() {
+        Money amount = Money.parse(request, 0, request.length);
+        if (moneyFrom.isLessThan(amount)) setUp();
+        moneyFrom = moneyFrom.minus(amount);
+        moneyTo = moneyTo.plus(amount);
+        return amount;
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "bench.jmh", matches = "true")
+    void run() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(MoneyTransferBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
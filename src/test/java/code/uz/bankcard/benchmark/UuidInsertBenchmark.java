@@ -0,0 +1,80 @@
+package code.uz.bankcard.benchmark;
+
+import code.uz.bankcard.util.UuidV7;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Compares insert throughput and primary-key index size of random UUIDv4 and time-ordered UUIDv7 keys.
+ * <p>
+ * Needs a local Postgres and is skipped otherwise:
+ * <pre>
+ * mvn test -Dtest=UuidInsertBenchmark \
+ *     -Dbench.jdbc.url=jdbc:postgresql://localhost:5432/bench -Dbench.jdbc.user=postgres -Dbench.jdbc.password=postgres \
+ *     -Dbench.rows=2000000
+ * </pre>
+ * </p>
+ */
+@EnabledIfSystemProperty(named = "bench.jdbc.url", matches = ".+")
+class UuidInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Test
+    void compareV4AndV7() throws Exception {
+        int rows = Integer.getInteger("bench.rows", 1_000_000);
+        try (Connection connection = DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url"),
+                System.getProperty("bench.jdbc.user"),
+                System.getProperty("bench.jdbc.password"))) {
+            connection.setAutoCommit(false);
+
+            run(connection, "bench_uuid_v4", rows, UUID::randomUUID);
+            run(connection, "bench_uuid_v7", rows, UuidV7::next);
+        }
+    }
+
+    private void run(Connection connection, String table, int rows, Supplier<UUID> ids) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists " + table);
+            statement.execute("create table " + table + " (id uuid primary key, payload varchar(64))");
+        }
+        connection.commit();
+
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement("insert into " + table + " values (?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                insert.setObject(1, ids.get());
+                insert.setString(2, "row-" + i);
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select pg_relation_size('" + table + "_pkey')")) {
+            rs.next();
+            System.out.printf("%s: %d rows in %.1f s (%.0f rows/s), pk index %d MB%n",
+                    table, rows, seconds, rows / seconds, rs.getLong(1) / (1024 * 1024));
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table " + table);
+        }
+        connection.commit();
+    }
+}
@@ -0,0 +1,88 @@
+package code.uz.bankcard.fee;
+
+import code.uz.bankcard.enums.CardStatus;
+import code.uz.bankcard.enums.Role;
+import code.uz.bankcard.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeeScheduleTest {
+
+    private final FeeRule ownCards = rule("own-cards", 10, null, null, null, true, "0", null, null, null);
+    private final FeeRule small = rule("small", 50, null, "1000", null, false, "1", "0.50", null, null);
+    private final FeeRule large = rule("large", 50, "1000", null, null, false, "0.5", null, "2.00", "50.00");
+    private final FeeRule admin = rule("admin", 5, null, null, Role.ROLE_ADMIN, null, "0", null, null, null);
+
+    private final FeeSchedule schedule = FeeSchedule.compile(List.of(small, large, ownCards, admin));
+
+    @Test
+    void quote_AmountBandsPickTheirRule() {
+        assertEquals(new FeeQuote(Money.of("1.50"), "small"), user(false, "100"));
+        assertEquals(new FeeQuote(Money.of("10.00"), "large"), user(false, "2000"));
+        // lower bound is inclusive
+        assertEquals("large", user(false, "1000").rule());
+    }
+
+    @Test
+    void quote_FeeIsClamped() {
+        assertEquals(Money.of("50.00"), user(false, "100000").amount());
+        assertEquals(Money.of("5.00"), user(false, "1000").amount());
+    }
+
+    @Test
+    void quote_HigherPriorityWins() {
+        assertEquals(new FeeQuote(Money.ZERO, "own-cards"), user(true, "100"));
+        assertEquals("admin", schedule.quote(Role.ROLE_ADMIN, false, CardStatus.ACTIVE, "UZS", Money.of("100")).rule());
+    }
+
+    @Test
+    void quote_NoMatchingRuleIsFree() {
+        FeeSchedule onlyLarge = FeeSchedule.compile(List.of(large));
+
+        assertSame(FeeQuote.NONE, onlyLarge.quote(Role.ROLE_USER, false, CardStatus.ACTIVE, "UZS", Money.of("10")));
+        assertSame(FeeQuote.NONE, FeeSchedule.EMPTY.quote(Role.ROLE_USER, false, CardStatus.ACTIVE, "UZS", Money.of("10")));
+    }
+
+    @Test
+    void quote_CurrencyRulesOnlyApplyInTheirCurrency() {
+        FeeRule usd = new FeeRule("usd", 20, null, null, null, false, null, "USD",
+                null, Money.of("0.30"), null, null);
+        FeeSchedule withUsd = FeeSchedule.compile(List.of(small, large, usd));
+
+        assertEquals(new FeeQuote(Money.of("0.30"), "usd"),
+                withUsd.quote(Role.ROLE_USER, false, CardStatus.ACTIVE, "USD", Money.of("2000")));
+        // currencies without rules of their own use the rules without a currency
+        assertEquals("large", withUsd.quote(Role.ROLE_USER, false, CardStatus.ACTIVE, "UZS", Money.of("2000")).rule());
+        assertEquals("small", withUsd.quote(Role.ROLE_USER, false, CardStatus.ACTIVE, "EUR", Money.of("100")).rule());
+    }
+
+    @Test
+    void fee_PercentRoundsHalfUp() {
+        FeeSchedule.Fee fee = new FeeSchedule.Fee("x", 0, 5_000, 0, Long.MAX_VALUE);
+
+        assertEquals(1, fee.apply(100));
+        assertEquals(0, fee.apply(99));
+        // no overflow for the largest amount
+        assertEquals(BigDecimal.valueOf(Long.MAX_VALUE).multiply(new BigDecimal("0.005")).setScale(0, RoundingMode.HALF_UP).longValueExact(),
+                fee.apply(Long.MAX_VALUE));
+    }
+
+    private FeeQuote user(boolean sameOwner, String amount) {
+        return schedule.quote(Role.ROLE_USER, sameOwner, CardStatus.ACTIVE, "UZS", Money.of(amount));
+    }
+
+    private static FeeRule rule(String name, int priority, String min, String max, Role role, Boolean sameOwner,
+                                String percent, String fixed, String minFee, String maxFee) {
+        return new FeeRule(name, priority, money(min), money(max), role, sameOwner, null, null,
+                percent == null ? null : new BigDecimal(percent), money(fixed), money(minFee), money(maxFee));
+    }
+
+    private static Money money(String value) {
+        return value == null ? null : Money.of(value);
+    }
+}
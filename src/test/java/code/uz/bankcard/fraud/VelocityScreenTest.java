@@ -0,0 +1,92 @@
+package code.uz.bankcard.fraud;
+
+import code.uz.bankcard.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VelocityScreenTest {
+
+    @Test
+    void screen_SmallTransfersToManyRecipientsAreFlagged() {
+        VelocityScreen screen = new VelocityScreen(properties(cardTesting()));
+        UUID card = UUID.randomUUID();
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Optional.empty(), screen.screen(card, UUID.randomUUID(), Money.of("1.00")));
+        }
+        // recipients are estimated, two of them may share a register
+        boolean flagged = false;
+        for (int i = 0; i < 4 && !flagged; i++) {
+            flagged = screen.screen(card, UUID.randomUUID(), Money.of("1.00")).equals(Optional.of("card-testing"));
+        }
+        assertTrue(flagged);
+    }
+
+    @Test
+    void screen_RepeatedTransfersToOneRecipientAreNotCardTesting() {
+        VelocityScreen screen = new VelocityScreen(properties(cardTesting()));
+        UUID card = UUID.randomUUID();
+        UUID recipient = UUID.randomUUID();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Optional.empty(), screen.screen(card, recipient, Money.of("1.00")));
+        }
+    }
+
+    @Test
+    void screen_LargeTransfersAreNotCardTesting() {
+        VelocityScreen screen = new VelocityScreen(properties(cardTesting()));
+        UUID card = UUID.randomUUID();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Optional.empty(), screen.screen(card, UUID.randomUUID(), Money.of("500")));
+        }
+    }
+
+    @Test
+    void hyperLogLog_SmallCardinalitiesAreCloseToExact() {
+        byte[] registers = new byte[HyperLogLog.REGISTERS];
+        for (int i = 0; i < 8; i++) {
+            UUID id = UUID.randomUUID();
+            HyperLogLog.add(registers, 0, HyperLogLog.hash(id.getMostSignificantBits(), id.getLeastSignificantBits()));
+        }
+
+        long estimate = HyperLogLog.estimate(registers);
+        assertTrue(estimate >= 6 && estimate <= 10, "estimate " + estimate);
+    }
+
+    @Test
+    void window_OldSlotsAreDropped() {
+        CardVelocity velocity = new CardVelocity(3);
+
+        velocity.record(10, 1, 100);
+        velocity.record(11, 2, 100);
+        CardVelocity.Window window = velocity.record(13, 3, 100);
+
+        assertEquals(2, window.count());
+        assertEquals(200, window.sumMinor());
+    }
+
+    private static FraudProperties.Rule cardTesting() {
+        FraudProperties.Rule rule = new FraudProperties.Rule();
+        rule.setName("card-testing");
+        rule.setMinCount(5);
+        rule.setMinRecipients(5);
+        rule.setMaxAverageAmount(new BigDecimal("10.00"));
+        return rule;
+    }
+
+    private static FraudProperties properties(FraudProperties.Rule... rules) {
+        FraudProperties properties = new FraudProperties();
+        properties.setWindow(Duration.ofMinutes(10));
+        properties.setRules(List.of(rules));
+        return properties;
+    }
+}
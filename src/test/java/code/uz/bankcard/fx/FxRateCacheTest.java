@@ -0,0 +1,67 @@
+package code.uz.bankcard.fx;
+
+import code.uz.bankcard.event.PgNotificationBus;
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.repository.FxRateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FxRateCacheTest {
+
+    private final FxRateRepository rateRepository = mock(FxRateRepository.class);
+    private final PgNotificationBus notificationBus = mock(PgNotificationBus.class);
+    private final FxRateCache cache = new FxRateCache(rateRepository, notificationBus, Duration.ofHours(1));
+
+    @BeforeEach
+    void setUp() {
+        when(rateRepository.findAll()).thenReturn(List.of(
+                new FxRate("USD", "UZS", new BigDecimal("12700"), LocalDateTime.now()),
+                new FxRate("EUR", "UZS", new BigDecimal("13800"), LocalDateTime.now().minusHours(2))));
+        cache.load();
+    }
+
+    @Test
+    void convert_UsesDirectAndInverseRates() {
+        assertEquals(new FxConversion(Money.of("1270000"), new BigDecimal("12700")),
+                cache.convert("USD", "UZS", Money.of("100")));
+        // 1 / 12700 rounded down to the cent
+        assertEquals(Money.of("99.99"), cache.convert("UZS", "USD", Money.of("1269999")).amount());
+    }
+
+    @Test
+    void convert_RefusesMissingStaleAndTooSmall() {
+        assertThrows(BadException.class, () -> cache.convert("USD", "EUR", Money.of("100")));
+        assertThrows(BadException.class, () -> cache.convert("EUR", "UZS", Money.of("100")));
+        assertThrows(BadException.class, () -> cache.convert("UZS", "USD", Money.of("1")));
+    }
+
+    @Test
+    void load_KeepsPreviousSnapshotOnFailure() {
+        when(rateRepository.findAll()).thenThrow(new IllegalStateException("connection refused"));
+
+        cache.load();
+
+        assertEquals(2, cache.rates().size());
+        assertNotNull(cache.convert("USD", "UZS", Money.of("1")));
+    }
+
+    @Test
+    void snapshot_StoredPairWinsOverInverse() {
+        FxRateSnapshot snapshot = FxRateSnapshot.build(List.of(
+                new FxRate("USD", "UZS", new BigDecimal("12700"), LocalDateTime.now()),
+                new FxRate("UZS", "USD", new BigDecimal("0.00008"), LocalDateTime.now())));
+
+        assertEquals(new BigDecimal("0.00008"), snapshot.rate(snapshot.find("UZS", "USD")));
+        assertTrue(snapshot.find("usd", "UZS") < 0);
+        assertEquals(2, snapshot.size());
+    }
+}
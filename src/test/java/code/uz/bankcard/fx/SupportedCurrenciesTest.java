@@ -0,0 +1,27 @@
+package code.uz.bankcard.fx;
+
+import code.uz.bankcard.exception.BadException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SupportedCurrenciesTest {
+
+    @Test
+    void require_AcceptsConfiguredCurrenciesOnly() {
+        SupportedCurrencies currencies = new SupportedCurrencies("UZS", List.of("UZS", " USD"));
+
+        assertEquals("USD", currencies.require("USD"));
+        assertThrows(BadException.class, () -> currencies.require("EUR"));
+    }
+
+    @Test
+    void constructor_RejectsCurrenciesWithOtherScaleAndMissingBase() {
+        // the yen has no minor unit, the dinar three
+        assertThrows(IllegalStateException.class, () -> new SupportedCurrencies("UZS", List.of("UZS", "JPY")));
+        assertThrows(IllegalStateException.class, () -> new SupportedCurrencies("UZS", List.of("UZS", "KWD")));
+        assertThrows(IllegalStateException.class, () -> new SupportedCurrencies("UZS", List.of("USD")));
+    }
+}
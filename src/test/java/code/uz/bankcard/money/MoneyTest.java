@@ -0,0 +1,58 @@
+package code.uz.bankcard.money;
+
+import code.uz.bankcard.dto.transaction.TransactionCreateDTO;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void of_RoundsToMinorUnitsHalfUp() {
+        assertEquals(12345, Money.of("123.45").minorUnits());
+        assertEquals(100, Money.of(new BigDecimal("1")).minorUnits());
+        assertEquals(13, Money.of("0.125").minorUnits());
+        assertNull(Money.of((BigDecimal) null));
+    }
+
+    @Test
+    void parse_MatchesBigDecimalRounding() {
+        for (String amount : new String[]{"0", "7", "-0.5", "12.3", "12.345", "-12.345", "99.994", "1.", ".25", "1e2"}) {
+            assertEquals(Money.of(new BigDecimal(amount)), Money.of(amount), amount);
+        }
+        assertThrows(NumberFormatException.class, () -> Money.of("12a"));
+        assertThrows(NumberFormatException.class, () -> Money.of("-"));
+    }
+
+    @Test
+    void deserialize_ReadsJsonNumberAndString() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        TransactionCreateDTO dto = mapper.readValue("{\"amount\": 100.5}", TransactionCreateDTO.class);
+        assertEquals(Money.of("100.50"), dto.getAmount());
+        assertEquals(Money.of("3"), mapper.readValue("\"3\"", Money.class));
+        assertThrows(JsonMappingException.class, () -> mapper.readValue("\"abc\"", Money.class));
+    }
+
+    @Test
+    void arithmetic_StaysInMinorUnits() {
+        Money balance = Money.of("500.00");
+        Money amount = Money.of("100.10");
+
+        assertEquals(Money.of("399.90"), balance.minus(amount));
+        assertEquals(Money.of("600.10"), balance.plus(amount));
+        assertTrue(amount.isLessThan(balance));
+        assertEquals(new BigDecimal("399.90"), balance.minus(amount).toBigDecimal());
+        assertEquals(-1, amount.negate().signum());
+    }
+
+    @Test
+    void arithmetic_OverflowThrows() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofMinor(1)));
+    }
+}
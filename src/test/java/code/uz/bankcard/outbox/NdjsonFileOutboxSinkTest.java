@@ -0,0 +1,38 @@
+package code.uz.bankcard.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonFileOutboxSinkTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void publish_AppendsOneLinePerEvent() throws Exception {
+        Path file = dir.resolve("events/transfers.ndjson");
+        NdjsonFileOutboxSink sink = new NdjsonFileOutboxSink(new ObjectMapper(), file);
+
+        sink.publish(List.of(event(1, "{\"type\":\"TRANSFER_DEBIT\"}"), event(2, "{\"type\":\"TRANSFER_CREDIT\"}")));
+        sink.publish(List.of(event(3, "{\"type\":\"TRANSFER_DEBIT\"}")));
+        sink.close();
+
+        assertEquals(List.of(
+                "{\"id\":1,\"event\":{\"type\":\"TRANSFER_DEBIT\"}}",
+                "{\"id\":2,\"event\":{\"type\":\"TRANSFER_CREDIT\"}}",
+                "{\"id\":3,\"event\":{\"type\":\"TRANSFER_DEBIT\"}}"), Files.readAllLines(file));
+    }
+
+    private OutboxEvent event(long id, String payload) {
+        return new OutboxEvent(id, UUID.randomUUID(), "TRANSFER_DEBIT", payload, LocalDateTime.now(), 1);
+    }
+}
@@ -0,0 +1,84 @@
+package code.uz.bankcard.outbox;
+
+import code.uz.bankcard.repository.TransferOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxPublisherTest {
+
+    private final TransferOutboxRepository outboxRepository = mock(TransferOutboxRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final InMemoryOutboxSink sink = new InMemoryOutboxSink();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID cardId = UUID.randomUUID();
+
+    @BeforeEach
+    void setup() {
+        when(transactionTemplate.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(outboxRepository.pendingStats()).thenReturn(new TransferOutboxRepository.Stats(0, null));
+    }
+
+    @Test
+    void publishPending_DeliversInOrderAndMarksPublished() {
+        when(outboxRepository.claim(eq(OutboxPublisher.LOCK_KEY), eq(2), any()))
+                .thenReturn(List.of(event(1), event(2)), List.of(event(3)));
+
+        int delivered = publisher(sink).publishPending();
+
+        assertEquals(3, delivered);
+        assertEquals(List.of(1L, 2L, 3L), sink.events().stream().map(OutboxEvent::id).toList());
+        verify(outboxRepository).markPublished(List.of(1L, 2L));
+        verify(outboxRepository).markPublished(List.of(3L));
+        assertEquals(3, meterRegistry.get("outbox.published").counter().count());
+        assertEquals(3, meterRegistry.get("outbox.publish.lag").timer().count());
+    }
+
+    @Test
+    void publishPending_FailedBatchIsReleasedForRetry() throws Exception {
+        OutboxSink failing = mock(OutboxSink.class);
+        doThrow(new IOException("disk full")).when(failing).publish(any());
+        when(outboxRepository.claim(anyLong(), anyInt(), any())).thenReturn(List.of(event(1), event(2)));
+
+        int delivered = publisher(failing).publishPending();
+
+        assertEquals(0, delivered);
+        verify(outboxRepository).retry(List.of(1L, 2L), "disk full", Duration.ofSeconds(1), Duration.ofMinutes(5));
+        verify(outboxRepository, never()).markPublished(any());
+        // the next batch would overtake the failed one, so the run stops
+        verify(outboxRepository, times(1)).claim(anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void publishPending_ReportsBacklog() {
+        when(outboxRepository.claim(anyLong(), anyInt(), any())).thenReturn(List.of());
+        when(outboxRepository.pendingStats())
+                .thenReturn(new TransferOutboxRepository.Stats(7, LocalDateTime.now().minusSeconds(90)));
+
+        publisher(sink).publishPending();
+
+        assertEquals(7, meterRegistry.get("outbox.pending").gauge().value());
+        assertTrue(meterRegistry.get("outbox.oldest.age").gauge().value() >= 90);
+    }
+
+    private OutboxPublisher publisher(OutboxSink target) {
+        return new OutboxPublisher(outboxRepository, target, transactionTemplate, meterRegistry, 2, 10,
+                Duration.ofSeconds(30), Duration.ofSeconds(1), Duration.ofMinutes(5), Duration.ofDays(3));
+    }
+
+    private OutboxEvent event(long id) {
+        return new OutboxEvent(id, cardId, "TRANSFER_DEBIT", "{}", LocalDateTime.now().minusSeconds(1), 1);
+    }
+}
@@ -0,0 +1,65 @@
+package code.uz.bankcard.outbox;
+
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.entity.TransactionEntity;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.repository.TransferOutboxRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TransferOutboxTest {
+
+    private final TransferOutboxRepository outboxRepository = mock(TransferOutboxRepository.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void append_WritesDebitAndCreditInTheirCardsCurrency() throws Exception {
+        CardEntity from = card("UZS");
+        CardEntity to = card("USD");
+        TransactionEntity transaction = new TransactionEntity();
+        transaction.setId(11);
+        transaction.setFromCardId(from);
+        transaction.setToCardId(to);
+        transaction.setAmount(Money.of("127000"));
+        transaction.setCurrency("UZS");
+        transaction.setCreditAmount(Money.of("10.00"));
+        transaction.setSentDate(LocalDateTime.now());
+
+        new TransferOutbox(outboxRepository, objectMapper, true).append(transaction);
+
+        ArgumentCaptor<List<TransferOutboxRepository.Row>> rows = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).append(rows.capture());
+        assertEquals(List.of(from.getId(), to.getId()), rows.getValue().stream().map(TransferOutboxRepository.Row::cardId).toList());
+
+        JsonNode credit = objectMapper.readTree(rows.getValue().get(1).payload());
+        assertEquals("TRANSFER_CREDIT", credit.get("type").asText());
+        assertEquals(0, new BigDecimal("10.00").compareTo(credit.get("amount").decimalValue()));
+        assertEquals("USD", credit.get("currency").asText());
+        assertEquals(from.getId().toString(), credit.get("counterpartyCardId").asText());
+    }
+
+    @Test
+    void append_DisabledWritesNothing() {
+        new TransferOutbox(outboxRepository, objectMapper, false).append(new TransactionEntity());
+
+        verifyNoInteractions(outboxRepository);
+    }
+
+    private CardEntity card(String currency) {
+        CardEntity card = new CardEntity();
+        card.setId(UUID.randomUUID());
+        card.setCurrency(currency);
+        return card;
+    }
+}
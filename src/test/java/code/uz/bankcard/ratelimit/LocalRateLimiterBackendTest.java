@@ -0,0 +1,58 @@
+package code.uz.bankcard.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalRateLimiterBackendTest {
+
+    private final LocalRateLimiterBackend backend = new LocalRateLimiterBackend(1000, Duration.ofMinutes(10));
+
+    @Test
+    void tryAcquire_AllowsBurstThenReportsWait() {
+        RateLimit limit = new RateLimit(3, 1.0 / 3600);
+
+        for (int i = 0; i < 3; i++) assertEquals(0, backend.tryAcquire("card:a", limit));
+
+        long wait = backend.tryAcquire("card:a", limit);
+        assertTrue(wait > 0);
+        assertTrue(wait <= TimeUnit.HOURS.toNanos(1));
+    }
+
+    @Test
+    void tryAcquire_KeysHaveSeparateBuckets() {
+        RateLimit limit = new RateLimit(1, 1.0 / 3600);
+
+        assertEquals(0, backend.tryAcquire("card:a", limit));
+        assertTrue(backend.tryAcquire("card:a", limit) > 0);
+        assertEquals(0, backend.tryAcquire("card:b", limit));
+    }
+
+    @Test
+    void tryAcquire_ConcurrentCallersNeverExceedCapacity() throws InterruptedException {
+        RateLimit limit = new RateLimit(100, 1.0 / 3600);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 1000; i++) {
+            pool.submit(() -> {
+                start.await();
+                if (backend.tryAcquire("profile:p", limit) == 0) allowed.incrementAndGet();
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, allowed.get());
+    }
+}
@@ -0,0 +1,32 @@
+package code.uz.bankcard.reconciliation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeBalancesTest {
+
+    @Test
+    void addMovement_MatchesCardsInPostgresOrder() {
+        // Postgres sorts uuids as unsigned bytes, so 8000... comes after 7fff...
+        UUID low = UUID.fromString("7fffffff-ffff-7fff-bfff-ffffffffffff");
+        UUID high = UUID.fromString("80000000-0000-7000-8000-000000000000");
+
+        RangeBalances balances = new RangeBalances(1);
+        balances.addCard(low, 10_000);
+        balances.addCard(high, 5_000);
+
+        balances.addMovement(low, 12_000);
+        balances.addMovement(low, -2_000);
+        balances.addMovement(high, 4_000);
+        balances.addMovement(UUID.randomUUID(), 100);
+
+        assertEquals(2, balances.size());
+        assertTrue(balances.matches(0));
+        assertFalse(balances.matches(1));
+        assertEquals(high, balances.cardId(1));
+        assertEquals(4_000, balances.expectedCents(1));
+    }
+}
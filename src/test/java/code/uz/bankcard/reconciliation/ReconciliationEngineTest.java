@@ -0,0 +1,83 @@
+package code.uz.bankcard.reconciliation;
+
+import code.uz.bankcard.entity.ReconciliationMismatchEntity;
+import code.uz.bankcard.repository.ReconciliationMismatchRepository;
+import code.uz.bankcard.repository.ReconciliationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReconciliationEngineTest {
+
+    @Mock
+    private ReconciliationRepository reconciliationRepository;
+
+    @Mock
+    private ReconciliationMismatchRepository mismatchRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void run_ReportsOnlyMismatchedCards() {
+        List<UUID> cards = new ArrayList<>();
+        for (int i = 0; i < 10; i++) cards.add(UUID.randomUUID());
+        cards.sort(Comparator.comparing(UUID::toString));
+        UUID broken = cards.get(7);
+
+        when(reconciliationRepository.findRangeStarts(3)).thenReturn(List.of(cards.get(0), cards.get(3), cards.get(6), cards.get(9)));
+        doAnswer(i -> {
+            CardRange range = i.getArgument(0);
+            RangeBalances balances = i.getArgument(2);
+            for (UUID card : cards) {
+                if (inRange(card, range)) balances.addCard(card, card.equals(broken) ? 999 : 1_000);
+            }
+            return null;
+        }).when(reconciliationRepository).loadCards(any(), anyInt(), any());
+        doAnswer(i -> {
+            RangeBalances balances = i.getArgument(2);
+            // opening 1500 and a 500 transfer out for every card
+            cards.forEach(card -> {
+                balances.addMovement(card, 1_500);
+                balances.addMovement(card, -500);
+            });
+            return null;
+        }).when(reconciliationRepository).loadMovements(any(), anyInt(), any());
+
+        ReconciliationEngine engine = new ReconciliationEngine(reconciliationRepository, mismatchRepository,
+                transactionManager, 2, 3, 100);
+        ReconciliationProgress progress = new ReconciliationProgress();
+        engine.run(1L, progress);
+
+        assertEquals(4, progress.getDoneRanges());
+        assertEquals(10, progress.getCardsChecked());
+        assertEquals(1, progress.getMismatches());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ReconciliationMismatchEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(mismatchRepository).saveAll(captor.capture());
+        ReconciliationMismatchEntity mismatch = captor.getValue().get(0);
+        assertEquals(broken, mismatch.getCardId());
+        assertEquals(new BigDecimal("10.00"), mismatch.getExpectedBalance());
+        assertEquals(new BigDecimal("9.99"), mismatch.getActualBalance());
+    }
+
+    private static boolean inRange(UUID card, CardRange range) {
+        return card.toString().compareTo(range.getFrom().toString()) >= 0
+                && (range.getTo() == null || card.toString().compareTo(range.getTo().toString()) < 0);
+    }
+}
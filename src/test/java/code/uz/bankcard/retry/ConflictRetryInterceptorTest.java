@@ -0,0 +1,84 @@
+package code.uz.bankcard.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConflictRetryInterceptorTest {
+
+    static class CardWriter {
+        int calls;
+        int failures;
+
+        @RetryOnConflict(maxAttempts = 3, backoffMillis = 1, maxBackoffMillis = 2)
+        public String write() {
+            calls++;
+            if (calls <= failures) throw new OptimisticLockingFailureException("stale card");
+            return "written";
+        }
+
+        public String unannotated() {
+            calls++;
+            throw new OptimisticLockingFailureException("stale card");
+        }
+    }
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CardWriter target;
+    private CardWriter proxy;
+
+    @BeforeEach
+    void setup() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", meterRegistry);
+
+        target = new CardWriter();
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(RetryOnConflict.class),
+                new ConflictRetryInterceptor(beanFactory.getBeanProvider(MeterRegistry.class))));
+        proxy = (CardWriter) factory.getProxy();
+    }
+
+    @Test
+    void retriesUntilSuccess() {
+        target.failures = 2;
+
+        assertEquals("written", proxy.write());
+        assertEquals(3, target.calls);
+        assertEquals(2, count("card.conflicts"));
+        assertEquals(2, count("card.conflict.retries"));
+        assertEquals(0, count("card.conflict.exhausted"));
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        target.failures = 5;
+
+        assertThrows(OptimisticLockingFailureException.class, () -> proxy.write());
+        assertEquals(3, target.calls);
+        assertEquals(1, count("card.conflict.exhausted"));
+        assertEquals("none", meterRegistry.get("card.conflicts").counter().getId().getTag("endpoint"));
+        assertEquals("CardWriter.write", meterRegistry.get("card.conflicts").counter().getId().getTag("method"));
+    }
+
+    @Test
+    void unannotatedMethodIsNotRetried() {
+        assertThrows(OptimisticLockingFailureException.class, () -> proxy.unannotated());
+        assertEquals(1, target.calls);
+    }
+
+    private double count(String meter) {
+        var counter = meterRegistry.find(meter).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
@@ -1,28 +1,52 @@
 package code.uz.bankcard.service;
 
+import code.uz.bankcard.cache.CardBalanceCache;
+import code.uz.bankcard.cache.CardNumberBloomFilter;
 import code.uz.bankcard.dto.card.CardAdminUpdateDTO;
+import code.uz.bankcard.dto.card.CardBulkIssueDTO;
+import code.uz.bankcard.dto.card.CardBulkIssueResponseDTO;
+import code.uz.bankcard.dto.card.CardBulkStatusDTO;
 import code.uz.bankcard.dto.card.CardCreateDTO;
 import code.uz.bankcard.dto.card.CardResponseDTO;
 import code.uz.bankcard.entity.CardEntity;
 import code.uz.bankcard.entity.ProfileEntity;
 import code.uz.bankcard.enums.CardStatus;
 import code.uz.bankcard.enums.Role;
+import code.uz.bankcard.event.CardStatusCountEvent;
+import code.uz.bankcard.event.CardsInvalidatedEvent;
 import code.uz.bankcard.exception.BadException;
 import code.uz.bankcard.exception.NotFoundException;
+import code.uz.bankcard.fx.SupportedCurrencies;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.repository.CardBalanceShardRepository;
+import code.uz.bankcard.repository.CardBulkRepository;
+import code.uz.bankcard.repository.CardJournalRepository;
 import code.uz.bankcard.repository.CardRepository;
 import code.uz.bankcard.repository.ProfileRepository;
 import code.uz.bankcard.service.Impl.CardServiceImpl;
+import code.uz.bankcard.service.LedgerService;
+import code.uz.bankcard.transfer.HotCardSequencer;
+import code.uz.bankcard.transfer.SpendLimitGuard;
+import code.uz.bankcard.util.CardNumberUtil;
 import code.uz.bankcard.util.SecurityUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -39,6 +63,36 @@ class CardServiceTest {
     @Mock
     private ProfileRepository profileRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CardNumberBloomFilter cardNumberBloomFilter;
+
+    @Mock
+    private CardBulkRepository cardBulkRepository;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private CardBalanceShardRepository balanceShardRepository;
+
+    @Mock
+    private SpendLimitGuard spendLimitGuard;
+
+    @Mock
+    private HotCardSequencer hotCardSequencer;
+
+    @Mock
+    private CardJournalRepository journalRepository;
+
+    @Spy
+    private CardBalanceCache cardBalanceCache = new CardBalanceCache(100, Duration.ofMinutes(1));
+
+    @Spy
+    private SupportedCurrencies supportedCurrencies = new SupportedCurrencies("UZS", List.of("UZS", "USD"));
+
     @InjectMocks
     private CardServiceImpl cardService;
 
@@ -58,7 +112,7 @@ class CardServiceTest {
     void createCard_Success() {
         CardCreateDTO dto = new CardCreateDTO();
         dto.setProfileId(profileId);
-        dto.setCardNumber("1234567890123456");
+        dto.setCardNumber("1234567890123452");
         dto.setInitialBalance(BigDecimal.valueOf(1000.0));
 
         when(profileRepository.findByIdAndVisibleTrue(profileId)).thenReturn(Optional.of(profileEntity));
@@ -71,17 +125,103 @@ class CardServiceTest {
 
             assertEquals("Test User", response.getOwnerName());
             assertEquals(CardStatus.ACTIVE, response.getStatus());
-            verify(cardRepository, times(1)).save(any(CardEntity.class));
+            verify(cardRepository, times(1)).saveAndFlush(any(CardEntity.class));
+            verify(ledgerService).recordOpening(any(CardEntity.class));
         }
     }
 
     @Test
-    void createCard_ProfileNotFound() {
+    void createCard_DuplicateNumber() {
+        CardCreateDTO dto = new CardCreateDTO();
+        dto.setProfileId(profileId);
+        dto.setCardNumber("1234567890123452");
+        dto.setInitialBalance(BigDecimal.valueOf(1000.0));
+
+        when(profileRepository.findByIdAndVisibleTrue(profileId)).thenReturn(Optional.of(profileEntity));
+        when(cardNumberBloomFilter.isLoaded()).thenReturn(true);
+        when(cardNumberBloomFilter.mightContain("1234567890123452")).thenReturn(true);
+        when(cardRepository.existsByCardNumber("1234567890123452")).thenReturn(true);
+
+        assertThrows(BadException.class, () -> cardService.createCard(dto));
+        verify(cardRepository, never()).saveAndFlush(any(CardEntity.class));
+    }
+
+    @Test
+    void createCard_NumberIssuedOnAnotherNode() {
+        CardCreateDTO dto = new CardCreateDTO();
+        dto.setProfileId(profileId);
+        dto.setCardNumber("1234567890123452");
+        dto.setInitialBalance(BigDecimal.valueOf(1000.0));
+
+        when(profileRepository.findByIdAndVisibleTrue(profileId)).thenReturn(Optional.of(profileEntity));
+        when(cardNumberBloomFilter.isLoaded()).thenReturn(true);
+        when(cardNumberBloomFilter.mightContain("1234567890123452")).thenReturn(false);
+        when(cardRepository.saveAndFlush(any(CardEntity.class)))
+                .thenThrow(new DataIntegrityViolationException("ux_card_card_number"));
+
+        BadException exception = assertThrows(BadException.class, () -> cardService.createCard(dto));
+        assertEquals("Card number already exists", exception.getMessage());
+        verify(cardRepository, never()).existsByCardNumber(anyString());
+        verify(ledgerService, never()).recordOpening(any(CardEntity.class));
+    }
+
+    @Test
+    void createCard_InvalidChecksum() {
         CardCreateDTO dto = new CardCreateDTO();
         dto.setProfileId(profileId);
         dto.setCardNumber("1234567890123456");
         dto.setInitialBalance(BigDecimal.valueOf(1000.0));
 
+        assertThrows(BadException.class, () -> cardService.createCard(dto));
+        verify(cardRepository, never()).saveAndFlush(any(CardEntity.class));
+    }
+
+    @Test
+    void createCard_UnsupportedCurrency() {
+        CardCreateDTO dto = new CardCreateDTO();
+        dto.setProfileId(profileId);
+        dto.setCardNumber("1234567890123452");
+        dto.setInitialBalance(BigDecimal.valueOf(1000.0));
+        dto.setCurrency("JPY");
+
+        when(profileRepository.findByIdAndVisibleTrue(profileId)).thenReturn(Optional.of(profileEntity));
+
+        BadException exception = assertThrows(BadException.class, () -> cardService.createCard(dto));
+        assertEquals("Unsupported currency JPY", exception.getMessage());
+        verify(cardRepository, never()).saveAndFlush(any(CardEntity.class));
+    }
+
+    @Test
+    void bulkIssue_RegeneratesRejectedNumbers() {
+        ReflectionTestUtils.setField(cardService, "issueBatchSize", 1000);
+
+        CardBulkIssueDTO dto = new CardBulkIssueDTO();
+        dto.setProfileId(profileId);
+        dto.setCount(3);
+        dto.setInitialBalance(BigDecimal.ZERO);
+        dto.setBin("860031");
+
+        when(profileRepository.findByIdAndVisibleTrue(profileId)).thenReturn(Optional.of(profileEntity));
+        // first batch: the unique index rejects one number
+        when(cardBulkRepository.insertCards(anyList(), anyList(), anyList(), eq(profileId), eq("Test User"), any(), any(), any(), any()))
+                .thenAnswer(i -> ((List<String>) i.getArgument(1)).subList(0, 2))
+                .thenAnswer(i -> i.getArgument(1));
+
+        CardBulkIssueResponseDTO response = cardService.bulkIssue(dto);
+
+        assertEquals(3, response.getIssued());
+        assertTrue(response.getCardNumbers().stream().allMatch(n -> n.startsWith("860031") && CardNumberUtil.isValid(n)));
+        verify(cardBulkRepository, times(2)).insertCards(anyList(), anyList(), anyList(), eq(profileId), eq("Test User"), any(), any(), any(), any());
+        verify(cardNumberBloomFilter, times(3)).put(anyString());
+    }
+
+    @Test
+    void createCard_ProfileNotFound() {
+        CardCreateDTO dto = new CardCreateDTO();
+        dto.setProfileId(profileId);
+        dto.setCardNumber("1234567890123452");
+        dto.setInitialBalance(BigDecimal.valueOf(1000.0));
+
         when(profileRepository.findByIdAndVisibleTrue(profileId)).thenReturn(Optional.empty());
 
         try (var utilities = mockStatic(SecurityUtil.class)) {
@@ -130,7 +270,7 @@ class CardServiceTest {
         CardEntity card = new CardEntity();
         card.setId(UUID.randomUUID());
         card.setProfile(profileEntity);
-        card.setBalance(BigDecimal.valueOf(1000.0));
+        card.setBalance(Money.of("1000.0"));
         card.setStatus(CardStatus.ACTIVE);
         card.setExpiryDate(LocalDateTime.now().plusYears(1));
 
@@ -148,10 +288,168 @@ class CardServiceTest {
 
             assertEquals(0, response.getBalance().compareTo(BigDecimal.valueOf(2000.0)));
             assertEquals(CardStatus.BLOCKED, response.getStatus());
+            verify(ledgerService).recordAdjustment(card, new BigDecimal("1000.00"));
             verify(cardRepository, times(1)).save(any(CardEntity.class));
         }
     }
 
+    @Test
+    void updateCard_HotCardBalanceIsRejected() {
+        UUID cardId = UUID.randomUUID();
+        CardAdminUpdateDTO dto = new CardAdminUpdateDTO();
+        dto.setBalance(BigDecimal.valueOf(2000.0));
+        when(hotCardSequencer.isHot(cardId)).thenReturn(true);
+
+        BadException exception = assertThrows(BadException.class, () -> cardService.updateCard(dto, cardId));
+
+        assertEquals("Balance changes are not supported for this card", exception.getMessage());
+        verifyNoInteractions(ledgerService);
+        verify(cardRepository, never()).save(any(CardEntity.class));
+    }
+
+    @Test
+    void getBalance_ServedFromCache() {
+        CardEntity card = new CardEntity();
+        card.setId(UUID.randomUUID());
+        card.setProfile(profileEntity);
+        card.setCardNumber("1234567890123456");
+        card.setMaskedNumber("**** **** **** 3456");
+        card.setOwnerName("Test User");
+        card.setBalance(Money.of("1000.0"));
+        card.setStatus(CardStatus.ACTIVE);
+
+        when(cardRepository.findByIdAndVisibleTrue(card.getId())).thenReturn(Optional.of(card));
+
+        try (var utilities = mockStatic(SecurityUtil.class)) {
+            utilities.when(SecurityUtil::getID).thenReturn(profileId);
+
+            cardService.getBalance(card.getId());
+            CardResponseDTO response = cardService.getBalance(card.getId());
+
+            assertEquals("**** **** **** 3456", response.getMaskedNumber());
+            assertEquals("Test User", response.getOwnerName());
+            assertEquals(0, response.getBalance().compareTo(BigDecimal.valueOf(1000.0)));
+            verify(cardRepository, times(1)).findByIdAndVisibleTrue(card.getId());
+        }
+    }
+
+    @Test
+    void getBalance_NotOwner() {
+        CardEntity card = new CardEntity();
+        card.setId(UUID.randomUUID());
+        card.setProfile(profileEntity);
+        card.setBalance(Money.of("1000.0"));
+
+        when(cardRepository.findByIdAndVisibleTrue(card.getId())).thenReturn(Optional.of(card));
+
+        try (var utilities = mockStatic(SecurityUtil.class)) {
+            utilities.when(SecurityUtil::getID).thenReturn(UUID.randomUUID());
+
+            assertThrows(BadException.class, () -> cardService.getBalance(card.getId()));
+        }
+    }
+
+    @Test
+    void getBalance_ShardedCardReportsTotal() {
+        CardEntity card = new CardEntity();
+        card.setId(UUID.randomUUID());
+        card.setProfile(profileEntity);
+        card.setBalance(Money.of("100.0"));
+        card.setBalanceSharded(true);
+        card.setStatus(CardStatus.ACTIVE);
+
+        when(cardRepository.findByIdAndVisibleTrue(card.getId())).thenReturn(Optional.of(card));
+        when(balanceShardRepository.totalBalance(card.getId())).thenReturn(BigDecimal.valueOf(350.0));
+
+        try (var utilities = mockStatic(SecurityUtil.class)) {
+            utilities.when(SecurityUtil::getID).thenReturn(profileId);
+
+            CardResponseDTO response = cardService.getBalance(card.getId());
+
+            assertEquals(0, response.getBalance().compareTo(BigDecimal.valueOf(350.0)));
+        }
+    }
+
+    @Test
+    void getBalance_HotCardIncludesJournal() {
+        CardEntity card = new CardEntity();
+        card.setId(UUID.randomUUID());
+        card.setProfile(profileEntity);
+        card.setBalance(Money.of("1000.0"));
+        card.setStatus(CardStatus.ACTIVE);
+
+        when(cardRepository.findByIdAndVisibleTrue(card.getId())).thenReturn(Optional.of(card));
+        when(hotCardSequencer.isHot(card.getId())).thenReturn(true);
+        when(journalRepository.loadBalances(List.of(card.getId()))).thenReturn(Map.of(card.getId(), 87_550L));
+
+        try (var utilities = mockStatic(SecurityUtil.class)) {
+            utilities.when(SecurityUtil::getID).thenReturn(profileId);
+
+            CardResponseDTO response = cardService.getBalance(card.getId());
+
+            assertEquals(0, response.getBalance().compareTo(new BigDecimal("875.50")));
+        }
+    }
+
+    @Test
+    void changeBalanceSharding_DisableFoldsShards() {
+        UUID cardId = UUID.randomUUID();
+        when(cardRepository.updateBalanceShardedById(false, cardId)).thenReturn(1);
+
+        cardService.changeBalanceSharding(cardId, false);
+
+        verify(balanceShardRepository).fold(cardId);
+        verify(eventPublisher).publishEvent(any(CardsInvalidatedEvent.class));
+    }
+
+    @Test
+    void changeBalanceSharding_NotFound() {
+        UUID cardId = UUID.randomUUID();
+        when(cardRepository.updateBalanceShardedById(true, cardId)).thenReturn(0);
+
+        assertThrows(NotFoundException.class, () -> cardService.changeBalanceSharding(cardId, true));
+    }
+
+    @Test
+    void changeStatusBulk_InvalidatesUpdatedCardsOnce() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        CardBulkStatusDTO dto = new CardBulkStatusDTO();
+        dto.setCardIds(List.of(first, second, first));
+        dto.setStatus(CardStatus.BLOCKED);
+
+        when(cardBulkRepository.updateStatus(List.of(first, second), CardStatus.BLOCKED)).thenReturn(Map.of(first, CardStatus.ACTIVE));
+
+        var response = cardService.changeStatusBulk(dto);
+
+        assertEquals(1, response.getData());
+        verify(eventPublisher, times(1)).publishEvent(any(CardsInvalidatedEvent.class));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof CardStatusCountEvent counted
+                && counted.getFrom() == CardStatus.ACTIVE && counted.getTo() == CardStatus.BLOCKED && counted.getCount() == 1));
+    }
+
+    @Test
+    void requestCardBlock_RepeatedRequestKeepsItsPlace() {
+        LocalDateTime requestedAt = LocalDateTime.now().minusDays(3);
+        CardEntity card = new CardEntity();
+        card.setId(UUID.randomUUID());
+        card.setProfile(profileEntity);
+        card.setStatus(CardStatus.REQUEST_BLOCK);
+        card.setBlockRequestedAt(requestedAt);
+
+        when(cardRepository.findByIdAndVisibleTrue(card.getId())).thenReturn(Optional.of(card));
+
+        try (var utilities = mockStatic(SecurityUtil.class)) {
+            utilities.when(SecurityUtil::getID).thenReturn(profileId);
+
+            cardService.requestCardBlock(card.getId());
+
+            verify(cardRepository).requestBlockById(card.getId(), requestedAt);
+            verify(eventPublisher, never()).publishEvent(any(CardStatusCountEvent.class));
+        }
+    }
+
     @Test
     void delete_NotOwner() {
         CardEntity card = new CardEntity();
@@ -172,11 +470,10 @@ class CardServiceTest {
 
     @Test
     void getAllByAdmin_Success() {
-        CardEntity card = new CardEntity();
-        card.setId(UUID.randomUUID());
-        card.setProfile(profileEntity);
+        CardResponseDTO card = new CardResponseDTO(UUID.randomUUID(), "1234567890123456", "Test User",
+                LocalDateTime.now().plusYears(1), CardStatus.ACTIVE, Money.of("10"), "UZS");
 
-        when(cardRepository.findAll()).thenReturn(List.of(card));
+        when(cardRepository.findAllCardViews(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(card)));
 
         try (var utilities = mockStatic(SecurityUtil.class)) {
             utilities.when(() -> SecurityUtil.hasRole(Role.ROLE_ADMIN)).thenReturn(true);
@@ -184,6 +481,28 @@ class CardServiceTest {
             Page<CardResponseDTO> response = cardService.getAllByAdmin(0, 10);
 
             assertEquals(1, response.getContent().size());
+            verify(cardRepository, never()).findAll();
+        }
+    }
+
+    @Test
+    void getAllByAdmin_ShardedCardListedWithShards() {
+        CardResponseDTO plain = new CardResponseDTO(UUID.randomUUID(), "1234567890123456", "Test User",
+                LocalDateTime.now().plusYears(1), CardStatus.ACTIVE, Money.of("10"), "UZS");
+        CardResponseDTO sharded = new CardResponseDTO(UUID.randomUUID(), "1234567890123452", "Merchant",
+                LocalDateTime.now().plusYears(1), CardStatus.ACTIVE, Money.of("100"), "UZS");
+
+        when(cardRepository.findAllCardViews(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(plain, sharded)));
+        when(balanceShardRepository.totalBalances(List.of(plain.getId(), sharded.getId())))
+                .thenReturn(Map.of(sharded.getId(), new BigDecimal("350.00")));
+
+        try (var utilities = mockStatic(SecurityUtil.class)) {
+            utilities.when(() -> SecurityUtil.hasRole(Role.ROLE_ADMIN)).thenReturn(true);
+
+            Page<CardResponseDTO> response = cardService.getAllByAdmin(0, 10);
+
+            assertEquals(new BigDecimal("10.00"), response.getContent().get(0).getBalance());
+            assertEquals(new BigDecimal("350.00"), response.getContent().get(1).getBalance());
         }
     }
 
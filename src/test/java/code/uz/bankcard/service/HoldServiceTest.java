@@ -0,0 +1,236 @@
+package code.uz.bankcard.service;
+
+import code.uz.bankcard.dto.hold.HoldCaptureDTO;
+import code.uz.bankcard.dto.hold.HoldCreateDTO;
+import code.uz.bankcard.dto.hold.HoldResponseDTO;
+import code.uz.bankcard.dto.transaction.TransactionResponseDTO;
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.entity.ProfileEntity;
+import code.uz.bankcard.enums.CardStatus;
+import code.uz.bankcard.enums.HoldStatus;
+import code.uz.bankcard.enums.Role;
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.fee.FeeQuote;
+import code.uz.bankcard.fee.TransferFeeEngine;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.repository.CardHoldRepository;
+import code.uz.bankcard.repository.CardRepository;
+import code.uz.bankcard.service.Impl.HoldServiceImpl;
+import code.uz.bankcard.service.Impl.TransactionServiceImpl;
+import code.uz.bankcard.transfer.HotCardSequencer;
+import code.uz.bankcard.util.SecurityUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HoldServiceTest {
+
+    @InjectMocks
+    private HoldServiceImpl holdService;
+
+    @Mock
+    private CardHoldRepository cardHoldRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private TransactionServiceImpl transactionService;
+
+    @Mock
+    private HotCardSequencer hotCardSequencer;
+
+    @Mock
+    private TransferFeeEngine feeEngine;
+
+    private MockedStatic<SecurityUtil> securityUtil;
+
+    private final UUID profileId = UUID.randomUUID();
+
+    @BeforeEach
+    void setup() {
+        securityUtil = Mockito.mockStatic(SecurityUtil.class);
+        ReflectionTestUtils.setField(holdService, "ttl", Duration.ofDays(7));
+        when(SecurityUtil.getID()).thenReturn(profileId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        securityUtil.close();
+    }
+
+    @Test
+    void hold_ReservesWithOneStatement() {
+        HoldCreateDTO dto = holdDTO("100");
+        when(cardHoldRepository.place(any(), eq(dto.getFromCardId()), eq(profileId), eq(dto.getToCardId()),
+                eq(Money.of("100")), any(), any())).thenReturn(Optional.of(Money.of("400")));
+
+        HoldResponseDTO response = holdService.hold(dto);
+
+        assertEquals(HoldStatus.ACTIVE, response.getStatus());
+        assertEquals(new BigDecimal("400.00"), response.getAvailableBalance());
+        assertEquals(response.getCreatedDate().plusDays(7), response.getExpiresAt());
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void hold_RefusedExplainsInsufficientBalance() {
+        HoldCreateDTO dto = holdDTO("600");
+        when(cardHoldRepository.place(any(), any(), any(), any(), any(), any(), any())).thenReturn(Optional.empty());
+        when(cardRepository.findByIdAndVisibleTrue(dto.getFromCardId())).thenReturn(Optional.of(card(profileId)));
+        when(cardRepository.findByIdAndVisibleTrue(dto.getToCardId())).thenReturn(Optional.of(card(UUID.randomUUID())));
+
+        BadException exception = assertThrows(BadException.class, () -> holdService.hold(dto));
+
+        assertEquals("Insufficient balance", exception.getMessage());
+    }
+
+    @Test
+    void capture_PartialAmountTransfersAndReleasesHold() {
+        CardHoldRepository.Hold hold = activeHold("100");
+        HoldCaptureDTO dto = new HoldCaptureDTO();
+        dto.setAmount(Money.of("80"));
+        CardEntity fromCard = card(profileId);
+        CardEntity toCard = card(UUID.randomUUID());
+        TransactionResponseDTO transaction = new TransactionResponseDTO();
+        transaction.setId(7);
+
+        when(cardHoldRepository.find(hold.id())).thenReturn(Optional.of(hold));
+        when(cardHoldRepository.capture(eq(hold.id()), eq(Money.of("80")), any())).thenReturn(true);
+        when(cardRepository.findByIdAndVisibleTrue(hold.cardId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(hold.toCardId())).thenReturn(Optional.of(toCard));
+        when(feeEngine.quote(Role.ROLE_USER, fromCard, toCard, Money.of("80"))).thenReturn(FeeQuote.NONE);
+        when(transactionService.executeTransfer(argThat(t -> t.getAmount().equals(Money.of("80"))), eq(fromCard), eq(toCard), eq(FeeQuote.NONE)))
+                .thenReturn(transaction);
+
+        HoldResponseDTO response = holdService.capture(hold.id(), dto);
+
+        assertEquals(HoldStatus.CAPTURED, response.getStatus());
+        assertEquals(new BigDecimal("80.00"), response.getCapturedAmount());
+        assertEquals(7, response.getTransactionId());
+        verify(cardHoldRepository).setTransaction(hold.id(), 7);
+    }
+
+    @Test
+    void capture_ChargesTheFeeOfADirectTransfer() {
+        CardHoldRepository.Hold hold = activeHold("100");
+        CardEntity fromCard = card(profileId);
+        CardEntity toCard = card(UUID.randomUUID());
+        FeeQuote fee = new FeeQuote(Money.of("1.50"), "third-party");
+        TransactionResponseDTO transaction = new TransactionResponseDTO();
+        transaction.setId(8);
+
+        when(cardHoldRepository.find(hold.id())).thenReturn(Optional.of(hold));
+        when(cardHoldRepository.capture(eq(hold.id()), eq(Money.of("100")), any())).thenReturn(true);
+        when(cardRepository.findByIdAndVisibleTrue(hold.cardId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(hold.toCardId())).thenReturn(Optional.of(toCard));
+        when(feeEngine.quote(Role.ROLE_USER, fromCard, toCard, Money.of("100"))).thenReturn(fee);
+        when(transactionService.executeTransfer(any(), eq(fromCard), eq(toCard), eq(fee))).thenReturn(transaction);
+
+        HoldResponseDTO response = holdService.capture(hold.id(), null);
+
+        assertEquals(8, response.getTransactionId());
+        verify(transactionService).executeTransfer(argThat(t -> t.getAmount().equals(Money.of("100"))), eq(fromCard), eq(toCard), eq(fee));
+    }
+
+    @Test
+    void capture_CardBlockedSinceTheHoldIsRejected() {
+        CardHoldRepository.Hold hold = activeHold("100");
+        CardEntity fromCard = card(profileId);
+        fromCard.setStatus(CardStatus.BLOCKED);
+
+        when(cardHoldRepository.find(hold.id())).thenReturn(Optional.of(hold));
+        when(cardHoldRepository.capture(eq(hold.id()), eq(Money.of("100")), any())).thenReturn(true);
+        when(cardRepository.findByIdAndVisibleTrue(hold.cardId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(hold.toCardId())).thenReturn(Optional.of(card(UUID.randomUUID())));
+
+        BadException exception = assertThrows(BadException.class, () -> holdService.capture(hold.id(), null));
+
+        assertEquals("Sender Card is not active", exception.getMessage());
+        verifyNoInteractions(transactionService, feeEngine);
+        verify(cardHoldRepository, never()).setTransaction(any(), any());
+    }
+
+    @Test
+    void capture_RecipientBlockedSinceTheHoldIsRejected() {
+        CardHoldRepository.Hold hold = activeHold("100");
+        CardEntity toCard = card(UUID.randomUUID());
+        toCard.setStatus(CardStatus.REQUEST_BLOCK);
+
+        when(cardHoldRepository.find(hold.id())).thenReturn(Optional.of(hold));
+        when(cardHoldRepository.capture(eq(hold.id()), eq(Money.of("100")), any())).thenReturn(true);
+        when(cardRepository.findByIdAndVisibleTrue(hold.cardId())).thenReturn(Optional.of(card(profileId)));
+        when(cardRepository.findByIdAndVisibleTrue(hold.toCardId())).thenReturn(Optional.of(toCard));
+
+        BadException exception = assertThrows(BadException.class, () -> holdService.capture(hold.id(), null));
+
+        assertEquals("Recipient Card is not active", exception.getMessage());
+        verifyNoInteractions(transactionService, feeEngine);
+    }
+
+    @Test
+    void capture_MoreThanHeldIsRejected() {
+        CardHoldRepository.Hold hold = activeHold("100");
+        HoldCaptureDTO dto = new HoldCaptureDTO();
+        dto.setAmount(Money.of("100.01"));
+        when(cardHoldRepository.find(hold.id())).thenReturn(Optional.of(hold));
+
+        BadException exception = assertThrows(BadException.class, () -> holdService.capture(hold.id(), dto));
+
+        assertEquals("Capture amount exceeds the hold", exception.getMessage());
+        verify(cardHoldRepository, never()).capture(any(), any(), any());
+    }
+
+    @Test
+    void voidHold_OtherUsersHoldIsRejected() {
+        CardHoldRepository.Hold hold = new CardHoldRepository.Hold(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                UUID.randomUUID(), Money.of("100"), null, HoldStatus.ACTIVE, LocalDateTime.now(), LocalDateTime.now().plusDays(1), null);
+        when(SecurityUtil.hasRole(Role.ROLE_ADMIN)).thenReturn(false);
+        when(cardHoldRepository.find(hold.id())).thenReturn(Optional.of(hold));
+
+        assertThrows(BadException.class, () -> holdService.voidHold(hold.id()));
+        verify(cardHoldRepository, never()).release(any(), any());
+    }
+
+    private HoldCreateDTO holdDTO(String amount) {
+        HoldCreateDTO dto = new HoldCreateDTO();
+        dto.setFromCardId(UUID.randomUUID());
+        dto.setToCardId(UUID.randomUUID());
+        dto.setAmount(Money.of(amount));
+        return dto;
+    }
+
+    private CardHoldRepository.Hold activeHold(String amount) {
+        return new CardHoldRepository.Hold(UUID.randomUUID(), UUID.randomUUID(), profileId, UUID.randomUUID(),
+                Money.of(amount), null, HoldStatus.ACTIVE, LocalDateTime.now(), LocalDateTime.now().plusDays(1), null);
+    }
+
+    private CardEntity card(UUID ownerId) {
+        ProfileEntity profile = new ProfileEntity();
+        profile.setId(ownerId);
+        CardEntity card = new CardEntity();
+        card.setId(UUID.randomUUID());
+        card.setBalance(Money.of("500"));
+        card.setStatus(CardStatus.ACTIVE);
+        card.setProfile(profile);
+        return card;
+    }
+}
@@ -0,0 +1,132 @@
+package code.uz.bankcard.service;
+
+import code.uz.bankcard.dto.card.CardBalanceAtDTO;
+import code.uz.bankcard.entity.BalanceSnapshotEntity;
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.entity.LedgerEntryEntity;
+import code.uz.bankcard.entity.TransactionEntity;
+import code.uz.bankcard.enums.LedgerEntryType;
+import code.uz.bankcard.exception.NotFoundException;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.repository.BalanceSnapshotRepository;
+import code.uz.bankcard.repository.CardRepository;
+import code.uz.bankcard.repository.LedgerEntryRepository;
+import code.uz.bankcard.service.Impl.LedgerServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerServiceTest {
+
+    @InjectMocks
+    private LedgerServiceImpl ledgerService;
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @BeforeEach
+    void setup() {
+        ReflectionTestUtils.setField(ledgerService, "snapshotLag", Duration.ofMinutes(1));
+    }
+
+    @Test
+    void recordTransfer_WritesBalancedEntries() {
+        CardEntity from = new CardEntity();
+        from.setId(UUID.randomUUID());
+        CardEntity to = new CardEntity();
+        to.setId(UUID.randomUUID());
+
+        TransactionEntity transaction = new TransactionEntity();
+        transaction.setId(7);
+        transaction.setFromCardId(from);
+        transaction.setToCardId(to);
+        transaction.setAmount(Money.of("150.00"));
+        transaction.setSentDate(LocalDateTime.now());
+
+        ledgerService.recordTransfer(transaction);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LedgerEntryEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerEntryRepository).saveAll(captor.capture());
+        List<LedgerEntryEntity> entries = captor.getValue();
+
+        assertEquals(2, entries.size());
+        assertEquals(LedgerEntryType.DEBIT, entries.get(0).getEntryType());
+        assertEquals(from.getId(), entries.get(0).getCardId());
+        assertEquals(LedgerEntryType.CREDIT, entries.get(1).getEntryType());
+        assertEquals(to.getId(), entries.get(1).getCardId());
+        assertEquals(0, entries.get(0).getAmount().add(entries.get(1).getAmount()).signum());
+        assertTrue(entries.stream().allMatch(e -> e.getTransactionId() == 7));
+    }
+
+    @Test
+    void getBalanceAt_SnapshotPlusDelta() {
+        UUID cardId = UUID.randomUUID();
+        LocalDateTime at = LocalDateTime.now();
+        BalanceSnapshotEntity snapshot = new BalanceSnapshotEntity();
+        snapshot.setCardId(cardId);
+        snapshot.setSnapshotDate(at.minusMinutes(10));
+        snapshot.setBalance(new BigDecimal("1000.00"));
+
+        when(cardRepository.existsById(cardId)).thenReturn(true);
+        when(balanceSnapshotRepository.findFirstByCardIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(cardId, at))
+                .thenReturn(Optional.of(snapshot));
+        when(ledgerEntryRepository.sumAmount(cardId, snapshot.getSnapshotDate(), at)).thenReturn(new BigDecimal("-250.00"));
+
+        CardBalanceAtDTO response = ledgerService.getBalanceAt(cardId, at);
+
+        assertEquals(new BigDecimal("750.00"), response.getBalance());
+        assertEquals(snapshot.getSnapshotDate(), response.getSnapshotDate());
+    }
+
+    @Test
+    void getBalanceAt_CardNotFound() {
+        UUID cardId = UUID.randomUUID();
+        when(cardRepository.existsById(cardId)).thenReturn(false);
+
+        assertThrows(NotFoundException.class, () -> ledgerService.getBalanceAt(cardId, LocalDateTime.now()));
+    }
+
+    @Test
+    void takeSnapshots_ContinuesFromLastCutoff() {
+        LocalDateTime lastCutoff = LocalDateTime.now().minusMinutes(30);
+        when(balanceSnapshotRepository.tryLock(anyLong())).thenReturn(true);
+        when(balanceSnapshotRepository.findLastCutoff()).thenReturn(Optional.of(lastCutoff));
+        when(balanceSnapshotRepository.createSnapshots(eq(lastCutoff), any())).thenReturn(3);
+
+        assertEquals(3, ledgerService.takeSnapshots());
+        verify(balanceSnapshotRepository).saveRun(any(), eq(3));
+    }
+
+    @Test
+    void takeSnapshots_SkippedWhenLocked() {
+        when(balanceSnapshotRepository.tryLock(anyLong())).thenReturn(false);
+
+        assertEquals(0, ledgerService.takeSnapshots());
+        verify(balanceSnapshotRepository, never()).createSnapshots(any(), any());
+    }
+}
@@ -0,0 +1,189 @@
+package code.uz.bankcard.service;
+
+import code.uz.bankcard.dto.transaction.ScheduledTransferCreateDTO;
+import code.uz.bankcard.dto.transaction.TransactionCreateDTO;
+import code.uz.bankcard.dto.transaction.TransactionResponseDTO;
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.entity.ProfileEntity;
+import code.uz.bankcard.entity.ScheduledTransferEntity;
+import code.uz.bankcard.enums.ScheduleRecurrence;
+import code.uz.bankcard.enums.ScheduledTransferStatus;
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.repository.CardRepository;
+import code.uz.bankcard.repository.ScheduledTransferRepository;
+import code.uz.bankcard.service.Impl.ScheduledTransferServiceImpl;
+import code.uz.bankcard.service.Impl.TransactionServiceImpl;
+import code.uz.bankcard.util.SecurityUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ScheduledTransferServiceTest {
+
+    @InjectMocks
+    private ScheduledTransferServiceImpl scheduledTransferService;
+
+    @Mock
+    private ScheduledTransferRepository scheduledTransferRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private TransactionServiceImpl transactionService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private MockedStatic<SecurityUtil> securityUtil;
+
+    private final UUID profileId = UUID.randomUUID();
+
+    @BeforeEach
+    void setup() {
+        securityUtil = Mockito.mockStatic(SecurityUtil.class);
+        ReflectionTestUtils.setField(scheduledTransferService, "chunkSize", 100);
+        ReflectionTestUtils.setField(scheduledTransferService, "lease", Duration.ofMinutes(2));
+        ReflectionTestUtils.invokeMethod(scheduledTransferService, "registerMetrics");
+
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        securityUtil.close();
+    }
+
+    @Test
+    void executeDue_RunsTransferAndAdvancesMonthlyOrder() {
+        LocalDateTime start = LocalDateTime.now().minusMinutes(5);
+        ScheduledTransferEntity order = order(ScheduleRecurrence.MONTHLY, start);
+        stubDue(order);
+
+        TransactionResponseDTO transaction = new TransactionResponseDTO();
+        transaction.setId(42);
+        when(transactionService.transferOnBehalf(eq(profileId), any(TransactionCreateDTO.class))).thenReturn(transaction);
+
+        assertEquals(1, scheduledTransferService.executeDue());
+
+        assertEquals(ScheduledTransferStatus.ACTIVE, order.getStatus());
+        assertEquals(start.plusMonths(1), order.getNextRunAt());
+        assertEquals(1, order.getOccurrence());
+        assertEquals(42, order.getLastTransactionId());
+        assertNull(order.getClaimedUntil());
+        assertEquals(1, meterRegistry.get("transfer.scheduled.lag").timer().count());
+        assertEquals(1.0, meterRegistry.get("transfer.scheduled.runs").tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void executeDue_OnceOrderCompletes() {
+        ScheduledTransferEntity order = order(ScheduleRecurrence.ONCE, LocalDateTime.now().minusSeconds(1));
+        stubDue(order);
+        when(transactionService.transferOnBehalf(eq(profileId), any())).thenReturn(new TransactionResponseDTO());
+
+        scheduledTransferService.executeDue();
+
+        assertEquals(ScheduledTransferStatus.COMPLETED, order.getStatus());
+    }
+
+    @Test
+    void executeDue_RejectedRunIsSkipped() {
+        LocalDateTime start = LocalDateTime.now().minusDays(1).minusMinutes(5);
+        ScheduledTransferEntity order = order(ScheduleRecurrence.DAILY, start);
+        stubDue(order);
+        when(transactionService.transferOnBehalf(eq(profileId), any())).thenThrow(new BadException("Insufficient balance"));
+
+        assertEquals(1, scheduledTransferService.executeDue());
+
+        assertEquals(ScheduledTransferStatus.ACTIVE, order.getStatus());
+        assertEquals("Insufficient balance", order.getLastError());
+        // the missed run of yesterday and today's run are both skipped
+        assertEquals(start.plusDays(2), order.getNextRunAt());
+        assertEquals(1.0, meterRegistry.get("transfer.scheduled.runs").tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    void executeDue_UnexpectedErrorLeavesOrderForRetry() {
+        LocalDateTime start = LocalDateTime.now().minusMinutes(5);
+        ScheduledTransferEntity order = order(ScheduleRecurrence.WEEKLY, start);
+        stubDue(order);
+        when(transactionService.transferOnBehalf(eq(profileId), any())).thenThrow(new IllegalStateException("connection reset"));
+
+        assertEquals(0, scheduledTransferService.executeDue());
+
+        assertEquals(start, order.getNextRunAt());
+        assertNotNull(order.getClaimedUntil());
+    }
+
+    @Test
+    void create_RejectsForeignCard() {
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        ProfileEntity owner = new ProfileEntity();
+        owner.setId(UUID.randomUUID());
+        CardEntity fromCard = new CardEntity();
+        fromCard.setProfile(owner);
+
+        ScheduledTransferCreateDTO dto = new ScheduledTransferCreateDTO();
+        dto.setFromCardId(UUID.randomUUID());
+        dto.setToCardId(UUID.randomUUID());
+        dto.setAmount(Money.of("10"));
+        dto.setFirstRunAt(LocalDateTime.now().plusDays(1));
+        when(cardRepository.findByIdAndVisibleTrue(dto.getFromCardId())).thenReturn(Optional.of(fromCard));
+
+        assertThrows(BadException.class, () -> scheduledTransferService.create(dto));
+        verify(scheduledTransferRepository, never()).save(any());
+    }
+
+    private void stubDue(ScheduledTransferEntity order) {
+        when(scheduledTransferRepository.lockDue(any(), eq(100))).thenReturn(List.of(order));
+        when(scheduledTransferRepository.findById(order.getId())).thenReturn(Optional.of(order));
+    }
+
+    private ScheduledTransferEntity order(ScheduleRecurrence recurrence, LocalDateTime start) {
+        ScheduledTransferEntity order = new ScheduledTransferEntity();
+        order.setId(UUID.randomUUID());
+        order.setProfileId(profileId);
+        order.setFromCardId(UUID.randomUUID());
+        order.setToCardId(UUID.randomUUID());
+        order.setAmount(Money.of("10"));
+        order.setRecurrence(recurrence);
+        order.setStartAt(start);
+        order.setNextRunAt(start);
+        order.setOccurrence(0);
+        order.setStatus(ScheduledTransferStatus.ACTIVE);
+        return order;
+    }
+}
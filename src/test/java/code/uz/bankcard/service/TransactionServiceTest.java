@@ -1,5 +1,9 @@
 package code.uz.bankcard.service;
 
+import code.uz.bankcard.analytics.SpendingAggregator;
+import code.uz.bankcard.dto.analytics.CardAnalyticsDTO;
+import code.uz.bankcard.dto.transaction.TransactionChangeDTO;
+import code.uz.bankcard.dto.transaction.TransactionChangesDTO;
 import code.uz.bankcard.dto.transaction.TransactionCreateDTO;
 import code.uz.bankcard.dto.transaction.TransactionResponseDTO;
 import code.uz.bankcard.entity.CardEntity;
@@ -9,19 +13,40 @@ import code.uz.bankcard.enums.CardStatus;
 import code.uz.bankcard.enums.Role;
 import code.uz.bankcard.enums.TransactionStatus;
 import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.fee.FeeQuote;
+import code.uz.bankcard.fee.TransferFeeEngine;
+import code.uz.bankcard.fraud.TransferScreening;
+import code.uz.bankcard.fx.FxConversion;
+import code.uz.bankcard.fx.FxRateCache;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.ratelimit.TransferRateLimiter;
+import code.uz.bankcard.outbox.TransferOutbox;
+import code.uz.bankcard.repository.CardBalanceShardRepository;
+import code.uz.bankcard.repository.CardMonthlyAggregateRepository;
 import code.uz.bankcard.repository.CardRepository;
+import code.uz.bankcard.repository.TransactionChangeRepository;
 import code.uz.bankcard.repository.TransactionRepository;
 import code.uz.bankcard.service.Impl.TransactionServiceImpl;
+import code.uz.bankcard.transfer.FailedTransactionWriter;
+import code.uz.bankcard.transfer.GroupCommitTransferEngine;
+import code.uz.bankcard.transfer.HotCardSequencer;
+import code.uz.bankcard.transfer.SpendLimitGuard;
 import code.uz.bankcard.util.SecurityUtil;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -39,9 +64,67 @@ class TransactionServiceTest {
     @Mock
     private CardRepository cardRepository;
 
+    @Mock
+    private FailedTransactionWriter failedTransactionWriter;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private GroupCommitTransferEngine groupCommitEngine;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private HotCardSequencer hotCardSequencer;
+
+    @Mock
+    private CardBalanceShardRepository balanceShardRepository;
+
+    @Mock
+    private SpendLimitGuard spendLimitGuard;
+
+    @Mock
+    private TransferScreening transferScreening;
+
+    @Mock
+    private TransferFeeEngine feeEngine;
+
+    @Mock
+    private FxRateCache fxRateCache;
+
+    @Mock
+    private TransferOutbox transferOutbox;
+
+    @Mock
+    private TransactionChangeRepository changeRepository;
+
+    @Mock
+    private SpendingAggregator spendingAggregator;
+
+    @Mock
+    private CardMonthlyAggregateRepository aggregateRepository;
+
+    @Mock
+    private TransferRateLimiter transferRateLimiter;
+
+    private MockedStatic<SecurityUtil> securityUtil;
+
     @BeforeEach
     void setup() {
-        Mockito.mockStatic(SecurityUtil.class);
+        securityUtil = Mockito.mockStatic(SecurityUtil.class);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(feeEngine.quote(any(), any(), any(), any())).thenReturn(FeeQuote.NONE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        securityUtil.close();
     }
 
     @Test
@@ -53,20 +136,22 @@ class TransactionServiceTest {
         TransactionCreateDTO dto = new TransactionCreateDTO();
         dto.setFromCardId(fromCardId);
         dto.setToCardId(toCardId);
-        dto.setAmount(new BigDecimal("100"));
+        dto.setAmount(Money.of("100"));
 
         CardEntity fromCard = new CardEntity();
         fromCard.setId(fromCardId);
-        fromCard.setBalance(new BigDecimal("500"));
+        fromCard.setBalance(Money.of("500"));
         fromCard.setStatus(CardStatus.ACTIVE);
+        fromCard.setCurrency("UZS");
         ProfileEntity fromProfile = new ProfileEntity();
         fromProfile.setId(profileId);
         fromCard.setProfile(fromProfile);
 
         CardEntity toCard = new CardEntity();
         toCard.setId(toCardId);
-        toCard.setBalance(new BigDecimal("200"));
+        toCard.setBalance(Money.of("200"));
         toCard.setStatus(CardStatus.ACTIVE);
+        toCard.setCurrency("UZS");
         ProfileEntity toProfile = new ProfileEntity();
         toProfile.setId(UUID.randomUUID());
         toCard.setProfile(toProfile);
@@ -81,9 +166,59 @@ class TransactionServiceTest {
 
         TransactionResponseDTO response = transactionService.transfer(dto);
 
-        assertEquals(new BigDecimal("400"), fromCard.getBalance());
-        assertEquals(new BigDecimal("300"), toCard.getBalance());
+        assertEquals(Money.of("400"), fromCard.getBalance());
+        assertEquals(Money.of("300"), toCard.getBalance());
         assertEquals(TransactionStatus.SUCCESS, response.getStatus());
+        verify(ledgerService).recordTransfer(any(TransactionEntity.class));
+    }
+
+    @Test
+    void Transfer_OwnCardChargesItsRateLimit() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity fromCard = activeCard(profileId, "500");
+        CardEntity toCard = activeCard(UUID.randomUUID(), "0");
+
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(fromCard.getId());
+        dto.setToCardId(toCard.getId());
+        dto.setAmount(Money.of("100"));
+
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(transferRateLimiter.isEnabled()).thenReturn(true);
+        when(cardRepository.findOwnerIdById(fromCard.getId())).thenReturn(Optional.of(profileId));
+        when(cardRepository.findByIdAndVisibleTrue(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(toCard.getId())).thenReturn(Optional.of(toCard));
+        when(transactionRepository.save(any(TransactionEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+        transactionService.transfer(dto);
+
+        InOrder order = inOrder(transferRateLimiter);
+        order.verify(transferRateLimiter).checkProfile();
+        order.verify(transferRateLimiter).checkCard(fromCard.getId());
+    }
+
+    @Test
+    void Transfer_ForeignCardDoesNotUseUpItsRateLimit() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity fromCard = activeCard(UUID.randomUUID(), "500");
+        CardEntity toCard = activeCard(profileId, "0");
+
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(fromCard.getId());
+        dto.setToCardId(toCard.getId());
+        dto.setAmount(Money.of("100"));
+
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(transferRateLimiter.isEnabled()).thenReturn(true);
+        when(cardRepository.findOwnerIdById(fromCard.getId())).thenReturn(Optional.of(fromCard.getProfile().getId()));
+        when(cardRepository.findByIdAndVisibleTrue(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(toCard.getId())).thenReturn(Optional.of(toCard));
+
+        BadException exception = assertThrows(BadException.class, () -> transactionService.transfer(dto));
+
+        assertEquals("You can only transfer from your own card", exception.getMessage());
+        verify(transferRateLimiter).checkProfile();
+        verify(transferRateLimiter, never()).checkCard(any());
     }
 
     @Test
@@ -95,20 +230,22 @@ class TransactionServiceTest {
         TransactionCreateDTO dto = new TransactionCreateDTO();
         dto.setFromCardId(fromCardId);
         dto.setToCardId(toCardId);
-        dto.setAmount(new BigDecimal("600"));
+        dto.setAmount(Money.of("600"));
 
         CardEntity fromCard = new CardEntity();
         fromCard.setId(fromCardId);
-        fromCard.setBalance(new BigDecimal("500"));
+        fromCard.setBalance(Money.of("500"));
         fromCard.setStatus(CardStatus.ACTIVE);
+        fromCard.setCurrency("UZS");
         ProfileEntity fromProfile = new ProfileEntity();
         fromProfile.setId(profileId);
         fromCard.setProfile(fromProfile);
 
         CardEntity toCard = new CardEntity();
         toCard.setId(toCardId);
-        toCard.setBalance(new BigDecimal("200"));
+        toCard.setBalance(Money.of("200"));
         toCard.setStatus(CardStatus.ACTIVE);
+        toCard.setCurrency("UZS");
         ProfileEntity toProfile = new ProfileEntity();
         toProfile.setId(UUID.randomUUID());
         toCard.setProfile(toProfile);
@@ -120,6 +257,9 @@ class TransactionServiceTest {
 
         BadException exception = assertThrows(BadException.class, () -> transactionService.transfer(dto));
         assertEquals("Insufficient balance", exception.getMessage());
+        verifyNoInteractions(ledgerService);
+        verify(spendLimitGuard, never()).count(any(), any());
+        verify(failedTransactionWriter).record(fromCardId, toCardId, Money.of("600"));
     }
 
     @Test
@@ -130,18 +270,20 @@ class TransactionServiceTest {
         TransactionCreateDTO dto = new TransactionCreateDTO();
         dto.setFromCardId(fromCardId);
         dto.setToCardId(toCardId);
-        dto.setAmount(new BigDecimal("100"));
+        dto.setAmount(Money.of("100"));
 
         CardEntity fromCard = new CardEntity();
         fromCard.setId(fromCardId);
-        fromCard.setBalance(new BigDecimal("500"));
+        fromCard.setBalance(Money.of("500"));
         fromCard.setStatus(CardStatus.ACTIVE);
+        fromCard.setCurrency("UZS");
         fromCard.setProfile(new ProfileEntity());
 
         CardEntity toCard = new CardEntity();
         toCard.setId(toCardId);
-        toCard.setBalance(new BigDecimal("200"));
+        toCard.setBalance(Money.of("200"));
         toCard.setStatus(CardStatus.ACTIVE);
+        toCard.setCurrency("UZS");
         toCard.setProfile(new ProfileEntity());
 
         when(SecurityUtil.hasRole(Role.ROLE_ADMIN)).thenReturn(true);
@@ -163,18 +305,20 @@ class TransactionServiceTest {
         TransactionCreateDTO dto = new TransactionCreateDTO();
         dto.setFromCardId(fromCardId);
         dto.setToCardId(toCardId);
-        dto.setAmount(new BigDecimal("100"));
+        dto.setAmount(Money.of("100"));
 
         CardEntity fromCard = new CardEntity();
         fromCard.setId(fromCardId);
-        fromCard.setBalance(new BigDecimal("500"));
+        fromCard.setBalance(Money.of("500"));
         fromCard.setStatus(CardStatus.ACTIVE);
+        fromCard.setCurrency("UZS");
         fromCard.setProfile(new ProfileEntity());
 
         CardEntity toCard = new CardEntity();
         toCard.setId(toCardId);
-        toCard.setBalance(new BigDecimal("200"));
+        toCard.setBalance(Money.of("200"));
         toCard.setStatus(CardStatus.ACTIVE);
+        toCard.setCurrency("UZS");
         toCard.setProfile(new ProfileEntity());
 
         when(SecurityUtil.hasRole(Role.ROLE_ADMIN)).thenReturn(false);
@@ -183,6 +327,7 @@ class TransactionServiceTest {
 
         BadException exception = assertThrows(BadException.class, () -> transactionService.transferByAdmin(dto));
         assertEquals("Only admins can transfer", exception.getMessage());
+        verify(transferRateLimiter, never()).checkCard(any());
     }
 
     @Test
@@ -206,7 +351,7 @@ class TransactionServiceTest {
         transaction.setId(1);
         transaction.setFromCardId(fromCard);
         transaction.setToCardId(toCard);
-        transaction.setAmount(new BigDecimal("100"));
+        transaction.setAmount(Money.of("100"));
         transaction.setStatus(TransactionStatus.SUCCESS);
         transaction.setSentDate(LocalDateTime.now());
 
@@ -219,7 +364,7 @@ class TransactionServiceTest {
         TransactionResponseDTO dto = result.getContent().get(0);
         assertEquals("1111-2222-3333-4444", dto.getFromCardNumber());
         assertEquals("5555-6666-7777-8888", dto.getToCardNumber());
-        assertEquals(new BigDecimal("100"), dto.getAmount());
+        assertEquals(new BigDecimal("100.00"), dto.getAmount());
         assertEquals(TransactionStatus.SUCCESS, dto.getStatus());
     }
 
@@ -238,7 +383,7 @@ class TransactionServiceTest {
         transaction.setId(2);
         transaction.setFromCardId(fromCard);
         transaction.setToCardId(toCard);
-        transaction.setAmount(new BigDecimal("50"));
+        transaction.setAmount(Money.of("50"));
         transaction.setStatus(TransactionStatus.SUCCESS);
         transaction.setSentDate(LocalDateTime.now());
 
@@ -250,7 +395,7 @@ class TransactionServiceTest {
         TransactionResponseDTO dto = result.getContent().get(0);
         assertEquals("9999-8888-7777-6666", dto.getFromCardNumber());
         assertEquals("1111-0000-2222-3333", dto.getToCardNumber());
-        assertEquals(new BigDecimal("50"), dto.getAmount());
+        assertEquals(new BigDecimal("50.00"), dto.getAmount());
         assertEquals(TransactionStatus.SUCCESS, dto.getStatus());
     }
 
@@ -266,4 +411,445 @@ class TransactionServiceTest {
         assertEquals("Only admins can view all transactions", exception.getMessage());
     }
 
+    @Test
+    void Transfer_GroupCommit() {
+        UUID profileId = UUID.randomUUID();
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(UUID.randomUUID());
+        dto.setToCardId(UUID.randomUUID());
+        dto.setAmount(Money.of("100"));
+
+        TransactionResponseDTO batched = new TransactionResponseDTO();
+        batched.setStatus(TransactionStatus.SUCCESS);
+
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(SecurityUtil.hasRole(Role.ROLE_ADMIN)).thenReturn(false);
+        when(groupCommitEngine.isEnabled()).thenReturn(true);
+        when(groupCommitEngine.submit(any())).thenReturn(batched);
+
+        assertSame(batched, transactionService.transfer(dto));
+        verifyNoInteractions(transactionTemplate, cardRepository);
+    }
+
+    @Test
+    void Transfer_HotCardGoesToSequencer() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity fromCard = activeCard(profileId, "500");
+        CardEntity toCard = activeCard(UUID.randomUUID(), "200");
+
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(fromCard.getId());
+        dto.setToCardId(toCard.getId());
+        dto.setAmount(Money.of("100"));
+
+        TransactionEntity saved = new TransactionEntity();
+        saved.setAmount(Money.of("100.00"));
+        saved.setStatus(TransactionStatus.SUCCESS);
+
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(SecurityUtil.hasRole(Role.ROLE_ADMIN)).thenReturn(false);
+        when(hotCardSequencer.isHot(fromCard.getId())).thenReturn(true);
+        when(cardRepository.findByIdAndVisibleTrue(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(toCard.getId())).thenReturn(Optional.of(toCard));
+        when(hotCardSequencer.transfer(fromCard, toCard, dto.getAmount(), null, Money.ZERO)).thenReturn(saved);
+
+        TransactionResponseDTO response = transactionService.transfer(dto);
+
+        assertEquals(TransactionStatus.SUCCESS, response.getStatus());
+        assertEquals(Money.of("500"), fromCard.getBalance());
+        verifyNoInteractions(transactionTemplate, groupCommitEngine);
+        verify(cardRepository, never()).save(any());
+    }
+
+    @Test
+    void Transfer_HotCardPaysFeeThroughSequencer() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity fromCard = activeCard(profileId, "500");
+        CardEntity toCard = activeCard(UUID.randomUUID(), "200");
+        CardEntity feeCard = activeCard(UUID.randomUUID(), "0");
+
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(fromCard.getId());
+        dto.setToCardId(toCard.getId());
+        dto.setAmount(Money.of("100"));
+
+        TransactionEntity saved = new TransactionEntity();
+        saved.setAmount(Money.of("100.00"));
+        saved.setStatus(TransactionStatus.SUCCESS);
+
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(hotCardSequencer.isHot(fromCard.getId())).thenReturn(true);
+        when(cardRepository.findByIdAndVisibleTrue(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(toCard.getId())).thenReturn(Optional.of(toCard));
+        when(cardRepository.findByIdAndVisibleTrue(feeCard.getId())).thenReturn(Optional.of(feeCard));
+        when(feeEngine.quote(Role.ROLE_USER, fromCard, toCard, Money.of("100"))).thenReturn(new FeeQuote(Money.of("1.50"), "merchant"));
+        when(feeEngine.getCollectionCardId("UZS")).thenReturn(feeCard.getId());
+        when(hotCardSequencer.transfer(fromCard, toCard, dto.getAmount(), feeCard, Money.of("1.50"))).thenReturn(saved);
+
+        TransactionResponseDTO response = transactionService.transfer(dto);
+
+        assertEquals(new BigDecimal("1.50"), response.getFee());
+        verify(cardRepository, never()).save(any());
+    }
+
+    @Test
+    void Transfer_CreditToHotCardIsJournaled() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity fromCard = activeCard(profileId, "500");
+        CardEntity toCard = activeCard(UUID.randomUUID(), "200");
+
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(fromCard.getId());
+        dto.setToCardId(toCard.getId());
+        dto.setAmount(Money.of("100"));
+
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(SecurityUtil.hasRole(Role.ROLE_ADMIN)).thenReturn(false);
+        when(hotCardSequencer.isHot(any())).thenAnswer(i -> toCard.getId().equals(i.getArgument(0)));
+        when(cardRepository.findByIdAndVisibleTrue(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(toCard.getId())).thenReturn(Optional.of(toCard));
+        when(transactionRepository.save(any(TransactionEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+        transactionService.transfer(dto);
+
+        assertEquals(Money.of("400"), fromCard.getBalance());
+        assertEquals(Money.of("200"), toCard.getBalance());
+        verify(cardRepository, never()).save(toCard);
+        verify(hotCardSequencer).journalCredit(any(TransactionEntity.class));
+    }
+
+    @Test
+    void Transfer_CreditToShardedCardGoesToShard() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity fromCard = activeCard(profileId, "500");
+        CardEntity toCard = activeCard(UUID.randomUUID(), "200");
+        toCard.setBalanceSharded(true);
+
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(fromCard.getId());
+        dto.setToCardId(toCard.getId());
+        dto.setAmount(Money.of("100"));
+
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(SecurityUtil.hasRole(Role.ROLE_ADMIN)).thenReturn(false);
+        when(cardRepository.findByIdAndVisibleTrue(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(toCard.getId())).thenReturn(Optional.of(toCard));
+        when(transactionRepository.save(any(TransactionEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+        transactionService.transfer(dto);
+
+        assertEquals(Money.of("400"), fromCard.getBalance());
+        assertEquals(Money.of("200"), toCard.getBalance());
+        verify(balanceShardRepository).credit(toCard.getId(), new BigDecimal("100.00"));
+        verify(cardRepository, never()).save(toCard);
+    }
+
+    @Test
+    void Transfer_ShardedCardInsufficientBalance() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity fromCard = activeCard(profileId, "500");
+        fromCard.setBalanceSharded(true);
+        CardEntity toCard = activeCard(UUID.randomUUID(), "200");
+
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(fromCard.getId());
+        dto.setToCardId(toCard.getId());
+        dto.setAmount(Money.of("100"));
+
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(SecurityUtil.hasRole(Role.ROLE_ADMIN)).thenReturn(false);
+        when(cardRepository.findByIdAndVisibleTrue(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(toCard.getId())).thenReturn(Optional.of(toCard));
+        when(balanceShardRepository.debit(fromCard.getId(), new BigDecimal("100.00"))).thenReturn(null);
+
+        BadException exception = assertThrows(BadException.class, () -> transactionService.transfer(dto));
+
+        assertEquals("Insufficient balance", exception.getMessage());
+        verify(failedTransactionWriter).record(fromCard.getId(), toCard.getId(), Money.of("100"));
+        verify(cardRepository, never()).save(any());
+    }
+
+    @Test
+    void Transfer_HeldFundsAreNotAvailable() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity fromCard = activeCard(profileId, "500");
+        fromCard.setHeldAmount(Money.of("450"));
+        CardEntity toCard = activeCard(UUID.randomUUID(), "0");
+
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(fromCard.getId());
+        dto.setToCardId(toCard.getId());
+        dto.setAmount(Money.of("100"));
+
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(cardRepository.findByIdAndVisibleTrue(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(toCard.getId())).thenReturn(Optional.of(toCard));
+
+        BadException exception = assertThrows(BadException.class, () -> transactionService.transfer(dto));
+
+        assertEquals("Insufficient balance", exception.getMessage());
+        assertEquals(Money.of("500"), fromCard.getBalance());
+        verify(cardRepository, never()).save(any());
+    }
+
+    @Test
+    void Transfer_OverSpendLimitIsRejectedBeforeCardWrites() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity fromCard = activeCard(profileId, "500");
+        fromCard.setDailyLimit(Money.of("50"));
+        // the balance check of a sharded card is an UPDATE of its row
+        fromCard.setBalanceSharded(true);
+        CardEntity toCard = activeCard(UUID.randomUUID(), "0");
+
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(fromCard.getId());
+        dto.setToCardId(toCard.getId());
+        dto.setAmount(Money.of("100"));
+
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(cardRepository.findByIdAndVisibleTrue(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(toCard.getId())).thenReturn(Optional.of(toCard));
+        doThrow(new BadException("Daily spending limit exceeded")).when(spendLimitGuard).precheck(fromCard, Money.of("100"));
+
+        BadException exception = assertThrows(BadException.class, () -> transactionService.transfer(dto));
+
+        assertEquals("Daily spending limit exceeded", exception.getMessage());
+        verify(cardRepository, never()).save(any());
+        verify(balanceShardRepository, never()).debit(any(), any());
+        verify(failedTransactionWriter, never()).record(any(), any(), any());
+    }
+
+    @Test
+    void Transfer_FlaggedTransferMovesNoMoney() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity fromCard = activeCard(profileId, "500");
+        CardEntity toCard = activeCard(UUID.randomUUID(), "0");
+
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(fromCard.getId());
+        dto.setToCardId(toCard.getId());
+        dto.setAmount(Money.of("1"));
+
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(cardRepository.findByIdAndVisibleTrue(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(toCard.getId())).thenReturn(Optional.of(toCard));
+        when(transferScreening.screen(fromCard.getId(), toCard.getId(), Money.of("1"))).thenReturn(Optional.of("card-testing"));
+        when(transactionRepository.save(any(TransactionEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+        TransactionResponseDTO response = transactionService.transfer(dto);
+
+        assertEquals(TransactionStatus.FLAGGED, response.getStatus());
+        assertEquals(Money.of("500"), fromCard.getBalance());
+        assertEquals(Money.of("0"), toCard.getBalance());
+        verify(cardRepository, never()).save(any());
+        verifyNoInteractions(ledgerService, spendLimitGuard);
+    }
+
+    @Test
+    void Transfer_FeeIsDebitedAndCreditedToCollectionCard() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity fromCard = activeCard(profileId, "500");
+        CardEntity toCard = activeCard(UUID.randomUUID(), "0");
+        CardEntity feeCard = activeCard(UUID.randomUUID(), "0");
+
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(fromCard.getId());
+        dto.setToCardId(toCard.getId());
+        dto.setAmount(Money.of("100"));
+
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(cardRepository.findByIdAndVisibleTrue(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(toCard.getId())).thenReturn(Optional.of(toCard));
+        when(cardRepository.findByIdAndVisibleTrue(feeCard.getId())).thenReturn(Optional.of(feeCard));
+        when(feeEngine.quote(Role.ROLE_USER, fromCard, toCard, Money.of("100"))).thenReturn(new FeeQuote(Money.of("1.50"), "third-party"));
+        when(feeEngine.getCollectionCardId("UZS")).thenReturn(feeCard.getId());
+        when(transactionRepository.save(any(TransactionEntity.class))).thenAnswer(i -> {
+            TransactionEntity saved = i.getArgument(0);
+            if (saved.getId() == null) saved.setId(saved.getFeeFor() == null ? 1 : 2);
+            return saved;
+        });
+
+        TransactionResponseDTO response = transactionService.transfer(dto);
+
+        assertEquals(Money.of("398.50"), fromCard.getBalance());
+        assertEquals(Money.of("100"), toCard.getBalance());
+        assertEquals(Money.of("1.50"), feeCard.getBalance());
+        assertEquals(new BigDecimal("1.50"), response.getFee());
+        verify(transactionRepository).save(argThat(t -> Integer.valueOf(1).equals(t.getFeeFor()) && t.getToCardId() == feeCard));
+        verify(ledgerService, times(2)).recordTransfer(any(TransactionEntity.class));
+        verify(transferOutbox, times(2)).append(any(TransactionEntity.class));
+        verify(spendingAggregator, times(2)).record(any(TransactionEntity.class));
+    }
+
+    @Test
+    void Transfer_FeeIsCollectedOnTheCardOfTheSendersCurrency() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity fromCard = activeCard(profileId, "500");
+        fromCard.setCurrency("USD");
+        CardEntity toCard = activeCard(UUID.randomUUID(), "0");
+        toCard.setCurrency("USD");
+        CardEntity usdFeeCard = activeCard(UUID.randomUUID(), "0");
+        usdFeeCard.setCurrency("USD");
+
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(fromCard.getId());
+        dto.setToCardId(toCard.getId());
+        dto.setAmount(Money.of("100"));
+
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(cardRepository.findByIdAndVisibleTrue(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(toCard.getId())).thenReturn(Optional.of(toCard));
+        when(cardRepository.findByIdAndVisibleTrue(usdFeeCard.getId())).thenReturn(Optional.of(usdFeeCard));
+        when(feeEngine.quote(Role.ROLE_USER, fromCard, toCard, Money.of("100"))).thenReturn(new FeeQuote(Money.of("0.30"), "usd"));
+        when(feeEngine.getCollectionCardId("USD")).thenReturn(usdFeeCard.getId());
+        when(transactionRepository.save(any(TransactionEntity.class))).thenAnswer(i -> {
+            TransactionEntity saved = i.getArgument(0);
+            if (saved.getId() == null) saved.setId(saved.getFeeFor() == null ? 1 : 2);
+            return saved;
+        });
+
+        TransactionResponseDTO response = transactionService.transfer(dto);
+
+        assertEquals(Money.of("399.70"), fromCard.getBalance());
+        assertEquals(Money.of("0.30"), usdFeeCard.getBalance());
+        assertEquals(new BigDecimal("0.30"), response.getFee());
+        verify(transactionRepository).save(argThat(t -> Integer.valueOf(1).equals(t.getFeeFor()) && t.getToCardId() == usdFeeCard));
+    }
+
+    @Test
+    void Transfer_CrossCurrencyCreditsConvertedAmountAndRecordsRate() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity fromCard = activeCard(profileId, "500");
+        CardEntity toCard = activeCard(UUID.randomUUID(), "0");
+        toCard.setCurrency("USD");
+
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(fromCard.getId());
+        dto.setToCardId(toCard.getId());
+        dto.setAmount(Money.of("127"));
+
+        BigDecimal rate = new BigDecimal("0.0787401574803150");
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(cardRepository.findByIdAndVisibleTrue(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(toCard.getId())).thenReturn(Optional.of(toCard));
+        when(fxRateCache.convert("UZS", "USD", Money.of("127"))).thenReturn(new FxConversion(Money.of("9.99"), rate));
+        when(transactionRepository.save(any(TransactionEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+        TransactionResponseDTO response = transactionService.transfer(dto);
+
+        assertEquals(Money.of("373"), fromCard.getBalance());
+        assertEquals(Money.of("9.99"), toCard.getBalance());
+        assertEquals("UZS", response.getCurrency());
+        assertEquals(new BigDecimal("9.99"), response.getCreditAmount());
+        assertEquals(rate, response.getFxRate());
+        verify(ledgerService).recordTransfer(argThat(t -> t.getCreditedAmount().equals(Money.of("9.99"))));
+    }
+
+    @Test
+    void Transfer_MissingRateIsRejectedBeforeAnyWrite() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity fromCard = activeCard(profileId, "500");
+        CardEntity toCard = activeCard(UUID.randomUUID(), "0");
+        toCard.setCurrency("USD");
+
+        TransactionCreateDTO dto = new TransactionCreateDTO();
+        dto.setFromCardId(fromCard.getId());
+        dto.setToCardId(toCard.getId());
+        dto.setAmount(Money.of("127"));
+
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(cardRepository.findByIdAndVisibleTrue(fromCard.getId())).thenReturn(Optional.of(fromCard));
+        when(cardRepository.findByIdAndVisibleTrue(toCard.getId())).thenReturn(Optional.of(toCard));
+        when(fxRateCache.convert("UZS", "USD", Money.of("127"))).thenThrow(new BadException("No exchange rate for UZS/USD"));
+
+        assertThrows(BadException.class, () -> transactionService.transfer(dto));
+
+        assertEquals(Money.of("500"), fromCard.getBalance());
+        verify(spendLimitGuard, never()).count(any(), any());
+        verify(cardRepository, never()).save(any());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void HistoryChanges_PagesSettledRowsThenMovesCursorToOldestRunning() {
+        UUID profileId = UUID.randomUUID();
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(changeRepository.snapshotXmin()).thenReturn(900L);
+        when(changeRepository.findRange(profileId, 100L, 0, 900L, 3))
+                .thenReturn(List.of(change(500, 1), change(500, 2), change(600, 3)));
+
+        TransactionChangesDTO page = transactionService.getHistoryChanges("100-0", 2);
+
+        assertTrue(page.isHasMore());
+        assertEquals("500-2", page.getCursor());
+        assertEquals(List.of(1, 2), page.getChanges().stream().map(TransactionChangeDTO::getId).toList());
+
+        when(changeRepository.findRange(profileId, 500L, 2, 900L, 3)).thenReturn(List.of(change(600, 3)));
+        when(changeRepository.findRange(profileId, 900L, 0, Long.MAX_VALUE, 1)).thenReturn(List.of(change(905, 4)));
+
+        page = transactionService.getHistoryChanges(page.getCursor(), 2);
+
+        // row 4 was written after the oldest running transaction started, the cursor stays before it;
+        // the page is full, so newer rows may have been cut off
+        assertTrue(page.isHasMore());
+        assertEquals("900-0", page.getCursor());
+        assertEquals(List.of(3, 4), page.getChanges().stream().map(TransactionChangeDTO::getId).toList());
+
+        when(changeRepository.findRange(profileId, 900L, 0, Long.MAX_VALUE, 2)).thenReturn(List.of(change(905, 4)));
+
+        page = transactionService.getHistoryChanges(page.getCursor(), 2);
+
+        assertFalse(page.isHasMore());
+        assertEquals("900-0", page.getCursor());
+        assertEquals(List.of(4), page.getChanges().stream().map(TransactionChangeDTO::getId).toList());
+    }
+
+    @Test
+    void HistoryChanges_WithoutCursorReturnsStartingCursorAndRejectsMalformed() {
+        when(SecurityUtil.getID()).thenReturn(UUID.randomUUID());
+        when(changeRepository.snapshotXmin()).thenReturn(900L);
+
+        TransactionChangesDTO start = transactionService.getHistoryChanges(null, 100);
+
+        assertEquals("900-0", start.getCursor());
+        assertTrue(start.getChanges().isEmpty());
+        assertThrows(BadException.class, () -> transactionService.getHistoryChanges("abc", 100));
+        assertThrows(BadException.class, () -> transactionService.getHistoryChanges("-1-0", 100));
+    }
+
+    @Test
+    void Analytics_DefaultsToLastTwelveMonthsOfOwnCard() {
+        UUID profileId = UUID.randomUUID();
+        CardEntity card = activeCard(profileId, "0");
+        when(SecurityUtil.getID()).thenReturn(profileId);
+        when(cardRepository.findByIdAndProfileIdAndVisibleTrue(card.getId(), profileId)).thenReturn(Optional.of(card));
+        LocalDate to = YearMonth.now().atDay(1);
+        LocalDate from = YearMonth.now().minusMonths(11).atDay(1);
+        when(aggregateRepository.findMonthly(card.getId(), from, to)).thenReturn(List.of());
+        when(aggregateRepository.findTopCounterparties(card.getId(), from, to, 50)).thenReturn(List.of());
+
+        CardAnalyticsDTO analytics = transactionService.getAnalytics(card.getId(), null, null, 1000);
+
+        assertEquals("UZS", analytics.getCurrency());
+        assertEquals(YearMonth.now(), analytics.getTo());
+        assertThrows(BadException.class, () -> transactionService.getAnalytics(card.getId(),
+                YearMonth.of(2026, 5), YearMonth.of(2026, 4), 5));
+    }
+
+    private TransactionChangeRepository.Change change(long xid, int id) {
+        return new TransactionChangeRepository.Change(xid, id, UUID.randomUUID(), UUID.randomUUID(), BigDecimal.TEN,
+                "UZS", null, TransactionStatus.SUCCESS, LocalDateTime.now(), null);
+    }
+
+    private CardEntity activeCard(UUID profileId, String balance) {
+        ProfileEntity profile = new ProfileEntity();
+        profile.setId(profileId);
+        CardEntity card = new CardEntity();
+        card.setId(UUID.randomUUID());
+        card.setBalance(Money.of(balance));
+        card.setStatus(CardStatus.ACTIVE);
+        card.setCurrency("UZS");
+        card.setProfile(profile);
+        return card;
+    }
 }
@@ -0,0 +1,112 @@
+package code.uz.bankcard.stats;
+
+import code.uz.bankcard.dto.stats.AdminStatsDTO;
+import code.uz.bankcard.enums.CardStatus;
+import code.uz.bankcard.enums.GeneralStatus;
+import code.uz.bankcard.enums.TransactionStatus;
+import code.uz.bankcard.event.CardStatusCountEvent;
+import code.uz.bankcard.event.PgNotificationBus;
+import code.uz.bankcard.event.ProfileStatusCountEvent;
+import code.uz.bankcard.event.TransferRecordedEvent;
+import code.uz.bankcard.repository.AdminStatsRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdminStatsCountersTest {
+
+    private final AdminStatsRepository statsRepository = mock(AdminStatsRepository.class);
+    private final PgNotificationBus notificationBus = mock(PgNotificationBus.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final AdminStatsCounters counters = new AdminStatsCounters(statsRepository, notificationBus, objectMapper);
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        when(notificationBus.getNodeId()).thenReturn("node-a");
+    }
+
+    @Test
+    void events_AdjustCountsUntilRebuild() {
+        counters.onCardStatusCount(CardStatusCountEvent.issued(3));
+        counters.onCardStatusCount(CardStatusCountEvent.changed(CardStatus.ACTIVE, CardStatus.BLOCKED));
+        counters.onCardStatusCount(CardStatusCountEvent.deleted(CardStatus.BLOCKED));
+        counters.onProfileStatusCount(ProfileStatusCountEvent.registered());
+
+        AdminStatsDTO stats = counters.snapshot();
+        assertEquals(2L, stats.getCardsByStatus().get(CardStatus.ACTIVE));
+        assertEquals(0L, stats.getCardsByStatus().get(CardStatus.BLOCKED));
+        assertEquals(1L, stats.getProfilesByStatus().get(GeneralStatus.ACTIVE));
+        assertNull(stats.getRebuiltAt());
+
+        when(statsRepository.countCardsByStatus()).thenReturn(Map.of(CardStatus.ACTIVE, 10L, CardStatus.EXPIRED, 4L));
+        when(statsRepository.countProfilesByStatus()).thenReturn(Map.of(GeneralStatus.BLOCKED, 1L));
+        when(statsRepository.sumTransfers(today)).thenReturn(List.of(
+                new AdminStatsRepository.TransferTotal(TransactionStatus.SUCCESS, "UZS", 5, new BigDecimal("500.00"))));
+        counters.rebuild();
+
+        stats = counters.snapshot();
+        assertEquals(10L, stats.getCardsByStatus().get(CardStatus.ACTIVE));
+        assertEquals(4L, stats.getCardsByStatus().get(CardStatus.EXPIRED));
+        assertEquals(0L, stats.getProfilesByStatus().get(GeneralStatus.ACTIVE));
+        assertEquals(5, stats.getTransfersSucceeded());
+        assertEquals(new BigDecimal("500.00"), stats.getVolume().get("UZS"));
+        assertNotNull(stats.getRebuiltAt());
+    }
+
+    @Test
+    void transfers_FailureRateAndVolumeOfToday() {
+        counters.onTransferRecorded(new TransferRecordedEvent(TransactionStatus.SUCCESS, "UZS", new BigDecimal("100.00"), today));
+        counters.onTransferRecorded(new TransferRecordedEvent(TransactionStatus.SUCCESS, "UZS", new BigDecimal("50.00"), today));
+        counters.onTransferRecorded(new TransferRecordedEvent(TransactionStatus.FLAGGED, "UZS", new BigDecimal("70.00"), today));
+        counters.onTransferRecorded(TransferRecordedEvent.failed(today));
+        counters.onTransferRecorded(new TransferRecordedEvent(TransactionStatus.SUCCESS, "UZS", BigDecimal.TEN, today.minusDays(1)));
+
+        AdminStatsDTO stats = counters.snapshot();
+        assertEquals(today, stats.getDay());
+        assertEquals(2, stats.getTransfersSucceeded());
+        assertEquals(1, stats.getTransfersFailed());
+        assertEquals(1, stats.getTransfersFlagged());
+        assertEquals(0.25, stats.getFailureRate());
+        assertEquals(new BigDecimal("150.00"), stats.getVolume().get("UZS"));
+    }
+
+    @Test
+    void broadcast_SumsLocalChangesAndOtherNodesApplyThem() {
+        counters.onCardStatusCount(CardStatusCountEvent.issued(2));
+        counters.onCardStatusCount(CardStatusCountEvent.issued(1));
+        counters.onTransferRecorded(new TransferRecordedEvent(TransactionStatus.SUCCESS, "USD", new BigDecimal("1.50"), today));
+        counters.broadcast();
+        counters.broadcast();
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(notificationBus, times(1)).notify(eq(AdminStatsCounters.CHANNEL), payload.capture());
+        assertTrue(payload.getValue().startsWith("node-a:"));
+
+        // the own message is ignored
+        counters.onNotification(payload.getValue());
+        assertEquals(3L, counters.snapshot().getCardsByStatus().get(CardStatus.ACTIVE));
+
+        PgNotificationBus otherBus = mock(PgNotificationBus.class);
+        when(otherBus.getNodeId()).thenReturn("node-b");
+        AdminStatsCounters other = new AdminStatsCounters(statsRepository, otherBus, objectMapper);
+        other.onNotification(payload.getValue());
+
+        AdminStatsDTO stats = other.snapshot();
+        assertEquals(3L, stats.getCardsByStatus().get(CardStatus.ACTIVE));
+        assertEquals(1, stats.getTransfersSucceeded());
+        assertEquals(new BigDecimal("1.50"), stats.getVolume().get("USD"));
+        // changes received from other nodes are not sent on
+        other.broadcast();
+        verify(otherBus, never()).notify(anyString(), anyString());
+    }
+}
@@ -0,0 +1,175 @@
+package code.uz.bankcard.stream;
+
+import code.uz.bankcard.cache.CardCacheEntry;
+import code.uz.bankcard.enums.CardStatus;
+import code.uz.bankcard.event.CardChangedEvent;
+import code.uz.bankcard.event.PgNotificationBus;
+import code.uz.bankcard.exception.NotFoundException;
+import code.uz.bankcard.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CardStreamHubTest {
+
+    private final PgNotificationBus notificationBus = mock(PgNotificationBus.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CardStreamHub hub = new CardStreamHub(notificationBus, meterRegistry,
+            Duration.ofMinutes(1), Duration.ofMinutes(1), Duration.ofMillis(50), Duration.ofSeconds(10), 2, 2, 3);
+
+    @SuppressWarnings("unchecked")
+    private final Function<UUID, CardCacheEntry> loader = mock(Function.class);
+    private final UUID profileId = UUID.randomUUID();
+    private final UUID cardId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        when(notificationBus.getNodeId()).thenReturn("node-a");
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.stop();
+    }
+
+    @Test
+    void localStatusChange_AppliedOntoSnapshotWithoutReload() throws Exception {
+        hub.subscribe(profileId, Map.of(cardId, entry("100.00")), loader);
+        hub.awaitDispatch();
+
+        hub.onCardChanged(CardChangedEvent.status(cardId, CardStatus.BLOCKED));
+        hub.onCardChanged(CardChangedEvent.status(UUID.randomUUID(), CardStatus.BLOCKED));
+        hub.awaitDispatch();
+
+        CardCacheEntry state = hub.lastState(cardId);
+        assertEquals(new BigDecimal("100.00"), state.getBalance());
+        assertEquals(CardStatus.BLOCKED, state.getStatus());
+        // the snapshot and the change
+        assertEquals(2, meterRegistry.counter("card.stream.pushed").count());
+        verifyNoInteractions(loader);
+    }
+
+    @Test
+    void localBalanceChange_ReadsCommittedCardInsteadOfEventBalance() throws Exception {
+        hub.subscribe(profileId, Map.of(cardId, entry("100.00")), loader);
+        hub.awaitDispatch();
+        when(loader.apply(cardId)).thenReturn(entry("40.00").withStatus(CardStatus.BLOCKED));
+
+        // listeners of two transfers ran out of commit order: the older balance arrives last
+        hub.onCardChanged(CardChangedEvent.balance(cardId, new BigDecimal("40.00")));
+        hub.onCardChanged(CardChangedEvent.balance(cardId, new BigDecimal("70.00")));
+        hub.onCardChanged(CardChangedEvent.status(cardId, CardStatus.BLOCKED));
+        hub.awaitDispatch();
+
+        CardCacheEntry state = hub.lastState(cardId);
+        assertEquals(new BigDecimal("40.00"), state.getBalance());
+        assertEquals(CardStatus.BLOCKED, state.getStatus());
+        // the snapshot and one coalesced change read once
+        assertEquals(2, meterRegistry.counter("card.stream.pushed").count());
+        verify(loader, times(1)).apply(cardId);
+    }
+
+    @Test
+    void remoteChange_ReloadsCardAndSkipsOwnNode() throws Exception {
+        hub.subscribe(profileId, Map.of(cardId, entry("100.00")), loader);
+        when(loader.apply(cardId)).thenReturn(entry("40.00"));
+
+        hub.onNotification("node-a:" + cardId);
+        hub.awaitDispatch();
+        verifyNoInteractions(loader);
+
+        hub.onNotification("node-b:" + cardId);
+        hub.awaitDispatch();
+        assertEquals(new BigDecimal("40.00"), hub.lastState(cardId).getBalance());
+
+        when(loader.apply(cardId)).thenThrow(new NotFoundException("Card not found"));
+        hub.onNotification("node-b:" + cardId);
+        hub.awaitDispatch();
+        assertNull(hub.lastState(cardId));
+    }
+
+    @Test
+    void subscribe_ClosesOldestOfProfileAndRefusesOverLimit() {
+        hub.subscribe(profileId, Map.of(cardId, entry("1.00")), loader);
+        hub.subscribe(profileId, Map.of(cardId, entry("1.00")), loader);
+        hub.subscribe(profileId, Map.of(cardId, entry("1.00")), loader);
+        assertEquals(2, hub.subscriberCount());
+
+        hub.subscribe(UUID.randomUUID(), Map.of(), loader);
+        assertThrows(TooManyRequestsException.class, () -> hub.subscribe(UUID.randomUUID(), Map.of(), loader));
+    }
+
+    @Test
+    void blockedClient_DoesNotHoldUpOtherStreamsAndIsDropped() throws Exception {
+        CountDownLatch unblock = new CountDownLatch(1);
+        SseEmitter blocked = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                // a client with a full TCP window
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+        };
+        BlockingQueue<SseEmitter.SseEventBuilder> received = new LinkedBlockingQueue<>();
+        SseEmitter reading = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                received.add(builder);
+            }
+        };
+        Queue<SseEmitter> emitters = new ArrayDeque<>(List.of(blocked, reading));
+        CardStreamHub slowHub = new CardStreamHub(notificationBus, meterRegistry, Duration.ofMinutes(1), Duration.ofMinutes(1),
+                Duration.ofMillis(10), Duration.ofMillis(200), 2, 2, 3) {
+            @Override
+            SseEmitter createEmitter() {
+                return emitters.poll();
+            }
+        };
+        slowHub.start();
+        try {
+            slowHub.subscribe(profileId, Map.of(cardId, entry("100.00")), loader);
+            slowHub.subscribe(UUID.randomUUID(), Map.of(cardId, entry("100.00")), loader);
+            slowHub.onCardChanged(CardChangedEvent.status(cardId, CardStatus.BLOCKED));
+
+            // the snapshot and the change, while the other stream is stuck on its snapshot
+            assertNotNull(received.poll(5, TimeUnit.SECONDS));
+            assertNotNull(received.poll(5, TimeUnit.SECONDS));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (slowHub.subscriberCount() > 1 && System.nanoTime() < deadline) Thread.sleep(10);
+            assertEquals(1, slowHub.subscriberCount());
+            assertEquals(1, meterRegistry.counter("card.stream.dropped").count());
+        } finally {
+            unblock.countDown();
+            slowHub.stop();
+        }
+    }
+
+    private CardCacheEntry entry(String balance) {
+        return new CardCacheEntry(profileId, "OWNER", "8600 **** **** 0001", new BigDecimal(balance), "UZS",
+                CardStatus.ACTIVE, LocalDateTime.now().plusYears(3));
+    }
+}
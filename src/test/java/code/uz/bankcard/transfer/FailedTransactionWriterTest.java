@@ -0,0 +1,79 @@
+package code.uz.bankcard.transfer;
+
+import code.uz.bankcard.event.TransferRecordedEvent;
+import code.uz.bankcard.money.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FailedTransactionWriterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<FailedTransactionWriter.FailedAttempt> written = new ArrayList<>();
+
+    private FailedTransactionWriter writer(FailedTransactionWriter.OverflowPolicy overflow) {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(i -> {
+                    written.addAll(i.getArgument(1));
+                    return new int[0][];
+                });
+        return new FailedTransactionWriter(jdbcTemplate, eventPublisher, meterRegistry, 2, 10, Duration.ofMillis(10), overflow, Duration.ofMillis(5));
+    }
+
+    @Test
+    void dropOldest_KeepsNewestRecords() throws InterruptedException {
+        FailedTransactionWriter writer = writer(FailedTransactionWriter.OverflowPolicy.DROP_OLDEST);
+
+        writer.record(UUID.randomUUID(), UUID.randomUUID(), Money.of("1"));
+        writer.record(UUID.randomUUID(), UUID.randomUUID(), Money.of("2"));
+        writer.record(UUID.randomUUID(), UUID.randomUUID(), Money.of("3"));
+        writer.stop();
+
+        assertEquals(List.of(Money.of("2"), Money.of("3")),
+                written.stream().map(FailedTransactionWriter.FailedAttempt::amount).toList());
+        assertEquals(1, meterRegistry.get("transfer.failed-writer.dropped").counter().count());
+        // only written records are counted in the admin statistics
+        verify(eventPublisher, times(2)).publishEvent(any(TransferRecordedEvent.class));
+    }
+
+    @Test
+    void dropNewest_KeepsQueuedRecords() throws InterruptedException {
+        FailedTransactionWriter writer = writer(FailedTransactionWriter.OverflowPolicy.DROP_NEWEST);
+
+        writer.record(UUID.randomUUID(), UUID.randomUUID(), Money.of("1"));
+        writer.record(UUID.randomUUID(), UUID.randomUUID(), Money.of("2"));
+        writer.record(UUID.randomUUID(), UUID.randomUUID(), Money.of("3"));
+        writer.stop();
+
+        assertEquals(List.of(Money.of("1"), Money.of("2")),
+                written.stream().map(FailedTransactionWriter.FailedAttempt::amount).toList());
+    }
+
+    @Test
+    void backgroundFlusher_WritesInBatches() throws InterruptedException {
+        FailedTransactionWriter writer = writer(FailedTransactionWriter.OverflowPolicy.BLOCK);
+        writer.start();
+
+        for (int i = 0; i < 20; i++) writer.record(UUID.randomUUID(), UUID.randomUUID(), Money.of("1"));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (written.size() < 20 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        writer.stop();
+
+        assertEquals(20, written.size());
+        assertEquals(0, writer.queued());
+    }
+}
@@ -0,0 +1,238 @@
+package code.uz.bankcard.transfer;
+
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.exception.NotFoundException;
+import code.uz.bankcard.money.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GroupCommitTransferEngineTest {
+
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final Session session = mock(Session.class);
+    private final AtomicInteger commits = new AtomicInteger();
+    private final AtomicInteger failingCommits = new AtomicInteger();
+    // rows written by the open transaction and rows committed, with savepoints on the open ones
+    private final List<String> written = new ArrayList<>();
+    private final List<String> committed = new ArrayList<>();
+    private int savepoint;
+    private GroupCommitTransferEngine engine;
+
+    private GroupCommitTransferEngine engine(boolean enabled) {
+        doAnswer(i -> {
+            written.clear();
+            i.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            if (failingCommits.getAndDecrement() > 0) throw new IllegalStateException("could not serialize access");
+            committed.addAll(written);
+            commits.incrementAndGet();
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        doAnswer(i -> {
+            String sql = i.getArgument(0);
+            if (sql.startsWith("savepoint")) savepoint = written.size();
+            if (sql.startsWith("rollback to savepoint")) written.subList(savepoint, written.size()).clear();
+            return null;
+        }).when(jdbcTemplate).execute(anyString());
+
+        engine = new GroupCommitTransferEngine(transactionTemplate, jdbcTemplate, new SimpleMeterRegistry(),
+                enabled, 50, Duration.ofMillis(20), 1000, Duration.ofSeconds(5));
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        ReflectionTestUtils.setField(engine, "entityManager", entityManager);
+        return engine;
+    }
+
+    private static CardEntity card(UUID id, long balance, long version) {
+        CardEntity card = new CardEntity();
+        card.setId(id);
+        card.setBalance(Money.ofMinor(balance));
+        card.setVersion(version);
+        return card;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<Object[]> netUpdates() {
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("update card set balance = balance + ?"), (List<Object[]>) captor.capture());
+        return captor.getValue();
+    }
+
+    private GroupCommitTransferEngine.PendingTransfer<String> writing(String row) {
+        return new GroupCommitTransferEngine.PendingTransfer<>(() -> {
+            written.add(row);
+            return row;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (engine != null) engine.stop();
+    }
+
+    @Test
+    void submit_ConcurrentTransfersShareCommits() {
+        engine(true).start();
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            int value = i;
+            results.add(CompletableFuture.supplyAsync(() -> engine.submit(() -> value)));
+        }
+
+        for (int i = 0; i < 40; i++) assertEquals(i, results.get(i).join());
+        assertTrue(commits.get() < 40, "expected batched commits, got " + commits.get());
+    }
+
+    @Test
+    void process_BusinessErrorFailsOnlyItsOwnTransfer() {
+        engine(false);
+        GroupCommitTransferEngine.PendingTransfer<String> ok = new GroupCommitTransferEngine.PendingTransfer<>(() -> "ok");
+        GroupCommitTransferEngine.PendingTransfer<String> poor = new GroupCommitTransferEngine.PendingTransfer<>(() -> {
+            throw new BadException("Insufficient balance");
+        });
+
+        engine.process(List.of(ok, poor));
+
+        assertEquals(1, commits.get());
+        assertEquals("ok", ok.future().join());
+        assertTrue(poor.future().isCompletedExceptionally());
+    }
+
+    @Test
+    void process_TransferFailingAfterWriteIsRolledBackToItsSavepoint() {
+        engine(false);
+        GroupCommitTransferEngine.PendingTransfer<String> first = writing("first");
+        GroupCommitTransferEngine.PendingTransfer<String> noFeeCard = new GroupCommitTransferEngine.PendingTransfer<>(() -> {
+            written.add("debit");
+            throw new NotFoundException("Fee collection card not found");
+        });
+        GroupCommitTransferEngine.PendingTransfer<String> flushFails = writing("conflict");
+        GroupCommitTransferEngine.PendingTransfer<String> last = writing("last");
+        doNothing().doThrow(new IllegalStateException("row was updated by another transaction")).doNothing()
+                .when(entityManager).flush();
+
+        engine.process(List.of(first, noFeeCard, flushFails, last));
+
+        assertEquals(1, commits.get());
+        assertEquals(List.of("first", "last"), committed);
+        assertEquals("first", first.future().join());
+        assertEquals("last", last.future().join());
+        assertTrue(noFeeCard.future().isCompletedExceptionally());
+        assertTrue(flushFails.future().isCompletedExceptionally());
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void process_FailedCommitRetriesAllButRejectedTransfersOneByOne() {
+        engine(false);
+        failingCommits.set(1);
+        AtomicInteger rejectedRuns = new AtomicInteger();
+        GroupCommitTransferEngine.PendingTransfer<String> poor = new GroupCommitTransferEngine.PendingTransfer<>(() -> {
+            rejectedRuns.incrementAndGet();
+            throw new BadException("Insufficient balance");
+        });
+        AtomicInteger attempts = new AtomicInteger();
+        GroupCommitTransferEngine.PendingTransfer<String> flaky = new GroupCommitTransferEngine.PendingTransfer<>(() -> {
+            written.add("flaky");
+            if (attempts.incrementAndGet() == 2) throw new IllegalStateException("deadlock detected");
+            return "flaky";
+        });
+        GroupCommitTransferEngine.PendingTransfer<String> ok = writing("ok");
+
+        engine.process(List.of(poor, flaky, ok));
+
+        assertEquals(1, rejectedRuns.get());
+        assertTrue(poor.future().isCompletedExceptionally());
+        // the retry of flaky failed after its write, its own transaction rolled back
+        assertTrue(flaky.future().isCompletedExceptionally());
+        assertEquals("ok", ok.future().join());
+        assertEquals(List.of("ok"), committed);
+    }
+
+    @Test
+    void process_BalanceChangesAreNettedIntoOneUpdatePerCard() {
+        engine(false);
+        UUID payerId = UUID.randomUUID();
+        UUID payeeId = UUID.randomUUID();
+        CardEntity payer = card(payerId, 10_000, 3);
+        CardEntity payee = card(payeeId, 500, 7);
+        // the failed transfer clears the persistence context, the payer is loaded again as stored
+        CardEntity reloadedPayer = card(payerId, 10_000, 3);
+        when(entityManager.find(CardEntity.class, payerId)).thenReturn(reloadedPayer);
+        when(entityManager.find(CardEntity.class, payeeId)).thenReturn(payee);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1});
+
+        GroupCommitTransferEngine.PendingTransfer<String> first = new GroupCommitTransferEngine.PendingTransfer<>(() -> {
+            engine.net(payer, Money.ofMinor(-3_000));
+            engine.net(payee, Money.ofMinor(3_000));
+            return "first";
+        });
+        GroupCommitTransferEngine.PendingTransfer<String> poor = new GroupCommitTransferEngine.PendingTransfer<>(() -> {
+            engine.net(payer, Money.ofMinor(-2_000));
+            throw new NotFoundException("Fee collection card not found");
+        });
+        GroupCommitTransferEngine.PendingTransfer<String> last = new GroupCommitTransferEngine.PendingTransfer<>(() -> {
+            engine.net(reloadedPayer, Money.ofMinor(-1_000));
+            engine.net(payee, Money.ofMinor(1_000));
+            return "last";
+        });
+
+        engine.process(List.of(first, poor, last));
+
+        assertEquals("first", first.future().join());
+        assertTrue(poor.future().isCompletedExceptionally());
+        assertEquals("last", last.future().join());
+        assertEquals(Money.ofMinor(6_000), reloadedPayer.getBalance());
+        List<Object[]> updates = netUpdates();
+        assertEquals(2, updates.size());
+        assertArrayEquals(new Object[]{Money.ofMinor(-4_000).toBigDecimal(), payerId, 3L}, updates.get(0));
+        assertArrayEquals(new Object[]{Money.ofMinor(4_000).toBigDecimal(), payeeId, 7L}, updates.get(1));
+        // cards are kept out of the per-transfer flushes
+        verify(session).setReadOnly(payer, true);
+        verify(session).setReadOnly(reloadedPayer, true);
+        assertFalse(engine.isBatching());
+    }
+
+    @Test
+    void process_CardChangedSinceLoadRetriesOneByOne() {
+        engine(false);
+        CardEntity payer = card(UUID.randomUUID(), 10_000, 3);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0});
+        List<Boolean> batching = new ArrayList<>();
+        GroupCommitTransferEngine.PendingTransfer<String> debit = new GroupCommitTransferEngine.PendingTransfer<>(() -> {
+            batching.add(engine.isBatching());
+            if (engine.isBatching()) engine.net(payer, Money.ofMinor(-1_000));
+            return "debit";
+        });
+        GroupCommitTransferEngine.PendingTransfer<String> other = writing("other");
+
+        engine.process(List.of(debit, other));
+
+        assertEquals(List.of(true, false), batching);
+        assertEquals("debit", debit.future().join());
+        assertEquals("other", other.future().join());
+        assertEquals(List.of("other"), committed);
+    }
+}
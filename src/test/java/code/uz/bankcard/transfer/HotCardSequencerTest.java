@@ -0,0 +1,148 @@
+package code.uz.bankcard.transfer;
+
+import code.uz.bankcard.analytics.SpendingAggregator;
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.entity.TransactionEntity;
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.outbox.TransferOutbox;
+import code.uz.bankcard.repository.CardJournalRepository;
+import code.uz.bankcard.repository.TransactionRepository;
+import code.uz.bankcard.service.LedgerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HotCardSequencerTest {
+
+    private final CardJournalRepository journalRepository = mock(CardJournalRepository.class);
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final FailedTransactionWriter failedTransactionWriter = mock(FailedTransactionWriter.class);
+    private final LedgerService ledgerService = mock(LedgerService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    private final UUID hotId = UUID.randomUUID();
+    private HotCardSequencer sequencer;
+    private HotCardSequencer.Shard shard;
+
+    @BeforeEach
+    void setup() {
+        doAnswer(i -> {
+            i.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(transactionRepository.save(any(TransactionEntity.class))).thenAnswer(i -> i.getArgument(0));
+        when(journalRepository.isSequencerOwner(anyInt(), eq(42))).thenReturn(true);
+        when(journalRepository.loadBalances(any())).thenReturn(Map.of(hotId, 10_000L));
+
+        sequencer = new HotCardSequencer(journalRepository, transactionRepository, failedTransactionWriter, ledgerService,
+                mock(TransferOutbox.class), mock(SpendingAggregator.class), mock(ApplicationEventPublisher.class), transactionTemplate, mock(DataSource.class), new SimpleMeterRegistry(),
+                true, hotId.toString(), 2, 16, 100, Duration.ofSeconds(1), 1000, Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(sequencer, "ownerPid", 42);
+        shard = sequencer.shardOf(hotId);
+        shard.reload();
+    }
+
+    @Test
+    void process_DebitsAreCheckedAgainstMemoryAndJournaled() throws Exception {
+        HotCardSequencer.HotTransfer first = transfer("60.00");
+        HotCardSequencer.HotTransfer second = transfer("50.00");
+
+        shard.process(List.of(first, second));
+
+        assertNotNull(first.future().get());
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> second.future().get());
+        assertEquals("Insufficient balance", rejected.getCause().getMessage());
+        assertEquals(4_000L, shard.balance(hotId));
+        verify(journalRepository).append(argThat(entries -> entries.size() == 2
+                && entries.get(0).cardId().equals(hotId) && entries.get(0).amount().equals(Money.of("-60.00"))));
+        verify(failedTransactionWriter).record(eq(hotId), any(), eq(Money.of("50.00")));
+    }
+
+    @Test
+    void process_FeeIsDebitedWithTheAmountAndJournaledToCollectionCard() throws Exception {
+        AtomicInteger ids = new AtomicInteger();
+        when(transactionRepository.save(any(TransactionEntity.class))).thenAnswer(i -> {
+            TransactionEntity saved = i.getArgument(0);
+            saved.setId(ids.incrementAndGet());
+            return saved;
+        });
+        CardEntity feeCard = card(UUID.randomUUID());
+        HotCardSequencer.HotTransfer paid = new HotCardSequencer.HotTransfer(card(hotId), card(UUID.randomUUID()),
+                Money.of("60.00"), feeCard, Money.of("1.50"));
+        // 38.50 left covers the amount but not amount plus fee
+        HotCardSequencer.HotTransfer shortOfFee = new HotCardSequencer.HotTransfer(card(hotId), card(UUID.randomUUID()),
+                Money.of("38.00"), feeCard, Money.of("1.50"));
+
+        shard.process(List.of(paid, shortOfFee));
+
+        assertEquals(1, paid.future().get().getId());
+        assertThrows(ExecutionException.class, () -> shortOfFee.future().get());
+        assertEquals(3_850L, shard.balance(hotId));
+        verify(transactionRepository).save(argThat(t -> Integer.valueOf(1).equals(t.getFeeFor()) && t.getToCardId() == feeCard));
+        verify(journalRepository).append(argThat(entries -> entries.size() == 4
+                && entries.get(2).cardId().equals(hotId) && entries.get(2).amount().equals(Money.of("-1.50"))
+                && entries.get(3).cardId().equals(feeCard.getId()) && entries.get(3).amount().equals(Money.of("1.50"))));
+        verify(ledgerService, times(2)).recordTransfer(any(TransactionEntity.class));
+    }
+
+    @Test
+    void process_FailedCommitReleasesReservedBalance() {
+        doThrow(new IllegalStateException("db down")).when(journalRepository).append(any());
+        HotCardSequencer.HotTransfer transfer = transfer("60.00");
+
+        shard.process(List.of(transfer));
+
+        assertThrows(ExecutionException.class, () -> transfer.future().get());
+        assertEquals(10_000L, shard.balance(hotId));
+    }
+
+    @Test
+    void process_LostOwnershipRejectsBatch() {
+        ReflectionTestUtils.setField(sequencer, "ownerPid", 7);
+        HotCardSequencer.HotTransfer transfer = transfer("10.00");
+
+        shard.process(List.of(transfer));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> transfer.future().get());
+        assertInstanceOf(BadException.class, e.getCause());
+        assertEquals(10_000L, shard.balance(hotId));
+        verify(journalRepository, never()).append(any());
+    }
+
+    @Test
+    void transfer_NotOwner() {
+        ReflectionTestUtils.setField(sequencer, "ownerPid", 0);
+
+        BadException e = assertThrows(BadException.class,
+                () -> sequencer.transfer(card(hotId), card(UUID.randomUUID()), Money.of("10"), null, Money.ZERO));
+        assertEquals("Card is served by another node, try again later", e.getMessage());
+    }
+
+    private HotCardSequencer.HotTransfer transfer(String amount) {
+        return new HotCardSequencer.HotTransfer(card(hotId), card(UUID.randomUUID()), Money.of(amount), null, Money.ZERO);
+    }
+
+    private CardEntity card(UUID id) {
+        CardEntity card = new CardEntity();
+        card.setId(id);
+        return card;
+    }
+}
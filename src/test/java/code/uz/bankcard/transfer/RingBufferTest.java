@@ -0,0 +1,71 @@
+package code.uz.bankcard.transfer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTest {
+
+    @Test
+    void capacityIsRoundedToPowerOfTwo() {
+        assertEquals(8, new RingBuffer<Integer>(5).capacity());
+        assertEquals(8, new RingBuffer<Integer>(8).capacity());
+    }
+
+    @Test
+    void offer_RejectsWhenFullAndKeepsOrder() {
+        RingBuffer<Integer> ring = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) assertTrue(ring.offer(i));
+        assertFalse(ring.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, ring.drainTo(drained, 3));
+        assertTrue(ring.offer(4));
+        ring.drainTo(drained, 10);
+
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void concurrentProducers_EveryElementDrainedOnce() throws InterruptedException {
+        RingBuffer<Integer> ring = new RingBuffer<>(64);
+        int producers = 4;
+        int perProducer = 10_000;
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(base + i)) Thread.onSpinWait();
+                }
+                done.countDown();
+            }).start();
+        }
+
+        boolean[] seen = new boolean[producers * perProducer];
+        int[] lastOfProducer = new int[producers];
+        Arrays.fill(lastOfProducer, -1);
+        List<Integer> batch = new ArrayList<>();
+        int received = 0;
+        while (received < seen.length) {
+            if (ring.drainTo(batch, 32) == 0) ring.await(1, TimeUnit.MILLISECONDS);
+            for (int value : batch) {
+                assertFalse(seen[value]);
+                seen[value] = true;
+                int producer = value / perProducer;
+                assertTrue(value > lastOfProducer[producer], "order of one producer must be kept");
+                lastOfProducer[producer] = value;
+            }
+            received += batch.size();
+            batch.clear();
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+}
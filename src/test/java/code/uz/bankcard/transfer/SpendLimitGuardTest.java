@@ -0,0 +1,84 @@
+package code.uz.bankcard.transfer;
+
+import code.uz.bankcard.entity.CardEntity;
+import code.uz.bankcard.exception.BadException;
+import code.uz.bankcard.money.Money;
+import code.uz.bankcard.repository.CardSpendCounterRepository;
+import code.uz.bankcard.repository.CardSpendCounterRepository.Spent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SpendLimitGuardTest {
+
+    private final CardSpendCounterRepository counterRepository = mock(CardSpendCounterRepository.class);
+    private final SpendLimitGuard guard = new SpendLimitGuard(counterRepository, 100, Duration.ofMinutes(10));
+
+    @Test
+    void consume_CardWithoutLimitsIsNotCounted() {
+        guard.consume(card(null, null), Money.of("1000"));
+
+        verifyNoInteractions(counterRepository);
+    }
+
+    @Test
+    void consume_CounterAtLimitRejects() {
+        CardEntity card = card("100", "1000");
+        when(counterRepository.add(eq(card.getId()), any(), any(), eq(Money.of("30")), eq(Money.of("100")), eq(Money.of("1000"))))
+                .thenReturn(List.of(new Spent(CardSpendCounterRepository.MONTH, Money.of("520"))));
+
+        BadException exception = assertThrows(BadException.class, () -> guard.consume(card, Money.of("30")));
+
+        assertEquals("Daily spending limit exceeded", exception.getMessage());
+    }
+
+    @Test
+    void consume_RememberedTotalsRejectWithoutDatabase() {
+        CardEntity card = card("100", null);
+        when(counterRepository.add(eq(card.getId()), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(new Spent(CardSpendCounterRepository.DAY, Money.of("80")),
+                        new Spent(CardSpendCounterRepository.MONTH, Money.of("80"))));
+
+        guard.consume(card, Money.of("80"));
+        assertThrows(BadException.class, () -> guard.consume(card, Money.of("30")));
+
+        verify(counterRepository, times(1)).add(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void consume_SingleTransferAboveLimitNeverReachesDatabase() {
+        BadException exception = assertThrows(BadException.class, () -> guard.consume(card(null, "50"), Money.of("60")));
+
+        assertEquals("Monthly spending limit exceeded", exception.getMessage());
+        verifyNoInteractions(counterRepository);
+    }
+
+    @Test
+    void precheck_RememberedTotalsRejectBeforeCounting() {
+        CardEntity card = card("100", null);
+        when(counterRepository.add(eq(card.getId()), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(new Spent(CardSpendCounterRepository.DAY, Money.of("80")),
+                        new Spent(CardSpendCounterRepository.MONTH, Money.of("80"))));
+
+        guard.precheck(card, Money.of("80"));
+        guard.count(card, Money.of("80"));
+
+        assertThrows(BadException.class, () -> guard.precheck(card, Money.of("30")));
+        guard.precheck(card, Money.of("20"));
+        verify(counterRepository, times(1)).add(any(), any(), any(), any(), any(), any());
+    }
+
+    private CardEntity card(String dailyLimit, String monthlyLimit) {
+        CardEntity card = new CardEntity();
+        card.setId(UUID.randomUUID());
+        card.setDailyLimit(dailyLimit == null ? null : Money.of(dailyLimit));
+        card.setMonthlyLimit(monthlyLimit == null ? null : Money.of(monthlyLimit));
+        return card;
+    }
+}
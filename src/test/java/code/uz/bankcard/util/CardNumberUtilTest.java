@@ -0,0 +1,31 @@
+package code.uz.bankcard.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardNumberUtilTest {
+
+    @Test
+    void isValid_KnownNumbers() {
+        assertTrue(CardNumberUtil.isValid("4111111111111111"));
+        assertTrue(CardNumberUtil.isValid("5555555555554444"));
+        assertFalse(CardNumberUtil.isValid("4111111111111112"));
+        assertFalse(CardNumberUtil.isValid("4111-1111-1111-1111"));
+        assertFalse(CardNumberUtil.isValid(null));
+    }
+
+    @Test
+    void generate_LuhnValidWithBin() {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            String number = CardNumberUtil.generate("860031", random);
+
+            assertEquals(16, number.length());
+            assertTrue(number.startsWith("860031"));
+            assertTrue(CardNumberUtil.isValid(number));
+        }
+    }
+}